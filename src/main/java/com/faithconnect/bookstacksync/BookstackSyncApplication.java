@@ -1,13 +1,7 @@
 package com.faithconnect.bookstacksync;
 
-import com.faithconnect.bookstacksync.interceptor.LoggingInterceptor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.context.annotation.Bean;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class BookstackSyncApplication {
@@ -15,12 +9,4 @@ public class BookstackSyncApplication {
     public static void main(String[] args) {
         SpringApplication.run(BookstackSyncApplication.class, args);
     }
-
-    @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder
-                .requestFactory(() -> new BufferingClientHttpRequestFactory(new SimpleClientHttpRequestFactory()))
-                .additionalInterceptors(new LoggingInterceptor())
-                .build();
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
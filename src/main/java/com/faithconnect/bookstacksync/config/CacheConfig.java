@@ -0,0 +1,20 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.service.SourceReadCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the source read cache and the export cache.
+ */
+@Configuration
+@EnableConfigurationProperties({CacheProperties.class, ExportCacheProperties.class})
+public class CacheConfig {
+
+    @Bean
+    public SourceReadCache sourceReadCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        return new SourceReadCache(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the cache of books, chapters and pages read from source instances.
+ * Bound from the {@code bookstack.cache.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.cache")
+public class CacheProperties {
+
+    /**
+     * Whether source reads are cached at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a cached read is served before it is revalidated with the instance.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * How long a stale entry is kept after its TTL, so it can be revalidated rather than fetched again.
+     */
+    private Duration retention = Duration.ofHours(1);
+
+    /**
+     * Approximate upper bound on the memory held by cached entries; least recently used entries are evicted first.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+}
@@ -0,0 +1,30 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the on-disk cache of books, chapters and pages exported from source instances.
+ * Bound from the {@code bookstack.export-cache.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.export-cache")
+public class ExportCacheProperties {
+
+    /**
+     * Whether exports are cached at all; if not, every export is streamed from the instance.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directory holding the cached export files.
+     */
+    private String dir = "data/exports";
+
+    /**
+     * Upper bound on the total size of the cached files; least recently served exports are evicted first.
+     * An export larger than this is served without being cached.
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+}
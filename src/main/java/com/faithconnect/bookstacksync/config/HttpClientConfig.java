@@ -0,0 +1,140 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.interceptor.LoggingInterceptor;
+import com.faithconnect.bookstacksync.interceptor.RateLimitingInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the outbound HTTP client used to talk to BookStack instances.
+ * The client engine and its pool/timeout settings are selected through the {@code bookstack.http.*} properties.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, RateLimitProperties.class, LoggingProperties.class})
+public class HttpClientConfig {
+
+    @Bean
+    public ClientHttpRequestFactory bookStackRequestFactory(HttpClientProperties properties) {
+        return createRequestFactory(properties);
+    }
+
+    /**
+     * Shared by the {@link RestTemplate} and the requests with streamed bodies that bypass its interceptors.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "bookstack.ratelimit", name = "enabled", matchIfMissing = true)
+    public RateLimitingInterceptor rateLimitingInterceptor(RateLimitProperties rateLimitProperties) {
+        return new RateLimitingInterceptor(rateLimitProperties);
+    }
+
+    /**
+     * A bean so that its log writer thread is stopped on shutdown.
+     */
+    @Bean(destroyMethod = "close")
+    public LoggingInterceptor loggingInterceptor(LoggingProperties loggingProperties) {
+        return new LoggingInterceptor(loggingProperties);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory bookStackRequestFactory,
+                                     ObjectProvider<RateLimitingInterceptor> rateLimitingInterceptor,
+                                     LoggingInterceptor loggingInterceptor) {
+        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
+        // Interceptors run in list order, so the rate limit is waited for before the logging interceptor starts
+        // timing the request
+        rateLimitingInterceptor.ifAvailable(interceptors::add);
+        interceptors.add(loggingInterceptor);
+        return builder
+                // Responses stream; the logging interceptor reads only the part it logs
+                .requestFactory(() -> bookStackRequestFactory)
+                .additionalInterceptors(interceptors)
+                .build();
+    }
+
+    /**
+     * Create the request factory for the configured engine.
+     *
+     * @param properties The HTTP client settings
+     * @return A request factory; the pooled variant must be destroyed to release its connections
+     */
+    public static ClientHttpRequestFactory createRequestFactory(HttpClientProperties properties) {
+        if (properties.getEngine() == HttpClientProperties.Engine.SIMPLE) {
+            log.info("Using simple HTTP client engine");
+            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+            factory.setConnectTimeout(properties.getConnectTimeout());
+            factory.setReadTimeout(properties.getReadTimeout());
+            return factory;
+        }
+
+        log.info("Using pooled HTTP client engine (max {} connections, {} per route)",
+                properties.getMaxConnections(), properties.getMaxConnectionsPerRoute());
+        return new HttpComponentsClientHttpRequestFactory(createPooledHttpClient(properties));
+    }
+
+    private static CloseableHttpClient createPooledHttpClient(HttpClientProperties properties) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                .build();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+
+        // The default keep-alive strategy honours the server's Keep-Alive header and falls back to this value
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .setDefaultKeepAlive(properties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRetryStrategy(new IoRetryStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getMaxIdleTime()))
+                .build();
+    }
+
+    /**
+     * The default retry strategy, minus its retries of 429 and 503 responses: those would sleep for the whole
+     * {@code Retry-After} inside the client, out of sight of the {@link RateLimitingInterceptor}.
+     */
+    private static class IoRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+        @Override
+        public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the outbound HTTP client used to talk to BookStack instances.
+ * Bound from the {@code bookstack.http.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.http")
+public class HttpClientProperties {
+
+    /**
+     * The client behind {@code BookStackApiService}: the blocking RestTemplate, or the non-blocking WebClient.
+     */
+    private Client client = Client.BLOCKING;
+
+    /**
+     * The client engine backing the RestTemplate (blocking client only).
+     */
+    private Engine engine = Engine.POOLED;
+
+    /**
+     * Maximum number of open connections across all routes (pooled engine only).
+     */
+    private int maxConnections = 64;
+
+    /**
+     * Maximum number of open connections to a single host (pooled engine only).
+     */
+    private int maxConnectionsPerRoute = 16;
+
+    /**
+     * Time allowed to establish a TCP connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Time allowed to wait for data on an open connection.
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Time allowed to wait for a free connection from the pool (pooled engine only).
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long an idle connection is kept alive when the server does not send a Keep-Alive header
+     * (pooled engine only).
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * Idle connections older than this are closed by the background evictor (pooled engine only).
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(60);
+
+    /**
+     * Connections idle for longer than this are re-validated before being leased (pooled engine only).
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * Number of items requested per page from BookStack list endpoints (BookStack allows at most 500).
+     */
+    private int listPageSize = 500;
+
+    /**
+     * Number of list pages fetched ahead concurrently once the total item count is known.
+     */
+    private int listPrefetch = 4;
+
+    /**
+     * Largest response body the non-blocking client decodes, such as a page with its HTML (reactive client only).
+     */
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+
+    public enum Client {
+        /**
+         * {@code RestTemplate}: every call holds a thread until its response has been read.
+         */
+        BLOCKING,
+
+        /**
+         * {@code WebClient} on Reactor Netty: calls wait on a few event-loop threads, so the sync engine can keep
+         * many more of them in flight.
+         */
+        REACTIVE
+    }
+
+    public enum Engine {
+        /**
+         * JDK {@code HttpURLConnection}, no pool management.
+         */
+        SIMPLE,
+
+        /**
+         * Apache HttpClient 5 with a pooled, keep-alive connection manager.
+         */
+        POOLED
+    }
+}
@@ -0,0 +1,41 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the wire logging of outbound BookStack requests and responses, which is active when the
+ * {@code com.faithconnect.bookstacksync.interceptor.LoggingInterceptor} logger is at DEBUG level.
+ * Bound from the {@code bookstack.http.logging.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.http.logging")
+public class LoggingProperties {
+
+    /**
+     * Largest part of a request or response body that is logged; longer bodies are truncated. Only this much of a
+     * response is held in memory for logging, the rest streams through as usual.
+     */
+    private DataSize maxBodySize = DataSize.ofKilobytes(4);
+
+    /**
+     * Fraction of requests that are logged, between 0 and 1; each request is logged together with its response.
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Headers whose values are replaced by {@code [redacted]} in the log.
+     */
+    private List<String> redactedHeaders = new ArrayList<>(List.of(
+            "Authorization", "Proxy-Authorization", "Cookie", "Set-Cookie", "X-Api-Key"));
+
+    /**
+     * Log messages waiting to be formatted and written; when full, further messages are dropped
+     * rather than slowing down requests.
+     */
+    private int queueCapacity = 1000;
+}
@@ -0,0 +1,47 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the client-side rate limiter applied to each BookStack instance.
+ * Bound from the {@code bookstack.ratelimit.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.ratelimit")
+public class RateLimitProperties {
+
+    /**
+     * Whether outbound requests are rate limited at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Requests per minute allowed per instance until the instance reports its own limit
+     * through {@code X-RateLimit-Limit} (BookStack defaults to 180).
+     */
+    private int requestsPerMinute = 180;
+
+    /**
+     * Number of requests that may be sent back to back before the per-minute rate applies.
+     */
+    private int burst = 10;
+
+    /**
+     * Concurrent requests per instance at startup; adjusted between 1 and {@link #maxConcurrency} as
+     * responses come back.
+     */
+    private int initialConcurrency = 4;
+
+    /**
+     * Upper bound on concurrent requests per instance.
+     */
+    private int maxConcurrency = 16;
+
+    /**
+     * Longest wait honoured from a {@code Retry-After} header.
+     */
+    private Duration maxRetryAfter = Duration.ofSeconds(60);
+}
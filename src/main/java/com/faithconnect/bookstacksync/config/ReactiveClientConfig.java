@@ -0,0 +1,55 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.interceptor.RateLimitingFilter;
+import com.faithconnect.bookstacksync.interceptor.RateLimitingInterceptor;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Configuration for the non-blocking client, used instead of the RestTemplate when
+ * {@code bookstack.http.client=reactive}. It takes its pool and timeout settings from the same
+ * {@code bookstack.http.*} properties and shares the rate limits of the blocking client.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "bookstack.http", name = "client", havingValue = "reactive")
+public class ReactiveClientConfig {
+
+    /**
+     * Connections are pooled per instance, like the per-route limit of the pooled blocking engine.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider bookStackConnectionProvider(HttpClientProperties properties) {
+        return ConnectionProvider.builder("bookstack")
+                .maxConnections(properties.getMaxConnectionsPerRoute())
+                // Requests are queued by the sync engine and the rate limiter already, don't reject them here
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .evictInBackground(properties.getMaxIdleTime())
+                .build();
+    }
+
+    @Bean
+    public WebClient bookStackWebClient(WebClient.Builder builder, ConnectionProvider bookStackConnectionProvider,
+                                        HttpClientProperties properties,
+                                        ObjectProvider<RateLimitingInterceptor> rateLimitingInterceptor) {
+        log.info("Using reactive HTTP client (max {} connections per instance)", properties.getMaxConnectionsPerRoute());
+        HttpClient httpClient = HttpClient.create(bookStackConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+
+        builder.clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) properties.getMaxInMemorySize().toBytes()));
+        rateLimitingInterceptor.ifAvailable(interceptor -> builder.filter(new RateLimitingFilter(interceptor)));
+        return builder.build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.service.CreateClaims;
+import com.faithconnect.bookstacksync.service.RetryExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for retrying BookStack API calls.
+ */
+@Configuration
+@EnableConfigurationProperties(RetryProperties.class)
+public class RetryConfig {
+
+    @Bean
+    public RetryExecutor retryExecutor(RetryProperties properties, MeterRegistry meterRegistry) {
+        return new RetryExecutor(properties, meterRegistry);
+    }
+
+    @Bean
+    public CreateClaims createClaims() {
+        return new CreateClaims();
+    }
+}
@@ -0,0 +1,51 @@
+package com.faithconnect.bookstacksync.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for retrying BookStack API calls that fail with a transient error.
+ * Bound from the {@code bookstack.retry.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.retry")
+public class RetryProperties {
+
+    /**
+     * Whether failed calls are retried at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound of the wait before the first retry; each further retry doubles it, up to {@link #maxBackoff}.
+     * The actual wait is a random value below the bound.
+     */
+    private Duration initialBackoff = Duration.ofMillis(500);
+
+    /**
+     * Upper bound of the wait before any retry.
+     */
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Attempts, including the first, for reads.
+     */
+    private int readAttempts = 5;
+
+    /**
+     * Attempts, including the first, for creating books, chapters and pages.
+     */
+    private int createAttempts = 4;
+
+    /**
+     * Attempts, including the first, for updates.
+     */
+    private int updateAttempts = 5;
+
+    /**
+     * Attempts, including the first, for deletes.
+     */
+    private int deleteAttempts = 3;
+}
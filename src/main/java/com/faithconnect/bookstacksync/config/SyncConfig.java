@@ -0,0 +1,33 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.sync.SyncExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration for the book synchronization engine.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SyncProperties.class)
+public class SyncConfig {
+
+    /**
+     * The engine fans out on virtual threads under the same switch that moves request handling onto them,
+     * {@code spring.threads.virtual.enabled}, which only takes effect on Java 21 or later.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public SyncExecutors syncExecutors(SyncProperties properties, Environment environment) {
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (virtualThreads) {
+            log.info("Sync engine fans out on virtual threads ({} source, {} destination requests at a time)",
+                    properties.getSourceConcurrency(), properties.getDestinationConcurrency());
+        }
+        return new SyncExecutors(properties.getSourceConcurrency(), properties.getDestinationConcurrency(),
+                properties.getAttachmentConcurrency(), virtualThreads);
+    }
+}
@@ -0,0 +1,72 @@
+package com.faithconnect.bookstacksync.config;
+
+import com.faithconnect.bookstacksync.sync.SyncMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the book synchronization engine.
+ * Bound from the {@code bookstack.sync.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "bookstack.sync")
+public class SyncProperties {
+
+    /**
+     * Maximum number of concurrent read requests against the source instance.
+     */
+    private int sourceConcurrency = 4;
+
+    /**
+     * Maximum number of concurrent write requests against the destination instance.
+     */
+    private int destinationConcurrency = 2;
+
+    /**
+     * Number of attachment files transferred at the same time. Each transfer spools its file to a temporary file.
+     */
+    private int attachmentConcurrency = 2;
+
+    /**
+     * Number of sync jobs that run at the same time.
+     */
+    private int jobWorkers = 2;
+
+    /**
+     * Number of sync jobs that can wait for a free worker before new submissions are rejected.
+     */
+    private int jobQueueCapacity = 50;
+
+    /**
+     * Number of jobs kept in the registry; the oldest finished jobs are dropped first.
+     */
+    private int jobHistorySize = 200;
+
+    /**
+     * Sync mode used when a request doesn't ask for one.
+     */
+    private SyncMode mode = SyncMode.FULL;
+
+    /**
+     * Directory holding local sync state, such as the source-to-destination ID mappings and job history.
+     */
+    private String stateDir = "data";
+
+    /**
+     * How often batched state writes are flushed to disk; a crash loses at most this much recent state.
+     */
+    private Duration stateFlushInterval = Duration.ofMillis(200);
+
+    /**
+     * The state log is compacted once it is larger than this and at least half of it is overwritten entries.
+     */
+    private DataSize stateCompactionMinSize = DataSize.ofMegabytes(4);
+
+    /**
+     * How often the checkpoints of running sync jobs are saved; a resumed job may redo this much work.
+     */
+    private Duration checkpointInterval = Duration.ofSeconds(1);
+}
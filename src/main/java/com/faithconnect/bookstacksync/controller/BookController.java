@@ -2,17 +2,23 @@ package com.faithconnect.bookstacksync.controller;
 
 import com.faithconnect.bookstacksync.model.*;
 import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.ExportCache;
+import com.faithconnect.bookstacksync.sync.SyncJob;
+import com.faithconnect.bookstacksync.sync.SyncJobService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +33,9 @@ import java.util.stream.Collectors;
 public class BookController {
 
     private final BookStackApiService bookStackApiService;
+    private final ExportCache exportCache;
+    private final SyncJobService syncJobService;
+    private final ObjectMapper objectMapper;
 
     /**
      * List all books.
@@ -34,11 +43,10 @@ public class BookController {
      * @return A list of all books
      */
     @GetMapping
-    public ResponseEntity<List<Book>> listBooks() {
+    public ResponseEntity<StreamingResponseBody> listBooks() {
         log.debug("Listing all books");
         try {
-            List<Book> books = bookStackApiService.listBooks();
-            return ResponseEntity.ok(books);
+            return StreamingJson.array(objectMapper, bookStackApiService.streamBooks());
         } catch (Exception e) {
             log.error("Error listing books: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to list books", e);
@@ -119,8 +127,8 @@ public class BookController {
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @Valid @RequestBody UpdateBookRequest request) {
         log.debug("Updating book with ID: {}", id);
         try {
-            // Get the existing book
-            Book existingBook = bookStackApiService.getBook(id);
+            // Get the existing book, uncached since it is modified below
+            Book existingBook = bookStackApiService.getBook(id, null);
             
             // Update fields if provided
             if (request.getName() != null) {
@@ -199,11 +207,10 @@ public class BookController {
      * @return A list of chapters in the book
      */
     @GetMapping("/{bookId}/chapters")
-    public ResponseEntity<List<Chapter>> listChapters(@PathVariable Long bookId) {
+    public ResponseEntity<StreamingResponseBody> listChapters(@PathVariable Long bookId) {
         log.debug("Listing chapters for book with ID: {}", bookId);
         try {
-            List<Chapter> chapters = bookStackApiService.listChapters(bookId);
-            return ResponseEntity.ok(chapters);
+            return StreamingJson.array(objectMapper, bookStackApiService.streamChapters(bookId));
         } catch (Exception e) {
             log.error("Error listing chapters for book with ID {}: {}", bookId, e.getMessage(), e);
             throw new BookStackApiException("Failed to list chapters for book with ID " + bookId, e);
@@ -217,11 +224,10 @@ public class BookController {
      * @return A list of pages in the book
      */
     @GetMapping("/{bookId}/pages")
-    public ResponseEntity<List<Page>> listPages(@PathVariable Long bookId) {
+    public ResponseEntity<StreamingResponseBody> listPages(@PathVariable Long bookId) {
         log.debug("Listing pages for book with ID: {}", bookId);
         try {
-            List<Page> pages = bookStackApiService.listPages(bookId);
-            return ResponseEntity.ok(pages);
+            return StreamingJson.array(objectMapper, bookStackApiService.streamPages(bookId));
         } catch (Exception e) {
             log.error("Error listing pages for book with ID {}: {}", bookId, e.getMessage(), e);
             throw new BookStackApiException("Failed to list pages for book with ID " + bookId, e);
@@ -229,20 +235,48 @@ public class BookController {
     }
 
     /**
-     * Sync a book from the source to the destination.
+     * Export a book, served from the export cache when it holds the book as it is now.
+     *
+     * @param id The ID of the book to export
+     * @param format {@code pdf}, {@code html}, {@code text} or {@code markdown}
+     * @return The exported file
+     */
+    @GetMapping("/{id}/export/{format}")
+    public ResponseEntity<StreamingResponseBody> exportBook(@PathVariable Long id, @PathVariable String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        log.debug("Exporting book with ID {} as {}", id, exportFormat.getName());
+        try {
+            return StreamingExport.file(exportCache.exportBook(id, exportFormat));
+        } catch (Exception e) {
+            log.error("Error exporting book with ID {} as {}: {}", id, exportFormat.getName(), e.getMessage(), e);
+            throw new BookStackApiException("Failed to export book with ID " + id + " as " + exportFormat.getName(), e);
+        }
+    }
+
+    /**
+     * Queue a background sync of a book from the source to the destination, as {@code POST /api/sync/books/{id}}
+     * does.
      *
      * @param id The ID of the book to sync
-     * @return A success message
+     * @return The ID of the queued job, whose progress is reported under {@code /api/sync/jobs/{id}}
      */
     @PostMapping("/{id}/sync")
     public ResponseEntity<Map<String, String>> syncBook(@PathVariable Long id) {
-        log.debug("Syncing book with ID: {}", id);
+        log.debug("Queueing sync of book with ID: {}", id);
         try {
-            bookStackApiService.syncBook(id);
+            SyncJob job = syncJobService.submit(id, null);
             Map<String, String> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Book sync completed successfully");
-            return ResponseEntity.ok(response);
+            response.put("status", "accepted");
+            response.put("message", "Book sync queued");
+            response.put("jobId", job.getId());
+            response.put("mode", job.getMode().name());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected sync of book with ID {}: job queue is full", id);
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Too many sync jobs queued, try again later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception e) {
             log.error("Error syncing book with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to sync book with ID " + id, e);
@@ -253,6 +287,8 @@ public class BookController {
      * Exception for Book API errors.
      */
     public static class BookStackApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
         public BookStackApiException(String message) {
             super(message);
         }
@@ -1,17 +1,30 @@
 package com.faithconnect.bookstacksync.controller;
 
 import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.ShelfSyncReport;
+import com.faithconnect.bookstacksync.model.SyncBatchStatus;
+import com.faithconnect.bookstacksync.model.SyncJobStatus;
 import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.sync.ShelfSyncEngine;
+import com.faithconnect.bookstacksync.sync.SyncBatch;
+import com.faithconnect.bookstacksync.sync.SyncContext;
+import com.faithconnect.bookstacksync.sync.SyncJob;
+import com.faithconnect.bookstacksync.sync.SyncJobService;
+import com.faithconnect.bookstacksync.sync.SyncMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -19,18 +32,25 @@ import java.util.Map;
 public class BookStackSyncController {
 
     private final BookStackApiService bookStackApiService;
+    private final SyncJobService syncJobService;
+    private final ShelfSyncEngine shelfSyncEngine;
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BookStackSyncController(RestTemplate restTemplate, BookStackApiService bookStackApiService) {
+    public BookStackSyncController(RestTemplate restTemplate, BookStackApiService bookStackApiService,
+                                   SyncJobService syncJobService, ShelfSyncEngine shelfSyncEngine, ObjectMapper objectMapper) {
         this.bookStackApiService = bookStackApiService;
+        this.syncJobService = syncJobService;
+        this.shelfSyncEngine = shelfSyncEngine;
         this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/books")
-    public ResponseEntity<List<Book>> listBooks() {
+    public ResponseEntity<StreamingResponseBody> listBooks() {
         try {
-            return ResponseEntity.ok(bookStackApiService.listBooks());
+            return StreamingJson.array(objectMapper, bookStackApiService.streamBooks());
         } catch (Exception e) {
             log.error("Error listing books: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to list books", e);
@@ -38,9 +58,9 @@ public class BookStackSyncController {
     }
 
     @GetMapping("/destination/books")
-    public ResponseEntity<List<Book>> listDestinationBooks() {
+    public ResponseEntity<StreamingResponseBody> listDestinationBooks() {
         try {
-            return ResponseEntity.ok(bookStackApiService.listDestinationBooks());
+            return StreamingJson.array(objectMapper, bookStackApiService.streamDestinationBooks());
         } catch (Exception e) {
             log.error("Error listing books: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to list books", e);
@@ -58,19 +78,140 @@ public class BookStackSyncController {
     }
 
     @PostMapping("/books/{id}")
-    public ResponseEntity<Map<String, String>> syncBook(@PathVariable Long id) {
+    public ResponseEntity<Map<String, String>> syncBook(@PathVariable Long id,
+                                                        @RequestParam(required = false) String mode) {
+        SyncMode syncMode;
         try {
-            bookStackApiService.syncBook(id);
+            syncMode = parseMode(mode);
+        } catch (IllegalArgumentException e) {
+            return unknownMode(mode);
+        }
+
+        try {
+            SyncJob job = syncJobService.submit(id, syncMode);
             Map<String, String> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Book sync completed successfully");
-            return ResponseEntity.ok(response);
+            response.put("status", "accepted");
+            response.put("message", "Book sync queued");
+            response.put("jobId", job.getId());
+            response.put("mode", job.getMode().name());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected sync of book with ID {}: job queue is full", id);
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Too many sync jobs queued, try again later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception e) {
             log.error("Error syncing book with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to sync book with ID " + id + ", Reason: " + e.getMessage(), e);
         }
     }
 
+    @PostMapping("/books")
+    public ResponseEntity<Map<String, String>> syncBooks(@RequestBody List<Long> ids,
+                                                         @RequestParam(required = false) String mode) {
+        SyncMode syncMode;
+        try {
+            syncMode = parseMode(mode);
+        } catch (IllegalArgumentException e) {
+            return unknownMode(mode);
+        }
+
+        try {
+            return batchAccepted(syncJobService.submitBooks(ids, syncMode));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            log.error("Error syncing books {}: {}", ids, e.getMessage(), e);
+            throw new BookStackApiException("Failed to sync books, Reason: " + e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/instance")
+    public ResponseEntity<Map<String, String>> syncInstance(@RequestParam(required = false) String mode,
+                                                            @RequestParam(defaultValue = "false") boolean shelves) {
+        SyncMode syncMode;
+        try {
+            syncMode = parseMode(mode);
+        } catch (IllegalArgumentException e) {
+            return unknownMode(mode);
+        }
+
+        try {
+            return batchAccepted(syncJobService.submitInstance(syncMode, shelves));
+        } catch (Exception e) {
+            log.error("Error syncing the instance: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to sync the instance, Reason: " + e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/shelves")
+    public ResponseEntity<ShelfSyncReport> syncShelves() {
+        try {
+            return ResponseEntity.ok(shelfSyncEngine.syncShelves(SyncContext.current()));
+        } catch (Exception e) {
+            log.error("Error syncing shelves: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to sync shelves, Reason: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/batches")
+    public ResponseEntity<List<SyncBatchStatus>> listBatches() {
+        return ResponseEntity.ok(syncJobService.listBatches());
+    }
+
+    @GetMapping("/batches/{id}")
+    public ResponseEntity<SyncBatchStatus> getBatch(@PathVariable String id) {
+        return syncJobService.getBatchStatus(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<SyncJobStatus>> listJobs() {
+        return ResponseEntity.ok(syncJobService.listJobs());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<SyncJobStatus> getJob(@PathVariable String id) {
+        return syncJobService.getJobStatus(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/jobs/{id}/resume")
+    public ResponseEntity<Map<String, String>> resumeJob(@PathVariable String id) {
+        try {
+            SyncJob job = syncJobService.resume(id);
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "accepted");
+            response.put("message", "Book sync resume queued");
+            response.put("jobId", job.getId());
+            response.put("resumedFrom", id);
+            response.put("mode", job.getMode().name());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected resume of sync job {}: job queue is full", id);
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Too many sync jobs queued, try again later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        } catch (Exception e) {
+            log.error("Error resuming sync job {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to resume sync job " + id + ", Reason: " + e.getMessage(), e);
+        }
+    }
+
     @DeleteMapping("/destination/books/{id}")
     public ResponseEntity<Map<String, String>> deleteBook(@PathVariable Long id) {
         try {
@@ -125,6 +266,27 @@ public class BookStackSyncController {
         }
     }
 
+    private static SyncMode parseMode(String mode) {
+        return mode != null ? SyncMode.valueOf(mode.trim().toUpperCase()) : null;
+    }
+
+    private static ResponseEntity<Map<String, String>> unknownMode(String mode) {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", "Unknown sync mode: " + mode);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private static ResponseEntity<Map<String, String>> batchAccepted(SyncBatch batch) {
+        SyncBatchStatus status = batch.toStatus();
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "accepted");
+        response.put("message", "Sync of " + status.getBooksTotal() + " books queued");
+        response.put("batchId", batch.getId());
+        response.put("mode", batch.getMode().name());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
     @ExceptionHandler(BookStackApiException.class)
     public ResponseEntity<Map<String, String>> handleBookStackApiException(BookStackApiException e) {
         Map<String, String> response = new HashMap<>();
@@ -134,6 +296,8 @@ public class BookStackSyncController {
     }
 
     public static class BookStackApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
         public BookStackApiException(String message) {
             super(message);
         }
@@ -0,0 +1,59 @@
+package com.faithconnect.bookstacksync.controller;
+
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.service.ExportCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for Chapter-related operations.
+ * Provides endpoints for exporting chapters from the BookStack system.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/chapters")
+@RequiredArgsConstructor
+public class ChapterController {
+
+    private final ExportCache exportCache;
+
+    /**
+     * Export a chapter, served from the export cache when it holds the chapter as it is now.
+     *
+     * @param id The ID of the chapter to export
+     * @param format {@code pdf}, {@code html}, {@code text} or {@code markdown}
+     * @return The exported file
+     */
+    @GetMapping("/{id}/export/{format}")
+    public ResponseEntity<StreamingResponseBody> exportChapter(@PathVariable Long id, @PathVariable String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        log.debug("Exporting chapter with ID {} as {}", id, exportFormat.getName());
+        try {
+            return StreamingExport.file(exportCache.exportChapter(id, exportFormat));
+        } catch (Exception e) {
+            log.error("Error exporting chapter with ID {} as {}: {}", id, exportFormat.getName(), e.getMessage(), e);
+            throw new ChapterApiException("Failed to export chapter with ID " + id + " as " + exportFormat.getName(), e);
+        }
+    }
+
+    /**
+     * Exception for Chapter API errors.
+     */
+    public static class ChapterApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ChapterApiException(String message) {
+            super(message);
+        }
+
+        public ChapterApiException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -2,14 +2,14 @@ package com.faithconnect.bookstacksync.controller;
 
 import com.faithconnect.bookstacksync.model.*;
 import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.ExportCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.HashMap;
@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 public class PageController {
 
     private final BookStackApiService bookStackApiService;
+    private final ExportCache exportCache;
 
     /**
      * Get a page by ID.
@@ -108,8 +109,8 @@ public class PageController {
     public ResponseEntity<Page> updatePage(@PathVariable Long id, @Valid @RequestBody UpdatePageRequest request) {
         log.debug("Updating page with ID: {}", id);
         try {
-            // Get the existing page
-            Page existingPage = bookStackApiService.getPage(id);
+            // Get the existing page, uncached since it is modified below
+            Page existingPage = bookStackApiService.getPage(id, null);
             
             // Update fields if provided
             if (request.getName() != null) {
@@ -195,91 +196,21 @@ public class PageController {
     }
 
     /**
-     * Export a page as PDF.
+     * Export a page, served from the export cache when it holds the page as it is now.
      *
      * @param id The ID of the page to export
-     * @return The PDF content
+     * @param format {@code pdf}, {@code html}, {@code text} or {@code markdown}
+     * @return The exported file
      */
-    @GetMapping("/{id}/export/pdf")
-    public ResponseEntity<byte[]> exportPageAsPdf(@PathVariable Long id) {
-        log.debug("Exporting page with ID {} as PDF", id);
+    @GetMapping("/{id}/export/{format}")
+    public ResponseEntity<StreamingResponseBody> exportPage(@PathVariable Long id, @PathVariable String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        log.debug("Exporting page with ID {} as {}", id, exportFormat.getName());
         try {
-            byte[] pdfContent = bookStackApiService.exportPageAsPdf(id);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "page-" + id + ".pdf");
-            
-            return new ResponseEntity<>(pdfContent, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error exporting page with ID {} as PDF: {}", id, e.getMessage(), e);
-            throw new PageApiException("Failed to export page with ID " + id + " as PDF", e);
-        }
-    }
-
-    /**
-     * Export a page as HTML.
-     *
-     * @param id The ID of the page to export
-     * @return The HTML content
-     */
-    @GetMapping("/{id}/export/html")
-    public ResponseEntity<String> exportPageAsHtml(@PathVariable Long id) {
-        log.debug("Exporting page with ID {} as HTML", id);
-        try {
-            String htmlContent = bookStackApiService.exportPageAsHtml(id);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.TEXT_HTML);
-            
-            return new ResponseEntity<>(htmlContent, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error exporting page with ID {} as HTML: {}", id, e.getMessage(), e);
-            throw new PageApiException("Failed to export page with ID " + id + " as HTML", e);
-        }
-    }
-
-    /**
-     * Export a page as plain text.
-     *
-     * @param id The ID of the page to export
-     * @return The plain text content
-     */
-    @GetMapping("/{id}/export/text")
-    public ResponseEntity<String> exportPageAsText(@PathVariable Long id) {
-        log.debug("Exporting page with ID {} as text", id);
-        try {
-            String textContent = bookStackApiService.exportPageAsText(id);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.TEXT_PLAIN);
-            
-            return new ResponseEntity<>(textContent, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error exporting page with ID {} as text: {}", id, e.getMessage(), e);
-            throw new PageApiException("Failed to export page with ID " + id + " as text", e);
-        }
-    }
-
-    /**
-     * Export a page as Markdown.
-     *
-     * @param id The ID of the page to export
-     * @return The Markdown content
-     */
-    @GetMapping("/{id}/export/markdown")
-    public ResponseEntity<String> exportPageAsMarkdown(@PathVariable Long id) {
-        log.debug("Exporting page with ID {} as Markdown", id);
-        try {
-            String markdownContent = bookStackApiService.exportPageAsMarkdown(id);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.TEXT_MARKDOWN);
-            
-            return new ResponseEntity<>(markdownContent, headers, HttpStatus.OK);
+            return StreamingExport.file(exportCache.exportPage(id, exportFormat));
         } catch (Exception e) {
-            log.error("Error exporting page with ID {} as Markdown: {}", id, e.getMessage(), e);
-            throw new PageApiException("Failed to export page with ID " + id + " as Markdown", e);
+            log.error("Error exporting page with ID {} as {}: {}", id, exportFormat.getName(), e.getMessage(), e);
+            throw new PageApiException("Failed to export page with ID " + id + " as " + exportFormat.getName(), e);
         }
     }
 
@@ -287,6 +218,8 @@ public class PageController {
      * Exception for Page API errors.
      */
     public static class PageApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
         public PageApiException(String message) {
             super(message);
         }
@@ -0,0 +1,46 @@
+package com.faithconnect.bookstacksync.controller;
+
+import com.faithconnect.bookstacksync.model.Export;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes an export from BookStack on to the client as it is read, so exports of any size are served without
+ * being held in memory.
+ */
+final class StreamingExport {
+
+    private StreamingExport() {
+    }
+
+    /**
+     * Create a response that copies the export to the client and closes it when done. The response carries the
+     * export's length when BookStack sent one, and is sent chunked otherwise.
+     *
+     * @param export The export to pass on
+     * @return A streaming response
+     */
+    static ResponseEntity<StreamingResponseBody> file(Export export) {
+        StreamingResponseBody body = outputStream -> {
+            try (export) {
+                export.transferTo(outputStream);
+            }
+        };
+        String filename = export.getFilename();
+        ContentDisposition disposition = StandardCharsets.US_ASCII.newEncoder().canEncode(filename)
+                ? ContentDisposition.attachment().filename(filename).build()
+                : ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(export.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        if (export.getContentLength() >= 0) {
+            response.contentLength(export.getContentLength());
+        }
+        return response.body(body);
+    }
+}
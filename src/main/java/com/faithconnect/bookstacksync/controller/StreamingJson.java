@@ -0,0 +1,41 @@
+package com.faithconnect.bookstacksync.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of items to the response as a JSON array, one item at a time,
+ * so large listings are never held in memory as a whole.
+ */
+final class StreamingJson {
+
+    private StreamingJson() {
+    }
+
+    /**
+     * Create a response that writes the items as a JSON array and closes the stream when done.
+     *
+     * @param objectMapper The mapper used to serialize each item
+     * @param items The items to write
+     * @return A streaming JSON response
+     */
+    static <T> ResponseEntity<StreamingResponseBody> array(ObjectMapper objectMapper, Stream<T> items) {
+        StreamingResponseBody body = outputStream -> {
+            try (items; JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
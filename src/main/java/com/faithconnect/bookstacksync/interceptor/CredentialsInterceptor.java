@@ -1,25 +1,44 @@
 package com.faithconnect.bookstacksync.interceptor;
 
 import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.sync.SyncContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Interceptor to extract BookStack credentials from request headers.
  * This ensures credentials are only used for the current request and not stored.
+ *
+ * The credentials and request metadata form the request's {@link SyncContext}, installed on the request thread
+ * until the request completes. Work the request starts elsewhere is handed the context explicitly.
  */
 @Slf4j
 @Component
-public class CredentialsInterceptor implements HandlerInterceptor {
+public class CredentialsInterceptor implements AsyncHandlerInterceptor {
+
+    /**
+     * Header carrying the ID a caller gives a request; one is generated when it is missing.
+     * It is echoed in the response.
+     */
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
 
-    private static final ThreadLocal<BookStackConfig> sourceConfigThreadLocal = new ThreadLocal<>();
-    private static final ThreadLocal<BookStackConfig> destinationConfigThreadLocal = new ThreadLocal<>();
+    private static final String CONTEXT_ATTRIBUTE = CredentialsInterceptor.class.getName() + ".context";
+    private static final String SCOPE_ATTRIBUTE = CredentialsInterceptor.class.getName() + ".scope";
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An asynchronous request is dispatched again once its result is ready, keep the context of its first dispatch
+        if (request.getAttribute(CONTEXT_ATTRIBUTE) instanceof SyncContext context) {
+            request.setAttribute(SCOPE_ATTRIBUTE, context.open());
+            return true;
+        }
+
         // Extract source credentials from headers
         String sourceUrl = request.getHeader("X-Source-Url");
         String sourceTokenId = request.getHeader("X-Source-Token-Id");
@@ -30,50 +49,47 @@ public class CredentialsInterceptor implements HandlerInterceptor {
         String destinationTokenId = request.getHeader("X-Destination-Token-Id");
         String destinationTokenSecret = request.getHeader("X-Destination-Token");
 
-        // Set source credentials in thread-local if provided
+        BookStackConfig sourceConfig = null;
         if (sourceUrl != null && sourceTokenId != null && sourceTokenSecret != null) {
-            BookStackConfig sourceConfig = new BookStackConfig();
-            sourceConfig.setBaseUrl(sourceUrl);
-            sourceConfig.setTokenId(sourceTokenId);
-            sourceConfig.setTokenSecret(sourceTokenSecret);
-            sourceConfigThreadLocal.set(sourceConfig);
+            sourceConfig = new BookStackConfig(sourceUrl, sourceTokenId, sourceTokenSecret);
             log.debug("Source credentials set from request headers");
         }
 
-        // Set destination credentials in thread-local if provided
+        BookStackConfig destinationConfig = null;
         if (destinationUrl != null && destinationTokenId != null && destinationTokenSecret != null) {
-            BookStackConfig destinationConfig = new BookStackConfig();
-            destinationConfig.setBaseUrl(destinationUrl);
-            destinationConfig.setTokenId(destinationTokenId);
-            destinationConfig.setTokenSecret(destinationTokenSecret);
-            destinationConfigThreadLocal.set(destinationConfig);
+            destinationConfig = new BookStackConfig(destinationUrl, destinationTokenId, destinationTokenSecret);
             log.debug("Destination credentials set from request headers");
         }
 
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isBlank()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        SyncContext context = new SyncContext(sourceConfig, destinationConfig, requestId, Instant.now());
+        request.setAttribute(CONTEXT_ATTRIBUTE, context);
+        request.setAttribute(SCOPE_ATTRIBUTE, context.open());
         return true;
     }
 
     @Override
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
-        // Clean up thread-local variables after request is complete
-        sourceConfigThreadLocal.remove();
-        destinationConfigThreadLocal.remove();
-        log.debug("Credentials cleared from thread-local");
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The request goes on asynchronously and its thread is handed back to the server
+        close(request);
     }
 
-    /**
-     * Get source configuration from thread-local.
-     * @return The source configuration or null if not set
-     */
-    public static BookStackConfig getSourceConfig() {
-        return sourceConfigThreadLocal.get();
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Remove the request's context from the thread after request is complete
+        close(request);
     }
 
-    /**
-     * Get destination configuration from thread-local.
-     * @return The destination configuration or null if not set
-     */
-    public static BookStackConfig getDestinationConfig() {
-        return destinationConfigThreadLocal.get();
+    private static void close(HttpServletRequest request) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof SyncContext.Scope scope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+            log.debug("Credentials cleared from thread");
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.faithconnect.bookstacksync.interceptor;
+
+import com.faithconnect.bookstacksync.config.RateLimitProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate and concurrency limit for requests to a single BookStack instance.
+ *
+ * The request rate is a token bucket refilled at the instance's per-minute limit. Concurrency follows AIMD:
+ * it grows by one after a full window of successful requests and halves whenever the instance throttles us,
+ * so throughput settles just below the point where the instance starts rejecting requests.
+ *
+ * Blocking clients wait in {@link #acquire}; non-blocking clients take slots with {@link #tryAcquire} and
+ * register a callback with {@link #awaitSlot} when none is free.
+ */
+class InstanceRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final int burst;
+    private final int maxConcurrency;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private double tokensPerNano;
+    private long lastRefill;
+    private long pausedUntil;
+
+    private int concurrency;
+    private int inFlight;
+    private double increaseCredit;
+    private List<Runnable> slotWaiters = new ArrayList<>();
+
+    InstanceRateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    /**
+     * @param clock The time in nanoseconds, as {@link System#nanoTime}
+     */
+    InstanceRateLimiter(RateLimitProperties properties, LongSupplier clock) {
+        this.clock = clock;
+        this.lastRefill = clock.getAsLong();
+        this.pausedUntil = lastRefill;
+        this.burst = Math.max(properties.getBurst(), 1);
+        this.maxConcurrency = Math.max(properties.getMaxConcurrency(), 1);
+        this.tokens = burst;
+        this.tokensPerNano = (double) Math.max(properties.getRequestsPerMinute(), 1) / NANOS_PER_MINUTE;
+        this.concurrency = Math.min(Math.max(properties.getInitialConcurrency(), 1), maxConcurrency);
+    }
+
+    /**
+     * Wait for a concurrency slot and a token. Every successful call must be paired with {@link #release}.
+     */
+    void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            while (inFlight >= concurrency) {
+                wait();
+            }
+            wait = take();
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                release(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Take a concurrency slot and a token without blocking. Every successful call must be paired with
+     * {@link #release}.
+     *
+     * @return How long to wait before sending the request, in nanoseconds, or -1 if no slot is free
+     */
+    synchronized long tryAcquire() {
+        return inFlight < concurrency ? take() : -1;
+    }
+
+    /**
+     * Register a callback to run once a slot may have become free; it should call {@link #tryAcquire} again.
+     *
+     * @param callback Run on the thread that releases a slot
+     * @return False if a slot is free already, in which case the callback is not registered
+     */
+    synchronized boolean awaitSlot(Runnable callback) {
+        if (inFlight < concurrency) {
+            return false;
+        }
+        slotWaiters.add(callback);
+        return true;
+    }
+
+    /**
+     * Give back a concurrency slot and adjust the concurrency to the outcome of the request.
+     *
+     * @param throttled Whether the instance rejected the request for exceeding its limits
+     */
+    void release(boolean throttled) {
+        List<Runnable> waiters;
+        synchronized (this) {
+            adjust(throttled);
+            waiters = slotWaiters;
+            slotWaiters = new ArrayList<>();
+        }
+        // Outside the lock, since the callbacks take slots themselves
+        waiters.forEach(Runnable::run);
+    }
+
+    private void adjust(boolean throttled) {
+        inFlight--;
+        if (throttled) {
+            concurrency = Math.max(1, concurrency / 2);
+            increaseCredit = 0;
+        } else if (concurrency < maxConcurrency) {
+            increaseCredit += 1.0 / concurrency;
+            if (increaseCredit >= 1) {
+                concurrency++;
+                increaseCredit = 0;
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Apply the {@code X-RateLimit-*} headers of a response.
+     *
+     * @param limit The instance's requests per minute, or null if not reported
+     * @param remaining The requests left in the current window, or null if not reported
+     */
+    synchronized void update(Integer limit, Integer remaining) {
+        if (limit != null && limit > 0) {
+            tokensPerNano = (double) limit / NANOS_PER_MINUTE;
+        }
+        if (remaining != null) {
+            // Other clients using the same token draw from the same window, so never assume more than is left
+            refill();
+            tokens = Math.min(tokens, remaining);
+        }
+    }
+
+    /**
+     * Hold back all requests until the instance accepts them again.
+     *
+     * @param nanos How long to wait, as reported by {@code Retry-After}
+     */
+    synchronized void pause(long nanos) {
+        pausedUntil = Math.max(pausedUntil, clock.getAsLong() + nanos);
+        // The instance has already refused the current window, don't let the bucket burst straight after the pause
+        tokens = Math.min(tokens, 0);
+    }
+
+    synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    private long take() {
+        inFlight++;
+        refill();
+        tokens -= 1;
+        long now = clock.getAsLong();
+        // A token taken on credit is paid for by waiting until the bucket has refilled it
+        return Math.max(tokens < 0 ? (long) (-tokens / tokensPerNano) : 0, pausedUntil - now);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -1,52 +1,191 @@
 package com.faithconnect.bookstacksync.interceptor;
 
+import com.faithconnect.bookstacksync.config.LoggingProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import java.io.BufferedReader;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Wire logging of outbound requests and responses at DEBUG level.
+ *
+ * Logging is bounded so it can stay on during large syncs:
+ * <ul>
+ *   <li>only a sample of the requests is logged, each with its response under a shared exchange number</li>
+ *   <li>bodies are cut to a byte budget; only that much of a response is read ahead, and the response handed on
+ *       replays it before streaming the rest, so nothing is buffered</li>
+ *   <li>credentials and other sensitive headers are redacted</li>
+ *   <li>messages are formatted and written on a background thread; the request thread only copies what is logged,
+ *       and when the queue is full messages are dropped rather than holding up requests</li>
+ * </ul>
+ * When DEBUG is off, requests and responses pass through untouched.
+ */
 public class LoggingInterceptor implements ClientHttpRequestInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingInterceptor.class);
 
+    private static final String REDACTED = "[redacted]";
+
+    private final int maxBodySize;
+    private final double sampleRate;
+    private final List<String> redactedHeaders;
+    private final ThreadPoolExecutor writer;
+    private final AtomicLong exchanges = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public LoggingInterceptor(LoggingProperties properties) {
+        this.maxBodySize = (int) Math.min(properties.getMaxBodySize().toBytes(), Integer.MAX_VALUE - 1);
+        this.sampleRate = properties.getSampleRate();
+        this.redactedHeaders = List.copyOf(properties.getRedactedHeaders());
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("http-log-");
+        threadFactory.setDaemon(true);
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1)), threadFactory,
+                (message, executor) -> dropped.incrementAndGet());
+    }
+
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
-        logRequest(request, body);
-        ClientHttpResponse response = execution.execute(request, body);
-        logResponse(response);
-        return response;
-    }
-
-    private void logRequest(HttpRequest request, byte[] body) {
-        if (logger.isDebugEnabled()) {
-            logger.debug("URI         : {}", request.getURI());
-            logger.debug("Method      : {}", request.getMethod());
-            logger.debug("Headers     : {}", request.getHeaders());
-            logger.debug("Request body: {}", new String(body, StandardCharsets.UTF_8));
-        }
-    }
-
-    private void logResponse(ClientHttpResponse response) throws IOException {
-        if (logger.isDebugEnabled()) {
-            StringBuilder inputStringBuilder = new StringBuilder();
-            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
-                String line = bufferedReader.readLine();
-                while (line != null) {
-                    inputStringBuilder.append(line);
-                    inputStringBuilder.append('\n');
-                    line = bufferedReader.readLine();
-                }
+        if (!logger.isDebugEnabled() || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return execution.execute(request, body);
+        }
+
+        long exchange = exchanges.incrementAndGet();
+        logRequest(exchange, request, body);
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            write(() -> logger.debug("[{}] <-- failed after {} ms: {}", exchange, elapsedMillis, e.toString()));
+            throw e;
+        }
+        return logResponse(exchange, response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Stop the log writer, dropping messages that were not written yet.
+     */
+    public void close() {
+        writer.shutdownNow();
+    }
+
+    private void logRequest(long exchange, HttpRequest request, byte[] body) {
+        String method = request.getMethod().name();
+        URI uri = request.getURI();
+        HttpHeaders headers = copy(request.getHeaders());
+        byte[] head = Arrays.copyOf(body, Math.min(body.length, maxBodySize));
+        int length = body.length;
+        write(() -> logger.debug("[{}] --> {} {}\nHeaders: {}\nBody: {}",
+                exchange, method, uri, redact(headers), bodyText(head, length)));
+    }
+
+    private ClientHttpResponse logResponse(long exchange, ClientHttpResponse response, long elapsedMillis) throws IOException {
+        // One byte more than is logged tells whether the body was truncated
+        InputStream body = response.getBody();
+        byte[] head = body.readNBytes(maxBodySize + 1);
+        HttpStatusCode status = response.getStatusCode();
+        HttpHeaders headers = copy(response.getHeaders());
+        write(() -> logger.debug("[{}] <-- {} ({} ms)\nHeaders: {}\nBody: {}",
+                exchange, status, elapsedMillis, redact(headers), bodyText(head, -1)));
+        return new PeekedResponse(response, head, body);
+    }
+
+    private void write(Runnable message) {
+        writer.execute(() -> {
+            long missed = dropped.getAndSet(0);
+            if (missed > 0) {
+                logger.debug("{} wire log messages dropped, the log queue was full", missed);
             }
-            logger.debug("Status code  : {}", response.getStatusCode());
-            logger.debug("Status text  : {}", response.getStatusText());
-            logger.debug("Headers      : {}", response.getHeaders());
-            logger.debug("Response body: {}", inputStringBuilder.toString());
+            message.run();
+        });
+    }
+
+    private HttpHeaders redact(HttpHeaders headers) {
+        for (String name : redactedHeaders) {
+            if (headers.containsKey(name)) {
+                headers.set(name, REDACTED);
+            }
+        }
+        return headers;
+    }
+
+    private static HttpHeaders copy(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        return copy;
+    }
+
+    /**
+     * @param head The start of the body, up to one byte more than the budget
+     * @param length The full length of the body, or -1 if unknown
+     */
+    private String bodyText(byte[] head, int length) {
+        if (head.length <= maxBodySize && (length < 0 || length <= maxBodySize)) {
+            return new String(head, StandardCharsets.UTF_8);
+        }
+        String text = new String(head, 0, maxBodySize, StandardCharsets.UTF_8);
+        return length >= 0 ? text + "... [truncated, " + length + " bytes]" : text + "... [truncated]";
+    }
+
+    /**
+     * A response whose first bytes were read for logging; its body replays them before the rest of the stream.
+     * The rest is read from the stream that was peeked at, as some clients can't open the body twice once it was
+     * read to the end.
+     */
+    private static class PeekedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final InputStream body;
+
+        PeekedResponse(ClientHttpResponse response, byte[] head, InputStream rest) {
+            this.response = response;
+            this.body = new SequenceInputStream(new ByteArrayInputStream(head), rest);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
         }
     }
 }
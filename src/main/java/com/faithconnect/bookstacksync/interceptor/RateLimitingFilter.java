@@ -0,0 +1,87 @@
+package com.faithconnect.bookstacksync.interceptor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@link RateLimitingInterceptor} for the non-blocking client. It shares the interceptor's limiter of each
+ * instance, so both clients together stay within the instance's limits.
+ *
+ * Nothing blocks: a request waiting for a concurrency slot is resumed by whichever request releases one, and
+ * the wait for a token or for the end of a {@code Retry-After} pause is a timer. A 429 pauses the instance and is
+ * passed on to be retried, as with the interceptor.
+ */
+public class RateLimitingFilter implements ExchangeFilterFunction {
+
+    private final RateLimitingInterceptor interceptor;
+
+    public RateLimitingFilter(RateLimitingInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String instance = RateLimitingInterceptor.instanceKey(request.url());
+        return send(interceptor.limiter(instance), instance, request, next);
+    }
+
+    private Mono<ClientResponse> send(InstanceRateLimiter limiter, String instance, ClientRequest request,
+                                      ExchangeFunction next) {
+        return Mono.defer(() -> {
+            // Set while this request holds a slot; whoever clears it gives the slot back
+            AtomicBoolean holding = new AtomicBoolean();
+            return Mono.<Long>create(sink -> acquire(limiter, holding, sink))
+                    .flatMap(wait -> wait > 0 ? Mono.delay(Duration.ofNanos(wait)) : Mono.just(0L))
+                    .then(Mono.defer(() -> next.exchange(request)))
+                    .doOnNext(response -> {
+                        RateLimitingInterceptor.updateLimits(limiter, response.headers().asHttpHeaders());
+                        if (holding.getAndSet(false)) {
+                            limiter.release(response.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS));
+                        }
+                        interceptor.throttled(limiter, instance, response.statusCode(), response.headers().asHttpHeaders());
+                    })
+                    .doFinally(signal -> {
+                        if (holding.getAndSet(false)) {
+                            limiter.release(false);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Take a slot now, or as soon as a request to the same instance releases one.
+     */
+    private static void acquire(InstanceRateLimiter limiter, AtomicBoolean holding, MonoSink<Long> sink) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        sink.onCancel(() -> cancelled.set(true));
+        tryAcquire(limiter, holding, cancelled, sink);
+    }
+
+    private static void tryAcquire(InstanceRateLimiter limiter, AtomicBoolean holding, AtomicBoolean cancelled,
+                                   MonoSink<Long> sink) {
+        while (!cancelled.get()) {
+            long wait = limiter.tryAcquire();
+            if (wait >= 0) {
+                holding.set(true);
+                // Cancelled while the slot was being taken, nothing downstream will give it back
+                if (cancelled.get() && holding.getAndSet(false)) {
+                    limiter.release(false);
+                    return;
+                }
+                sink.success(wait);
+                return;
+            }
+            if (limiter.awaitSlot(() -> tryAcquire(limiter, holding, cancelled, sink))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.faithconnect.bookstacksync.interceptor;
+
+import com.faithconnect.bookstacksync.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps outbound requests within the rate limits of each BookStack instance.
+ *
+ * Every request waits on the {@link InstanceRateLimiter} of its instance (scheme, host and port), which learns
+ * the instance's limit from the {@code X-RateLimit-Limit}/{@code X-RateLimit-Remaining} response headers.
+ * A request rejected with HTTP 429 pauses all requests to that instance for the {@code Retry-After} period.
+ * The 429 itself is passed on, and sent again by the {@link com.faithconnect.bookstacksync.service.RetryExecutor}
+ * like any other transient failure, so there is a single layer of retries.
+ *
+ * Requests sent outside the interceptor chain, such as uploads with a streamed body, share the same limits
+ * through {@link #execute(ClientHttpRequest)}, and so does the non-blocking client through {@link RateLimitingFilter}.
+ */
+@Slf4j
+public class RateLimitingInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    /**
+     * Wait used when a 429 response carries no usable {@code Retry-After}.
+     */
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+    private final RateLimitProperties properties;
+    private final Map<String, InstanceRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimitingInterceptor(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String instance = instanceKey(request.getURI());
+        InstanceRateLimiter limiter = limiter(instance);
+        ClientHttpResponse response = send(limiter, instance, () -> execution.execute(request, body));
+        throttled(limiter, instance, response.getStatusCode(), response.getHeaders());
+        return response;
+    }
+
+    /**
+     * Send a request that bypasses the interceptor chain within the limits of its instance.
+     *
+     * @param request The request, with its body ready to be written
+     * @return The response
+     */
+    public ClientHttpResponse execute(ClientHttpRequest request) throws IOException {
+        String instance = instanceKey(request.getURI());
+        InstanceRateLimiter limiter = limiter(instance);
+        ClientHttpResponse response = send(limiter, instance, request::execute);
+        throttled(limiter, instance, response.getStatusCode(), response.getHeaders());
+        return response;
+    }
+
+    /**
+     * Pause all requests to an instance for the {@code Retry-After} period of a 429 response.
+     */
+    void throttled(InstanceRateLimiter limiter, String instance, HttpStatusCode status, HttpHeaders headers) {
+        if (status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+            Duration retryAfter = retryAfter(headers);
+            limiter.pause(retryAfter.toNanos());
+            log.info("Rate limited by {}, pausing requests for {} ms with concurrency {}",
+                    instance, retryAfter.toMillis(), limiter.getConcurrency());
+        }
+    }
+
+    /**
+     * Send a request once a slot and token are available, and feed the outcome back to the limiter.
+     */
+    private ClientHttpResponse send(InstanceRateLimiter limiter, String instance, Request request) throws IOException {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limit of " + instance);
+        }
+
+        ClientHttpResponse response;
+        try {
+            response = request.send();
+        } catch (IOException | RuntimeException e) {
+            limiter.release(false);
+            throw e;
+        }
+
+        updateLimits(limiter, response.getHeaders());
+        limiter.release(response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS));
+        return response;
+    }
+
+    InstanceRateLimiter limiter(String instance) {
+        return limiters.computeIfAbsent(instance, key -> new InstanceRateLimiter(properties));
+    }
+
+    /**
+     * Apply the {@code X-RateLimit-*} headers of a response to the limiter of its instance.
+     */
+    static void updateLimits(InstanceRateLimiter limiter, HttpHeaders headers) {
+        limiter.update(intHeader(headers, LIMIT_HEADER), intHeader(headers, REMAINING_HEADER));
+    }
+
+    /**
+     * How long to hold back requests after a 429, from its {@code Retry-After} header.
+     */
+    Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        Duration retryAfter = DEFAULT_RETRY_AFTER;
+        if (value != null) {
+            try {
+                retryAfter = Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    retryAfter = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                } catch (DateTimeParseException ignored) {
+                    // Fall back to the default wait
+                }
+            }
+        }
+        if (retryAfter.isNegative()) {
+            return Duration.ZERO;
+        }
+        return retryAfter.compareTo(properties.getMaxRetryAfter()) > 0 ? properties.getMaxRetryAfter() : retryAfter;
+    }
+
+    private static Integer intHeader(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String instanceKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() != -1 ? ":" + uri.getPort() : "");
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        ClientHttpResponse send() throws IOException;
+    }
+}
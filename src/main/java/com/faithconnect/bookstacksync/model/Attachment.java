@@ -0,0 +1,66 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents an Attachment in the BookStack system.
+ * An attachment belongs to a page and is either an uploaded file or a link.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Attachment {
+    private Long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    private String extension;
+
+    /**
+     * The ID of the page the attachment belongs to.
+     */
+    @JsonProperty("uploaded_to")
+    private Long uploadedTo;
+
+    /**
+     * Whether the attachment is a link rather than an uploaded file.
+     */
+    private Boolean external;
+
+    private Integer order;
+
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    @JsonProperty("created_by")
+    private Book.User createdBy;
+
+    @JsonProperty("updated_by")
+    private Book.User updatedBy;
+
+    /**
+     * Only returned when a single attachment is read: the URL of a link, or the base64 encoded file.
+     */
+    private String content;
+
+    /**
+     * The URL of a link attachment, when creating or updating one.
+     */
+    private String link;
+
+    private Links links;
+
+    /**
+     * Ready-made HTML and Markdown links to the attachment.
+     */
+    @Data
+    public static class Links {
+        private String html;
+        private String markdown;
+    }
+}
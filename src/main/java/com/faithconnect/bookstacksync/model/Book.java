@@ -59,6 +59,16 @@ public class Book {
     @JsonIgnore
     private byte[] imageData;
     
+    /**
+     * Reads a book given by its bare ID, as some listings (shelf books, for one) give them
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Book fromId(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+
     /**
      * Sets the image as a string (used for JSON serialization)
      */
@@ -127,6 +137,8 @@ public class Book {
         @JsonProperty("chapter_id")
         private Long chapterId;
         
+        private Integer priority;
+        
         @JsonProperty("created_at")
         private String createdAt;
         
@@ -159,6 +171,8 @@ public class Book {
         @JsonProperty("chapter_id")
         private Long chapterId;
         
+        private Integer priority;
+        
         @JsonProperty("draft")
         private Boolean isDraft;
         
@@ -0,0 +1,40 @@
+package com.faithconnect.bookstacksync.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A book, chapter or page exported by BookStack, read straight from the open response rather than held in memory.
+ * The reader must close it, which releases the connection.
+ */
+@Getter
+@AllArgsConstructor
+public class Export implements Closeable {
+    private final String filename;
+    private final String contentType;
+
+    /**
+     * The size of the export in bytes, or -1 if BookStack did not send one.
+     */
+    private final long contentLength;
+
+    private final InputStream body;
+    private final Closeable response;
+
+    /**
+     * Write the whole export to a stream.
+     */
+    public void transferTo(OutputStream out) throws IOException {
+        body.transferTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        response.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.faithconnect.bookstacksync.model;
+
+import java.util.Locale;
+
+/**
+ * The formats BookStack exports books, chapters and pages in.
+ */
+public enum ExportFormat {
+    PDF("pdf", "pdf", "application/pdf", "pdf"),
+    HTML("html", "html", "text/html", "html"),
+    TEXT("text", "plaintext", "text/plain", "txt"),
+    MARKDOWN("markdown", "markdown", "text/markdown", "md");
+
+    private final String name;
+    private final String apiName;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String name, String apiName, String contentType, String extension) {
+        this.name = name;
+        this.apiName = apiName;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * @return The format's name in this service's export URLs
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The format's name in BookStack's export URLs
+     */
+    public String getApiName() {
+        return apiName;
+    }
+
+    /**
+     * @return The content type of the export, if BookStack does not send one
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name The format's name in this service's export URLs, such as {@code pdf}
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name.equals(name.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + name);
+    }
+}
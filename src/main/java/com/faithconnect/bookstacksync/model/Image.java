@@ -0,0 +1,51 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Represents an Image in the BookStack image gallery.
+ * A gallery image is uploaded to a page, and may be used in the content of any page.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Image {
+    private Long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    /**
+     * The full URL of the image file. When creating an image, the URL to copy the file from.
+     */
+    private String url;
+
+    /**
+     * The path of the image file, relative to the instance's base URL.
+     */
+    private String path;
+
+    /**
+     * {@code gallery} or {@code drawio}.
+     */
+    private String type;
+
+    /**
+     * The ID of the page the image was uploaded to.
+     */
+    @JsonProperty("uploaded_to")
+    private Long uploadedTo;
+
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    @JsonProperty("created_by")
+    private Book.User createdBy;
+
+    @JsonProperty("updated_by")
+    private Book.User updatedBy;
+}
@@ -0,0 +1,53 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents a Shelf in the BookStack system.
+ * A shelf groups books; a book can be on any number of shelves.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Shelf {
+    private Long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    private String slug;
+
+    @JsonProperty("description")
+    private String description;
+
+    @JsonProperty("description_html")
+    private String descriptionHtml;
+
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    @JsonProperty("created_by")
+    private Book.User createdBy;
+
+    @JsonProperty("updated_by")
+    private Book.User updatedBy;
+
+    @JsonProperty("owned_by")
+    private Book.User ownedBy;
+
+    /**
+     * The books on the shelf, in shelf order. Only returned when a single shelf is read; to create or update
+     * a shelf only the book IDs are needed.
+     */
+    private List<Book> books;
+
+    @JsonProperty("tags")
+    private List<Tag> tags;
+    private Book.Cover cover;
+}
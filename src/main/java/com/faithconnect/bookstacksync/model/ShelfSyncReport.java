@@ -0,0 +1,35 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a sync of the source shelves.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShelfSyncReport {
+    private int shelvesTotal;
+    private int shelvesCreated;
+    private int shelvesUpdated;
+
+    /**
+     * Shelves whose copy already had the same details and books.
+     */
+    private int shelvesUnchanged;
+    private int shelvesFailed;
+
+    /**
+     * Books put on destination shelves.
+     */
+    private int booksLinked;
+
+    /**
+     * Books left off their shelf's copy because they were never synced to the destination.
+     */
+    private List<String> booksMissing = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+}
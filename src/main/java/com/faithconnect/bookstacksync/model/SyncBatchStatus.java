@@ -0,0 +1,60 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of the progress of a bulk sync: the totals over all its books and the status of each book's job.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncBatchStatus {
+    private String id;
+
+    /**
+     * The ID of the request that queued the bulk sync.
+     */
+    private String requestId;
+
+    /**
+     * {@code instance} for a sync of every book of the source, {@code books} for a list of books.
+     */
+    private String scope;
+    private String mode;
+    private String phase;
+    private int booksTotal;
+
+    /**
+     * Books still waiting for a job of their own.
+     */
+    private int booksPending;
+    private int booksRunning;
+    private int booksCompleted;
+    private int booksFailed;
+    private int pagesDone;
+    private int pagesTotal;
+    private int pagesSkipped;
+
+    /**
+     * Pages written per second, over all books, since the bulk sync started.
+     */
+    private double pagesPerSecond;
+
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    /**
+     * The jobs of the books that were queued so far, in the order they were queued.
+     */
+    private List<SyncJobStatus> jobs;
+    private List<String> errors;
+
+    /**
+     * The outcome of the copy of the shelves, once done, if the bulk sync was asked to copy them.
+     */
+    private ShelfSyncReport shelves;
+}
@@ -0,0 +1,67 @@
+package com.faithconnect.bookstacksync.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of the progress of a background sync job.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncJobStatus {
+    private String id;
+
+    /**
+     * The ID of the request that queued the job.
+     */
+    private String requestId;
+
+    /**
+     * The bulk sync the job is part of, if any.
+     */
+    private String batchId;
+    private Long sourceBookId;
+    private Long destinationBookId;
+    private String mode;
+
+    /**
+     * The failed job this job resumes, if any.
+     */
+    private String resumedFrom;
+    private String phase;
+    private int pagesDone;
+    private int pagesTotal;
+
+    /**
+     * Pages left alone because their destination copy was already up to date (incremental syncs only).
+     */
+    private int pagesSkipped;
+
+    /**
+     * Pages whose links into the source were rewritten to point into the destination.
+     */
+    private int pagesRelinked;
+
+    /**
+     * Attachments written to the destination.
+     */
+    private int attachmentsCopied;
+
+    /**
+     * Attachments left alone because their destination copy was already up to date.
+     */
+    private int attachmentsSkipped;
+
+    /**
+     * Pages written per second since the job started.
+     */
+    private double pagesPerSecond;
+
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<String> errors;
+}
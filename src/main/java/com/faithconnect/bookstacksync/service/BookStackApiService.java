@@ -1,10 +1,18 @@
 package com.faithconnect.bookstacksync.service;
 
+import com.faithconnect.bookstacksync.model.Attachment;
 import com.faithconnect.bookstacksync.model.Book;
 import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Export;
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.model.Image;
 import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.model.Shelf;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service interface for interacting with the BookStack API.
@@ -19,15 +27,57 @@ public interface BookStackApiService {
      */
     List<Book> listBooks();
 
+    /**
+     * Stream all books, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
+     *
+     * @return A lazy stream of all books
+     */
+    Stream<Book> streamBooks();
+
     List<Book> listDestinationBooks();
 
     /**
-     * Get a book by ID.
+     * Stream all books in the destination, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
+     *
+     * @return A lazy stream of all destination books
+     */
+    Stream<Book> streamDestinationBooks();
+
+    /**
+     * Get a book by ID. The result may come from the source read cache and must not be modified.
      *
      * @param id The ID of the book to retrieve
      * @return The book with the specified ID
      */
     Book getBook(Long id);
+
+    /**
+     * Get a book by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the book to retrieve
+     * @param updatedAt The expected {@code updated_at} of the book, or null to read it from the instance
+     *                  without caching the result, so the caller may modify it
+     * @return The book with the specified ID
+     */
+    Book getBook(Long id, String updatedAt);
+
+    /**
+     * Get a book as it is listed, without its contents, read from a one-item listing.
+     *
+     * @param id The ID of the book to retrieve
+     * @return The listed book, or null if there is no book with that ID
+     */
+    Book getBookSummary(Long id);
+
+    /**
+     * Get a book by ID from the destination.
+     *
+     * @param id The ID of the destination book to retrieve
+     * @return The book with the specified ID, or null if it does not exist
+     */
+    Book getDestinationBook(Long id);
     
     /**
      * Create a new book.
@@ -64,14 +114,41 @@ public interface BookStackApiService {
      * @return A list of chapters in the book
      */
     List<Chapter> listChapters(Long bookId);
+
+    /**
+     * Stream all chapters in a book, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
+     *
+     * @param bookId The ID of the book
+     * @return A lazy stream of chapters in the book
+     */
+    Stream<Chapter> streamChapters(Long bookId);
     
     /**
-     * Get a chapter by ID.
+     * Get a chapter by ID. The result may come from the source read cache and must not be modified.
      *
      * @param id The ID of the chapter to retrieve
      * @return The chapter with the specified ID
      */
     Chapter getChapter(Long id);
+
+    /**
+     * Get a chapter by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the chapter to retrieve
+     * @param updatedAt The expected {@code updated_at} of the chapter, or null to read it from the instance
+     *                  without caching the result, so the caller may modify it
+     * @return The chapter with the specified ID
+     */
+    Chapter getChapter(Long id, String updatedAt);
+
+    /**
+     * Get a chapter as it is listed, without its pages, read from a one-item listing.
+     *
+     * @param id The ID of the chapter to retrieve
+     * @return The listed chapter, or null if there is no chapter with that ID
+     */
+    Chapter getChapterSummary(Long id);
     
     /**
      * Create a new chapter.
@@ -80,6 +157,23 @@ public interface BookStackApiService {
      * @return The created chapter
      */
     Chapter createChapter(Chapter chapter);
+
+    /**
+     * Update an existing chapter.
+     *
+     * @param id The ID of the chapter to update
+     * @param chapter The updated chapter data
+     * @return The updated chapter
+     */
+    Chapter updateChapter(Long id, Chapter chapter);
+
+    /**
+     * Delete a chapter, together with the pages it contains.
+     *
+     * @param id The ID of the chapter to delete
+     * @return true if the chapter was deleted successfully, false otherwise
+     */
+    boolean deleteChapter(Long id);
     
     // Page operations
     /**
@@ -89,6 +183,15 @@ public interface BookStackApiService {
      * @return A list of pages in the book
      */
     List<Page> listPages(Long bookId);
+
+    /**
+     * Stream all pages in a book, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
+     *
+     * @param bookId The ID of the book
+     * @return A lazy stream of pages in the book
+     */
+    Stream<Page> streamPages(Long bookId);
     
     /**
      * List all pages in a chapter.
@@ -99,12 +202,38 @@ public interface BookStackApiService {
     List<Page> listChapterPages(Long chapterId);
     
     /**
-     * Get a page by ID.
+     * Get a page by ID. The result may come from the source read cache and must not be modified.
      *
      * @param id The ID of the page to retrieve
      * @return The page with the specified ID
      */
     Page getPage(Long id);
+
+    /**
+     * Get a page by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the page to retrieve
+     * @param updatedAt The expected {@code updated_at} of the page, or null to read it from the instance
+     *                  without caching the result, so the caller may modify it
+     * @return The page with the specified ID
+     */
+    Page getPage(Long id, String updatedAt);
+
+    /**
+     * Get a page as it is listed, without its body, read from a one-item listing.
+     *
+     * @param id The ID of the page to retrieve
+     * @return The listed page, or null if there is no page with that ID
+     */
+    Page getPageSummary(Long id);
+
+    /**
+     * Get a page by ID from the destination.
+     *
+     * @param id The ID of the destination page to retrieve
+     * @return The page with the specified ID, or null if it does not exist
+     */
+    Page getDestinationPage(Long id);
     
     /**
      * Create a new page.
@@ -130,39 +259,157 @@ public interface BookStackApiService {
      * @return true if the page was deleted successfully, false otherwise
      */
     boolean deletePage(Long id);
-    
+
+    // Shelf operations
     /**
-     * Export a page as PDF.
+     * List all shelves. Listed shelves don't include their books.
      *
-     * @param id The ID of the page to export
-     * @return The PDF content as a byte array
+     * @return A list of all shelves
      */
-    byte[] exportPageAsPdf(Long id);
-    
+    List<Shelf> listShelves();
+
     /**
-     * Export a page as HTML.
+     * Stream all shelves, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
      *
-     * @param id The ID of the page to export
-     * @return The HTML content as a string
+     * @return A lazy stream of all shelves
      */
-    String exportPageAsHtml(Long id);
-    
+    Stream<Shelf> streamShelves();
+
     /**
-     * Export a page as plain text.
+     * Get a shelf by ID, with its books.
      *
-     * @param id The ID of the page to export
-     * @return The plain text content as a string
+     * @param id The ID of the shelf to retrieve
+     * @return The shelf with the specified ID
+     */
+    Shelf getShelf(Long id);
+
+    /**
+     * Get a shelf by ID from the destination.
+     *
+     * @param id The ID of the destination shelf to retrieve
+     * @return The shelf with the specified ID, or null if it does not exist
      */
-    String exportPageAsText(Long id);
+    Shelf getDestinationShelf(Long id);
+
+    /**
+     * Create a new shelf, with all its books in the one call.
+     *
+     * @param shelf The shelf to create; only the IDs of its books are used
+     * @return The created shelf
+     */
+    Shelf createShelf(Shelf shelf);
+
+    /**
+     * Update an existing shelf, replacing its books.
+     *
+     * @param id The ID of the shelf to update
+     * @param shelf The updated shelf data; only the IDs of its books are used
+     * @return The updated shelf
+     */
+    Shelf updateShelf(Long id, Shelf shelf);
+
+    // Attachment operations
+    /**
+     * List the attachments of a page. Listed attachments don't include their content.
+     *
+     * @param pageId The ID of the page
+     * @return A list of the attachments of the page
+     */
+    List<Attachment> listAttachments(Long pageId);
+
+    /**
+     * Stream all attachments, fetching further pages of the listing as the stream is consumed.
+     * The stream should be closed once consumed.
+     *
+     * @return A lazy stream of all attachments
+     */
+    Stream<Attachment> streamAttachments();
+
+    /**
+     * Get an attachment by ID, with its content: the URL of a link, or the whole file base64 encoded.
+     * Use {@link #downloadAttachment} to read files of any size.
+     *
+     * @param id The ID of the attachment to retrieve
+     * @return The attachment with the specified ID
+     */
+    Attachment getAttachment(Long id);
+
+    /**
+     * Download the file of an attachment, decoding it as it arrives, so files of any size are read with
+     * constant memory. Not retried once the file started to arrive, since part of it may have been written.
+     *
+     * @param id The ID of the file attachment to download
+     * @param file Receives the file; not closed
+     * @return The attachment, without its content
+     */
+    Attachment downloadAttachment(Long id, OutputStream file);
+
+    /**
+     * Create a new attachment: a link, or a file streamed from disk.
+     *
+     * @param attachment The attachment to create, with {@code link} set for a link
+     * @param file The file to upload, or null for a link
+     * @return The created attachment
+     */
+    Attachment createAttachment(Attachment attachment, Path file);
+
+    /**
+     * Update an existing attachment, replacing its link or file.
+     *
+     * @param id The ID of the attachment to update
+     * @param attachment The updated attachment data, with {@code link} set for a link
+     * @param file The file to upload, or null to keep the file or for a link
+     * @return The updated attachment
+     */
+    Attachment updateAttachment(Long id, Attachment attachment, Path file);
+
+    /**
+     * Delete an attachment.
+     *
+     * @param id The ID of the attachment to delete
+     * @return true if the attachment was deleted successfully, false otherwise
+     */
+    boolean deleteAttachment(Long id);
+
+    // Image gallery operations
+    /**
+     * Create a new gallery image, streaming its file from the source download into the upload as for a book cover.
+     *
+     * @param image The image to create: the URL to copy the file from, the page to upload it to, and its name
+     * @return The created image, or null if there is no file at the URL to copy
+     */
+    Image createImage(Image image);
     
+    // Export operations
+    /**
+     * Export a book from the source. The export is read from the open response, so files of any size are passed on
+     * without being held in memory.
+     *
+     * @param id The ID of the book to export
+     * @param format The format to export the book in
+     * @return The export, which the caller must close
+     */
+    Export exportBook(Long id, ExportFormat format);
+
+    /**
+     * Export a chapter from the source, as for {@link #exportBook}.
+     *
+     * @param id The ID of the chapter to export
+     * @param format The format to export the chapter in
+     * @return The export, which the caller must close
+     */
+    Export exportChapter(Long id, ExportFormat format);
+
     /**
-     * Export a page as Markdown.
+     * Export a page from the source, as for {@link #exportBook}.
      *
      * @param id The ID of the page to export
-     * @return The Markdown content as a string
+     * @param format The format to export the page in
+     * @return The export, which the caller must close
      */
-    String exportPageAsMarkdown(Long id);
-    
+    Export exportPage(Long id, ExportFormat format);
+
     // Verification
     /**
      * Verify that the source API credentials are valid.
@@ -1,52 +1,116 @@
 package com.faithconnect.bookstacksync.service;
 
-import com.faithconnect.bookstacksync.interceptor.CredentialsInterceptor;
+import com.faithconnect.bookstacksync.config.HttpClientProperties;
 import com.faithconnect.bookstacksync.model.*;
+import com.faithconnect.bookstacksync.service.RetryExecutor.Operation;
+import com.faithconnect.bookstacksync.sync.BookSyncEngine;
+import com.faithconnect.bookstacksync.sync.SyncContext;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.nio.file.Files;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(prefix = "bookstack.http", name = "client", havingValue = "blocking", matchIfMissing = true)
 public class BookStackApiServiceImpl implements BookStackApiService {
 
+    /**
+     * How far the destination's clock may run behind ours when looking up entities created by a failed attempt.
+     */
+    static final Duration CLOCK_SKEW_ALLOWANCE = Duration.ofMinutes(1);
+
+    /**
+     * Format of timestamps in list filters; BookStack stores them in UTC.
+     */
+    static final DateTimeFormatter CREATED_AT_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
     private final RestTemplate restTemplate;  
     private final BookStackConfig defaultSourceConfig;
     private final BookStackConfig defaultDestinationConfig;
-
-    public BookStackApiServiceImpl(RestTemplate restTemplate, BookStackConfig sourceConfig, BookStackConfig destinationConfig) {
+    private final ObjectProvider<BookSyncEngine> bookSyncEngine;
+    private final HttpClientProperties httpClientProperties;
+    private final ThreadPoolTaskExecutor listExecutor;
+    private final SourceReadCache readCache;
+    private final RetryExecutor retryExecutor;
+    private final StreamingTransfer streamingTransfer;
+    private final CreateClaims createClaims;
+    private final ObjectMapper objectMapper;
+
+    public BookStackApiServiceImpl(RestTemplate restTemplate, BookStackConfig sourceConfig, BookStackConfig destinationConfig,
+                                   ObjectProvider<BookSyncEngine> bookSyncEngine, HttpClientProperties httpClientProperties,
+                                   SourceReadCache readCache, RetryExecutor retryExecutor, StreamingTransfer streamingTransfer,
+                                   CreateClaims createClaims, ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.readCache = readCache;
+        this.retryExecutor = retryExecutor;
+        this.streamingTransfer = streamingTransfer;
+        this.createClaims = createClaims;
         this.defaultSourceConfig = sourceConfig;
         this.defaultDestinationConfig = destinationConfig;
+        this.bookSyncEngine = bookSyncEngine;
+        this.httpClientProperties = httpClientProperties;
+
+        // Prefetched list pages share the per-host connection limit, so there is no point in more threads than that
+        this.listExecutor = new ThreadPoolTaskExecutor();
+        this.listExecutor.setThreadNamePrefix("list-prefetch-");
+        this.listExecutor.setCorePoolSize(httpClientProperties.getMaxConnectionsPerRoute());
+        this.listExecutor.setMaxPoolSize(httpClientProperties.getMaxConnectionsPerRoute());
+        this.listExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listExecutor.shutdown();
     }
 
     /**
-     * Get the source configuration, prioritizing request headers over default config
+     * Get the source configuration of the sync context the call is made under, falling back to the default config
      */
     private BookStackConfig getSourceConfig() {
-        BookStackConfig requestConfig = CredentialsInterceptor.getSourceConfig();
-        return requestConfig != null ? requestConfig : defaultSourceConfig;
+        return SyncContext.current().sourceOr(defaultSourceConfig);
     }
 
     /**
-     * Get the destination configuration, prioritizing request headers over default config
+     * Get the destination configuration of the sync context the call is made under, falling back to the default config
      */
     private BookStackConfig getDestinationConfig() {
-        BookStackConfig requestConfig = CredentialsInterceptor.getDestinationConfig();
-        return requestConfig != null ? requestConfig : defaultDestinationConfig;
+        return SyncContext.current().destinationOr(defaultDestinationConfig);
     }
 
     @Override
@@ -54,17 +118,19 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
             log.debug("Listing books from {}", sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<ListResponse<Book>> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/books",
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<ListResponse<Book>>() {}
-            );
-            
-            return Objects.requireNonNull(response.getBody()).getData();
+            return openList(sourceConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing books: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to list books", e);
+        }
+    }
+
+    @Override
+    public Stream<Book> streamBooks() {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Streaming books from {}", sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {}).stream();
         } catch (Exception e) {
             log.error("Error listing books: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to list books", e);
@@ -76,17 +142,19 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         try {
             BookStackConfig destinationConfig = getDestinationConfig();
             log.debug("Listing books from {}", destinationConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(destinationConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<ListResponse<Book>> response = restTemplate.exchange(
-                    destinationConfig.getBaseUrl() + "/api/books",
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<ListResponse<Book>>() {}
-            );
+            return openList(destinationConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing books: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to list books", e);
+        }
+    }
 
-            return Objects.requireNonNull(response.getBody()).getData();
+    @Override
+    public Stream<Book> streamDestinationBooks() {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Streaming books from {}", destinationConfig.getBaseUrl());
+            return openList(destinationConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {}).stream();
         } catch (Exception e) {
             log.error("Error listing books: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to list books", e);
@@ -95,31 +163,74 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
     @Override
     public Book getBook(Long id) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        return readCache.get(sourceConfig, SourceReadCache.BOOK, id, stale -> fetchBook(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Book getBook(Long id, String updatedAt) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        if (updatedAt == null) {
+            return readCache.refresh(sourceConfig, SourceReadCache.BOOK, id, stale -> fetchBook(sourceConfig, id, stale));
+        }
+        return readCache.get(sourceConfig, SourceReadCache.BOOK, id,
+                (Book cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                stale -> fetchBook(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Book getBookSummary(Long id) {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Getting listing of book with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/books", id, new ParameterizedTypeReference<ListResponse<Book>>() {});
+        } catch (Exception e) {
+            log.error("Error getting listing of book with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get listing of book with ID " + id, e);
+        }
+    }
+
+    private SourceReadCache.Entry<Book> fetchBook(BookStackConfig sourceConfig, Long id, SourceReadCache.Entry<Book> stale) {
+        try {
             log.debug("Getting book with ID {} from {}", id, sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Book> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/books/" + id,
-                    HttpMethod.GET,
-                    requestEntity,
-                    Book.class
-            );
-            
-            return response.getBody();
+            return fetchConditionally(sourceConfig, "/api/books/" + id, Book.class, stale);
         } catch (Exception e) {
             log.error("Error getting book with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to get book with ID " + id, e);
         }
     }
 
+    @Override
+    public Book getDestinationBook(Long id) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Getting book with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+
+            ResponseEntity<Book> response = retryExecutor.execute(Operation.READ, "get destination book " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/books/" + id,
+                            HttpMethod.GET,
+                            requestEntity,
+                            Book.class
+                    ));
+
+            return response.getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Error getting destination book with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get destination book with ID " + id, e);
+        }
+    }
+
     @Override
     public Book createBook(Book book) {
         try {
             BookStackConfig destinationConfig = getDestinationConfig();
             log.debug("Creating book in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
 
             // Create headers for the request
             HttpHeaders headers = createHeaders(destinationConfig);
@@ -145,54 +256,29 @@ public class BookStackApiServiceImpl implements BookStackApiService {
                 }
             }
 
-            // Add cover image (if available)
-            if (book.getCover() != null && book.getCover().getUrl() != null) {
-                try {
-                    // Download the image directly using RestTemplate
-                    ResponseEntity<byte[]> imageResponse = restTemplate.exchange(
-                        book.getCover().getUrl(),
-                        HttpMethod.GET,
-                        null,
-                        byte[].class
-                    );
-                    
-                    if (imageResponse.getStatusCode().is2xxSuccessful() && imageResponse.getBody() != null) {
-                        // Create a temporary file for the image
-                        Path tempFile = Files.createTempFile("book_cover_", ".jpg");
-                        Files.write(tempFile, imageResponse.getBody());
-                        
-                        // Create a FileSystemResource from the temp file
-                        FileSystemResource fileResource = new FileSystemResource(tempFile.toFile());
-                        
-                        // Add the image to the request
-                        multipartRequest.add("image", fileResource);
-                        
-                        // Register the temp file for deletion when the JVM exits
-                        tempFile.toFile().deleteOnExit();
-
-                        log.debug("Added image to request: {}", book.getCover().getName());
-                    } else {
-                        log.warn("Failed to download image from URL: {}", book.getCover().getUrl());
-                    }
-                } catch (Exception e) {
-                    log.error("Error processing image: {}", e.getMessage(), e);
-                    // Continue without the image
-                }
-            }
-
             // Create an HttpEntity with the form data and headers
             HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(multipartRequest, headers);
+            String coverUrl = book.getCover() != null ? book.getCover().getUrl() : null;
 
             try {
-                // Send the POST request
-                ResponseEntity<Book> response = restTemplate.exchange(
-                        destinationConfig.getBaseUrl() + "/api/books",
-                        HttpMethod.POST,
-                        requestEntity,
-                        Book.class
-                );
-                
-                return response.getBody(); // Return the created book
+                // Send the POST request, with the cover (if available) streamed from the source on every attempt
+                Book created = retryExecutor.execute(Operation.CREATE, "create book " + book.getName(),
+                        () -> coverUrl != null
+                                ? createBookWithCover(destinationConfig, requestEntity, book.getCover())
+                                : restTemplate.exchange(
+                                        destinationConfig.getBaseUrl() + "/api/books",
+                                        HttpMethod.POST,
+                                        requestEntity,
+                                        Book.class
+                                ).getBody(),
+                        () -> findCreatedBook(destinationConfig, book, createdSince));
+                if (created != null) {
+                    createClaims.claim(destinationConfig, CreateClaims.BOOK, created.getId());
+                }
+
+                readCache.invalidate(destinationConfig, SourceReadCache.BOOK, null);
+
+                return created; // Return the created book
             } catch (HttpStatusCodeException e) {
                 // Log the response body for better debugging
                 log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
@@ -206,9 +292,71 @@ public class BookStackApiServiceImpl implements BookStackApiService {
     }
 
 
+    /**
+     * Create a book with its cover image piped from the source download into the upload. A cover that can't be
+     * downloaded is left out rather than failing the book.
+     */
+    private Book createBookWithCover(BookStackConfig destinationConfig, HttpEntity<MultiValueMap<String, Object>> requestEntity,
+                                     Book.Cover cover) {
+        ClientHttpResponse image;
+        try {
+            image = streamingTransfer.download(cover.getUrl(), new HttpHeaders());
+        } catch (Exception e) {
+            log.warn("Failed to download image from URL {}, creating the book without it: {}", cover.getUrl(), e.getMessage());
+            return restTemplate.exchange(destinationConfig.getBaseUrl() + "/api/books", HttpMethod.POST, requestEntity, Book.class)
+                    .getBody();
+        }
+        try (image) {
+            log.debug("Streaming image to request: {}", cover.getName());
+            return streamingTransfer.upload(destinationConfig.getBaseUrl() + "/api/books", requestEntity.getHeaders(),
+                    requestEntity.getBody(), "image", image, coverFilename(cover), Book.class);
+        }
+    }
+
+    private static String coverFilename(Book.Cover cover) {
+        String path = URI.create(cover.getUrl()).getPath();
+        String name = path != null ? path.substring(path.lastIndexOf('/') + 1) : "";
+        return !name.isEmpty() ? name : "cover.jpg";
+    }
+
     @Override
     public Book updateBook(Long id, Book book) {
-        return null;
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Updating book with ID {} in {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", book.getName());
+            body.put("description", book.getDescription());
+            body.put("description_html", book.getDescriptionHtml());
+            if (book.getDefaultTemplateId() != null) {
+                body.put("default_template_id", book.getDefaultTemplateId());
+            }
+            if (book.getTags() != null) {
+                body.put("tags", book.getTags());
+            }
+
+            try {
+                ResponseEntity<Book> response = retryExecutor.execute(Operation.UPDATE, "update book " + id,
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/books/" + id,
+                                HttpMethod.PUT,
+                                new HttpEntity<>(body, headers),
+                                Book.class
+                        ));
+
+                readCache.invalidate(destinationConfig, SourceReadCache.BOOK, id);
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error updating book with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to update book with ID " + id, e);
+        }
     }
 
     @Override
@@ -219,14 +367,19 @@ public class BookStackApiServiceImpl implements BookStackApiService {
             HttpHeaders headers = createHeaders(destinationConfig);
             HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                    destinationConfig.getBaseUrl() + "/api/books/" + id,
-                    HttpMethod.DELETE,
-                    requestEntity,
-                    String.class
-            );
+            ResponseEntity<String> response = retryExecutor.execute(Operation.DELETE, "delete book " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/books/" + id,
+                            HttpMethod.DELETE,
+                            requestEntity,
+                            String.class
+                    ),
+                    () -> isListed(destinationConfig, "/api/books", id)
+                            ? Optional.empty() : Optional.of(ResponseEntity.noContent().build()));
 
-            return response.hasBody();
+            readCache.invalidate(destinationConfig, SourceReadCache.BOOK, id);
+
+            return response.getStatusCode().is2xxSuccessful();
         } catch (Exception e) {
             log.error("Error deleting book with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to delete book with ID " + id, e);
@@ -260,17 +413,21 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
             log.debug("Listing chapters for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<ListResponse<Chapter>> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/books/" + bookId + "/chapters",
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<ListResponse<Chapter>>() {}
-            );
-            
-            return Objects.requireNonNull(response.getBody()).getData();
+            return openList(sourceConfig, "/api/chapters?filter[book_id]=" + bookId,
+                    new ParameterizedTypeReference<ListResponse<Chapter>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing chapters for book ID {}: {}", bookId, e.getMessage(), e);
+            throw new BookStackApiException("Failed to list chapters for book ID " + bookId, e);
+        }
+    }
+
+    @Override
+    public Stream<Chapter> streamChapters(Long bookId) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Streaming chapters for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/chapters?filter[book_id]=" + bookId,
+                    new ParameterizedTypeReference<ListResponse<Chapter>>() {}).stream();
         } catch (Exception e) {
             log.error("Error listing chapters for book ID {}: {}", bookId, e.getMessage(), e);
             throw new BookStackApiException("Failed to list chapters for book ID " + bookId, e);
@@ -279,20 +436,37 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
     @Override
     public Chapter getChapter(Long id) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        return readCache.get(sourceConfig, SourceReadCache.CHAPTER, id, stale -> fetchChapter(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Chapter getChapter(Long id, String updatedAt) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        if (updatedAt == null) {
+            return readCache.refresh(sourceConfig, SourceReadCache.CHAPTER, id, stale -> fetchChapter(sourceConfig, id, stale));
+        }
+        return readCache.get(sourceConfig, SourceReadCache.CHAPTER, id,
+                (Chapter cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                stale -> fetchChapter(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Chapter getChapterSummary(Long id) {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Getting listing of chapter with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/chapters", id, new ParameterizedTypeReference<ListResponse<Chapter>>() {});
+        } catch (Exception e) {
+            log.error("Error getting listing of chapter with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get listing of chapter with ID " + id, e);
+        }
+    }
+
+    private SourceReadCache.Entry<Chapter> fetchChapter(BookStackConfig sourceConfig, Long id, SourceReadCache.Entry<Chapter> stale) {
+        try {
             log.debug("Getting chapter with ID {} from {}", id, sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Chapter> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/chapters/" + id,
-                    HttpMethod.GET,
-                    requestEntity,
-                    Chapter.class
-            );
-            
-            return response.getBody();
+            return fetchConditionally(sourceConfig, "/api/chapters/" + id, Chapter.class, stale);
         } catch (Exception e) {
             log.error("Error getting chapter with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to get chapter with ID " + id, e);
@@ -304,6 +478,7 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         try {
             BookStackConfig destinationConfig = getDestinationConfig();
             log.debug("Creating chapter in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
 
             // Create headers for the request
             HttpHeaders headers = createHeaders(destinationConfig);
@@ -320,6 +495,10 @@ public class BookStackApiServiceImpl implements BookStackApiService {
                 multipartRequest.add("default_template_id", chapter.getDefaultTemplateId());
             }
 
+            if (chapter.getPriority() != null) {
+                multipartRequest.add("priority", chapter.getPriority());
+            }
+
             // Add tags (if they are present)
             if (chapter.getTags() != null && !chapter.getTags().isEmpty()) {
                 for (int i = 0; i < chapter.getTags().size(); i++) {
@@ -335,12 +514,16 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
             try {
                 // Send the POST request
-                ResponseEntity<Chapter> response = restTemplate.exchange(
-                        destinationConfig.getBaseUrl() + "/api/chapters",
-                        HttpMethod.POST,
-                        requestEntity,
-                        Chapter.class
-                );
+                ResponseEntity<Chapter> response = retryExecutor.execute(Operation.CREATE, "create chapter " + chapter.getName(),
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/chapters",
+                                HttpMethod.POST,
+                                requestEntity,
+                                Chapter.class
+                        ),
+                        () -> findCreatedChapter(destinationConfig, chapter, createdSince).map(ResponseEntity::ok));
+
+                readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, null);
 
                 return response.getBody(); // Return the created chapter
             } catch (HttpStatusCodeException e) {
@@ -355,22 +538,97 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         }
     }
 
+    @Override
+    public Chapter updateChapter(Long id, Chapter chapter) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Updating chapter with ID {} in {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("book_id", chapter.getBookId());
+            body.put("name", chapter.getName());
+            body.put("description", chapter.getDescription());
+            body.put("description_html", chapter.getDescriptionHtml());
+            if (chapter.getPriority() != null) {
+                body.put("priority", chapter.getPriority());
+            }
+            if (chapter.getDefaultTemplateId() != null) {
+                body.put("default_template_id", chapter.getDefaultTemplateId());
+            }
+            if (chapter.getTags() != null) {
+                body.put("tags", chapter.getTags());
+            }
+
+            try {
+                ResponseEntity<Chapter> response = retryExecutor.execute(Operation.UPDATE, "update chapter " + id,
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/chapters/" + id,
+                                HttpMethod.PUT,
+                                new HttpEntity<>(body, headers),
+                                Chapter.class
+                        ));
+
+                readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, id);
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error updating chapter with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to update chapter with ID " + id, e);
+        }
+    }
+
+    @Override
+    public boolean deleteChapter(Long id) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Deleting chapter with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+
+            ResponseEntity<String> response = retryExecutor.execute(Operation.DELETE, "delete chapter " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/chapters/" + id,
+                            HttpMethod.DELETE,
+                            requestEntity,
+                            String.class
+                    ),
+                    () -> isListed(destinationConfig, "/api/chapters", id)
+                            ? Optional.empty() : Optional.of(ResponseEntity.noContent().build()));
+
+            readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, id);
+
+            return response.getStatusCode().is2xxSuccessful();
+        } catch (Exception e) {
+            log.error("Error deleting chapter with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to delete chapter with ID " + id, e);
+        }
+    }
+
     @Override
     public List<Page> listPages(Long bookId) {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
             log.debug("Listing pages for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<ListResponse<Page>> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/books/" + bookId + "/pages",
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<ListResponse<Page>>() {}
-            );
-            
-            return Objects.requireNonNull(response.getBody()).getData();
+            return openList(sourceConfig, "/api/pages?filter[book_id]=" + bookId,
+                    new ParameterizedTypeReference<ListResponse<Page>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing pages for book ID {}: {}", bookId, e.getMessage(), e);
+            throw new BookStackApiException("Failed to list pages for book ID " + bookId, e);
+        }
+    }
+
+    @Override
+    public Stream<Page> streamPages(Long bookId) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Streaming pages for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/pages?filter[book_id]=" + bookId,
+                    new ParameterizedTypeReference<ListResponse<Page>>() {}).stream();
         } catch (Exception e) {
             log.error("Error listing pages for book ID {}: {}", bookId, e.getMessage(), e);
             throw new BookStackApiException("Failed to list pages for book ID " + bookId, e);
@@ -379,36 +637,89 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
     @Override
     public List<Page> listChapterPages(Long chapterId) {
-        return List.of();
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Listing pages for chapter ID {} from {}", chapterId, sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/pages?filter[chapter_id]=" + chapterId,
+                    new ParameterizedTypeReference<ListResponse<Page>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing pages for chapter ID {}: {}", chapterId, e.getMessage(), e);
+            throw new BookStackApiException("Failed to list pages for chapter ID " + chapterId, e);
+        }
     }
 
     @Override
     public Page getPage(Long id) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        return readCache.get(sourceConfig, SourceReadCache.PAGE, id, stale -> fetchPage(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Page getPage(Long id, String updatedAt) {
+        BookStackConfig sourceConfig = getSourceConfig();
+        if (updatedAt == null) {
+            return readCache.refresh(sourceConfig, SourceReadCache.PAGE, id, stale -> fetchPage(sourceConfig, id, stale));
+        }
+        return readCache.get(sourceConfig, SourceReadCache.PAGE, id,
+                (Page cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                stale -> fetchPage(sourceConfig, id, stale));
+    }
+
+    @Override
+    public Page getPageSummary(Long id) {
         try {
             BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Getting listing of page with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/pages", id, new ParameterizedTypeReference<ListResponse<Page>>() {});
+        } catch (Exception e) {
+            log.error("Error getting listing of page with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get listing of page with ID " + id, e);
+        }
+    }
+
+    private SourceReadCache.Entry<Page> fetchPage(BookStackConfig sourceConfig, Long id, SourceReadCache.Entry<Page> stale) {
+        try {
             log.debug("Getting page with ID {} from {}", id, sourceConfig.getBaseUrl());
-            HttpHeaders headers = createHeaders(sourceConfig);
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Page> response = restTemplate.exchange(
-                    sourceConfig.getBaseUrl() + "/api/pages/" + id,
-                    HttpMethod.GET,
-                    requestEntity,
-                    Page.class
-            );
-            
-            return response.getBody();
+            if (stale != null && !stale.hasValidators() && isPageUnchanged(sourceConfig, stale.value())) {
+                return stale.revalidated();
+            }
+            return fetchConditionally(sourceConfig, "/api/pages/" + id, Page.class, stale);
         } catch (Exception e) {
             log.error("Error getting page with ID {}: {}", id, e.getMessage(), e);
             throw new BookStackApiException("Failed to get page with ID " + id, e);
         }
     }
 
+    @Override
+    public Page getDestinationPage(Long id) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Getting page with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(destinationConfig));
+
+            ResponseEntity<Page> response = retryExecutor.execute(Operation.READ, "get destination page " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/pages/" + id,
+                            HttpMethod.GET,
+                            requestEntity,
+                            Page.class
+                    ));
+
+            return response.getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Error getting destination page with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get destination page with ID " + id, e);
+        }
+    }
+
     @Override
     public Page createPage(Page page) {
         try {
             BookStackConfig destinationConfig = getDestinationConfig();
             log.debug("Creating page in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
             // Create headers for the request
             HttpHeaders headers = createHeaders(destinationConfig);
             headers.setContentType(MediaType.MULTIPART_FORM_DATA); // Set Content-Type to multipart/form-data
@@ -437,12 +748,16 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
             try {
                 // Send the POST request
-                ResponseEntity<Page> response = restTemplate.exchange(
-                        destinationConfig.getBaseUrl() + "/api/pages",
-                        HttpMethod.POST,
-                        requestEntity,
-                        Page.class
-                );
+                ResponseEntity<Page> response = retryExecutor.execute(Operation.CREATE, "create page " + page.getName(),
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/pages",
+                                HttpMethod.POST,
+                                requestEntity,
+                                Page.class
+                        ),
+                        () -> findCreatedPage(destinationConfig, page, createdSince).map(ResponseEntity::ok));
+
+                readCache.invalidate(destinationConfig, SourceReadCache.PAGE, null);
 
                 return response.getBody(); // Return the created chapter
             } catch (HttpStatusCodeException e) {
@@ -459,127 +774,832 @@ public class BookStackApiServiceImpl implements BookStackApiService {
 
     @Override
     public Page updatePage(Long id, Page page) {
-        return null;
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Updating page with ID {} in {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+
+            // A chapter ID places the page in that chapter; a book ID alone places it at the top level of the book
+            Map<String, Object> body = new LinkedHashMap<>();
+            if (page.getChapterId() != null) {
+                body.put("chapter_id", page.getChapterId());
+            } else {
+                body.put("book_id", page.getBookId());
+            }
+            body.put("name", page.getName());
+            if (page.getMarkdown() != null && !page.getMarkdown().isEmpty()) {
+                body.put("markdown", page.getMarkdown());
+            } else {
+                body.put("html", page.getHtml());
+            }
+            if (page.getPriority() != null) {
+                body.put("priority", page.getPriority());
+            }
+            if (page.getTags() != null) {
+                body.put("tags", page.getTags());
+            }
+
+            try {
+                ResponseEntity<Page> response = retryExecutor.execute(Operation.UPDATE, "update page " + id,
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/pages/" + id,
+                                HttpMethod.PUT,
+                                new HttpEntity<>(body, headers),
+                                Page.class
+                        ));
+
+                readCache.invalidate(destinationConfig, SourceReadCache.PAGE, id);
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error updating page with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to update page with ID " + id, e);
+        }
     }
 
     @Override
     public boolean deletePage(Long id) {
-        return false;
-    }
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Deleting page with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-    @Override
-    public byte[] exportPageAsPdf(Long id) {
-        return new byte[0];
-    }
+            ResponseEntity<String> response = retryExecutor.execute(Operation.DELETE, "delete page " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/pages/" + id,
+                            HttpMethod.DELETE,
+                            requestEntity,
+                            String.class
+                    ),
+                    () -> isListed(destinationConfig, "/api/pages", id)
+                            ? Optional.empty() : Optional.of(ResponseEntity.noContent().build()));
 
-    @Override
-    public String exportPageAsHtml(Long id) {
-        return "";
-    }
+            readCache.invalidate(destinationConfig, SourceReadCache.PAGE, id);
 
-    @Override
-    public String exportPageAsText(Long id) {
-        return "";
+            return response.getStatusCode().is2xxSuccessful();
+        } catch (Exception e) {
+            log.error("Error deleting page with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to delete page with ID " + id, e);
+        }
     }
 
     @Override
-    public String exportPageAsMarkdown(Long id) {
-        return "";
+    public List<Shelf> listShelves() {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Listing shelves from {}", sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/shelves", new ParameterizedTypeReference<ListResponse<Shelf>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing shelves: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to list shelves", e);
+        }
     }
 
     @Override
-    public boolean verifyCredentials() {
+    public Stream<Shelf> streamShelves() {
         try {
-            log.debug("Verifying credentials for {}", getSourceConfig().getBaseUrl());
-            listBooks();
-            log.debug("Successfully verified credentials for {}", getSourceConfig().getBaseUrl());
-            return true;
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Streaming shelves from {}", sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/shelves", new ParameterizedTypeReference<ListResponse<Shelf>>() {}).stream();
         } catch (Exception e) {
-            log.error("Failed to verify credentials for {}: {}", getSourceConfig().getBaseUrl(), e.getMessage(), e);
-            if (e instanceof HttpClientErrorException.Unauthorized) {
-                throw new BookStackApiException("Invalid API credentials for " + getSourceConfig().getBaseUrl(), e);
-            }
-            throw new BookStackApiException("Failed to verify credentials for " + getSourceConfig().getBaseUrl(), e);
+            log.error("Error listing shelves: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to list shelves", e);
+        }
+    }
+
+    @Override
+    public Shelf getShelf(Long id) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Getting shelf with ID {} from {}", id, sourceConfig.getBaseUrl());
+            HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(sourceConfig));
+
+            ResponseEntity<Shelf> response = retryExecutor.execute(Operation.READ, "get shelf " + id,
+                    () -> restTemplate.exchange(
+                            sourceConfig.getBaseUrl() + "/api/shelves/" + id,
+                            HttpMethod.GET,
+                            requestEntity,
+                            Shelf.class
+                    ));
+
+            return response.getBody();
+        } catch (Exception e) {
+            log.error("Error getting shelf with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get shelf with ID " + id, e);
+        }
+    }
+
+    @Override
+    public Shelf getDestinationShelf(Long id) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Getting shelf with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(destinationConfig));
+
+            ResponseEntity<Shelf> response = retryExecutor.execute(Operation.READ, "get destination shelf " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/shelves/" + id,
+                            HttpMethod.GET,
+                            requestEntity,
+                            Shelf.class
+                    ));
+
+            return response.getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Error getting destination shelf with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get destination shelf with ID " + id, e);
+        }
+    }
+
+    @Override
+    public Shelf createShelf(Shelf shelf) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Creating shelf in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            HttpHeaders headers = createHeaders(destinationConfig);
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+            MultiValueMap<String, Object> multipartRequest = new LinkedMultiValueMap<>();
+            multipartRequest.add("name", shelf.getName());
+            multipartRequest.add("description", shelf.getDescription());
+            multipartRequest.add("description_html", shelf.getDescriptionHtml());
+
+            // All books go into the one create call
+            List<Long> bookIds = bookIds(shelf);
+            for (int i = 0; i < bookIds.size(); i++) {
+                multipartRequest.add("books[" + i + "]", bookIds.get(i));
+            }
+
+            if (shelf.getTags() != null && !shelf.getTags().isEmpty()) {
+                for (int i = 0; i < shelf.getTags().size(); i++) {
+                    Tag tag = shelf.getTags().get(i);
+                    multipartRequest.add("tags[" + i + "][name]", tag.getName());
+                    multipartRequest.add("tags[" + i + "][value]", tag.getValue());
+                    multipartRequest.add("tags[" + i + "][order]", tag.getOrder());
+                }
+            }
+
+            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(multipartRequest, headers);
+
+            try {
+                ResponseEntity<Shelf> response = retryExecutor.execute(Operation.CREATE, "create shelf " + shelf.getName(),
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/shelves",
+                                HttpMethod.POST,
+                                requestEntity,
+                                Shelf.class
+                        ),
+                        () -> findCreatedShelf(destinationConfig, shelf, createdSince).map(ResponseEntity::ok));
+                if (response.getBody() != null) {
+                    createClaims.claim(destinationConfig, CreateClaims.SHELF, response.getBody().getId());
+                }
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error creating shelf: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to create shelf", e);
+        }
+    }
+
+    @Override
+    public Shelf updateShelf(Long id, Shelf shelf) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Updating shelf with ID {} in {}", id, destinationConfig.getBaseUrl());
+            HttpHeaders headers = createHeaders(destinationConfig);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", shelf.getName());
+            body.put("description", shelf.getDescription());
+            body.put("description_html", shelf.getDescriptionHtml());
+            body.put("books", bookIds(shelf));
+            if (shelf.getTags() != null) {
+                body.put("tags", shelf.getTags());
+            }
+
+            try {
+                ResponseEntity<Shelf> response = retryExecutor.execute(Operation.UPDATE, "update shelf " + id,
+                        () -> restTemplate.exchange(
+                                destinationConfig.getBaseUrl() + "/api/shelves/" + id,
+                                HttpMethod.PUT,
+                                new HttpEntity<>(body, headers),
+                                Shelf.class
+                        ));
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error updating shelf with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to update shelf with ID " + id, e);
+        }
+    }
+
+    private static List<Long> bookIds(Shelf shelf) {
+        return shelf.getBooks() != null ? shelf.getBooks().stream().map(Book::getId).toList() : List.of();
+    }
+
+    @Override
+    public List<Attachment> listAttachments(Long pageId) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Listing attachments for page ID {} from {}", pageId, sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/attachments?filter[uploaded_to]=" + pageId,
+                    new ParameterizedTypeReference<ListResponse<Attachment>>() {}).toList();
+        } catch (Exception e) {
+            log.error("Error listing attachments for page ID {}: {}", pageId, e.getMessage(), e);
+            throw new BookStackApiException("Failed to list attachments for page ID " + pageId, e);
+        }
+    }
+
+    @Override
+    public Stream<Attachment> streamAttachments() {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Streaming attachments from {}", sourceConfig.getBaseUrl());
+            return openList(sourceConfig, "/api/attachments", new ParameterizedTypeReference<ListResponse<Attachment>>() {}).stream();
+        } catch (Exception e) {
+            log.error("Error listing attachments: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to list attachments", e);
+        }
+    }
+
+    @Override
+    public Attachment getAttachment(Long id) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Getting attachment with ID {} from {}", id, sourceConfig.getBaseUrl());
+            HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(sourceConfig));
+
+            ResponseEntity<Attachment> response = retryExecutor.execute(Operation.READ, "get attachment " + id,
+                    () -> restTemplate.exchange(
+                            sourceConfig.getBaseUrl() + "/api/attachments/" + id,
+                            HttpMethod.GET,
+                            requestEntity,
+                            Attachment.class
+                    ));
+
+            return response.getBody();
+        } catch (Exception e) {
+            log.error("Error getting attachment with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to get attachment with ID " + id, e);
+        }
+    }
+
+    @Override
+    public Attachment downloadAttachment(Long id, OutputStream file) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Downloading attachment with ID {} from {}", id, sourceConfig.getBaseUrl());
+            String url = sourceConfig.getBaseUrl() + "/api/attachments/" + id;
+            HttpHeaders headers = createHeaders(sourceConfig);
+
+            // The API returns the file base64 encoded inside the JSON, so it is decoded from the token stream
+            try (ClientHttpResponse response = retryExecutor.execute(Operation.READ, "download attachment " + id,
+                    () -> streamingTransfer.download(url, headers));
+                 JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                return readAttachment(objectMapper, parser, file);
+            }
+        } catch (Exception e) {
+            log.error("Error downloading attachment with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to download attachment with ID " + id, e);
+        }
+    }
+
+    /**
+     * Read an attachment, writing its decoded content to the given stream instead of into the result.
+     */
+    static Attachment readAttachment(ObjectMapper objectMapper, JsonParser parser, OutputStream file) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an attachment object");
+        }
+        ObjectNode fields = objectMapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("content".equals(name)) {
+                parser.readBinaryValue(file);
+            } else {
+                fields.set(name, objectMapper.readTree(parser));
+            }
+        }
+        return objectMapper.treeToValue(fields, Attachment.class);
+    }
+
+    @Override
+    public Attachment createAttachment(Attachment attachment, Path file) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Creating attachment in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+            String url = destinationConfig.getBaseUrl() + "/api/attachments";
+
+            try {
+                ResponseEntity<Attachment> response = retryExecutor.execute(Operation.CREATE, "create attachment " + attachment.getName(),
+                        () -> {
+                            if (file == null) {
+                                return restTemplate.exchange(url, HttpMethod.POST,
+                                        new HttpEntity<>(attachmentFields(attachment), createHeaders(destinationConfig)),
+                                        Attachment.class);
+                            }
+                            HttpHeaders headers = createHeaders(destinationConfig);
+                            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+                            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+                            fields.add("name", attachment.getName());
+                            fields.add("uploaded_to", attachment.getUploadedTo());
+                            return ResponseEntity.ok(streamingTransfer.upload(url, headers, fields, "file", file,
+                                    attachmentFilename(attachment), Attachment.class));
+                        },
+                        () -> findCreatedAttachment(destinationConfig, attachment, createdSince).map(ResponseEntity::ok));
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error creating attachment: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to create attachment", e);
+        }
+    }
+
+    @Override
+    public Attachment updateAttachment(Long id, Attachment attachment, Path file) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Updating attachment with ID {} in {}", id, destinationConfig.getBaseUrl());
+            String url = destinationConfig.getBaseUrl() + "/api/attachments/" + id;
+
+            try {
+                ResponseEntity<Attachment> response = retryExecutor.execute(Operation.UPDATE, "update attachment " + id,
+                        () -> {
+                            if (file == null) {
+                                return restTemplate.exchange(url, HttpMethod.PUT,
+                                        new HttpEntity<>(attachmentFields(attachment), createHeaders(destinationConfig)),
+                                        Attachment.class);
+                            }
+                            // PHP only reads multipart bodies of POST requests, so the file goes in a POST standing in for the PUT
+                            HttpHeaders headers = createHeaders(destinationConfig);
+                            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+                            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+                            fields.add("_method", "PUT");
+                            fields.add("name", attachment.getName());
+                            fields.add("uploaded_to", attachment.getUploadedTo());
+                            return ResponseEntity.ok(streamingTransfer.upload(url, headers, fields, "file", file,
+                                    attachmentFilename(attachment), Attachment.class));
+                        });
+
+                return response.getBody();
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error updating attachment with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to update attachment with ID " + id, e);
+        }
+    }
+
+    @Override
+    public boolean deleteAttachment(Long id) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Deleting attachment with ID {} from {}", id, destinationConfig.getBaseUrl());
+            HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(destinationConfig));
+
+            ResponseEntity<String> response = retryExecutor.execute(Operation.DELETE, "delete attachment " + id,
+                    () -> restTemplate.exchange(
+                            destinationConfig.getBaseUrl() + "/api/attachments/" + id,
+                            HttpMethod.DELETE,
+                            requestEntity,
+                            String.class
+                    ),
+                    () -> isListed(destinationConfig, "/api/attachments", id)
+                            ? Optional.empty() : Optional.of(ResponseEntity.noContent().build()));
+
+            return response.getStatusCode().is2xxSuccessful();
+        } catch (Exception e) {
+            log.error("Error deleting attachment with ID {}: {}", id, e.getMessage(), e);
+            throw new BookStackApiException("Failed to delete attachment with ID " + id, e);
+        }
+    }
+
+    @Override
+    public Image createImage(Image image) {
+        try {
+            BookStackConfig destinationConfig = getDestinationConfig();
+            log.debug("Creating image in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            HttpHeaders headers = createHeaders(destinationConfig);
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("type", image.getType() != null ? image.getType() : "gallery");
+            fields.add("uploaded_to", image.getUploadedTo());
+            fields.add("name", image.getName());
+
+            try {
+                // The file is downloaded again for every attempt, since its stream can only be read once
+                return retryExecutor.execute(Operation.CREATE, "create image " + image.getName(),
+                        () -> {
+                            ClientHttpResponse file;
+                            try {
+                                file = streamingTransfer.download(image.getUrl(), new HttpHeaders());
+                            } catch (HttpClientErrorException.NotFound e) {
+                                log.warn("Image {} no longer exists in the source", image.getUrl());
+                                return null;
+                            }
+                            try (file) {
+                                return streamingTransfer.upload(destinationConfig.getBaseUrl() + "/api/image-gallery",
+                                        headers, fields, "image", file, imageFilename(image), Image.class);
+                            }
+                        },
+                        () -> findCreatedImage(destinationConfig, image, createdSince));
+            } catch (HttpStatusCodeException e) {
+                log.error("API error response ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error creating image: {}", e.getMessage(), e);
+            throw new BookStackApiException("Failed to create image", e);
+        }
+    }
+
+    /**
+     * The file name to upload an image under, taken from its URL; BookStack checks the extension.
+     */
+    static String imageFilename(Image image) {
+        String path = URI.create(image.getUrl()).getPath();
+        String name = path != null ? path.substring(path.lastIndexOf('/') + 1) : "";
+        return !name.isEmpty() ? name : "image.png";
+    }
+
+    /**
+     * The JSON fields of an attachment create or update without a file.
+     */
+    static Map<String, Object> attachmentFields(Attachment attachment) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", attachment.getName());
+        body.put("uploaded_to", attachment.getUploadedTo());
+        if (attachment.getLink() != null) {
+            body.put("link", attachment.getLink());
+        }
+        return body;
+    }
+
+    /**
+     * The file name to upload an attachment's file under; BookStack takes the attachment's extension from it.
+     */
+    static String attachmentFilename(Attachment attachment) {
+        String name = attachment.getName() != null && !attachment.getName().isBlank() ? attachment.getName() : "attachment";
+        String extension = attachment.getExtension();
+        return extension == null || extension.isEmpty() || name.toLowerCase().endsWith("." + extension.toLowerCase())
+                ? name : name + "." + extension;
+    }
+
+    @Override
+    public Export exportBook(Long id, ExportFormat format) {
+        return export("books", "book", id, format);
+    }
+
+    @Override
+    public Export exportChapter(Long id, ExportFormat format) {
+        return export("chapters", "chapter", id, format);
+    }
+
+    @Override
+    public Export exportPage(Long id, ExportFormat format) {
+        return export("pages", "page", id, format);
+    }
+
+    private Export export(String type, String kind, Long id, ExportFormat format) {
+        try {
+            BookStackConfig sourceConfig = getSourceConfig();
+            log.debug("Exporting {} with ID {} as {} from {}", kind, id, format.getName(), sourceConfig.getBaseUrl());
+            String url = sourceConfig.getBaseUrl() + "/api/" + type + "/" + id + "/export/" + format.getApiName();
+            HttpHeaders headers = createHeaders(sourceConfig);
+            headers.setAccept(List.of(MediaType.ALL));
+
+            // Only opening the response is retried; the body is read by the caller as it passes it on
+            ClientHttpResponse response = retryExecutor.execute(Operation.READ, "export " + kind + " " + id,
+                    () -> streamingTransfer.download(url, headers));
+            try {
+                return export(kind, id, format, response.getHeaders(), response.getBody(), response);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error exporting {} with ID {} as {}: {}", kind, id, format.getName(), e.getMessage(), e);
+            throw new BookStackApiException("Failed to export " + kind + " with ID " + id + " as " + format.getName(), e);
+        }
+    }
+
+    /**
+     * Describe an export by the headers of BookStack's response, falling back to the format's defaults.
+     */
+    static Export export(String kind, Long id, ExportFormat format, HttpHeaders headers, InputStream body,
+                         Closeable response) {
+        String filename = headers.getContentDisposition().getFilename();
+        MediaType contentType = headers.getContentType();
+        return new Export(filename != null ? filename : kind + "-" + id + "." + format.getExtension(),
+                contentType != null ? contentType.toString() : format.getContentType(),
+                headers.getContentLength(), body, response);
+    }
+
+    @Override
+    public boolean verifyCredentials() {
+        BookStackConfig sourceConfig = getSourceConfig();
+        try {
+            log.debug("Verifying credentials for {}", sourceConfig.getBaseUrl());
+            probe(sourceConfig);
+            log.debug("Successfully verified credentials for {}", sourceConfig.getBaseUrl());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to verify credentials for {}: {}", sourceConfig.getBaseUrl(), e.getMessage(), e);
+            if (e instanceof HttpClientErrorException.Unauthorized) {
+                throw new BookStackApiException("Invalid API credentials for " + sourceConfig.getBaseUrl(), e);
+            }
+            throw new BookStackApiException("Failed to verify credentials for " + sourceConfig.getBaseUrl(), e);
         }
     }
 
     @Override
     public boolean verifyDestinationCredentials() {
+        BookStackConfig destinationConfig = getDestinationConfig();
         try {
-            log.debug("Verifying credentials for {}", getDestinationConfig().getBaseUrl());
-            HttpHeaders headers = createHeaders(getDestinationConfig());
-            HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-            
-            ResponseEntity<ListResponse<Book>> response = restTemplate.exchange(
-                    getDestinationConfig().getBaseUrl() + "/api/books",
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<ListResponse<Book>>() {}
-            );
-            
-            log.debug("Successfully verified credentials for {}", getDestinationConfig().getBaseUrl());
+            log.debug("Verifying credentials for {}", destinationConfig.getBaseUrl());
+            probe(destinationConfig);
+            log.debug("Successfully verified credentials for {}", destinationConfig.getBaseUrl());
             return true;
         } catch (Exception e) {
-            log.error("Failed to verify credentials for {}: {}", getDestinationConfig().getBaseUrl(), e.getMessage(), e);
+            log.error("Failed to verify credentials for {}: {}", destinationConfig.getBaseUrl(), e.getMessage(), e);
             if (e instanceof HttpClientErrorException.Unauthorized) {
-                throw new BookStackApiException("Invalid API credentials for " + getDestinationConfig().getBaseUrl(), e);
+                throw new BookStackApiException("Invalid API credentials for " + destinationConfig.getBaseUrl(), e);
             }
-            throw new BookStackApiException("Failed to verify credentials for " + getDestinationConfig().getBaseUrl(), e);
+            throw new BookStackApiException("Failed to verify credentials for " + destinationConfig.getBaseUrl(), e);
         }
     }
 
     @Override
     public void syncBook(Long sourceBookId) {
         try {
-            log.info("Starting book sync process...");
-
-//            log.info("Verifying source credentials...");
-            verifyCredentials();
-
-//            log.info("Verifying destination credentials...");
-            verifyDestinationCredentials();
-
-            // Get the source book
-//            log.info("Reading source book...");
-            Book sourceBook = getBook(sourceBookId);
-            
-            // Create the book in the destination
-            log.info("Creating book in destination... " + sourceBook.getName());
-            Book destBook = createBook(createBookCopy(sourceBook));
-
-            // Process chapters and pages
-            for (Book.Content content : sourceBook.getContents()) {
-                if ("chapter".equals(content.getType())) {
-                    // Get the chapter from the source
-                    Chapter chapter = getChapter(content.getId());
-                    
-                    // Create the chapter in the destination
-                    Chapter destChapter = createChapter(createChapterCopy(chapter, destBook.getId()));
-
-                    // Process pages in this chapter
-                    for (Book.PageSummary pageSummary : chapter.getPages()) {
-                        // Get the page from the source
-                        Page page = getPage(pageSummary.getId());
-                        
-                        // Create the page in the destination
-                        createPage(createPageCopy(page, destBook.getId(), destChapter.getId()));
-                    }
-                } else if ("page".equals(content.getType())) {
-                    // Get the page from the source
-                    Page page = getPage(content.getId());
-                    
-                    // Create the page in the destination
-                    createPage(createPageCopy(page, destBook.getId(), null));
-                }
-            }
-            
-            log.info("Book sync completed successfully");
+            bookSyncEngine.getObject().syncBook(sourceBookId);
         } catch (Exception e) {
             log.error("Error syncing book: {}", e.getMessage(), e);
             throw new BookStackApiException("Failed to sync book: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Read an entity from a source instance. When a stale cached copy with validators is given, the request is
+     * made conditional, and a 304 response confirms the cached copy instead of transferring it again.
+     */
+    private <T> SourceReadCache.Entry<T> fetchConditionally(BookStackConfig config, String path, Class<T> type,
+                                                            SourceReadCache.Entry<T> stale) {
+        HttpHeaders headers = createHeaders(config);
+        if (stale != null && stale.etag() != null) {
+            headers.setIfNoneMatch(stale.etag());
+        }
+        if (stale != null && stale.lastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, stale.lastModified());
+        }
+
+        ResponseEntity<T> response = retryExecutor.execute(Operation.READ, "get " + path,
+                () -> restTemplate.exchange(
+                        config.getBaseUrl() + path,
+                        HttpMethod.GET,
+                        new HttpEntity<>(headers),
+                        type
+                ));
+
+        if (stale != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return stale.revalidated();
+        }
+        return SourceReadCache.Entry.of(response.getBody(), response.getHeaders().getETag(),
+                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * Check whether a page is unchanged by comparing its {@code updated_at} from a one-item listing, which leaves
+     * out the page body. Used when the instance doesn't send validators for conditional requests. Books and chapters
+     * can't be checked this way, since their content listings change without touching their own {@code updated_at}.
+     */
+    private boolean isPageUnchanged(BookStackConfig config, Page cached) {
+        Page listed = getSummary(config, "/api/pages", cached.getId(), new ParameterizedTypeReference<ListResponse<Page>>() {});
+        return listed != null && cached.getUpdatedAt() != null && cached.getUpdatedAt().equals(listed.getUpdatedAt());
+    }
+
+    /**
+     * Read an entity from a one-item listing, which leaves out its contents.
+     *
+     * @return The listed entity, or null if there is no entity with that ID
+     */
+    private <T> T getSummary(BookStackConfig config, String listPath, Long id,
+                             ParameterizedTypeReference<ListResponse<T>> responseType) {
+        ResponseEntity<ListResponse<T>> response = retryExecutor.execute(Operation.READ,
+                "list " + listPath.substring(listPath.lastIndexOf('/') + 1) + " " + id,
+                () -> restTemplate.exchange(
+                        config.getBaseUrl() + listPath + "?count=1&filter[id]=" + id,
+                        HttpMethod.GET,
+                        new HttpEntity<>(createHeaders(config)),
+                        responseType
+                ));
+        List<T> data = response.getBody() != null ? response.getBody().getData() : null;
+        return data != null && data.size() == 1 ? data.get(0) : null;
+    }
+
+    /**
+     * Find a book created by an earlier attempt of {@link #createBook}: the newest book of that name, description
+     * and tags that no other create returned. A name alone would match a same-named book of a concurrent job.
+     */
+    private Optional<Book> findCreatedBook(BookStackConfig config, Book book, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("name", book.getName());
+        for (Book candidate : findCreated(config, "/api/books", filters, createdSince, CreateClaims.LOOKUP_CANDIDATES,
+                new ParameterizedTypeReference<ListResponse<Book>>() {})) {
+            if (createClaims.isClaimed(config, CreateClaims.BOOK, candidate.getId())) {
+                continue;
+            }
+            Book found = getDestinationBook(candidate.getId());
+            if (found != null && CreateClaims.matches(book, found)
+                    && createClaims.claim(config, CreateClaims.BOOK, found.getId())) {
+                return Optional.of(found);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Find a chapter created by an earlier attempt of {@link #createChapter}, matching it by book, name and priority.
+     */
+    private Optional<Chapter> findCreatedChapter(BookStackConfig config, Chapter chapter, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("book_id", chapter.getBookId());
+        filters.put("name", chapter.getName());
+        filters.put("priority", chapter.getPriority());
+        return findCreated(config, "/api/chapters", filters, createdSince, new ParameterizedTypeReference<ListResponse<Chapter>>() {});
+    }
+
+    /**
+     * Find a shelf created by an earlier attempt of {@link #createShelf}: the newest shelf of that name, description,
+     * tags and books that no other create returned.
+     */
+    private Optional<Shelf> findCreatedShelf(BookStackConfig config, Shelf shelf, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("name", shelf.getName());
+        for (Shelf candidate : findCreated(config, "/api/shelves", filters, createdSince, CreateClaims.LOOKUP_CANDIDATES,
+                new ParameterizedTypeReference<ListResponse<Shelf>>() {})) {
+            if (createClaims.isClaimed(config, CreateClaims.SHELF, candidate.getId())) {
+                continue;
+            }
+            Shelf found = getDestinationShelf(candidate.getId());
+            if (found != null && CreateClaims.matches(shelf, found)
+                    && createClaims.claim(config, CreateClaims.SHELF, found.getId())) {
+                return Optional.of(found);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Find an attachment created by an earlier attempt of {@link #createAttachment}, matching it by page and name.
+     */
+    private Optional<Attachment> findCreatedAttachment(BookStackConfig config, Attachment attachment, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("uploaded_to", attachment.getUploadedTo());
+        filters.put("name", attachment.getName());
+        return findCreated(config, "/api/attachments", filters, createdSince, new ParameterizedTypeReference<ListResponse<Attachment>>() {});
+    }
+
+    /**
+     * Find an image created by an earlier attempt of {@link #createImage}, matching it by page and name.
+     */
+    private Optional<Image> findCreatedImage(BookStackConfig config, Image image, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("uploaded_to", image.getUploadedTo());
+        filters.put("name", image.getName());
+        return findCreated(config, "/api/image-gallery", filters, createdSince, new ParameterizedTypeReference<ListResponse<Image>>() {});
+    }
+
+    /**
+     * Find a page created by an earlier attempt of {@link #createPage}, matching it by book, chapter, name and
+     * priority. BookStack stores a page outside any chapter with chapter ID 0.
+     */
+    private Optional<Page> findCreatedPage(BookStackConfig config, Page page, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("book_id", page.getBookId());
+        filters.put("chapter_id", page.getChapterId() != null ? page.getChapterId() : 0);
+        filters.put("name", page.getName());
+        filters.put("priority", page.getPriority());
+        return findCreated(config, "/api/pages", filters, createdSince, new ParameterizedTypeReference<ListResponse<Page>>() {});
+    }
+
+    /**
+     * Look up the most recent entity of a list endpoint that matches the given fields and was created no earlier
+     * than the given time. Fields with a null value are left out of the lookup.
+     */
+    private <T> Optional<T> findCreated(BookStackConfig config, String listPath, Map<String, Object> filters,
+                                        Instant createdSince, ParameterizedTypeReference<ListResponse<T>> responseType) {
+        return findCreated(config, listPath, filters, createdSince, 1, responseType).stream().findFirst();
+    }
+
+    /**
+     * Look up the most recent entities of a list endpoint that match the given fields and were created no earlier
+     * than the given time, newest first.
+     */
+    private <T> List<T> findCreated(BookStackConfig config, String listPath, Map<String, Object> filters,
+                                    Instant createdSince, int count, ParameterizedTypeReference<ListResponse<T>> responseType) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(config.getBaseUrl() + listPath)
+                .queryParam("count", count)
+                .queryParam("sort", "-id")
+                .queryParam("filter[created_at:gte]", "{createdSince}");
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("createdSince", CREATED_AT_FORMAT.format(createdSince));
+        filters.forEach((field, value) -> {
+            if (value != null) {
+                uri.queryParam("filter[" + field + "]", "{" + field + "}");
+                values.put(field, value);
+            }
+        });
+
+        ResponseEntity<ListResponse<T>> response = restTemplate.exchange(
+                uri.encode().buildAndExpand(values).toUri(),
+                HttpMethod.GET,
+                new HttpEntity<>(createHeaders(config)),
+                responseType
+        );
+        List<T> data = response.getBody() != null ? response.getBody().getData() : null;
+        return data != null ? data : List.of();
+    }
+
+    /**
+     * Check whether an entity still exists, through a one-item listing filtered by its ID.
+     */
+    private boolean isListed(BookStackConfig config, String listPath, Long id) {
+        ResponseEntity<ListResponse<Object>> response = restTemplate.exchange(
+                config.getBaseUrl() + listPath + "?count=1&filter[id]=" + id,
+                HttpMethod.GET,
+                new HttpEntity<>(createHeaders(config)),
+                new ParameterizedTypeReference<ListResponse<Object>>() {}
+        );
+        return response.getBody() != null && response.getBody().getData() != null
+                && !response.getBody().getData().isEmpty();
+    }
+
+    /**
+     * Make the cheapest authenticated request the API offers: a one-item book listing.
+     */
+    private void probe(BookStackConfig config) {
+        restTemplate.exchange(
+                config.getBaseUrl() + "/api/books?count=1",
+                HttpMethod.GET,
+                new HttpEntity<>(createHeaders(config)),
+                new ParameterizedTypeReference<ListResponse<Book>>() {}
+        );
+    }
+
+    /**
+     * Open a paged listing of a BookStack list endpoint.
+     * The config is bound up front, so the listing can be consumed from any thread.
+     *
+     * @param config The instance to list from
+     * @param path The list endpoint, optionally with filter parameters
+     * @param responseType The type of one page of the listing
+     * @return An iterator over every item of the listing
+     */
+    private <T> PagedListIterator<T> openList(BookStackConfig config, String path,
+                                              ParameterizedTypeReference<ListResponse<T>> responseType) {
+        HttpEntity<Void> requestEntity = new HttpEntity<>(createHeaders(config));
+        String separator = path.contains("?") ? "&" : "?";
+        int pageSize = httpClientProperties.getListPageSize();
+        return new PagedListIterator<>(offset -> {
+            ResponseEntity<ListResponse<T>> response = retryExecutor.execute(Operation.READ, "list " + path,
+                    () -> restTemplate.exchange(
+                            config.getBaseUrl() + path + separator + "count=" + pageSize + "&offset=" + offset,
+                            HttpMethod.GET,
+                            requestEntity,
+                            responseType
+                    ));
+            return Objects.requireNonNull(response.getBody());
+        }, listExecutor, pageSize, httpClientProperties.getListPrefetch());
+    }
+
     private HttpHeaders createHeaders(BookStackConfig config) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -588,59 +1608,9 @@ public class BookStackApiServiceImpl implements BookStackApiService {
         return headers;
     }
 
-    private Book createBookCopy(Book sourceBook) {
-        Book book = new Book();
-        book.setName(sourceBook.getName());
-        book.setSlug(sourceBook.getSlug());
-        book.setDescription(sourceBook.getDescription());
-        book.setDescriptionHtml(sourceBook.getDescriptionHtml());
-        book.setContents(Collections.emptyList());
-        book.setTags(sourceBook.getTags());
-        
-        book.setDefaultTemplateId(sourceBook.getDefaultTemplateId());
-        
-        if (sourceBook.getCover() != null) {
-            Book.Cover cover = new Book.Cover();
-            cover.setName(sourceBook.getCover().getName());
-            cover.setUrl(sourceBook.getCover().getUrl());
-            cover.setPath(sourceBook.getCover().getPath());
-            cover.setType(sourceBook.getCover().getType());
-            book.setCover(cover);
-        }
-        
-        return book;
-    }
-
-
-
-    private Chapter createChapterCopy(Chapter sourceChapter, Long destBookId) {
-        Chapter chapter = new Chapter();
-        chapter.setBookId(destBookId);
-        chapter.setName(sourceChapter.getName());
-        chapter.setSlug(sourceChapter.getSlug());
-        chapter.setDescription(sourceChapter.getDescription());
-        chapter.setPriority(sourceChapter.getPriority());
-        chapter.setPages(Collections.emptyList());
-        chapter.setTags(sourceChapter.getTags());
-        return chapter;
-    }
-
-    private Page createPageCopy(Page sourcePage, Long destBookId, Long destChapterId) {
-        Page page = new Page();
-        page.setBookId(destBookId);
-        page.setChapterId(destChapterId);
-        page.setName(sourcePage.getName());
-        page.setSlug(sourcePage.getSlug());
-        page.setHtml(sourcePage.getHtml());
-        page.setMarkdown(sourcePage.getMarkdown());
-        page.setPriority(sourcePage.getPriority());
-        page.setIsDraft(sourcePage.getIsDraft());
-        page.setIsTemplate(sourcePage.getIsTemplate());
-        page.setTags(sourcePage.getTags());
-        return page;
-    }
-
     public static class BookStackApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
         public BookStackApiException(String message) {
             super(message);
         }
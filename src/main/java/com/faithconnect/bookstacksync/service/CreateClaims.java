@@ -0,0 +1,103 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Shelf;
+import com.faithconnect.bookstacksync.model.Tag;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Decides which destination book or shelf a create whose outcome is unknown may adopt, for both API clients.
+ *
+ * BookStack lets books and shelves share a name, so a lookup by name alone could adopt a same-named entity made
+ * by another create, such as one of a concurrent job. A lookup instead checks the newest few same-named candidates
+ * and adopts the first one whose description, tags and, for a shelf, books match what was sent, and that no other
+ * create returned or adopted. Every book and shelf a create returns is claimed here, by instance, kind and ID.
+ */
+public class CreateClaims {
+
+    static final String BOOK = "book";
+    static final String SHELF = "shelf";
+
+    /**
+     * Same-named candidates checked when looking up a book or shelf created by a failed attempt.
+     */
+    static final int LOOKUP_CANDIDATES = 10;
+
+    /**
+     * How long a destination book or shelf stays claimed by the create that made or adopted it; longer than the
+     * retries of any create.
+     */
+    private static final Duration RETENTION = Duration.ofMinutes(30);
+
+    private final Cache<String, Boolean> claimed = Caffeine.newBuilder().expireAfterWrite(RETENTION).build();
+
+    /**
+     * Claim a destination book or shelf for the create that made or adopted it.
+     *
+     * @return Whether it was not claimed yet
+     */
+    public boolean claim(BookStackConfig config, String kind, Long id) {
+        return id != null && claimed.asMap().putIfAbsent(key(config, kind, id), Boolean.TRUE) == null;
+    }
+
+    public boolean isClaimed(BookStackConfig config, String kind, Long id) {
+        return claimed.getIfPresent(key(config, kind, id)) != null;
+    }
+
+    private static String key(BookStackConfig config, String kind, Long id) {
+        return config.getBaseUrl() + " " + kind + " " + id;
+    }
+
+    /**
+     * Check whether a stored book is the one a create sent, apart from its name, which the lookup filters on.
+     */
+    static boolean matches(Book sent, Book stored) {
+        return sameDescription(sent.getDescription(), stored.getDescription()) && sameTags(sent.getTags(), stored.getTags());
+    }
+
+    /**
+     * Check whether a stored shelf is the one a create sent, apart from its name, which the lookup filters on.
+     */
+    static boolean matches(Shelf sent, Shelf stored) {
+        return sameDescription(sent.getDescription(), stored.getDescription()) && sameTags(sent.getTags(), stored.getTags())
+                && bookIds(sent).equals(bookIds(stored));
+    }
+
+    /**
+     * Compare descriptions as BookStack stores them: trimmed, with a missing description stored as empty.
+     */
+    static boolean sameDescription(String sent, String stored) {
+        return normalizeWhitespace(sent).equals(normalizeWhitespace(stored));
+    }
+
+    /**
+     * Compare tags by name and value, in order; BookStack renumbers their order by position.
+     */
+    static boolean sameTags(List<Tag> sent, List<Tag> stored) {
+        List<Tag> sentTags = sent != null ? sent : List.of();
+        List<Tag> storedTags = stored != null ? stored : List.of();
+        if (sentTags.size() != storedTags.size()) {
+            return false;
+        }
+        for (int i = 0; i < sentTags.size(); i++) {
+            if (!normalizeWhitespace(sentTags.get(i).getName()).equals(normalizeWhitespace(storedTags.get(i).getName()))
+                    || !normalizeWhitespace(sentTags.get(i).getValue()).equals(normalizeWhitespace(storedTags.get(i).getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Long> bookIds(Shelf shelf) {
+        return shelf.getBooks() != null ? shelf.getBooks().stream().map(Book::getId).toList() : List.of();
+    }
+
+    private static String normalizeWhitespace(String value) {
+        return value != null ? value.trim().replaceAll("\\s+", " ") : "";
+    }
+}
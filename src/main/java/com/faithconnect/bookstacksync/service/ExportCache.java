@@ -0,0 +1,445 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.ExportCacheProperties;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Export;
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import com.faithconnect.bookstacksync.store.StateStore;
+import com.faithconnect.bookstacksync.sync.SyncContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps book, chapter and page exports on disk, so repeated downloads of the same export are served from a local
+ * file instead of being rendered by the instance again.
+ *
+ * An export is cached per instance, token, entity, and format, together with the version of the entity it was
+ * rendered from: the {@code updated_at} of a page, and of a book or chapter together with that of every chapter and
+ * page in it, since a book's own {@code updated_at} doesn't move when its pages change. The version is read from
+ * listings on every request, which leave out page bodies, so checking costs a small JSON read rather than a download
+ * or a render; an export of another version is replaced. Concurrent requests for an export that is not cached yet
+ * share one download.
+ *
+ * Files are evicted least recently served first once their total size exceeds the configured maximum, and are
+ * served from an open {@link FileChannel} with {@link FileChannel#transferTo}. The index of cached files is kept
+ * in the {@link StateStore}, so the cache survives restarts.
+ *
+ * Hits and misses are published as {@code bookstack.export.cache.requests} metrics.
+ */
+@Slf4j
+@Service
+public class ExportCache {
+
+    private static final String PREFIX = "export-cache/";
+
+    /**
+     * Names of the cached and temporary files, so only those are cleaned out of the directory.
+     */
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{32}\\.\\w+|export-\\d+\\.tmp");
+
+    private final BookStackApiService bookStackApiService;
+    private final StateStore stateStore;
+    private final BookStackConfig defaultSourceConfig;
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Cached files by entity key, in order of last use. Guarded by the cache's monitor, as is the total size.
+     */
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Downloads in progress, by entity key and version.
+     */
+    private final ConcurrentMap<String, CompletableFuture<CachedFile>> loading = new ConcurrentHashMap<>();
+
+    public ExportCache(BookStackApiService bookStackApiService, StateStore stateStore, BookStackConfig sourceConfig,
+                       ExportCacheProperties properties, MeterRegistry meterRegistry) {
+        this.bookStackApiService = bookStackApiService;
+        this.stateStore = stateStore;
+        this.defaultSourceConfig = sourceConfig;
+        this.enabled = properties.isEnabled();
+        this.dir = Path.of(properties.getDir());
+        this.maxBytes = properties.getMaxSize().toBytes();
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        if (enabled) {
+            loadIndex();
+        }
+    }
+
+    /**
+     * Export a book, from the cache if it holds an export of the book as it is now.
+     *
+     * @return The export, which the caller must close
+     */
+    public Export exportBook(Long id, ExportFormat format) {
+        if (!enabled) {
+            return bookStackApiService.exportBook(id, format);
+        }
+        Book book = bookStackApiService.getBookSummary(id);
+        if (book == null) {
+            // Left to the export to fail as it does for a missing book
+            return bookStackApiService.exportBook(id, format);
+        }
+        List<String> versions = new ArrayList<>();
+        try (Stream<Chapter> chapters = bookStackApiService.streamChapters(id)) {
+            chapters.forEach(chapter -> versions.add("chapter:" + chapter.getId() + ":" + chapter.getUpdatedAt()));
+        }
+        try (Stream<Page> pages = bookStackApiService.streamPages(id)) {
+            pages.forEach(page -> versions.add("page:" + page.getId() + ":" + page.getUpdatedAt()));
+        }
+        return export("book", id, format, version(book.getUpdatedAt(), versions),
+                () -> bookStackApiService.exportBook(id, format));
+    }
+
+    /**
+     * Export a chapter, from the cache if it holds an export of the chapter as it is now.
+     *
+     * @return The export, which the caller must close
+     */
+    public Export exportChapter(Long id, ExportFormat format) {
+        if (!enabled) {
+            return bookStackApiService.exportChapter(id, format);
+        }
+        Chapter chapter = bookStackApiService.getChapterSummary(id);
+        if (chapter == null) {
+            return bookStackApiService.exportChapter(id, format);
+        }
+        List<String> versions = new ArrayList<>();
+        bookStackApiService.listChapterPages(id)
+                .forEach(page -> versions.add("page:" + page.getId() + ":" + page.getUpdatedAt()));
+        return export("chapter", id, format, version(chapter.getUpdatedAt(), versions),
+                () -> bookStackApiService.exportChapter(id, format));
+    }
+
+    /**
+     * Export a page, from the cache if it holds an export of the page as it is now.
+     *
+     * @return The export, which the caller must close
+     */
+    public Export exportPage(Long id, ExportFormat format) {
+        if (!enabled) {
+            return bookStackApiService.exportPage(id, format);
+        }
+        Page page = bookStackApiService.getPageSummary(id);
+        if (page == null) {
+            return bookStackApiService.exportPage(id, format);
+        }
+        return export("page", id, format, version(page.getUpdatedAt(), List.of()),
+                () -> bookStackApiService.exportPage(id, format));
+    }
+
+    /**
+     * The version of an entity: its own {@code updated_at} and those of its contents, in a fixed order.
+     */
+    private static String version(String updatedAt, List<String> contents) {
+        List<String> versions = new ArrayList<>(contents);
+        versions.sort(null);
+        versions.add(0, String.valueOf(updatedAt));
+        return hash(String.join("\n", versions));
+    }
+
+    private Export export(String kind, Long id, ExportFormat format, String version, Supplier<Export> download) {
+        BookStackConfig sourceConfig = SyncContext.current().sourceOr(defaultSourceConfig);
+        String key = hash(sourceConfig.getBaseUrl() + "\n" + sourceConfig.getTokenId() + "\n" + kind + "\n" + id
+                + "\n" + format.getName());
+        try {
+            synchronized (this) {
+                CachedFile cached = files.get(key);
+                if (cached != null && cached.getVersion().equals(version)) {
+                    FileChannel channel = open(cached);
+                    if (channel != null) {
+                        hits.increment();
+                        return new FileExport(cached.getFilename(), cached.getContentType(), channel);
+                    }
+                    remove(key);
+                }
+            }
+            misses.increment();
+            log.debug("Export of {} {} as {} is not cached, downloading it", kind, id, format.getName());
+            return load(key, version, format, download);
+        } catch (IOException e) {
+            log.error("Error caching export of {} {} as {}: {}", kind, id, format.getName(), e.getMessage(), e);
+            throw new BookStackApiException("Failed to cache export of " + kind + " " + id + " as " + format.getName(), e);
+        }
+    }
+
+    /**
+     * Download an export into the cache, or wait for the download already in progress.
+     */
+    private Export load(String key, String version, ExportFormat format, Supplier<Export> download) throws IOException {
+        String loadKey = key + " " + version;
+        CompletableFuture<CachedFile> loaded = new CompletableFuture<>();
+        CompletableFuture<CachedFile> running = loading.putIfAbsent(loadKey, loaded);
+        if (running == null) {
+            try {
+                Downloaded downloaded = download(download);
+                long size = Files.size(downloaded.file());
+                if (size > maxBytes) {
+                    // Too large to cache: served from the temporary file, which goes when it is closed
+                    log.debug("Export of {} bytes is larger than the export cache, serving it uncached", size);
+                    loaded.complete(null);
+                    return new FileExport(downloaded.filename(), downloaded.contentType(), FileChannel.open(
+                            downloaded.file(), StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE));
+                }
+                CachedFile file = new CachedFile(version, hash(loadKey) + "." + format.getExtension(),
+                        downloaded.filename(), downloaded.contentType(), size, System.currentTimeMillis());
+                Files.move(downloaded.file(), dir.resolve(file.getFile()), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                put(key, file);
+                loaded.complete(file);
+            } catch (IOException | RuntimeException e) {
+                loaded.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(loadKey, loaded);
+            }
+        } else {
+            loaded = running;
+        }
+
+        CachedFile file;
+        try {
+            file = loaded.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        }
+        if (file == null) {
+            // The shared download was too large to cache
+            return download.get();
+        }
+        synchronized (this) {
+            FileChannel channel = open(file);
+            if (channel == null) {
+                throw new NoSuchFileException(dir.resolve(file.getFile()).toString());
+            }
+            return new FileExport(file.getFilename(), file.getContentType(), channel);
+        }
+    }
+
+    /**
+     * Download an export into a temporary file in the cache directory.
+     */
+    private Downloaded download(Supplier<Export> download) throws IOException {
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "export-", ".tmp");
+        try (Export export = download.get(); OutputStream out = Files.newOutputStream(temp)) {
+            export.transferTo(out);
+            return new Downloaded(temp, export.getFilename(), export.getContentType());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Add a file to the cache, replacing any earlier version, and evict the least recently served files until the
+     * cache fits its maximum size again.
+     */
+    private synchronized void put(String key, CachedFile file) throws IOException {
+        CachedFile previous = files.put(key, file);
+        if (previous != null) {
+            totalBytes -= previous.getSize();
+            if (!previous.getFile().equals(file.getFile())) {
+                Files.deleteIfExists(dir.resolve(previous.getFile()));
+            }
+        }
+        totalBytes += file.getSize();
+        stateStore.put(PREFIX + key, file);
+
+        trim(file);
+    }
+
+    /**
+     * Evict the least recently served files until the cache fits its maximum size.
+     *
+     * @param keep A file to keep, or null
+     */
+    private void trim(CachedFile keep) throws IOException {
+        Iterator<Map.Entry<String, CachedFile>> eldest = files.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedFile> entry = eldest.next();
+            if (entry.getValue() != keep) {
+                log.debug("Evicting cached export {}", entry.getValue().getFile());
+                eldest.remove();
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Open a cached file for reading. The open channel keeps the file readable even if it is evicted meanwhile.
+     *
+     * @return The channel, or null if the file is gone
+     */
+    private FileChannel open(CachedFile file) throws IOException {
+        try {
+            return FileChannel.open(dir.resolve(file.getFile()), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void remove(String key) throws IOException {
+        CachedFile file = files.remove(key);
+        if (file != null) {
+            evict(key, file);
+        }
+    }
+
+    private void evict(String key, CachedFile file) throws IOException {
+        totalBytes -= file.getSize();
+        stateStore.delete(PREFIX + key);
+        Files.deleteIfExists(dir.resolve(file.getFile()));
+    }
+
+    /**
+     * Rebuild the index from the state store, in order of when the files were cached, dropping entries whose
+     * files are gone and cache files no entry refers to.
+     */
+    private synchronized void loadIndex() {
+        try {
+            Files.createDirectories(dir);
+            List<Map.Entry<String, CachedFile>> stored = new ArrayList<>(stateStore.scan(PREFIX, CachedFile.class).entrySet());
+            stored.sort(Comparator.comparingLong(entry -> entry.getValue().getCachedAt()));
+            for (Map.Entry<String, CachedFile> entry : stored) {
+                CachedFile file = entry.getValue();
+                Path path = dir.resolve(file.getFile());
+                if (Files.isRegularFile(path) && Files.size(path) == file.getSize()) {
+                    files.put(entry.getKey().substring(PREFIX.length()), file);
+                    totalBytes += file.getSize();
+                } else {
+                    stateStore.delete(entry.getKey());
+                }
+            }
+            // The maximum size may have been lowered since
+            trim(null);
+            try (Stream<Path> onDisk = Files.list(dir)) {
+                for (Path path : onDisk.toList()) {
+                    String name = path.getFileName().toString();
+                    if (FILE_NAME.matcher(name).matches()
+                            && files.values().stream().noneMatch(file -> file.getFile().equals(name))) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+            log.info("Export cache holds {} files, {} bytes, in {}", files.size(), totalBytes, dir);
+        } catch (IOException e) {
+            log.warn("Failed to load the export cache index from {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bookstack.export.cache.requests")
+                .description("Export requests, by whether they were served from the export cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An export file in the cache, as recorded in the state store.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedFile {
+        private String version;
+
+        /**
+         * The name of the file in the cache directory.
+         */
+        private String file;
+
+        /**
+         * The file name and content type the instance sent the export with.
+         */
+        private String filename;
+        private String contentType;
+
+        private long size;
+        private long cachedAt;
+    }
+
+    /**
+     * An export downloaded into a temporary file, with the file name and content type the instance sent it with.
+     */
+    private record Downloaded(Path file, String filename, String contentType) {
+    }
+
+    /**
+     * A cached export, served straight from its file.
+     */
+    private static class FileExport extends Export {
+
+        private final FileChannel channel;
+
+        FileExport(String filename, String contentType, FileChannel channel) throws IOException {
+            super(filename, contentType, channel.size(), Channels.newInputStream(channel), channel);
+            this.channel = channel;
+        }
+
+        @Override
+        public void transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.model.ListResponse;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over every item of a BookStack list endpoint, following {@code count}/{@code offset} paging.
+ *
+ * The first page is fetched when the iterator is created, so errors surface to the caller straight away.
+ * Once {@code total} is known, up to {@code prefetch} further pages are fetched ahead on the executor
+ * while earlier ones are consumed, which keeps memory bounded to that window.
+ */
+class PagedListIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final IntFunction<ListResponse<T>> pageFetcher;
+    private final Executor executor;
+    private final int prefetch;
+    private final Deque<CompletableFuture<List<T>>> inFlight = new ArrayDeque<>();
+    private final int total;
+    private final int pageSize;
+    private int nextOffset;
+    private Iterator<T> current;
+
+    /**
+     * @param pageFetcher Fetches the page starting at the given offset
+     * @param executor Runs the prefetched page requests
+     * @param pageSize The requested number of items per page
+     * @param prefetch The number of pages fetched ahead of the consumer
+     */
+    PagedListIterator(IntFunction<ListResponse<T>> pageFetcher, Executor executor, int pageSize, int prefetch) {
+        this.pageFetcher = pageFetcher;
+        this.executor = executor;
+        this.prefetch = Math.max(prefetch, 1);
+
+        ListResponse<T> first = pageFetcher.apply(0);
+        List<T> data = first.getData() != null ? first.getData() : Collections.emptyList();
+        this.current = data.iterator();
+        this.total = first.getTotal() != null ? first.getTotal() : data.size();
+        // The server may cap the page size below what was asked for
+        this.pageSize = data.isEmpty() ? pageSize : Math.min(pageSize, data.size());
+        this.nextOffset = data.size();
+        schedule();
+    }
+
+    /**
+     * Read the remaining items into a list.
+     */
+    List<T> toList() {
+        List<T> items = new ArrayList<>(Math.max(total, 0));
+        forEachRemaining(items::add);
+        return items;
+    }
+
+    /**
+     * Expose the remaining items as a lazy stream. Closing the stream cancels outstanding page requests.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            CompletableFuture<List<T>> next = inFlight.poll();
+            if (next == null) {
+                return false;
+            }
+            current = join(next).iterator();
+            schedule();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+    }
+
+    private void schedule() {
+        while (inFlight.size() < prefetch && nextOffset < total) {
+            int offset = nextOffset;
+            inFlight.add(CompletableFuture.supplyAsync(() -> {
+                List<T> data = pageFetcher.apply(offset).getData();
+                return data != null ? data : Collections.<T>emptyList();
+            }, executor));
+            nextOffset += pageSize;
+        }
+    }
+
+    private List<T> join(CompletableFuture<List<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BookStackApiException("Failed to fetch list page", e.getCause());
+        }
+    }
+}
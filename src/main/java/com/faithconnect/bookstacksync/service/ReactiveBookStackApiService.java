@@ -0,0 +1,400 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.model.Attachment;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.model.Image;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.model.Shelf;
+import com.faithconnect.bookstacksync.sync.SyncContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Non-blocking variant of {@link BookStackApiService}, available when {@code bookstack.http.client=reactive}.
+ *
+ * Calls are made under the {@link SyncContext} a subscriber binds with {@link SyncContext#bind}, or else under
+ * the context of the thread that called the method, so the returned publishers can be subscribed to from any
+ * thread. Nothing is sent before that. Errors are the same {@link BookStackApiServiceImpl.BookStackApiException}s
+ * the blocking service throws.
+ */
+public interface ReactiveBookStackApiService {
+
+    // Book operations
+    /**
+     * List all books, fetching further pages of the listing as items are requested.
+     *
+     * @return All books
+     */
+    Flux<Book> listBooks();
+
+    /**
+     * List all books in the destination, fetching further pages of the listing as items are requested.
+     *
+     * @return All destination books
+     */
+    Flux<Book> listDestinationBooks();
+
+    /**
+     * Get a book by ID. The result may come from the source read cache and must not be modified.
+     *
+     * @param id The ID of the book to retrieve
+     * @return The book with the specified ID
+     */
+    Mono<Book> getBook(Long id);
+
+    /**
+     * Get a book by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the book to retrieve
+     * @param updatedAt The expected {@code updated_at} of the book, or null to read it from the instance
+     *                  without caching the result, so the caller may modify it
+     * @return The book with the specified ID
+     */
+    Mono<Book> getBook(Long id, String updatedAt);
+
+    /**
+     * Get a book as it is listed, without its contents, read from a one-item listing.
+     *
+     * @param id The ID of the book to retrieve
+     * @return The listed book, or empty if there is no book with that ID
+     */
+    Mono<Book> getBookSummary(Long id);
+
+    /**
+     * Get a book by ID from the destination.
+     *
+     * @param id The ID of the book in the destination
+     * @return The book, or empty if it does not exist
+     */
+    Mono<Book> getDestinationBook(Long id);
+
+    /**
+     * Create a book in the destination, with its cover streamed from the source.
+     *
+     * @param book The book to create
+     * @return The created book
+     */
+    Mono<Book> createBook(Book book);
+
+    /**
+     * Update a book in the destination.
+     *
+     * @param id The ID of the book to update
+     * @param book The updated book data
+     * @return The updated book
+     */
+    Mono<Book> updateBook(Long id, Book book);
+
+    /**
+     * Delete a book from the destination.
+     *
+     * @param id The ID of the book to delete
+     * @return Whether the instance answered with a body
+     */
+    Mono<Boolean> deleteBook(Long id);
+
+    /**
+     * Delete all content from the destination.
+     *
+     * @return Whether the instance answered with a body
+     */
+    Mono<Boolean> destroy();
+
+    // Chapter operations
+    /**
+     * List all chapters in a book.
+     *
+     * @param bookId The ID of the book
+     * @return The chapters of the book
+     */
+    Flux<Chapter> listChapters(Long bookId);
+
+    /**
+     * Get a chapter by ID. The result may come from the source read cache and must not be modified.
+     *
+     * @param id The ID of the chapter to retrieve
+     * @return The chapter with the specified ID
+     */
+    Mono<Chapter> getChapter(Long id);
+
+    /**
+     * Get a chapter by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the chapter to retrieve
+     * @param updatedAt The expected {@code updated_at} of the chapter, or null to read it from the instance
+     * @return The chapter with the specified ID
+     */
+    Mono<Chapter> getChapter(Long id, String updatedAt);
+
+    /**
+     * Get a chapter as it is listed, without its pages, read from a one-item listing.
+     *
+     * @param id The ID of the chapter to retrieve
+     * @return The listed chapter, or empty if there is no chapter with that ID
+     */
+    Mono<Chapter> getChapterSummary(Long id);
+
+    /**
+     * Create a chapter in the destination.
+     *
+     * @param chapter The chapter to create
+     * @return The created chapter
+     */
+    Mono<Chapter> createChapter(Chapter chapter);
+
+    /**
+     * Update a chapter in the destination.
+     *
+     * @param id The ID of the chapter to update
+     * @param chapter The updated chapter data
+     * @return The updated chapter
+     */
+    Mono<Chapter> updateChapter(Long id, Chapter chapter);
+
+    /**
+     * Delete a chapter from the destination.
+     *
+     * @param id The ID of the chapter to delete
+     * @return Whether the deletion succeeded
+     */
+    Mono<Boolean> deleteChapter(Long id);
+
+    // Page operations
+    /**
+     * List all pages in a book.
+     *
+     * @param bookId The ID of the book
+     * @return The pages of the book
+     */
+    Flux<Page> listPages(Long bookId);
+
+    /**
+     * List all pages in a chapter.
+     *
+     * @param chapterId The ID of the chapter
+     * @return The pages of the chapter
+     */
+    Flux<Page> listChapterPages(Long chapterId);
+
+    /**
+     * Get a page by ID. The result may come from the source read cache and must not be modified.
+     *
+     * @param id The ID of the page to retrieve
+     * @return The page with the specified ID
+     */
+    Mono<Page> getPage(Long id);
+
+    /**
+     * Get a page by ID, accepting a cached copy only if it is still at the given version.
+     *
+     * @param id The ID of the page to retrieve
+     * @param updatedAt The expected {@code updated_at} of the page, or null to read it from the instance
+     * @return The page with the specified ID
+     */
+    Mono<Page> getPage(Long id, String updatedAt);
+
+    /**
+     * Get a page as it is listed, without its body, read from a one-item listing.
+     *
+     * @param id The ID of the page to retrieve
+     * @return The listed page, or empty if there is no page with that ID
+     */
+    Mono<Page> getPageSummary(Long id);
+
+    /**
+     * Get a page by ID from the destination.
+     *
+     * @param id The ID of the page in the destination
+     * @return The page, or empty if it does not exist
+     */
+    Mono<Page> getDestinationPage(Long id);
+
+    /**
+     * Create a page in the destination.
+     *
+     * @param page The page to create
+     * @return The created page
+     */
+    Mono<Page> createPage(Page page);
+
+    /**
+     * Update a page in the destination.
+     *
+     * @param id The ID of the page to update
+     * @param page The updated page data
+     * @return The updated page
+     */
+    Mono<Page> updatePage(Long id, Page page);
+
+    /**
+     * Delete a page from the destination.
+     *
+     * @param id The ID of the page to delete
+     * @return Whether the deletion succeeded
+     */
+    Mono<Boolean> deletePage(Long id);
+
+    // Shelf operations
+    /**
+     * List all shelves. Listed shelves don't include their books.
+     *
+     * @return All shelves
+     */
+    Flux<Shelf> listShelves();
+
+    /**
+     * Get a shelf by ID, with its books.
+     *
+     * @param id The ID of the shelf to retrieve
+     * @return The shelf with the specified ID
+     */
+    Mono<Shelf> getShelf(Long id);
+
+    /**
+     * Get a shelf by ID from the destination.
+     *
+     * @param id The ID of the shelf in the destination
+     * @return The shelf, or empty if it does not exist
+     */
+    Mono<Shelf> getDestinationShelf(Long id);
+
+    /**
+     * Create a shelf in the destination, with all its books in the one call.
+     *
+     * @param shelf The shelf to create; only the IDs of its books are used
+     * @return The created shelf
+     */
+    Mono<Shelf> createShelf(Shelf shelf);
+
+    /**
+     * Update a shelf in the destination, replacing its books.
+     *
+     * @param id The ID of the shelf to update
+     * @param shelf The updated shelf data; only the IDs of its books are used
+     * @return The updated shelf
+     */
+    Mono<Shelf> updateShelf(Long id, Shelf shelf);
+
+    // Attachment operations
+    /**
+     * List the attachments of a page. Listed attachments don't include their content.
+     *
+     * @param pageId The ID of the page
+     * @return The attachments of the page
+     */
+    Flux<Attachment> listAttachments(Long pageId);
+
+    /**
+     * List all attachments. Listed attachments don't include their content.
+     *
+     * @return All attachments
+     */
+    Flux<Attachment> listAttachments();
+
+    /**
+     * Get an attachment by ID, with its content: the URL of a link, or the whole file base64 encoded.
+     *
+     * @param id The ID of the attachment to retrieve
+     * @return The attachment with the specified ID
+     */
+    Mono<Attachment> getAttachment(Long id);
+
+    /**
+     * Download the file of an attachment, decoding it as it arrives, so files of any size are read with
+     * constant memory. The file is written on a thread that may block.
+     *
+     * @param id The ID of the file attachment to download
+     * @param file Receives the file; not closed
+     * @return The attachment, without its content
+     */
+    Mono<Attachment> downloadAttachment(Long id, OutputStream file);
+
+    /**
+     * Create an attachment in the destination: a link, or a file streamed from disk.
+     *
+     * @param attachment The attachment to create, with {@code link} set for a link
+     * @param file The file to upload, or null for a link
+     * @return The created attachment
+     */
+    Mono<Attachment> createAttachment(Attachment attachment, Path file);
+
+    /**
+     * Update an attachment in the destination, replacing its link or file.
+     *
+     * @param id The ID of the attachment to update
+     * @param attachment The updated attachment data, with {@code link} set for a link
+     * @param file The file to upload, or null to keep the file or for a link
+     * @return The updated attachment
+     */
+    Mono<Attachment> updateAttachment(Long id, Attachment attachment, Path file);
+
+    /**
+     * Delete an attachment from the destination.
+     *
+     * @param id The ID of the attachment to delete
+     * @return Whether the deletion succeeded
+     */
+    Mono<Boolean> deleteAttachment(Long id);
+
+    // Image gallery operations
+    /**
+     * Create a gallery image in the destination, streaming its file from the source download into the upload.
+     *
+     * @param image The image to create: the URL to copy the file from, the page to upload it to, and its name
+     * @return The created image, or empty if there is no file at the URL to copy
+     */
+    Mono<Image> createImage(Image image);
+
+    // Export operations
+    /**
+     * Export a book from the source. The body is passed on buffer by buffer as it arrives, never held in memory
+     * as a whole.
+     *
+     * @param id The ID of the book to export
+     * @param format The format to export the book in
+     * @return The response, with the export's headers and its body still to be read
+     */
+    Mono<ResponseEntity<Flux<DataBuffer>>> exportBook(Long id, ExportFormat format);
+
+    /**
+     * Export a chapter from the source, as for {@link #exportBook}.
+     */
+    Mono<ResponseEntity<Flux<DataBuffer>>> exportChapter(Long id, ExportFormat format);
+
+    /**
+     * Export a page from the source, as for {@link #exportBook}.
+     */
+    Mono<ResponseEntity<Flux<DataBuffer>>> exportPage(Long id, ExportFormat format);
+
+    // Verification
+    /**
+     * Verify the credentials for the source instance.
+     *
+     * @return True once the credentials are verified
+     */
+    Mono<Boolean> verifyCredentials();
+
+    /**
+     * Verify the credentials for the destination instance.
+     *
+     * @return True once the credentials are verified
+     */
+    Mono<Boolean> verifyDestinationCredentials();
+
+    // Sync operation
+    /**
+     * Copy a book from the source to the destination. The sync engine itself runs on a worker thread,
+     * and fans out its reads and writes through this service.
+     *
+     * @param sourceBookId The ID of the book in the source instance
+     * @return The ID of the book in the destination instance
+     */
+    Mono<Long> syncBook(Long sourceBookId);
+}
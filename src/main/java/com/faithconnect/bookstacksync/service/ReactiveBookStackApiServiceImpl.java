@@ -0,0 +1,1148 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.HttpClientProperties;
+import com.faithconnect.bookstacksync.model.*;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import com.faithconnect.bookstacksync.service.RetryExecutor.Operation;
+import com.faithconnect.bookstacksync.sync.BookSyncEngine;
+import com.faithconnect.bookstacksync.sync.SyncContext;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.*;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.CLOCK_SKEW_ALLOWANCE;
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.CREATED_AT_FORMAT;
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.attachmentFields;
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.attachmentFilename;
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.imageFilename;
+import static com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.readAttachment;
+
+/**
+ * {@link ReactiveBookStackApiService} on the non-blocking {@link WebClient}.
+ *
+ * It behaves like {@link BookStackApiServiceImpl}: reads go through the source read cache and are revalidated with
+ * conditional requests, failed calls are retried by the {@link RetryExecutor} with the same lookups that keep retried
+ * creates from making duplicates, books and shelves are claimed through the same {@link CreateClaims}, and requests
+ * share the rate limits of the blocking client. Covers are streamed from the source download into the destination
+ * upload.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "bookstack.http", name = "client", havingValue = "reactive")
+public class ReactiveBookStackApiServiceImpl implements ReactiveBookStackApiService {
+
+    private final WebClient webClient;
+    private final BookStackConfig defaultSourceConfig;
+    private final BookStackConfig defaultDestinationConfig;
+    private final ObjectProvider<BookSyncEngine> bookSyncEngine;
+    private final HttpClientProperties httpClientProperties;
+    private final SourceReadCache readCache;
+    private final RetryExecutor retryExecutor;
+    private final CreateClaims createClaims;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveBookStackApiServiceImpl(WebClient bookStackWebClient, BookStackConfig sourceConfig,
+                                           BookStackConfig destinationConfig, ObjectProvider<BookSyncEngine> bookSyncEngine,
+                                           HttpClientProperties httpClientProperties, SourceReadCache readCache,
+                                           RetryExecutor retryExecutor, CreateClaims createClaims, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.webClient = bookStackWebClient;
+        this.defaultSourceConfig = sourceConfig;
+        this.defaultDestinationConfig = destinationConfig;
+        this.bookSyncEngine = bookSyncEngine;
+        this.httpClientProperties = httpClientProperties;
+        this.readCache = readCache;
+        this.retryExecutor = retryExecutor;
+        this.createClaims = createClaims;
+    }
+
+    /**
+     * Get the source configuration of the sync context the call is made under, falling back to the default config
+     */
+    private BookStackConfig sourceConfig(SyncContext context) {
+        return context.sourceOr(defaultSourceConfig);
+    }
+
+    /**
+     * Get the destination configuration of the sync context the call is made under, falling back to the default config
+     */
+    private BookStackConfig destinationConfig(SyncContext context) {
+        return context.destinationOr(defaultDestinationConfig);
+    }
+
+    @Override
+    public Flux<Book> listBooks() {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing books from {}", sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {})
+                    .onErrorMap(e -> failure("Failed to list books", e));
+        });
+    }
+
+    @Override
+    public Flux<Book> listDestinationBooks() {
+        return SyncContext.flux(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Listing books from {}", destinationConfig.getBaseUrl());
+            return list(destinationConfig, "/api/books", new ParameterizedTypeReference<ListResponse<Book>>() {})
+                    .onErrorMap(e -> failure("Failed to list books", e));
+        });
+    }
+
+    @Override
+    public Mono<Book> getBook(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            return readCache.getAsync(sourceConfig, SourceReadCache.BOOK, id, null, stale -> fetchBook(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Book> getBook(Long id, String updatedAt) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            if (updatedAt == null) {
+                return readCache.refreshAsync(sourceConfig, SourceReadCache.BOOK, id, stale -> fetchBook(sourceConfig, id, stale));
+            }
+            return readCache.getAsync(sourceConfig, SourceReadCache.BOOK, id,
+                    (Book cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                    stale -> fetchBook(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Book> getBookSummary(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Getting listing of book with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/books", id, new ParameterizedTypeReference<ListResponse<Book>>() {})
+                    .onErrorMap(e -> failure("Failed to get listing of book with ID " + id, e));
+        });
+    }
+
+    private Mono<SourceReadCache.Entry<Book>> fetchBook(BookStackConfig sourceConfig, Long id, SourceReadCache.Entry<Book> stale) {
+        log.debug("Getting book with ID {} from {}", id, sourceConfig.getBaseUrl());
+        return fetchConditionally(sourceConfig, "/api/books/" + id, Book.class, stale)
+                .onErrorMap(e -> failure("Failed to get book with ID " + id, e));
+    }
+
+    @Override
+    public Mono<Book> getDestinationBook(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Getting book with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return retryExecutor.execute(Operation.READ, "get destination book " + id,
+                            get(destinationConfig, "/api/books/" + id, Book.class))
+                    .onErrorResume(HttpClientErrorException.NotFound.class, e -> Mono.empty())
+                    .onErrorMap(e -> failure("Failed to get destination book with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Book> createBook(Book book) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating book in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("name", book.getName());
+            fields.add("description", book.getDescription());
+            fields.add("description_html", book.getDescriptionHtml());
+            if (book.getDefaultTemplateId() != null) {
+                fields.add("default_template_id", book.getDefaultTemplateId());
+            }
+            addTags(fields, book.getTags());
+
+            // The cover, if any, is downloaded again for every attempt, since its stream can only be read once
+            Mono<Book> create = Mono.defer(() -> book.getCover() != null && book.getCover().getUrl() != null
+                    ? createBookWithCover(destinationConfig, fields, book.getCover())
+                    : send(destinationConfig, HttpMethod.POST, "/api/books", multipart(fields)).bodyToMono(Book.class));
+            return retryExecutor.execute(Operation.CREATE, "create book " + book.getName(), ioErrors(create),
+                            findCreatedBook(destinationConfig, book, createdSince))
+                    .doOnNext(created -> createClaims.claim(destinationConfig, CreateClaims.BOOK, created.getId()))
+                    .doOnSuccess(created -> readCache.invalidate(destinationConfig, SourceReadCache.BOOK, null))
+                    .onErrorMap(e -> failure("Failed to create book", e));
+        });
+    }
+
+    /**
+     * Create a book with its cover image piped from the source download into the upload. A cover that can't be
+     * downloaded is left out rather than failing the book.
+     */
+    private Mono<Book> createBookWithCover(BookStackConfig destinationConfig, MultiValueMap<String, Object> fields,
+                                           Book.Cover cover) {
+        return retrieve(webClient.get().uri(uri(cover.getUrl())))
+                .toEntityFlux(DataBuffer.class)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("Failed to download image from URL {}, creating the book without it: {}",
+                            cover.getUrl(), e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(image -> {
+                    MultipartBodyBuilder parts = multipart(fields);
+                    image.ifPresent(download -> {
+                        MediaType contentType = download.getHeaders().getContentType();
+                        parts.asyncPart("image", download.getBody(), DataBuffer.class)
+                                .filename(coverFilename(cover))
+                                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+                    });
+                    return send(destinationConfig, HttpMethod.POST, "/api/books", parts).bodyToMono(Book.class);
+                });
+    }
+
+    private static String coverFilename(Book.Cover cover) {
+        String path = URI.create(cover.getUrl()).getPath();
+        String name = path != null ? path.substring(path.lastIndexOf('/') + 1) : "";
+        return !name.isEmpty() ? name : "cover.jpg";
+    }
+
+    @Override
+    public Mono<Book> updateBook(Long id, Book book) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Updating book with ID {} in {}", id, destinationConfig.getBaseUrl());
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", book.getName());
+            body.put("description", book.getDescription());
+            body.put("description_html", book.getDescriptionHtml());
+            if (book.getDefaultTemplateId() != null) {
+                body.put("default_template_id", book.getDefaultTemplateId());
+            }
+            if (book.getTags() != null) {
+                body.put("tags", book.getTags());
+            }
+
+            return retryExecutor.execute(Operation.UPDATE, "update book " + id,
+                            ioErrors(send(destinationConfig, HttpMethod.PUT, "/api/books/" + id, body).bodyToMono(Book.class)))
+                    .doOnSuccess(updated -> readCache.invalidate(destinationConfig, SourceReadCache.BOOK, id))
+                    .onErrorMap(e -> failure("Failed to update book with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> deleteBook(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Deleting book with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return delete(destinationConfig, "/api/books", id)
+                    .doOnSuccess(response -> readCache.invalidate(destinationConfig, SourceReadCache.BOOK, id))
+                    .map(response -> response.getStatusCode().is2xxSuccessful())
+                    .onErrorMap(e -> failure("Failed to delete book with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> destroy() {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Destroying resources from {}", destinationConfig.getBaseUrl());
+            return ioErrors(send(destinationConfig, HttpMethod.POST, "/api/bulk-delete", null).toEntity(String.class))
+                    .map(ResponseEntity::hasBody)
+                    .onErrorMap(e -> failure("Failed to destroy resources", e));
+        });
+    }
+
+    @Override
+    public Flux<Chapter> listChapters(Long bookId) {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing chapters for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/chapters?filter[book_id]=" + bookId,
+                    new ParameterizedTypeReference<ListResponse<Chapter>>() {})
+                    .onErrorMap(e -> failure("Failed to list chapters for book ID " + bookId, e));
+        });
+    }
+
+    @Override
+    public Mono<Chapter> getChapter(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            return readCache.getAsync(sourceConfig, SourceReadCache.CHAPTER, id, null, stale -> fetchChapter(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Chapter> getChapter(Long id, String updatedAt) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            if (updatedAt == null) {
+                return readCache.refreshAsync(sourceConfig, SourceReadCache.CHAPTER, id, stale -> fetchChapter(sourceConfig, id, stale));
+            }
+            return readCache.getAsync(sourceConfig, SourceReadCache.CHAPTER, id,
+                    (Chapter cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                    stale -> fetchChapter(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Chapter> getChapterSummary(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Getting listing of chapter with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/chapters", id, new ParameterizedTypeReference<ListResponse<Chapter>>() {})
+                    .onErrorMap(e -> failure("Failed to get listing of chapter with ID " + id, e));
+        });
+    }
+
+    private Mono<SourceReadCache.Entry<Chapter>> fetchChapter(BookStackConfig sourceConfig, Long id,
+                                                              SourceReadCache.Entry<Chapter> stale) {
+        log.debug("Getting chapter with ID {} from {}", id, sourceConfig.getBaseUrl());
+        return fetchConditionally(sourceConfig, "/api/chapters/" + id, Chapter.class, stale)
+                .onErrorMap(e -> failure("Failed to get chapter with ID " + id, e));
+    }
+
+    @Override
+    public Mono<Chapter> createChapter(Chapter chapter) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating chapter in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("book_id", chapter.getBookId());
+            fields.add("name", chapter.getName());
+            fields.add("description", chapter.getDescription());
+            fields.add("description_html", chapter.getDescriptionHtml());
+            if (chapter.getDefaultTemplateId() != null) {
+                fields.add("default_template_id", chapter.getDefaultTemplateId());
+            }
+            if (chapter.getPriority() != null) {
+                fields.add("priority", chapter.getPriority());
+            }
+            addTags(fields, chapter.getTags());
+
+            return retryExecutor.execute(Operation.CREATE, "create chapter " + chapter.getName(),
+                            ioErrors(send(destinationConfig, HttpMethod.POST, "/api/chapters", multipart(fields))
+                                    .bodyToMono(Chapter.class)),
+                            findCreatedChapter(destinationConfig, chapter, createdSince))
+                    .doOnSuccess(created -> readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, null))
+                    .onErrorMap(e -> failure("Failed to create chapter", e));
+        });
+    }
+
+    @Override
+    public Mono<Chapter> updateChapter(Long id, Chapter chapter) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Updating chapter with ID {} in {}", id, destinationConfig.getBaseUrl());
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("book_id", chapter.getBookId());
+            body.put("name", chapter.getName());
+            body.put("description", chapter.getDescription());
+            body.put("description_html", chapter.getDescriptionHtml());
+            if (chapter.getPriority() != null) {
+                body.put("priority", chapter.getPriority());
+            }
+            if (chapter.getDefaultTemplateId() != null) {
+                body.put("default_template_id", chapter.getDefaultTemplateId());
+            }
+            if (chapter.getTags() != null) {
+                body.put("tags", chapter.getTags());
+            }
+
+            return retryExecutor.execute(Operation.UPDATE, "update chapter " + id,
+                            ioErrors(send(destinationConfig, HttpMethod.PUT, "/api/chapters/" + id, body).bodyToMono(Chapter.class)))
+                    .doOnSuccess(updated -> readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, id))
+                    .onErrorMap(e -> failure("Failed to update chapter with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> deleteChapter(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Deleting chapter with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return delete(destinationConfig, "/api/chapters", id)
+                    .doOnSuccess(response -> readCache.invalidate(destinationConfig, SourceReadCache.CHAPTER, id))
+                    .map(response -> response.getStatusCode().is2xxSuccessful())
+                    .onErrorMap(e -> failure("Failed to delete chapter with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Flux<Page> listPages(Long bookId) {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing pages for book ID {} from {}", bookId, sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/pages?filter[book_id]=" + bookId, new ParameterizedTypeReference<ListResponse<Page>>() {})
+                    .onErrorMap(e -> failure("Failed to list pages for book ID " + bookId, e));
+        });
+    }
+
+    @Override
+    public Flux<Page> listChapterPages(Long chapterId) {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing pages for chapter ID {} from {}", chapterId, sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/pages?filter[chapter_id]=" + chapterId,
+                    new ParameterizedTypeReference<ListResponse<Page>>() {})
+                    .onErrorMap(e -> failure("Failed to list pages for chapter ID " + chapterId, e));
+        });
+    }
+
+    @Override
+    public Mono<Page> getPage(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            return readCache.getAsync(sourceConfig, SourceReadCache.PAGE, id, null, stale -> fetchPage(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Page> getPage(Long id, String updatedAt) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            if (updatedAt == null) {
+                return readCache.refreshAsync(sourceConfig, SourceReadCache.PAGE, id, stale -> fetchPage(sourceConfig, id, stale));
+            }
+            return readCache.getAsync(sourceConfig, SourceReadCache.PAGE, id,
+                    (Page cached) -> updatedAt.equals(cached.getUpdatedAt()),
+                    stale -> fetchPage(sourceConfig, id, stale));
+        });
+    }
+
+    @Override
+    public Mono<Page> getPageSummary(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Getting listing of page with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return getSummary(sourceConfig, "/api/pages", id, new ParameterizedTypeReference<ListResponse<Page>>() {})
+                    .onErrorMap(e -> failure("Failed to get listing of page with ID " + id, e));
+        });
+    }
+
+    private Mono<SourceReadCache.Entry<Page>> fetchPage(BookStackConfig sourceConfig, Long id, SourceReadCache.Entry<Page> stale) {
+        log.debug("Getting page with ID {} from {}", id, sourceConfig.getBaseUrl());
+        Mono<SourceReadCache.Entry<Page>> fetch = fetchConditionally(sourceConfig, "/api/pages/" + id, Page.class, stale);
+        if (stale != null && !stale.hasValidators()) {
+            fetch = isPageUnchanged(sourceConfig, stale.value())
+                    .flatMap(unchanged -> unchanged ? Mono.just(stale.revalidated()) : fetchConditionally(sourceConfig,
+                            "/api/pages/" + id, Page.class, stale));
+        }
+        return fetch.onErrorMap(e -> failure("Failed to get page with ID " + id, e));
+    }
+
+    @Override
+    public Mono<Page> getDestinationPage(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Getting page with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return retryExecutor.execute(Operation.READ, "get destination page " + id,
+                            get(destinationConfig, "/api/pages/" + id, Page.class))
+                    .onErrorResume(HttpClientErrorException.NotFound.class, e -> Mono.empty())
+                    .onErrorMap(e -> failure("Failed to get destination page with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Page> createPage(Page page) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating page in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("book_id", page.getBookId());
+            fields.add("chapter_id", page.getChapterId());
+            fields.add("name", page.getName());
+            fields.add("html", page.getHtml());
+            fields.add("markdown", page.getMarkdown());
+            fields.add("priority", page.getPriority());
+            addTags(fields, page.getTags());
+
+            return retryExecutor.execute(Operation.CREATE, "create page " + page.getName(),
+                            ioErrors(send(destinationConfig, HttpMethod.POST, "/api/pages", multipart(fields))
+                                    .bodyToMono(Page.class)),
+                            findCreatedPage(destinationConfig, page, createdSince))
+                    .doOnSuccess(created -> readCache.invalidate(destinationConfig, SourceReadCache.PAGE, null))
+                    .onErrorMap(e -> failure("Failed to create page: " + e.getMessage(), e));
+        });
+    }
+
+    @Override
+    public Mono<Page> updatePage(Long id, Page page) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Updating page with ID {} in {}", id, destinationConfig.getBaseUrl());
+
+            // A chapter ID places the page in that chapter; a book ID alone places it at the top level of the book
+            Map<String, Object> body = new LinkedHashMap<>();
+            if (page.getChapterId() != null) {
+                body.put("chapter_id", page.getChapterId());
+            } else {
+                body.put("book_id", page.getBookId());
+            }
+            body.put("name", page.getName());
+            if (page.getMarkdown() != null && !page.getMarkdown().isEmpty()) {
+                body.put("markdown", page.getMarkdown());
+            } else {
+                body.put("html", page.getHtml());
+            }
+            if (page.getPriority() != null) {
+                body.put("priority", page.getPriority());
+            }
+            if (page.getTags() != null) {
+                body.put("tags", page.getTags());
+            }
+
+            return retryExecutor.execute(Operation.UPDATE, "update page " + id,
+                            ioErrors(send(destinationConfig, HttpMethod.PUT, "/api/pages/" + id, body).bodyToMono(Page.class)))
+                    .doOnSuccess(updated -> readCache.invalidate(destinationConfig, SourceReadCache.PAGE, id))
+                    .onErrorMap(e -> failure("Failed to update page with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> deletePage(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Deleting page with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return delete(destinationConfig, "/api/pages", id)
+                    .doOnSuccess(response -> readCache.invalidate(destinationConfig, SourceReadCache.PAGE, id))
+                    .map(response -> response.getStatusCode().is2xxSuccessful())
+                    .onErrorMap(e -> failure("Failed to delete page with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Flux<Shelf> listShelves() {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing shelves from {}", sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/shelves", new ParameterizedTypeReference<ListResponse<Shelf>>() {})
+                    .onErrorMap(e -> failure("Failed to list shelves", e));
+        });
+    }
+
+    @Override
+    public Mono<Shelf> getShelf(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Getting shelf with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return retryExecutor.execute(Operation.READ, "get shelf " + id, get(sourceConfig, "/api/shelves/" + id, Shelf.class))
+                    .onErrorMap(e -> failure("Failed to get shelf with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Shelf> getDestinationShelf(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Getting shelf with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return retryExecutor.execute(Operation.READ, "get destination shelf " + id,
+                            get(destinationConfig, "/api/shelves/" + id, Shelf.class))
+                    .onErrorResume(HttpClientErrorException.NotFound.class, e -> Mono.empty())
+                    .onErrorMap(e -> failure("Failed to get destination shelf with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Shelf> createShelf(Shelf shelf) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating shelf in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("name", shelf.getName());
+            fields.add("description", shelf.getDescription());
+            fields.add("description_html", shelf.getDescriptionHtml());
+            List<Long> bookIds = bookIds(shelf);
+            for (int i = 0; i < bookIds.size(); i++) {
+                fields.add("books[" + i + "]", bookIds.get(i));
+            }
+            addTags(fields, shelf.getTags());
+
+            return retryExecutor.execute(Operation.CREATE, "create shelf " + shelf.getName(),
+                            ioErrors(send(destinationConfig, HttpMethod.POST, "/api/shelves", multipart(fields))
+                                    .bodyToMono(Shelf.class)),
+                            findCreatedShelf(destinationConfig, shelf, createdSince))
+                    .doOnNext(created -> createClaims.claim(destinationConfig, CreateClaims.SHELF, created.getId()))
+                    .onErrorMap(e -> failure("Failed to create shelf", e));
+        });
+    }
+
+    @Override
+    public Mono<Shelf> updateShelf(Long id, Shelf shelf) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Updating shelf with ID {} in {}", id, destinationConfig.getBaseUrl());
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", shelf.getName());
+            body.put("description", shelf.getDescription());
+            body.put("description_html", shelf.getDescriptionHtml());
+            body.put("books", bookIds(shelf));
+            if (shelf.getTags() != null) {
+                body.put("tags", shelf.getTags());
+            }
+
+            return retryExecutor.execute(Operation.UPDATE, "update shelf " + id,
+                            ioErrors(send(destinationConfig, HttpMethod.PUT, "/api/shelves/" + id, body).bodyToMono(Shelf.class)))
+                    .onErrorMap(e -> failure("Failed to update shelf with ID " + id, e));
+        });
+    }
+
+    private static List<Long> bookIds(Shelf shelf) {
+        return shelf.getBooks() != null ? shelf.getBooks().stream().map(Book::getId).toList() : List.of();
+    }
+
+    @Override
+    public Flux<Attachment> listAttachments(Long pageId) {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing attachments for page ID {} from {}", pageId, sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/attachments?filter[uploaded_to]=" + pageId,
+                    new ParameterizedTypeReference<ListResponse<Attachment>>() {})
+                    .onErrorMap(e -> failure("Failed to list attachments for page ID " + pageId, e));
+        });
+    }
+
+    @Override
+    public Flux<Attachment> listAttachments() {
+        return SyncContext.flux(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Listing attachments from {}", sourceConfig.getBaseUrl());
+            return list(sourceConfig, "/api/attachments", new ParameterizedTypeReference<ListResponse<Attachment>>() {})
+                    .onErrorMap(e -> failure("Failed to list attachments", e));
+        });
+    }
+
+    @Override
+    public Mono<Attachment> getAttachment(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Getting attachment with ID {} from {}", id, sourceConfig.getBaseUrl());
+            return retryExecutor.execute(Operation.READ, "get attachment " + id,
+                            get(sourceConfig, "/api/attachments/" + id, Attachment.class))
+                    .onErrorMap(e -> failure("Failed to get attachment with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Attachment> downloadAttachment(Long id, OutputStream file) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Downloading attachment with ID {} from {}", id, sourceConfig.getBaseUrl());
+            Flux<DataBuffer> body = retrieve(request(sourceConfig, HttpMethod.GET, "/api/attachments/" + id))
+                    .bodyToFlux(DataBuffer.class);
+            // The API returns the file base64 encoded inside the JSON; it is decoded by a blocking parser reading
+            // the buffers a few at a time as they arrive
+            return ioErrors(Mono.fromCallable(() -> {
+                        try (Stream<DataBuffer> buffers = body.toStream(4);
+                             JsonParser parser = objectMapper.getFactory().createParser(inputStream(buffers))) {
+                            return readAttachment(objectMapper, parser, file);
+                        }
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .onErrorMap(e -> failure("Failed to download attachment with ID " + id, e));
+        });
+    }
+
+    /**
+     * Read buffers as one stream, releasing each once it has been read.
+     */
+    static InputStream inputStream(Stream<DataBuffer> buffers) {
+        Iterator<DataBuffer> iterator = buffers.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return iterator.next().asInputStream(true);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Attachment> createAttachment(Attachment attachment, Path file) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating attachment in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            Mono<Attachment> create = Mono.defer(() -> file == null
+                    ? send(destinationConfig, HttpMethod.POST, "/api/attachments", attachmentFields(attachment))
+                            .bodyToMono(Attachment.class)
+                    : send(destinationConfig, HttpMethod.POST, "/api/attachments", attachmentParts(attachment, file, false))
+                            .bodyToMono(Attachment.class));
+            return retryExecutor.execute(Operation.CREATE, "create attachment " + attachment.getName(), ioErrors(create),
+                            findCreatedAttachment(destinationConfig, attachment, createdSince))
+                    .onErrorMap(e -> failure("Failed to create attachment", e));
+        });
+    }
+
+    @Override
+    public Mono<Attachment> updateAttachment(Long id, Attachment attachment, Path file) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Updating attachment with ID {} in {}", id, destinationConfig.getBaseUrl());
+
+            // PHP only reads multipart bodies of POST requests, so a file goes in a POST standing in for the PUT
+            Mono<Attachment> update = Mono.defer(() -> file == null
+                    ? send(destinationConfig, HttpMethod.PUT, "/api/attachments/" + id, attachmentFields(attachment))
+                            .bodyToMono(Attachment.class)
+                    : send(destinationConfig, HttpMethod.POST, "/api/attachments/" + id, attachmentParts(attachment, file, true))
+                            .bodyToMono(Attachment.class));
+            return retryExecutor.execute(Operation.UPDATE, "update attachment " + id, ioErrors(update))
+                    .onErrorMap(e -> failure("Failed to update attachment with ID " + id, e));
+        });
+    }
+
+    /**
+     * Build the multipart form of an attachment upload, with the file read from disk as the form is written.
+     */
+    private static MultipartBodyBuilder attachmentParts(Attachment attachment, Path file, boolean update) {
+        MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+        if (update) {
+            fields.add("_method", "PUT");
+        }
+        fields.add("name", attachment.getName());
+        fields.add("uploaded_to", attachment.getUploadedTo());
+        MultipartBodyBuilder parts = multipart(fields);
+        parts.part("file", new FileSystemResource(file))
+                .filename(attachmentFilename(attachment))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+        return parts;
+    }
+
+    @Override
+    public Mono<Boolean> deleteAttachment(Long id) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Deleting attachment with ID {} from {}", id, destinationConfig.getBaseUrl());
+            return delete(destinationConfig, "/api/attachments", id)
+                    .map(response -> response.getStatusCode().is2xxSuccessful())
+                    .onErrorMap(e -> failure("Failed to delete attachment with ID " + id, e));
+        });
+    }
+
+    @Override
+    public Mono<Image> createImage(Image image) {
+        return SyncContext.mono(context -> {
+            BookStackConfig destinationConfig = destinationConfig(context);
+            log.debug("Creating image in {}", destinationConfig.getBaseUrl());
+            Instant createdSince = Instant.now().minus(CLOCK_SKEW_ALLOWANCE);
+
+            MultiValueMap<String, Object> fields = new LinkedMultiValueMap<>();
+            fields.add("type", image.getType() != null ? image.getType() : "gallery");
+            fields.add("uploaded_to", image.getUploadedTo());
+            fields.add("name", image.getName());
+
+            // The file is downloaded again for every attempt, since its stream can only be read once
+            Mono<Image> create = Mono.defer(() -> retrieve(webClient.get().uri(uri(image.getUrl())))
+                    .toEntityFlux(DataBuffer.class)
+                    .flatMap(download -> {
+                        MultipartBodyBuilder parts = multipart(fields);
+                        MediaType contentType = download.getHeaders().getContentType();
+                        parts.asyncPart("image", download.getBody(), DataBuffer.class)
+                                .filename(imageFilename(image))
+                                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+                        return send(destinationConfig, HttpMethod.POST, "/api/image-gallery", parts).bodyToMono(Image.class);
+                    })
+                    .onErrorResume(HttpClientErrorException.NotFound.class, e -> {
+                        log.warn("Image {} no longer exists in the source", image.getUrl());
+                        return Mono.empty();
+                    }));
+            return retryExecutor.execute(Operation.CREATE, "create image " + image.getName(), ioErrors(create),
+                            findCreatedImage(destinationConfig, image, createdSince))
+                    .onErrorMap(e -> failure("Failed to create image", e));
+        });
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportBook(Long id, ExportFormat format) {
+        return export("books", "book", id, format);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportChapter(Long id, ExportFormat format) {
+        return export("chapters", "chapter", id, format);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportPage(Long id, ExportFormat format) {
+        return export("pages", "page", id, format);
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> export(String type, String kind, Long id, ExportFormat format) {
+        return SyncContext.mono(context -> {
+            BookStackConfig sourceConfig = sourceConfig(context);
+            log.debug("Exporting {} with ID {} as {} from {}", kind, id, format.getName(), sourceConfig.getBaseUrl());
+            // Only opening the response is retried; the body is read by the subscriber as it passes it on
+            return retryExecutor.execute(Operation.READ, "export " + kind + " " + id,
+                            retrieve(request(sourceConfig, HttpMethod.GET, "/api/" + type + "/" + id + "/export/"
+                                    + format.getApiName()).accept(MediaType.ALL)).toEntityFlux(DataBuffer.class))
+                    .onErrorMap(e -> failure("Failed to export " + kind + " with ID " + id + " as " + format.getName(), e));
+        });
+    }
+
+    @Override
+    public Mono<Boolean> verifyCredentials() {
+        return SyncContext.mono(context -> verify(sourceConfig(context)));
+    }
+
+    @Override
+    public Mono<Boolean> verifyDestinationCredentials() {
+        return SyncContext.mono(context -> verify(destinationConfig(context)));
+    }
+
+    private Mono<Boolean> verify(BookStackConfig config) {
+        log.debug("Verifying credentials for {}", config.getBaseUrl());
+        // The cheapest authenticated request the API offers: a one-item book listing
+        return get(config, "/api/books?count=1", new ParameterizedTypeReference<ListResponse<Book>>() {})
+                .map(response -> {
+                    log.debug("Successfully verified credentials for {}", config.getBaseUrl());
+                    return true;
+                })
+                .onErrorMap(e -> failure(e instanceof HttpClientErrorException.Unauthorized
+                        ? "Invalid API credentials for " + config.getBaseUrl()
+                        : "Failed to verify credentials for " + config.getBaseUrl(), e));
+    }
+
+    @Override
+    public Mono<Long> syncBook(Long sourceBookId) {
+        return SyncContext.mono(context -> Mono.fromCallable(() -> bookSyncEngine.getObject().syncBook(context, sourceBookId))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorMap(e -> failure("Failed to sync book: " + e.getMessage(), e));
+    }
+
+    /**
+     * Read an entity from a source instance. When a stale cached copy with validators is given, the request is
+     * made conditional, and a 304 response confirms the cached copy instead of transferring it again.
+     */
+    private <T> Mono<SourceReadCache.Entry<T>> fetchConditionally(BookStackConfig config, String path, Class<T> type,
+                                                                  SourceReadCache.Entry<T> stale) {
+        WebClient.RequestBodySpec request = request(config, HttpMethod.GET, path);
+        if (stale != null && stale.etag() != null) {
+            request.ifNoneMatch(stale.etag());
+        }
+        if (stale != null && stale.lastModified() != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE, stale.lastModified());
+        }
+
+        return retryExecutor.execute(Operation.READ, "get " + path, ioErrors(retrieve(request).toEntity(type)))
+                .map(response -> stale != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)
+                        ? stale.revalidated()
+                        : SourceReadCache.Entry.of(response.getBody(), response.getHeaders().getETag(),
+                                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED)));
+    }
+
+    /**
+     * Check whether a page is unchanged by comparing its {@code updated_at} from a one-item listing, which leaves
+     * out the page body. Used when the instance doesn't send validators for conditional requests.
+     */
+    private Mono<Boolean> isPageUnchanged(BookStackConfig config, Page cached) {
+        return getSummary(config, "/api/pages", cached.getId(), new ParameterizedTypeReference<ListResponse<Page>>() {})
+                .map(listed -> cached.getUpdatedAt() != null && cached.getUpdatedAt().equals(listed.getUpdatedAt()))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Read an entity from a one-item listing, which leaves out its contents.
+     *
+     * @return The listed entity, or empty if there is no entity with that ID
+     */
+    private <T> Mono<T> getSummary(BookStackConfig config, String listPath, Long id,
+                                   ParameterizedTypeReference<ListResponse<T>> responseType) {
+        return retryExecutor.execute(Operation.READ, "list " + listPath.substring(listPath.lastIndexOf('/') + 1) + " " + id,
+                        get(config, listPath + "?count=1&filter[id]=" + id, responseType))
+                .mapNotNull(response -> response.getData() != null && response.getData().size() == 1
+                        ? response.getData().get(0) : null);
+    }
+
+    /**
+     * Find a book created by an earlier attempt of {@link #createBook}: the newest book of that name, description
+     * and tags that no other create returned. A name alone would match a same-named book of a concurrent job.
+     */
+    private Mono<Book> findCreatedBook(BookStackConfig config, Book book, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("name", book.getName());
+        return findCreated(config, "/api/books", filters, createdSince, CreateClaims.LOOKUP_CANDIDATES,
+                        new ParameterizedTypeReference<ListResponse<Book>>() {})
+                .filter(candidate -> !createClaims.isClaimed(config, CreateClaims.BOOK, candidate.getId()))
+                .concatMap(candidate -> get(config, "/api/books/" + candidate.getId(), Book.class)
+                        .onErrorResume(HttpClientErrorException.NotFound.class, e -> Mono.empty()))
+                .filter(found -> CreateClaims.matches(book, found)
+                        && createClaims.claim(config, CreateClaims.BOOK, found.getId()))
+                .next();
+    }
+
+    /**
+     * Find a chapter created by an earlier attempt of {@link #createChapter}, matching it by book, name and priority.
+     */
+    private Mono<Chapter> findCreatedChapter(BookStackConfig config, Chapter chapter, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("book_id", chapter.getBookId());
+        filters.put("name", chapter.getName());
+        filters.put("priority", chapter.getPriority());
+        return findCreated(config, "/api/chapters", filters, createdSince, new ParameterizedTypeReference<ListResponse<Chapter>>() {});
+    }
+
+    /**
+     * Find an attachment created by an earlier attempt of {@link #createAttachment}, matching it by page and name.
+     */
+    private Mono<Attachment> findCreatedAttachment(BookStackConfig config, Attachment attachment, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("uploaded_to", attachment.getUploadedTo());
+        filters.put("name", attachment.getName());
+        return findCreated(config, "/api/attachments", filters, createdSince,
+                new ParameterizedTypeReference<ListResponse<Attachment>>() {});
+    }
+
+    /**
+     * Find an image created by an earlier attempt of {@link #createImage}, matching it by page and name.
+     */
+    private Mono<Image> findCreatedImage(BookStackConfig config, Image image, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("uploaded_to", image.getUploadedTo());
+        filters.put("name", image.getName());
+        return findCreated(config, "/api/image-gallery", filters, createdSince, new ParameterizedTypeReference<ListResponse<Image>>() {});
+    }
+
+    /**
+     * Find a shelf created by an earlier attempt of {@link #createShelf}: the newest shelf of that name, description,
+     * tags and books that no other create returned.
+     */
+    private Mono<Shelf> findCreatedShelf(BookStackConfig config, Shelf shelf, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("name", shelf.getName());
+        return findCreated(config, "/api/shelves", filters, createdSince, CreateClaims.LOOKUP_CANDIDATES,
+                        new ParameterizedTypeReference<ListResponse<Shelf>>() {})
+                .filter(candidate -> !createClaims.isClaimed(config, CreateClaims.SHELF, candidate.getId()))
+                .concatMap(candidate -> get(config, "/api/shelves/" + candidate.getId(), Shelf.class)
+                        .onErrorResume(HttpClientErrorException.NotFound.class, e -> Mono.empty()))
+                .filter(found -> CreateClaims.matches(shelf, found)
+                        && createClaims.claim(config, CreateClaims.SHELF, found.getId()))
+                .next();
+    }
+
+    /**
+     * Find a page created by an earlier attempt of {@link #createPage}, matching it by book, chapter, name and
+     * priority. BookStack stores a page outside any chapter with chapter ID 0.
+     */
+    private Mono<Page> findCreatedPage(BookStackConfig config, Page page, Instant createdSince) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("book_id", page.getBookId());
+        filters.put("chapter_id", page.getChapterId() != null ? page.getChapterId() : 0);
+        filters.put("name", page.getName());
+        filters.put("priority", page.getPriority());
+        return findCreated(config, "/api/pages", filters, createdSince, new ParameterizedTypeReference<ListResponse<Page>>() {});
+    }
+
+    /**
+     * Look up the most recent entity of a list endpoint that matches the given fields and was created no earlier
+     * than the given time. Fields with a null value are left out of the lookup.
+     */
+    private <T> Mono<T> findCreated(BookStackConfig config, String listPath, Map<String, Object> filters,
+                                    Instant createdSince, ParameterizedTypeReference<ListResponse<T>> responseType) {
+        return findCreated(config, listPath, filters, createdSince, 1, responseType).next();
+    }
+
+    /**
+     * Look up the most recent entities of a list endpoint that match the given fields and were created no earlier
+     * than the given time, newest first.
+     */
+    private <T> Flux<T> findCreated(BookStackConfig config, String listPath, Map<String, Object> filters,
+                                    Instant createdSince, int count, ParameterizedTypeReference<ListResponse<T>> responseType) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(config.getBaseUrl() + listPath)
+                .queryParam("count", count)
+                .queryParam("sort", "-id")
+                .queryParam("filter[created_at:gte]", "{createdSince}");
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("createdSince", CREATED_AT_FORMAT.format(createdSince));
+        filters.forEach((field, value) -> {
+            if (value != null) {
+                uri.queryParam("filter[" + field + "]", "{" + field + "}");
+                values.put(field, value);
+            }
+        });
+
+        return ioErrors(retrieve(request(config, HttpMethod.GET, uri.encode().buildAndExpand(values).toUri()))
+                .bodyToMono(responseType))
+                .flatMapIterable(response -> response.getData() != null ? response.getData() : List.of());
+    }
+
+    /**
+     * Delete an entity; if an attempt fails in a way that leaves open whether it was applied, the next one first
+     * checks whether the entity is still listed.
+     */
+    private Mono<ResponseEntity<String>> delete(BookStackConfig config, String listPath, Long id) {
+        Mono<ResponseEntity<String>> deleted = get(config, listPath + "?count=1&filter[id]=" + id,
+                new ParameterizedTypeReference<ListResponse<Object>>() {})
+                .mapNotNull(response -> response.getData() != null && !response.getData().isEmpty()
+                        ? null : ResponseEntity.noContent().build());
+        return retryExecutor.execute(Operation.DELETE, "delete " + listPath.substring(listPath.lastIndexOf('/') + 1) + " " + id,
+                ioErrors(send(config, HttpMethod.DELETE, listPath + "/" + id, null).toEntity(String.class)),
+                deleted);
+    }
+
+    /**
+     * List every item of a BookStack list endpoint. The first page gives the total; the remaining pages are then
+     * fetched up to {@code listPrefetch} at a time as the subscriber requests items, and emitted in order.
+     */
+    private <T> Flux<T> list(BookStackConfig config, String path, ParameterizedTypeReference<ListResponse<T>> responseType) {
+        String separator = path.contains("?") ? "&" : "?";
+        int requestedPageSize = httpClientProperties.getListPageSize();
+        return fetchListPage(config, path + separator, 0, requestedPageSize, responseType).flatMapMany(first -> {
+            List<T> data = first.getData() != null ? first.getData() : List.of();
+            int total = first.getTotal() != null ? first.getTotal() : data.size();
+            // The server may cap the page size below what was asked for
+            int pageSize = data.isEmpty() ? requestedPageSize : Math.min(requestedPageSize, data.size());
+            int remainingPages = total > data.size() ? (total - data.size() + pageSize - 1) / pageSize : 0;
+            Flux<T> rest = Flux.range(0, remainingPages)
+                    .flatMapSequential(page -> fetchListPage(config, path + separator, data.size() + page * pageSize,
+                            requestedPageSize, responseType), Math.max(httpClientProperties.getListPrefetch(), 1), 1)
+                    .concatMapIterable(response -> response.getData() != null ? response.getData() : List.of());
+            return Flux.fromIterable(data).concatWith(rest);
+        });
+    }
+
+    private <T> Mono<ListResponse<T>> fetchListPage(BookStackConfig config, String path, int offset, int pageSize,
+                                                    ParameterizedTypeReference<ListResponse<T>> responseType) {
+        return retryExecutor.execute(Operation.READ, "list " + path,
+                get(config, path + "count=" + pageSize + "&offset=" + offset, responseType));
+    }
+
+    private <T> Mono<T> get(BookStackConfig config, String path, Class<T> responseType) {
+        return ioErrors(retrieve(request(config, HttpMethod.GET, path)).bodyToMono(responseType));
+    }
+
+    private <T> Mono<T> get(BookStackConfig config, String path, ParameterizedTypeReference<T> responseType) {
+        return ioErrors(retrieve(request(config, HttpMethod.GET, path)).bodyToMono(responseType));
+    }
+
+    /**
+     * Send a request with a JSON body, a multipart form or no body.
+     */
+    private WebClient.ResponseSpec send(BookStackConfig config, HttpMethod method, String path, Object body) {
+        WebClient.RequestBodySpec request = request(config, method, path);
+        if (body instanceof MultipartBodyBuilder multipart) {
+            return retrieve(request.body(BodyInserters.fromMultipartData(multipart.build())));
+        }
+        return retrieve(body != null ? request.bodyValue(body) : request);
+    }
+
+    private WebClient.RequestBodySpec request(BookStackConfig config, HttpMethod method, String path) {
+        return request(config, method, uri(config.getBaseUrl() + path));
+    }
+
+    private WebClient.RequestBodySpec request(BookStackConfig config, HttpMethod method, URI uri) {
+        return webClient.method(method).uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Token " + config.getTokenId() + ":" + config.getTokenSecret());
+    }
+
+    /**
+     * Build a multipart form from the given fields, leaving out those without a value.
+     */
+    private static MultipartBodyBuilder multipart(MultiValueMap<String, Object> fields) {
+        MultipartBodyBuilder parts = new MultipartBodyBuilder();
+        fields.forEach((name, values) -> values.forEach(value -> {
+            if (value != null) {
+                parts.part(name, String.valueOf(value));
+            }
+        }));
+        return parts;
+    }
+
+    private static void addTags(MultiValueMap<String, Object> fields, List<Tag> tags) {
+        if (tags != null) {
+            for (int i = 0; i < tags.size(); i++) {
+                Tag tag = tags.get(i);
+                fields.add("tags[" + i + "][name]", tag.getName());
+                fields.add("tags[" + i + "][value]", tag.getValue());
+                fields.add("tags[" + i + "][order]", tag.getOrder());
+            }
+        }
+    }
+
+    private static URI uri(String url) {
+        return UriComponentsBuilder.fromHttpUrl(url).encode().build().toUri();
+    }
+
+    /**
+     * Retrieve a response, raising error statuses as the {@code RestTemplate} does, so the retry rules and error
+     * handling are the same for both clients.
+     */
+    private static WebClient.ResponseSpec retrieve(WebClient.RequestHeadersSpec<?> request) {
+        return request.retrieve().onStatus(HttpStatusCode::isError, ReactiveBookStackApiServiceImpl::toException);
+    }
+
+    private static Mono<HttpStatusCodeException> toException(ClientResponse response) {
+        return response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]).map(body -> {
+            HttpStatusCode status = response.statusCode();
+            HttpStatus knownStatus = HttpStatus.resolve(status.value());
+            String statusText = knownStatus != null ? knownStatus.getReasonPhrase() : "";
+            HttpHeaders headers = response.headers().asHttpHeaders();
+            return status.is4xxClientError()
+                    ? HttpClientErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8)
+                    : HttpServerErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * Raise I/O errors as the {@code RestTemplate} does.
+     */
+    private static <T> Mono<T> ioErrors(Mono<T> call) {
+        return call.onErrorMap(WebClientRequestException.class, e -> new ResourceAccessException(
+                "I/O error on " + e.getMethod() + " request for \"" + e.getUri() + "\": " + e.getMessage(),
+                e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getMessage(), e.getCause())));
+    }
+
+    private static Throwable failure(String message, Throwable e) {
+        if (e instanceof BookStackApiException) {
+            return e;
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            log.error("API error response ({}): {}", statusException.getStatusCode(), statusException.getResponseBodyAsString());
+        }
+        log.error("{}: {}", message, e.getMessage(), e);
+        return new BookStackApiException(message, e);
+    }
+}
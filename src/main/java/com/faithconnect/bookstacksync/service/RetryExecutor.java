@@ -0,0 +1,248 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.RetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs BookStack API calls, retrying those that fail with a transient error: an I/O error, a timeout, a 5xx
+ * gateway or server error, or a 429. This is the only layer that sends a request again after a 429; the rate
+ * limiter just pauses the instance for the {@code Retry-After} period.
+ *
+ * Retries wait with exponential backoff and full jitter, so clients that failed together don't retry together.
+ * A {@code Retry-After} header sets the minimum wait. Each kind of operation has its own attempt budget.
+ *
+ * A create is not idempotent, and a failure such as a read timeout or a 502 from a proxy leaves open whether the
+ * instance applied it. Before sending such a request again, the caller's lookup checks whether the earlier attempt
+ * created the entity, and if so its result is used instead, so retries never create duplicates.
+ *
+ * Calls of the non-blocking client are retried under the same rules by the {@link Mono} variants, which wait
+ * on a timer instead of a thread. They expect the client's errors as the {@code RestTemplate} raises them.
+ *
+ * Retries are counted in the {@code bookstack.client.retries} metric, and creates found to have succeeded in
+ * {@code bookstack.client.retries.recovered}, both tagged by operation.
+ */
+@Slf4j
+public class RetryExecutor {
+
+    /**
+     * The kinds of operation, each with its own attempt budget.
+     */
+    public enum Operation {
+        READ, CREATE, UPDATE, DELETE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final RetryProperties properties;
+    private final Map<Operation, Integer> maxAttempts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> retries = new EnumMap<>(Operation.class);
+    private final Counter recovered;
+
+    public RetryExecutor(RetryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        maxAttempts.put(Operation.READ, properties.getReadAttempts());
+        maxAttempts.put(Operation.CREATE, properties.getCreateAttempts());
+        maxAttempts.put(Operation.UPDATE, properties.getUpdateAttempts());
+        maxAttempts.put(Operation.DELETE, properties.getDeleteAttempts());
+        for (Operation operation : Operation.values()) {
+            retries.put(operation, Counter.builder("bookstack.client.retries")
+                    .description("BookStack API calls sent again after a transient failure")
+                    .tag("operation", operation.tag())
+                    .register(meterRegistry));
+        }
+        this.recovered = Counter.builder("bookstack.client.retries.recovered")
+                .description("Failed creates found to have been applied, and not sent again")
+                .tag("operation", Operation.CREATE.tag())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an idempotent call, retrying it on transient failures.
+     *
+     * @param operation The kind of operation, which selects the attempt budget
+     * @param description What the call does, for logging
+     * @param call The call
+     * @return The result of the first successful attempt
+     */
+    public <T> T execute(Operation operation, String description, Supplier<T> call) {
+        return execute(operation, description, call, null);
+    }
+
+    /**
+     * Run a call that must not be applied twice, retrying it on transient failures.
+     *
+     * @param operation The kind of operation, which selects the attempt budget
+     * @param description What the call does, for logging
+     * @param call The call
+     * @param lookup Finds the result of an earlier attempt that was applied although it failed; run before
+     *               sending the call again whenever the outcome of the last attempt is unknown
+     * @return The result of the first successful attempt, or the one found by the lookup
+     */
+    public <T> T execute(Operation operation, String description, Supplier<T> call, Supplier<Optional<T>> lookup) {
+        int attempts = properties.isEnabled() ? Math.max(maxAttempts.get(operation), 1) : 1;
+        boolean outcomeUnknown = false;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (outcomeUnknown) {
+                    Optional<T> applied = lookup.get();
+                    if (applied.isPresent()) {
+                        log.info("Earlier attempt to {} was applied, not sending it again", description);
+                        recovered.increment();
+                        return applied.get();
+                    }
+                    outcomeUnknown = false;
+                }
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= attempts || !isTransient(e) || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                // A failed lookup leaves the outcome as unknown as before
+                outcomeUnknown |= lookup != null && mayHaveBeenApplied(e);
+
+                long backoff = backoffMillis(attempt, e);
+                log.warn("Failed to {} (attempt {} of {}), retrying in {} ms: {}",
+                        description, attempt, attempts, backoff, e.getMessage());
+                retries.get(operation).increment();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an idempotent call of the non-blocking client, retrying it on transient failures.
+     *
+     * @param operation The kind of operation, which selects the attempt budget
+     * @param description What the call does, for logging
+     * @param call The call, subscribed to again for each attempt
+     * @return The result of the first successful attempt
+     */
+    public <T> Mono<T> execute(Operation operation, String description, Mono<T> call) {
+        return execute(operation, description, call, null);
+    }
+
+    /**
+     * Run a call of the non-blocking client that must not be applied twice, retrying it on transient failures.
+     *
+     * @param operation The kind of operation, which selects the attempt budget
+     * @param description What the call does, for logging
+     * @param call The call, subscribed to again for each attempt
+     * @param lookup Finds the result of an earlier attempt that was applied although it failed, or completes
+     *               empty; run before sending the call again whenever the outcome of the last attempt is unknown
+     * @return The result of the first successful attempt, or the one found by the lookup
+     */
+    public <T> Mono<T> execute(Operation operation, String description, Mono<T> call, Mono<T> lookup) {
+        int attempts = properties.isEnabled() ? Math.max(maxAttempts.get(operation), 1) : 1;
+        return Mono.defer(() -> attempt(operation, description, call, lookup, attempts, 1, new AtomicBoolean()));
+    }
+
+    private <T> Mono<T> attempt(Operation operation, String description, Mono<T> call, Mono<T> lookup,
+                                int attempts, int attempt, AtomicBoolean outcomeUnknown) {
+        Mono<T> send = Mono.defer(() -> {
+            outcomeUnknown.set(false);
+            return call;
+        });
+        if (outcomeUnknown.get()) {
+            send = lookup.doOnNext(applied -> {
+                log.info("Earlier attempt to {} was applied, not sending it again", description);
+                recovered.increment();
+            }).switchIfEmpty(send);
+        }
+        return send.onErrorResume(RuntimeException.class, e -> {
+            if (attempt >= attempts || !isTransient(e)) {
+                return Mono.error(e);
+            }
+            // A failed lookup leaves the outcome as unknown as before
+            if (lookup != null && mayHaveBeenApplied(e)) {
+                outcomeUnknown.set(true);
+            }
+
+            long backoff = backoffMillis(attempt, e);
+            log.warn("Failed to {} (attempt {} of {}), retrying in {} ms: {}",
+                    description, attempt, attempts, backoff, e.getMessage());
+            retries.get(operation).increment();
+            return Mono.delay(Duration.ofMillis(backoff))
+                    .then(Mono.defer(() -> attempt(operation, description, call, lookup, attempts, attempt + 1, outcomeUnknown)));
+        });
+    }
+
+    long backoffMillis(int attempt, RuntimeException failure) {
+        long max = properties.getMaxBackoff().toMillis();
+        long bound = Math.min(max, properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 30));
+        long backoff = ThreadLocalRandom.current().nextLong(Math.max(bound, 1));
+        Duration retryAfter = retryAfter(failure);
+        if (retryAfter != null) {
+            backoff = Math.max(backoff, Math.min(retryAfter.toMillis(), max));
+        }
+        return backoff;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == HttpStatus.REQUEST_TIMEOUT.value()
+                    || status == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || status == HttpStatus.INTERNAL_SERVER_ERROR.value()
+                    || status == HttpStatus.BAD_GATEWAY.value()
+                    || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        return false;
+    }
+
+    /**
+     * Whether a failed request may still have been applied: everything except a refused connection and
+     * responses that reject the request before handling it.
+     */
+    private static boolean mayHaveBeenApplied(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return !(e.getCause() instanceof ConnectException);
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status != HttpStatus.REQUEST_TIMEOUT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return true;
+    }
+
+    private static Duration retryAfter(RuntimeException e) {
+        if (e instanceof HttpStatusCodeException statusException && statusException.getResponseHeaders() != null) {
+            String value = statusException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (value != null) {
+                try {
+                    return Duration.ofSeconds(Long.parseLong(value.trim()));
+                } catch (NumberFormatException ignored) {
+                    // An HTTP date; the rate limiter holds requests to the instance until then
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,266 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.CacheProperties;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Page;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache for books, chapters and pages read from BookStack instances.
+ *
+ * Entries are keyed by instance base URL, token ID, entity type and ID, so callers with different credentials
+ * never see each other's reads. An entry is served as is for the configured TTL. After that it is stale, and the
+ * next read revalidates it: the loader gets the stale entry, with the {@code ETag}/{@code Last-Modified}
+ * validators of its response, and can confirm it is unchanged instead of transferring it again. Stale entries are
+ * dropped after the configured retention, and entries are evicted least recently used first once their estimated
+ * size exceeds the configured maximum.
+ *
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics with the tag
+ * {@code cache=bookstack.source}, and revalidation outcomes as {@code bookstack.source.cache.revalidations}.
+ *
+ * Cached entities are shared between callers and must not be modified.
+ */
+public class SourceReadCache {
+
+    static final String BOOK = "book";
+    static final String CHAPTER = "chapter";
+    static final String PAGE = "page";
+
+    /**
+     * Rough fixed cost of an entity apart from its text fields, in bytes.
+     */
+    private static final int BASE_WEIGHT = 1024;
+
+    /**
+     * Rough cost of one entry of a book or chapter content listing, in bytes.
+     */
+    private static final int LISTING_ENTRY_WEIGHT = 256;
+
+    private final Cache<Key, Entry<?>> cache;
+    private final long ttlNanos;
+    private final Set<String> cachedBaseUrls = ConcurrentHashMap.newKeySet();
+    private final Counter notModified;
+    private final Counter modified;
+
+    public SourceReadCache(CacheProperties properties, MeterRegistry meterRegistry) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        if (properties.isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .expireAfterWrite(properties.getTtl().plus(properties.getRetention()))
+                    .maximumWeight(properties.getMaxSize().toBytes())
+                    .weigher((Key key, Entry<?> entry) -> weigh(entry.value()))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "bookstack.source");
+        } else {
+            this.cache = null;
+        }
+        this.notModified = revalidations(meterRegistry, "not_modified");
+        this.modified = revalidations(meterRegistry, "modified");
+    }
+
+    /**
+     * Get an entity from the cache, loading it on a miss or revalidating it once it is stale.
+     *
+     * @param config The instance the entity is read from
+     * @param type The entity type
+     * @param id The entity ID
+     * @param loader Reads the entity from the instance, given the stale entry to revalidate or null
+     * @return The cached or freshly loaded entity
+     */
+    <T> T get(BookStackConfig config, String type, Long id, Function<Entry<T>, Entry<T>> loader) {
+        return get(config, type, id, null, loader);
+    }
+
+    /**
+     * Get an entity from the cache if the cached copy is at an expected version, otherwise load it.
+     * A copy at the expected version is served however old it is.
+     *
+     * @param config The instance the entity is read from
+     * @param type The entity type
+     * @param id The entity ID
+     * @param isCurrent Decides whether a cached copy is at the expected version, or null to go by age
+     * @param loader Reads the entity from the instance, given the stale entry to revalidate or null
+     * @return The cached or freshly loaded entity
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(BookStackConfig config, String type, Long id, Predicate<T> isCurrent, Function<Entry<T>, Entry<T>> loader) {
+        if (cache == null) {
+            return loader.apply(null).value();
+        }
+        Key key = new Key(config.getBaseUrl(), config.getTokenId(), type, id);
+        Entry<T> cached = (Entry<T>) cache.getIfPresent(key);
+        if (cached != null) {
+            if (isCurrent != null ? isCurrent.test(cached.value()) : !cached.isStale(ttlNanos)) {
+                return cached.value();
+            }
+            if (isCurrent != null) {
+                // A different version than expected has certainly changed, there is nothing to revalidate
+                cached = null;
+            }
+        }
+
+        // Loaded outside the cache's compute lock, so a slow request doesn't block reads of other entries
+        return store(key, cached, loader.apply(cached));
+    }
+
+    /**
+     * The non-blocking variant of {@link #get(BookStackConfig, String, Long, Predicate, Function)}.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Mono<T> getAsync(BookStackConfig config, String type, Long id, Predicate<T> isCurrent,
+                         Function<Entry<T>, Mono<Entry<T>>> loader) {
+        if (cache == null) {
+            return loader.apply(null).mapNotNull(Entry::value);
+        }
+        Key key = new Key(config.getBaseUrl(), config.getTokenId(), type, id);
+        Entry<T> cached = (Entry<T>) cache.getIfPresent(key);
+        if (cached != null) {
+            if (isCurrent != null ? isCurrent.test(cached.value()) : !cached.isStale(ttlNanos)) {
+                return Mono.just(cached.value());
+            }
+            if (isCurrent != null) {
+                cached = null;
+            }
+        }
+        Entry<T> stale = cached;
+        return loader.apply(stale).mapNotNull(loaded -> store(key, stale, loaded));
+    }
+
+    private <T> T store(Key key, Entry<T> stale, Entry<T> loaded) {
+        if (stale != null) {
+            (loaded.value() == stale.value() ? notModified : modified).increment();
+        }
+        if (loaded.value() != null) {
+            cachedBaseUrls.add(key.baseUrl());
+            cache.put(key, loaded);
+        }
+        return loaded.value();
+    }
+
+    /**
+     * Read an entity past the cache, dropping any cached copy since it is older than the result.
+     * The result is not cached, so the caller may modify it.
+     *
+     * @param config The instance the entity is read from
+     * @param type The entity type
+     * @param id The entity ID
+     * @param loader Reads the entity from the instance
+     * @return The freshly loaded entity
+     */
+    <T> T refresh(BookStackConfig config, String type, Long id, Function<Entry<T>, Entry<T>> loader) {
+        T loaded = loader.apply(null).value();
+        if (cache != null) {
+            cache.invalidate(new Key(config.getBaseUrl(), config.getTokenId(), type, id));
+        }
+        return loaded;
+    }
+
+    /**
+     * The non-blocking variant of {@link #refresh}.
+     */
+    <T> Mono<T> refreshAsync(BookStackConfig config, String type, Long id, Function<Entry<T>, Mono<Entry<T>>> loader) {
+        return loader.apply(null).mapNotNull(Entry::value).doOnSuccess(loaded -> {
+            if (cache != null) {
+                cache.invalidate(new Key(config.getBaseUrl(), config.getTokenId(), type, id));
+            }
+        });
+    }
+
+    /**
+     * Drop the cached reads affected by a write to an instance: the written entity itself and all
+     * books and chapters, whose content listings may include it.
+     *
+     * @param config The instance written to
+     * @param type The type of the written entity
+     * @param id The ID of the written entity, if known
+     */
+    void invalidate(BookStackConfig config, String type, Long id) {
+        // Writes normally go to a destination that is never read through the cache, so skip the scan
+        if (cache == null || !cachedBaseUrls.contains(config.getBaseUrl())) {
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> key.baseUrl().equals(config.getBaseUrl())
+                && (BOOK.equals(key.type()) || CHAPTER.equals(key.type())
+                || (key.type().equals(type) && Objects.equals(key.id(), id))));
+    }
+
+    private static Counter revalidations(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bookstack.source.cache.revalidations")
+                .description("Stale source cache entries revalidated, by whether they had changed")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static int weigh(Object value) {
+        long weight = BASE_WEIGHT;
+        if (value instanceof Page page) {
+            weight += 2L * (length(page.getHtml()) + length(page.getMarkdown()));
+        } else if (value instanceof Chapter chapter) {
+            weight += 2L * length(chapter.getDescriptionHtml())
+                    + (long) LISTING_ENTRY_WEIGHT * size(chapter.getPages());
+        } else if (value instanceof Book book) {
+            weight += 2L * length(book.getDescriptionHtml())
+                    + (long) LISTING_ENTRY_WEIGHT * size(book.getContents());
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static int size(Collection<?> values) {
+        return values != null ? values.size() : 0;
+    }
+
+    private record Key(String baseUrl, String tokenId, String type, Long id) {
+    }
+
+    /**
+     * A cached entity with the validators of the response it came from.
+     *
+     * @param value The entity
+     * @param etag The {@code ETag} response header, if any
+     * @param lastModified The {@code Last-Modified} response header, if any
+     * @param validatedAt When the entity was last fetched or confirmed unchanged, in {@link System#nanoTime()}
+     */
+    record Entry<T>(T value, String etag, String lastModified, long validatedAt) {
+
+        static <T> Entry<T> of(T value, String etag, String lastModified) {
+            return new Entry<>(value, etag, lastModified, System.nanoTime());
+        }
+
+        /**
+         * @return Whether the response carried validators for a conditional request
+         */
+        boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * @return This entry, confirmed unchanged just now
+         */
+        Entry<T> revalidated() {
+            return new Entry<>(value, etag, lastModified, System.nanoTime());
+        }
+
+        boolean isStale(long ttlNanos) {
+            return System.nanoTime() - validatedAt > ttlNanos;
+        }
+    }
+}
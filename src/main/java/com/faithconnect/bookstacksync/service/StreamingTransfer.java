@@ -0,0 +1,201 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.interceptor.RateLimitingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Copies files, such as book covers, from one instance into a multipart upload to another without holding them
+ * in memory or on disk: the download's response body is piped into the upload's request body through the fixed-size
+ * buffer of the part writer, so a transfer needs the same memory whatever the size of the file. Files that had to be
+ * spooled to disk first, such as attachments, are uploaded from there the same way.
+ *
+ * The {@link RestTemplate}'s interceptors receive request bodies as byte arrays, so these requests are sent straight
+ * through the request factory instead, sharing the rate limits of the {@link RateLimitingInterceptor}. Errors are
+ * raised by the {@link RestTemplate}'s error handler, as for any other call.
+ */
+@Component
+public class StreamingTransfer {
+
+    private final ClientHttpRequestFactory requestFactory;
+    private final ObjectProvider<RateLimitingInterceptor> rateLimiter;
+    private final RestTemplate restTemplate;
+    private final FormHttpMessageConverter formConverter = new AllEncompassingFormHttpMessageConverter();
+
+    public StreamingTransfer(ClientHttpRequestFactory bookStackRequestFactory,
+                             ObjectProvider<RateLimitingInterceptor> rateLimiter, RestTemplate restTemplate) {
+        this.requestFactory = bookStackRequestFactory;
+        this.rateLimiter = rateLimiter;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Start downloading a file. The caller reads the body, or passes the response to {@link #upload}, and
+     * must close it.
+     *
+     * @param url The URL of the file
+     * @param headers The request headers, such as credentials
+     * @return The successful response, with its body not yet read
+     */
+    public ClientHttpResponse download(String url, HttpHeaders headers) {
+        URI uri = URI.create(url);
+        try {
+            ClientHttpRequest request = requestFactory.createRequest(uri, HttpMethod.GET);
+            request.getHeaders().putAll(headers);
+            ClientHttpResponse response = execute(request);
+            try {
+                handleError(uri, HttpMethod.GET, response);
+                return response;
+            } catch (RuntimeException e) {
+                response.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + url + "\": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Upload a multipart form whose file part is streamed from a download.
+     *
+     * @param url The URL to post the form to
+     * @param headers The request headers, such as credentials
+     * @param fields The other fields of the form
+     * @param filePart The name of the file part
+     * @param file The download to stream into the file part, see {@link #download}
+     * @param filename The file name sent with the file part
+     * @param responseType The type of the response body
+     * @return The response body
+     */
+    public <T> T upload(String url, HttpHeaders headers, MultiValueMap<String, Object> fields, String filePart,
+                        ClientHttpResponse file, String filename, Class<T> responseType) {
+        try {
+            HttpHeaders partHeaders = new HttpHeaders();
+            MediaType contentType = file.getHeaders().getContentType();
+            partHeaders.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+            return post(url, headers, fields, filePart, new HttpEntity<>(
+                    new StreamedFile(file.getBody(), filename, file.getHeaders().getContentLength()), partHeaders), responseType);
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on POST request for \"" + url + "\": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Upload a multipart form whose file part is streamed from a local file.
+     *
+     * @param url The URL to post the form to
+     * @param headers The request headers, such as credentials
+     * @param fields The other fields of the form
+     * @param filePart The name of the file part
+     * @param file The file to stream into the file part
+     * @param filename The file name sent with the file part
+     * @param responseType The type of the response body
+     * @return The response body
+     */
+    public <T> T upload(String url, HttpHeaders headers, MultiValueMap<String, Object> fields, String filePart,
+                        Path file, String filename, Class<T> responseType) {
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        return post(url, headers, fields, filePart, new HttpEntity<>(new NamedFile(file, filename), partHeaders), responseType);
+    }
+
+    private <T> T post(String url, HttpHeaders headers, MultiValueMap<String, Object> fields, String filePart,
+                       HttpEntity<?> file, Class<T> responseType) {
+        URI uri = URI.create(url);
+        try {
+            MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>(fields);
+            parts.add(filePart, file);
+
+            ClientHttpRequest request = requestFactory.createRequest(uri, HttpMethod.POST);
+            request.getHeaders().putAll(headers);
+            // The request factory's requests accept a body writer, so the parts are written while the request is sent
+            formConverter.write(parts, MediaType.MULTIPART_FORM_DATA, request);
+
+            try (ClientHttpResponse response = execute(request)) {
+                handleError(uri, HttpMethod.POST, response);
+                return new HttpMessageConverterExtractor<>(responseType, restTemplate.getMessageConverters())
+                        .extractData(response);
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on POST request for \"" + url + "\": " + e.getMessage(), e);
+        }
+    }
+
+    private ClientHttpResponse execute(ClientHttpRequest request) throws IOException {
+        RateLimitingInterceptor limiter = rateLimiter.getIfAvailable();
+        return limiter != null ? limiter.execute(request) : request.execute();
+    }
+
+    private void handleError(URI uri, HttpMethod method, ClientHttpResponse response) throws IOException {
+        ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+        if (errorHandler.hasError(response)) {
+            errorHandler.handleError(uri, method, response);
+        }
+    }
+
+    /**
+     * A file part read from disk, sent under another name than the file's own.
+     */
+    private static class NamedFile extends FileSystemResource {
+
+        private final String filename;
+
+        NamedFile(Path file, String filename) {
+            super(file);
+            this.filename = filename;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+    }
+
+    /**
+     * A file part read once from a stream. Its length is passed on when the download reported one,
+     * and never determined by reading the stream.
+     */
+    private static class StreamedFile extends InputStreamResource {
+
+        private final String filename;
+        private final long contentLength;
+
+        StreamedFile(InputStream body, String filename, long contentLength) {
+            super(body);
+            this.filename = filename;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.model.Attachment;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Export;
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.model.Image;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.model.Shelf;
+import com.faithconnect.bookstacksync.sync.BookSyncEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link BookStackApiService} for callers that block, such as the controllers, when the non-blocking client is
+ * selected with {@code bookstack.http.client=reactive}. Every call is made by the {@link ReactiveBookStackApiService}
+ * and waited for, so both services share the same connections, rate limits and read cache.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "bookstack.http", name = "client", havingValue = "reactive")
+public class WebClientBookStackApiService implements BookStackApiService {
+
+    private final ReactiveBookStackApiService reactiveService;
+    private final ObjectProvider<BookSyncEngine> bookSyncEngine;
+
+    public WebClientBookStackApiService(ReactiveBookStackApiService reactiveService,
+                                        ObjectProvider<BookSyncEngine> bookSyncEngine) {
+        this.reactiveService = reactiveService;
+        this.bookSyncEngine = bookSyncEngine;
+    }
+
+    @Override
+    public List<Book> listBooks() {
+        return reactiveService.listBooks().collectList().block();
+    }
+
+    @Override
+    public Stream<Book> streamBooks() {
+        return reactiveService.listBooks().toStream();
+    }
+
+    @Override
+    public List<Book> listDestinationBooks() {
+        return reactiveService.listDestinationBooks().collectList().block();
+    }
+
+    @Override
+    public Stream<Book> streamDestinationBooks() {
+        return reactiveService.listDestinationBooks().toStream();
+    }
+
+    @Override
+    public Book getBook(Long id) {
+        return reactiveService.getBook(id).block();
+    }
+
+    @Override
+    public Book getBook(Long id, String updatedAt) {
+        return reactiveService.getBook(id, updatedAt).block();
+    }
+
+    @Override
+    public Book getBookSummary(Long id) {
+        return reactiveService.getBookSummary(id).block();
+    }
+
+    @Override
+    public Book getDestinationBook(Long id) {
+        return reactiveService.getDestinationBook(id).block();
+    }
+
+    @Override
+    public Book createBook(Book book) {
+        return reactiveService.createBook(book).block();
+    }
+
+    @Override
+    public Book updateBook(Long id, Book book) {
+        return reactiveService.updateBook(id, book).block();
+    }
+
+    @Override
+    public boolean deleteBook(Long id) {
+        return Boolean.TRUE.equals(reactiveService.deleteBook(id).block());
+    }
+
+    @Override
+    public boolean destroy() {
+        return Boolean.TRUE.equals(reactiveService.destroy().block());
+    }
+
+    @Override
+    public List<Chapter> listChapters(Long bookId) {
+        return reactiveService.listChapters(bookId).collectList().block();
+    }
+
+    @Override
+    public Stream<Chapter> streamChapters(Long bookId) {
+        return reactiveService.listChapters(bookId).toStream();
+    }
+
+    @Override
+    public Chapter getChapter(Long id) {
+        return reactiveService.getChapter(id).block();
+    }
+
+    @Override
+    public Chapter getChapter(Long id, String updatedAt) {
+        return reactiveService.getChapter(id, updatedAt).block();
+    }
+
+    @Override
+    public Chapter getChapterSummary(Long id) {
+        return reactiveService.getChapterSummary(id).block();
+    }
+
+    @Override
+    public Chapter createChapter(Chapter chapter) {
+        return reactiveService.createChapter(chapter).block();
+    }
+
+    @Override
+    public Chapter updateChapter(Long id, Chapter chapter) {
+        return reactiveService.updateChapter(id, chapter).block();
+    }
+
+    @Override
+    public boolean deleteChapter(Long id) {
+        return Boolean.TRUE.equals(reactiveService.deleteChapter(id).block());
+    }
+
+    @Override
+    public List<Page> listPages(Long bookId) {
+        return reactiveService.listPages(bookId).collectList().block();
+    }
+
+    @Override
+    public Stream<Page> streamPages(Long bookId) {
+        return reactiveService.listPages(bookId).toStream();
+    }
+
+    @Override
+    public List<Page> listChapterPages(Long chapterId) {
+        return reactiveService.listChapterPages(chapterId).collectList().block();
+    }
+
+    @Override
+    public Page getPage(Long id) {
+        return reactiveService.getPage(id).block();
+    }
+
+    @Override
+    public Page getPage(Long id, String updatedAt) {
+        return reactiveService.getPage(id, updatedAt).block();
+    }
+
+    @Override
+    public Page getPageSummary(Long id) {
+        return reactiveService.getPageSummary(id).block();
+    }
+
+    @Override
+    public Page getDestinationPage(Long id) {
+        return reactiveService.getDestinationPage(id).block();
+    }
+
+    @Override
+    public Page createPage(Page page) {
+        return reactiveService.createPage(page).block();
+    }
+
+    @Override
+    public Page updatePage(Long id, Page page) {
+        return reactiveService.updatePage(id, page).block();
+    }
+
+    @Override
+    public boolean deletePage(Long id) {
+        return Boolean.TRUE.equals(reactiveService.deletePage(id).block());
+    }
+
+    @Override
+    public List<Shelf> listShelves() {
+        return reactiveService.listShelves().collectList().block();
+    }
+
+    @Override
+    public Stream<Shelf> streamShelves() {
+        return reactiveService.listShelves().toStream();
+    }
+
+    @Override
+    public Shelf getShelf(Long id) {
+        return reactiveService.getShelf(id).block();
+    }
+
+    @Override
+    public Shelf getDestinationShelf(Long id) {
+        return reactiveService.getDestinationShelf(id).block();
+    }
+
+    @Override
+    public Shelf createShelf(Shelf shelf) {
+        return reactiveService.createShelf(shelf).block();
+    }
+
+    @Override
+    public Shelf updateShelf(Long id, Shelf shelf) {
+        return reactiveService.updateShelf(id, shelf).block();
+    }
+
+    @Override
+    public List<Attachment> listAttachments(Long pageId) {
+        return reactiveService.listAttachments(pageId).collectList().block();
+    }
+
+    @Override
+    public Stream<Attachment> streamAttachments() {
+        return reactiveService.listAttachments().toStream();
+    }
+
+    @Override
+    public Attachment getAttachment(Long id) {
+        return reactiveService.getAttachment(id).block();
+    }
+
+    @Override
+    public Attachment downloadAttachment(Long id, OutputStream file) {
+        return reactiveService.downloadAttachment(id, file).block();
+    }
+
+    @Override
+    public Attachment createAttachment(Attachment attachment, Path file) {
+        return reactiveService.createAttachment(attachment, file).block();
+    }
+
+    @Override
+    public Attachment updateAttachment(Long id, Attachment attachment, Path file) {
+        return reactiveService.updateAttachment(id, attachment, file).block();
+    }
+
+    @Override
+    public boolean deleteAttachment(Long id) {
+        return Boolean.TRUE.equals(reactiveService.deleteAttachment(id).block());
+    }
+
+    @Override
+    public Image createImage(Image image) {
+        return reactiveService.createImage(image).block();
+    }
+
+    @Override
+    public Export exportBook(Long id, ExportFormat format) {
+        return export("book", id, format, reactiveService.exportBook(id, format).block());
+    }
+
+    @Override
+    public Export exportChapter(Long id, ExportFormat format) {
+        return export("chapter", id, format, reactiveService.exportChapter(id, format).block());
+    }
+
+    @Override
+    public Export exportPage(Long id, ExportFormat format) {
+        return export("page", id, format, reactiveService.exportPage(id, format).block());
+    }
+
+    /**
+     * Read the body of an export a few buffers at a time as the caller reads the stream; closing the export cancels
+     * the rest of the download.
+     */
+    private static Export export(String kind, Long id, ExportFormat format, ResponseEntity<Flux<DataBuffer>> response) {
+        Stream<DataBuffer> buffers = response.getBody().toStream(4);
+        return BookStackApiServiceImpl.export(kind, id, format, response.getHeaders(),
+                ReactiveBookStackApiServiceImpl.inputStream(buffers), buffers::close);
+    }
+
+    @Override
+    public boolean verifyCredentials() {
+        return Boolean.TRUE.equals(reactiveService.verifyCredentials().block());
+    }
+
+    @Override
+    public boolean verifyDestinationCredentials() {
+        return Boolean.TRUE.equals(reactiveService.verifyDestinationCredentials().block());
+    }
+
+    @Override
+    public void syncBook(Long sourceBookId) {
+        try {
+            // Already on a thread that may block, so the engine runs right here
+            bookSyncEngine.getObject().syncBook(sourceBookId);
+        } catch (Exception e) {
+            log.error("Error syncing book: {}", e.getMessage(), e);
+            throw new BookStackApiServiceImpl.BookStackApiException("Failed to sync book: " + e.getMessage(), e);
+        }
+    }
+}
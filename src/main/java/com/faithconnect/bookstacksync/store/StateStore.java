@@ -0,0 +1,465 @@
+package com.faithconnect.bookstacksync.store;
+
+import com.faithconnect.bookstacksync.config.SyncProperties;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store for local sync state, kept in a single append-only log file under
+ * {@code bookstack.sync.stateDir}. Values are stored as JSON.
+ *
+ * All live entries are held in a sorted in-memory index, so reads and prefix scans never touch the disk.
+ * Writes update the index straight away and are appended to the log in batches by a background flusher,
+ * so a burst of small writes costs one {@code write} and one {@code fsync}. A crash loses at most the writes
+ * of the last flush interval. A batch that fails to write stays pending, ahead of later writes, and is written
+ * again by the next flush.
+ *
+ * Every record carries a CRC32. On startup the log is replayed up to the first torn or corrupt record and
+ * truncated there, and once it holds mostly overwritten entries it is compacted into a fresh file.
+ *
+ * Keys are namespaced by a prefix, such as {@code mapping/}, {@code job/} or {@code cursor/}.
+ */
+@Slf4j
+@Component
+public class StateStore {
+
+    private static final String LOG_FILE = "state.log";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    /**
+     * Record header: payload length and payload CRC32.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Upper bound on a single record, guarding replay against a corrupt length field.
+     */
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Pending writes beyond this size are flushed by the writer rather than waiting for the flusher.
+     */
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final long compactionMinBytes;
+    private final ConcurrentNavigableMap<String, byte[]> index = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Guards the index and the pending batch; held only briefly by writers.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Guards the log file; held while a batch is written and synced, without blocking writers.
+     */
+    private final Object flushLock = new Object();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long pendingBytes;
+    private long logBytes;
+    private long liveBytes;
+    private FileChannel channel;
+
+    public StateStore(SyncProperties properties, ObjectMapper objectMapper) {
+        this.file = Path.of(properties.getStateDir(), LOG_FILE);
+        this.objectMapper = objectMapper;
+        this.compactionMinBytes = properties.getStateCompactionMinSize().toBytes();
+
+        try {
+            Files.createDirectories(file.getParent());
+            recover();
+            channel = openLog();
+        } catch (IOException e) {
+            throw new BookStackApiException("Failed to open state store " + file, e);
+        }
+        compactIfNeeded();
+
+        long interval = Math.max(properties.getStateFlushInterval().toMillis(), 1);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("state-flush-"));
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Opened state store {} with {} entries", file, index.size());
+    }
+
+    /**
+     * Read a value.
+     *
+     * @param key The key of the value
+     * @param type The type to read the JSON value as
+     * @return The value, if present
+     */
+    public <T> Optional<T> get(String key, Class<T> type) {
+        byte[] value = index.get(key);
+        return value != null ? Optional.of(read(key, value, type)) : Optional.empty();
+    }
+
+    /**
+     * Read all values whose keys start with a prefix.
+     *
+     * @param prefix The key prefix
+     * @param type The type to read the JSON values as
+     * @return The values keyed by their full key, in key order
+     */
+    public <T> Map<String, T> scan(String prefix, Class<T> type) {
+        Map<String, T> values = new LinkedHashMap<>();
+        prefixRange(prefix).forEach((key, value) -> values.put(key, read(key, value, type)));
+        return values;
+    }
+
+    /**
+     * List the keys that start with a prefix, without reading their values.
+     *
+     * @param prefix The key prefix
+     * @return The keys, in key order
+     */
+    public List<String> keys(String prefix) {
+        return new ArrayList<>(prefixRange(prefix).keySet());
+    }
+
+    /**
+     * Store a value, replacing any earlier value of the key. The value is readable straight away and
+     * written to disk with the next batch.
+     *
+     * @param key The key of the value
+     * @param value The value, serialized as JSON
+     */
+    public void put(String key, Object value) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new BookStackApiException("Failed to serialize state entry " + key, e);
+        }
+
+        boolean batchFull;
+        synchronized (writeLock) {
+            byte[] previous = index.put(key, bytes);
+            if (previous != null) {
+                liveBytes -= recordSize(key, previous);
+            }
+            liveBytes += recordSize(key, bytes);
+            batchFull = append(encode(OP_PUT, key, bytes));
+        }
+        if (batchFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Remove a value.
+     *
+     * @param key The key of the value
+     */
+    public void delete(String key) {
+        boolean batchFull = false;
+        synchronized (writeLock) {
+            byte[] previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= recordSize(key, previous);
+                batchFull = append(encode(OP_DELETE, key, new byte[0]));
+            }
+        }
+        if (batchFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Remove all values whose keys start with a prefix.
+     *
+     * @param prefix The key prefix
+     */
+    public void deletePrefix(String prefix) {
+        for (String key : new ArrayList<>(prefixRange(prefix).keySet())) {
+            delete(key);
+        }
+    }
+
+    /**
+     * Write all pending changes to disk and wait until they are durable.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<ByteBuffer> batch;
+            long batchBytes;
+            synchronized (writeLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchBytes = pendingBytes;
+                pending = new ArrayList<>();
+                pendingBytes = 0;
+            }
+
+            try {
+                if (channel.size() > logBytes) {
+                    // Left over from a failed write; later records must not land after a torn one
+                    channel.truncate(logBytes);
+                }
+                channel.position(logBytes);
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = batchBytes;
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+                channel.force(false);
+                logBytes += batchBytes;
+            } catch (IOException e) {
+                requeue(batch, batchBytes, e);
+                throw new BookStackApiException("Failed to write state store " + file, e);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdownNow();
+        try {
+            flush();
+        } finally {
+            synchronized (flushLock) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close state store {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush state store: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Put a batch that could not be written back at the head of the pending batch, and cut off whatever part
+     * of it reached the log, so the next flush writes it again in order.
+     */
+    private void requeue(List<ByteBuffer> batch, long batchBytes, IOException failure) {
+        try {
+            channel.truncate(logBytes);
+            channel.position(logBytes);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+        batch.forEach(ByteBuffer::rewind);
+        synchronized (writeLock) {
+            batch.addAll(pending);
+            pending = batch;
+            pendingBytes += batchBytes;
+        }
+    }
+
+    /**
+     * Add a record to the pending batch.
+     *
+     * @return Whether the batch has grown large enough to be flushed right away
+     */
+    private boolean append(ByteBuffer record) {
+        pending.add(record);
+        pendingBytes += record.remaining();
+        return pendingBytes >= MAX_PENDING_BYTES;
+    }
+
+    private ConcurrentNavigableMap<String, byte[]> prefixRange(String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private <T> T read(String key, byte[] value, Class<T> type) {
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (IOException e) {
+            throw new BookStackApiException("Failed to read state entry " + key, e);
+        }
+    }
+
+    /**
+     * Rebuild the index from the log, stopping at the first incomplete or corrupt record.
+     */
+    private void recover() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long size = Files.size(file);
+        long position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            DataInputStream data = new DataInputStream(in);
+            CRC32 crc = new CRC32();
+            while (position + HEADER_SIZE <= size) {
+                int length = data.readInt();
+                int checksum = data.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                data.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload));
+                position += HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            // Torn final record, the valid prefix ends at the current position
+        }
+
+        logBytes = position;
+        if (position < size) {
+            log.warn("State store {} has {} bytes of incomplete or corrupt data after offset {}, discarding them",
+                    file, size - position, position);
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(position);
+                truncate.force(true);
+            }
+        }
+    }
+
+    private void apply(ByteBuffer payload) {
+        byte op = payload.get();
+        byte[] keyBytes = new byte[payload.getInt()];
+        payload.get(keyBytes);
+        String key = new String(keyBytes, StandardCharsets.UTF_8);
+        byte[] value = new byte[payload.remaining()];
+        payload.get(value);
+
+        byte[] previous = op == OP_PUT ? index.put(key, value) : index.remove(key);
+        if (previous != null) {
+            liveBytes -= recordSize(key, previous);
+        }
+        if (op == OP_PUT) {
+            liveBytes += recordSize(key, value);
+        }
+    }
+
+    /**
+     * Rewrite the log with only the live entries once overwritten and deleted entries make up most of it.
+     *
+     * The entries are copied under the writer lock, but written and synced without it, so writers are not held
+     * up by the rewrite. Records pending at the copy are reflected in it and dropped once the compacted file has
+     * replaced the log; records added since stay pending. If the rewrite fails, the log is left as it was.
+     */
+    private void compactIfNeeded() {
+        synchronized (flushLock) {
+            List<Map.Entry<String, byte[]>> entries;
+            int snapshotRecords;
+            long snapshotBytes;
+            synchronized (writeLock) {
+                if (logBytes < compactionMinBytes || logBytes < liveBytes * 2) {
+                    return;
+                }
+                entries = new ArrayList<>(index.entrySet());
+                snapshotRecords = pending.size();
+                snapshotBytes = pendingBytes;
+            }
+
+            Path tempFile = file.resolveSibling(LOG_FILE + ".compact");
+            long compactedBytes = 0;
+            try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, byte[]> entry : entries) {
+                    ByteBuffer record = encode(OP_PUT, entry.getKey(), entry.getValue());
+                    compactedBytes += record.remaining();
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+                out.force(true);
+            } catch (IOException e) {
+                log.warn("Failed to compact state store {}: {}", file, e.getMessage());
+                deleteQuietly(tempFile);
+                return;
+            }
+
+            try {
+                // Closed first, as an open file can't be replaced on every platform
+                channel.close();
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    log.warn("Failed to replace state store {} with its compacted copy: {}", file, e.getMessage());
+                    deleteQuietly(tempFile);
+                    channel = openLog();
+                    return;
+                }
+                channel = openLog();
+            } catch (IOException e) {
+                throw new BookStackApiException("Failed to reopen state store " + file, e);
+            }
+            log.info("Compacted state store {} from {} to {} bytes", file, logBytes + snapshotBytes, compactedBytes);
+            logBytes = compactedBytes;
+            synchronized (writeLock) {
+                pending = new ArrayList<>(pending.subList(snapshotRecords, pending.size()));
+                pendingBytes -= snapshotBytes;
+            }
+        }
+    }
+
+    private FileChannel openLog() throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static ByteBuffer encode(byte op, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + keyBytes.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.position(HEADER_SIZE);
+        record.put(op).putInt(keyBytes.length).put(keyBytes).put(value);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static long recordSize(String key, byte[] value) {
+        return HEADER_SIZE + 1 + 4 + key.getBytes(StandardCharsets.UTF_8).length + value.length;
+    }
+}
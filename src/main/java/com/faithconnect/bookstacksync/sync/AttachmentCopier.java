@@ -0,0 +1,231 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.Attachment;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Copies the attachments of a synced book's pages, once the pages themselves have been copied.
+ *
+ * The attachments of the book are found in a single pass over the source attachment listing, rather than with
+ * a listing per page. Links are copied as links. Files are streamed from the source download, which carries them
+ * base64 encoded inside the JSON, into a temporary file and from there into the upload, so a file of any size is
+ * copied with constant memory; the {@code transfer} executor of {@link SyncExecutors} bounds how many files are on
+ * disk and in flight at a time.
+ *
+ * Every copy is recorded in the {@link BookMapping}. An attachment whose {@code updated_at} did not move is skipped
+ * without being read; one that moved but whose name, size and SHA-256 still match the copy is not written again.
+ * Copies of attachments removed from the source are deleted, except those that went with their deleted page.
+ */
+@Slf4j
+@Component
+public class AttachmentCopier {
+
+    private final BookStackApiService bookStackApiService;
+    private final SyncExecutors executors;
+    private final SyncMappingStore mappingStore;
+
+    public AttachmentCopier(BookStackApiService bookStackApiService, SyncExecutors executors, SyncMappingStore mappingStore) {
+        this.bookStackApiService = bookStackApiService;
+        this.executors = executors;
+        this.mappingStore = mappingStore;
+    }
+
+    /**
+     * Copy the attachments of every page in the mapping, and delete the copies of those removed from the source.
+     * Runs under the context of the calling thread, which it hands on to the transfers it fans out.
+     *
+     * @param mapping The mapping of the book, with all its pages copied
+     * @param listener Receives an event for every attachment copied or skipped
+     */
+    public void copyAttachments(BookMapping mapping, SyncProgressListener listener) {
+        SyncContext context = SyncContext.current();
+        Map<Long, Long> destinationPageIds = new HashMap<>();
+        mapping.getPages().forEach((sourceId, entry) -> destinationPageIds.put(sourceId, entry.getDestinationId()));
+        Set<Long> livePageIds = new HashSet<>(destinationPageIds.values());
+
+        Set<Long> seen = new HashSet<>();
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        try (Stream<Attachment> attachments = bookStackApiService.streamAttachments()) {
+            attachments.filter(attachment -> destinationPageIds.containsKey(attachment.getUploadedTo()))
+                    .forEach(attachment -> {
+                        seen.add(attachment.getId());
+                        Long destinationPageId = destinationPageIds.get(attachment.getUploadedTo());
+                        AttachmentMapping existing = mapping.getAttachments().get(attachment.getId());
+                        if (existing != null && Objects.equals(existing.getUpdatedAt(), attachment.getUpdatedAt())
+                                && destinationPageId.equals(existing.getDestinationPageId())) {
+                            listener.onAttachmentSkipped();
+                            return;
+                        }
+                        // A copy attached to a page that was since deleted went with it
+                        AttachmentMapping current = existing != null
+                                && livePageIds.contains(existing.getDestinationPageId()) ? existing : null;
+                        tasks.add(CompletableFuture.runAsync(() -> context.run(
+                                () -> copyAttachment(mapping, attachment, destinationPageId, current, listener)),
+                                executors.transfer()));
+                    });
+        }
+        await(tasks);
+
+        for (Map.Entry<Long, AttachmentMapping> entry : mapping.getAttachments().entrySet()) {
+            if (seen.contains(entry.getKey())) {
+                continue;
+            }
+            AttachmentMapping removed = entry.getValue();
+            if (livePageIds.contains(removed.getDestinationPageId())) {
+                log.debug("Deleting attachment {} removed from the source", removed.getDestinationId());
+                try {
+                    bookStackApiService.deleteAttachment(removed.getDestinationId());
+                } catch (BookStackApiException e) {
+                    log.warn("Failed to delete attachment {} removed from the source: {}", removed.getDestinationId(),
+                            e.getMessage());
+                }
+            }
+            mappingStore.removeAttachment(mapping, entry.getKey());
+        }
+    }
+
+    private void copyAttachment(BookMapping mapping, Attachment source, Long destinationPageId,
+                                AttachmentMapping existing, SyncProgressListener listener) {
+        Attachment copy = new Attachment();
+        copy.setName(source.getName());
+        copy.setExtension(source.getExtension());
+        copy.setUploadedTo(destinationPageId);
+
+        if (Boolean.TRUE.equals(source.getExternal())) {
+            String link = bookStackApiService.getAttachment(source.getId()).getContent();
+            copy.setLink(link);
+            String hash = hash(link);
+            write(mapping, source, copy, null, new AttachmentMapping(null, source.getUpdatedAt(), destinationPageId,
+                    source.getName(), null, hash), existing, listener);
+            return;
+        }
+
+        Path file = null;
+        try {
+            file = Files.createTempFile("bookstack-attachment-", ".tmp");
+            MessageDigest digest = newDigest();
+            long size;
+            try (OutputStream out = Files.newOutputStream(file);
+                 CountingOutputStream counted = new CountingOutputStream(new DigestOutputStream(out, digest))) {
+                bookStackApiService.downloadAttachment(source.getId(), counted);
+                counted.flush();
+                size = counted.count;
+            }
+            write(mapping, source, copy, file, new AttachmentMapping(null, source.getUpdatedAt(), destinationPageId,
+                    source.getName(), size, HexFormat.of().formatHex(digest.digest())), existing, listener);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spool attachment " + source.getId(), e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Failed to delete temporary file {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Create or update the copy, unless the existing copy already has the same page, name and content.
+     */
+    private void write(BookMapping mapping, Attachment source, Attachment copy, Path file, AttachmentMapping entry,
+                       AttachmentMapping existing, SyncProgressListener listener) {
+        if (existing != null && Objects.equals(existing.getDestinationPageId(), entry.getDestinationPageId())
+                && Objects.equals(existing.getName(), entry.getName())
+                && Objects.equals(existing.getSize(), entry.getSize())
+                && Objects.equals(existing.getContentHash(), entry.getContentHash())) {
+            // Only updated_at moved; writing it again would only cost another upload
+            entry.setDestinationId(existing.getDestinationId());
+            mappingStore.putAttachment(mapping, source.getId(), entry);
+            listener.onAttachmentSkipped();
+            return;
+        }
+
+        Attachment written = existing != null
+                ? bookStackApiService.updateAttachment(existing.getDestinationId(), copy, file)
+                : bookStackApiService.createAttachment(copy, file);
+        entry.setDestinationId(existing != null ? existing.getDestinationId() : written.getId());
+        mappingStore.putAttachment(mapping, source.getId(), entry);
+        listener.onAttachmentCopied();
+    }
+
+    private void await(List<CompletableFuture<?>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BookStackApiException("Attachment sync was interrupted", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BookStackApiException("Failed to sync attachments: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static String hash(String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0]));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counts the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Links a source attachment to its copy in the destination, together with the source state that was copied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentMapping {
+    private Long destinationId;
+
+    /**
+     * The source {@code updated_at} at the time of the copy.
+     */
+    private String updatedAt;
+
+    /**
+     * The destination page the copy is attached to.
+     */
+    private Long destinationPageId;
+
+    /**
+     * The name the copy was written with.
+     */
+    private String name;
+
+    /**
+     * The size in bytes of the copied file, or null for links.
+     */
+    private Long size;
+
+    /**
+     * SHA-256 of the copied file, or of the URL of a link.
+     */
+    private String contentHash;
+}
@@ -0,0 +1,57 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Links a source book, and the chapters, pages and attachments inside it, to its copy in the destination.
+ * Entries are added concurrently by the sync engine's worker threads.
+ */
+@Data
+public class BookMapping {
+    private String sourceBaseUrl;
+    private String destinationBaseUrl;
+    private Long sourceBookId;
+    private Long destinationBookId;
+
+    /**
+     * The source book {@code updated_at} at the time of the copy.
+     */
+    private String updatedAt;
+
+    /**
+     * The slugs of the source book and of its copy, see {@link EntityMapping#getSourceSlug()}.
+     */
+    private String sourceSlug;
+    private String destinationSlug;
+
+    /**
+     * Chapter mappings keyed by source chapter ID. Stored as separate entries, see {@link SyncMappingStore}.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private ConcurrentMap<Long, EntityMapping> chapters = new ConcurrentHashMap<>();
+
+    /**
+     * Page mappings keyed by source page ID. Stored as separate entries, see {@link SyncMappingStore}.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private ConcurrentMap<Long, EntityMapping> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Attachment mappings keyed by source attachment ID. Stored as separate entries, see {@link SyncMappingStore}.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private ConcurrentMap<Long, AttachmentMapping> attachments = new ConcurrentHashMap<>();
+
+    public static BookMapping create(String sourceBaseUrl, String destinationBaseUrl, Long sourceBookId, Long destinationBookId) {
+        BookMapping mapping = new BookMapping();
+        mapping.setSourceBaseUrl(sourceBaseUrl);
+        mapping.setDestinationBaseUrl(destinationBaseUrl);
+        mapping.setSourceBookId(sourceBookId);
+        mapping.setDestinationBookId(destinationBookId);
+        return mapping;
+    }
+}
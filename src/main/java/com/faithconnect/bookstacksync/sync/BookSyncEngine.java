@@ -0,0 +1,562 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.config.SyncProperties;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import com.faithconnect.bookstacksync.service.ReactiveBookStackApiService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Copies a book from the source instance to the destination instance.
+ *
+ * Source reads and destination writes are fanned out on the bounded pools of {@link SyncExecutors}:
+ * all source pages are fetched concurrently, each chapter is created as soon as it has been read, and
+ * the pages of a chapter are created once their chapter exists. Order in the destination is carried by
+ * the {@code priority} of each chapter and page rather than by the order of the create calls. With the reactive
+ * client the reads and writes are made through the {@link ReactiveBookStackApiService} under the same limits,
+ * so any number of pages can be in flight without holding a thread each.
+ *
+ * Every copy is recorded in a {@link BookMapping}. In {@link SyncMode#INCREMENTAL} mode the mapping of the
+ * previous sync is used to update the existing copy: unchanged items are skipped without being read,
+ * changed ones are updated in place and items removed from the source are deleted. A page whose
+ * {@code updated_at} moved but whose content hash still matches the copy is not rewritten.
+ *
+ * Since every chapter and page is recorded in the mapping as soon as it is copied, a failed sync can be resumed
+ * with {@link #resumeBook}: it picks up the mapping of the failed run and only copies what that run did not finish.
+ *
+ * Images hosted on the source are copied into the destination gallery by the {@link PageImageMigrator} as the
+ * pages showing them are written, and the pages point at the copies.
+ *
+ * Once the pages are copied, the links between them are pointed at the copies by the {@link LinkRewriter}, and
+ * their attachments are copied by the {@link AttachmentCopier}.
+ *
+ * A sync runs under the {@link SyncContext} it is given, and hands it on to every read and write it fans out,
+ * so syncs with different credentials can run side by side.
+ */
+@Slf4j
+@Component
+public class BookSyncEngine {
+
+    private final BookStackApiService bookStackApiService;
+    private final ObjectProvider<ReactiveBookStackApiService> reactiveApiService;
+    private final SyncExecutors executors;
+    private final SyncMappingStore mappingStore;
+    private final AttachmentCopier attachmentCopier;
+    private final PageImageMigrator imageMigrator;
+    private final LinkRewriter linkRewriter;
+    private final SyncProperties properties;
+    private final BookStackConfig defaultSourceConfig;
+    private final BookStackConfig defaultDestinationConfig;
+
+    public BookSyncEngine(BookStackApiService bookStackApiService, ObjectProvider<ReactiveBookStackApiService> reactiveApiService,
+                          SyncExecutors executors, SyncMappingStore mappingStore, AttachmentCopier attachmentCopier,
+                          PageImageMigrator imageMigrator, LinkRewriter linkRewriter, SyncProperties properties,
+                          BookStackConfig sourceConfig, BookStackConfig destinationConfig) {
+        this.bookStackApiService = bookStackApiService;
+        this.reactiveApiService = reactiveApiService;
+        this.executors = executors;
+        this.mappingStore = mappingStore;
+        this.attachmentCopier = attachmentCopier;
+        this.imageMigrator = imageMigrator;
+        this.linkRewriter = linkRewriter;
+        this.properties = properties;
+        this.defaultSourceConfig = sourceConfig;
+        this.defaultDestinationConfig = destinationConfig;
+    }
+
+    /**
+     * Copy a book, with all its chapters and pages, from the source to the destination
+     * using the configured default sync mode.
+     *
+     * @param sourceBookId The ID of the book in the source instance
+     * @return The ID of the book in the destination instance
+     */
+    public Long syncBook(Long sourceBookId) {
+        return syncBook(SyncContext.current(), sourceBookId);
+    }
+
+    /**
+     * Copy a book, with all its chapters and pages, from the source to the destination
+     * using the configured default sync mode.
+     *
+     * @param context The credentials and request to sync for
+     * @param sourceBookId The ID of the book in the source instance
+     * @return The ID of the book in the destination instance
+     */
+    public Long syncBook(SyncContext context, Long sourceBookId) {
+        return syncBook(context, sourceBookId, properties.getMode(), SyncProgressListener.NONE);
+    }
+
+    /**
+     * Copy a book, with all its chapters and pages, from the source to the destination.
+     *
+     * @param context The credentials and request to sync for
+     * @param sourceBookId The ID of the book in the source instance
+     * @param mode Whether to make a new copy or update the copy made by an earlier sync
+     * @param listener Receives progress events while the book is copied
+     * @return The ID of the book in the destination instance
+     */
+    public Long syncBook(SyncContext context, Long sourceBookId, SyncMode mode, SyncProgressListener listener) {
+        return context.call(() -> {
+            log.info("Starting {} book sync process...", mode.name().toLowerCase());
+            return syncBook(context, sourceBookId, mode, null, listener);
+        });
+    }
+
+    /**
+     * Carry on with a sync that failed part way, keeping everything it copied.
+     *
+     * @param context The credentials and request to sync for
+     * @param sourceBookId The ID of the book in the source instance
+     * @param destinationBookId The ID of the copy the failed sync was writing to
+     * @param listener Receives progress events while the book is copied
+     * @return The ID of the book in the destination instance
+     * @throws BookStackApiException if the copy no longer exists or a later sync has replaced it
+     */
+    public Long resumeBook(SyncContext context, Long sourceBookId, Long destinationBookId, SyncProgressListener listener) {
+        return context.call(() -> {
+            log.info("Resuming sync of book {} into destination book {}...", sourceBookId, destinationBookId);
+            return syncBook(context, sourceBookId, SyncMode.INCREMENTAL, destinationBookId, listener);
+        });
+    }
+
+    /**
+     * Check whether the credentials of a context point at the instances a checkpoint was saved for.
+     */
+    public boolean isSameInstances(SyncContext context, SyncCheckpoint checkpoint) {
+        return context.sourceOr(defaultSourceConfig).getBaseUrl().equals(checkpoint.getSourceBaseUrl())
+                && context.destinationOr(defaultDestinationConfig).getBaseUrl().equals(checkpoint.getDestinationBaseUrl());
+    }
+
+    /**
+     * Runs under the context it is given, which it hands on to the tasks it fans out.
+     */
+    private Long syncBook(SyncContext context, Long sourceBookId, SyncMode mode, Long resumeDestinationBookId,
+                          SyncProgressListener listener) {
+        listener.onPhase(SyncPhase.VERIFYING);
+        bookStackApiService.verifyCredentials();
+        bookStackApiService.verifyDestinationCredentials();
+
+        listener.onPhase(SyncPhase.READING);
+        // The book listing carries the updated_at of every chapter and page, so it must never come from the cache
+        Book sourceBook = bookStackApiService.getBook(sourceBookId, null);
+        List<Book.Content> contents = sourceBook.getContents() != null ? sourceBook.getContents() : Collections.emptyList();
+        listener.onPagesDiscovered(countKnownPages(contents));
+
+        String sourceBaseUrl = context.sourceOr(defaultSourceConfig).getBaseUrl();
+        String destinationBaseUrl = context.destinationOr(defaultDestinationConfig).getBaseUrl();
+        BookMapping mapping = mode == SyncMode.INCREMENTAL
+                ? loadMapping(sourceBaseUrl, destinationBaseUrl, sourceBookId)
+                : null;
+        if (resumeDestinationBookId != null
+                && (mapping == null || !resumeDestinationBookId.equals(mapping.getDestinationBookId()))) {
+            throw new BookStackApiException("Cannot resume the sync of book " + sourceBookId + ": destination book "
+                    + resumeDestinationBookId + " no longer exists or was replaced by a later sync");
+        }
+
+        listener.onPhase(SyncPhase.COPYING);
+        if (mapping == null) {
+            log.info("Creating book in destination... " + sourceBook.getName());
+            Book destBook = bookStackApiService.createBook(createBookCopy(sourceBook));
+            mapping = BookMapping.create(sourceBaseUrl, destinationBaseUrl, sourceBookId, destBook.getId());
+            mapping.setUpdatedAt(sourceBook.getUpdatedAt());
+            mapping.setSourceSlug(sourceBook.getSlug());
+            mapping.setDestinationSlug(destBook.getSlug());
+            mappingStore.replace(mapping);
+        } else if (!Objects.equals(mapping.getUpdatedAt(), sourceBook.getUpdatedAt())) {
+            log.info("Updating book in destination... " + sourceBook.getName());
+            Book destBook = bookStackApiService.updateBook(mapping.getDestinationBookId(), createBookCopy(sourceBook));
+            mapping.setDestinationSlug(destBook.getSlug());
+        }
+        mapping.setUpdatedAt(sourceBook.getUpdatedAt());
+        mapping.setSourceSlug(sourceBook.getSlug());
+        listener.onDestinationBook(mapping);
+
+        SyncRun run = new SyncRun(context, mapping, listener);
+        try {
+            List<CompletableFuture<?>> tasks = new ArrayList<>();
+            for (int position = 0; position < contents.size(); position++) {
+                Book.Content content = contents.get(position);
+                if ("chapter".equals(content.getType())) {
+                    tasks.add(copyChapter(run, content, position));
+                } else if ("page".equals(content.getType())) {
+                    tasks.add(copyPage(run, content.getId(), content.getUpdatedAt(), content.getPriority(), null,
+                            CompletableFuture.completedFuture(null), position));
+                }
+            }
+            await(tasks);
+            removeDeleted(run);
+
+            listener.onPhase(SyncPhase.LINKS);
+            linkRewriter.relinkBook(mapping, listener);
+
+            listener.onPhase(SyncPhase.ATTACHMENTS);
+            attachmentCopier.copyAttachments(mapping, listener);
+        } finally {
+            // Chapters and pages are recorded as they are copied, so a failed sync keeps the mappings of the items
+            // it finished and the next incremental sync doesn't copy them again
+            mappingStore.save(mapping);
+        }
+
+        log.info("Book sync completed successfully");
+        return mapping.getDestinationBookId();
+    }
+
+    /**
+     * Load the mapping of an earlier sync and drop the entries whose copies no longer exist in the destination.
+     *
+     * @return The mapping, or null if the book has not been synced before or its copy was deleted
+     */
+    private BookMapping loadMapping(String sourceBaseUrl, String destinationBaseUrl, Long sourceBookId) {
+        BookMapping mapping = mappingStore.find(sourceBaseUrl, destinationBaseUrl, sourceBookId).orElse(null);
+        if (mapping == null) {
+            log.info("No earlier sync of book {} found, making a full copy", sourceBookId);
+            return null;
+        }
+
+        Book destBook = bookStackApiService.getDestinationBook(mapping.getDestinationBookId());
+        if (destBook == null) {
+            log.info("Destination book {} no longer exists, making a full copy", mapping.getDestinationBookId());
+            return null;
+        }
+
+        Set<Long> destChapterIds = new HashSet<>();
+        Set<Long> destPageIds = new HashSet<>();
+        if (destBook.getContents() != null) {
+            for (Book.Content content : destBook.getContents()) {
+                if ("chapter".equals(content.getType())) {
+                    destChapterIds.add(content.getId());
+                    if (content.getPages() != null) {
+                        content.getPages().forEach(page -> destPageIds.add(page.getId()));
+                    }
+                } else if ("page".equals(content.getType())) {
+                    destPageIds.add(content.getId());
+                }
+            }
+        }
+        mapping.getChapters().forEach((sourceId, entry) -> {
+            if (!destChapterIds.contains(entry.getDestinationId())) {
+                mappingStore.removeChapter(mapping, sourceId);
+            }
+        });
+        mapping.getPages().forEach((sourceId, entry) -> {
+            if (!destPageIds.contains(entry.getDestinationId())) {
+                mappingStore.removePage(mapping, sourceId);
+            }
+        });
+        return mapping;
+    }
+
+    /**
+     * Count the pages listed in the book contents; chapters without a page listing are counted once read.
+     */
+    private int countKnownPages(List<Book.Content> contents) {
+        int count = 0;
+        for (Book.Content content : contents) {
+            if ("page".equals(content.getType())) {
+                count++;
+            } else if ("chapter".equals(content.getType()) && content.getPages() != null) {
+                count += content.getPages().size();
+            }
+        }
+        return count;
+    }
+
+    private CompletableFuture<Void> copyChapter(SyncRun run, Book.Content content, int position) {
+        Long sourceChapterId = content.getId();
+        run.seenChapters.add(sourceChapterId);
+        Integer priority = content.getPriority() != null ? content.getPriority() : position;
+        EntityMapping existing = run.mapping.getChapters().get(sourceChapterId);
+
+        CompletableFuture<Chapter> sourceChapter = null;
+        CompletableFuture<Long> destChapterId;
+        if (existing != null && existing.isCurrent(content.getUpdatedAt(), priority, null)) {
+            destChapterId = CompletableFuture.completedFuture(existing.getDestinationId());
+        } else {
+            sourceChapter = readChapter(run, sourceChapterId, content.getUpdatedAt());
+            destChapterId = sourceChapter.thenCompose(chapter -> {
+                Chapter copy = createChapterCopy(chapter, run.mapping.getDestinationBookId(), position);
+                return onDestination(run,
+                        () -> existing != null
+                                ? bookStackApiService.updateChapter(existing.getDestinationId(), copy)
+                                : bookStackApiService.createChapter(copy),
+                        service -> existing != null
+                                ? service.updateChapter(existing.getDestinationId(), copy)
+                                : service.createChapter(copy))
+                        .thenApply(written -> {
+                            mappingStore.putChapter(run.mapping, sourceChapterId,
+                                    new EntityMapping(written.getId(), chapter.getUpdatedAt(), priority, null, null,
+                                            chapter.getSlug(), written.getSlug(), null));
+                            return written.getId();
+                        });
+            });
+        }
+
+        // The book contents already list the pages of each chapter, so their reads don't have to wait for the chapter
+        CompletableFuture<List<Book.PageSummary>> pageSummaries;
+        if (content.getPages() != null) {
+            pageSummaries = CompletableFuture.completedFuture(content.getPages());
+        } else {
+            CompletableFuture<Chapter> chapterForPages = sourceChapter != null ? sourceChapter
+                    : readChapter(run, sourceChapterId, content.getUpdatedAt());
+            pageSummaries = chapterForPages.thenApply(chapter -> {
+                List<Book.PageSummary> pages = chapter.getPages() != null ? chapter.getPages() : List.of();
+                run.listener.onPagesDiscovered(pages.size());
+                return pages;
+            });
+        }
+
+        return pageSummaries.thenCompose(pages -> {
+            List<CompletableFuture<?>> pageTasks = new ArrayList<>(pages.size());
+            for (int pagePosition = 0; pagePosition < pages.size(); pagePosition++) {
+                Book.PageSummary summary = pages.get(pagePosition);
+                pageTasks.add(copyPage(run, summary.getId(), summary.getUpdatedAt(), summary.getPriority(),
+                        sourceChapterId, destChapterId, pagePosition));
+            }
+            return CompletableFuture.allOf(pageTasks.toArray(new CompletableFuture<?>[0]));
+        });
+    }
+
+    private CompletableFuture<?> copyPage(SyncRun run, Long sourcePageId, String updatedAt, Integer sourcePriority,
+                                          Long sourceChapterId, CompletableFuture<Long> destChapterId, int position) {
+        run.seenPages.add(sourcePageId);
+        Integer priority = sourcePriority != null ? sourcePriority : position;
+        EntityMapping existing = run.mapping.getPages().get(sourcePageId);
+        if (existing != null && existing.isCurrent(updatedAt, priority, sourceChapterId)) {
+            run.listener.onPageSkipped();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Page> sourcePage = onSource(run,
+                () -> bookStackApiService.getPage(sourcePageId, updatedAt),
+                service -> service.getPage(sourcePageId, updatedAt));
+
+        return sourcePage.thenCombine(destChapterId,
+                        (page, chapterId) -> createPageCopy(page, run.mapping.getDestinationBookId(), chapterId, position))
+                .thenCompose(copy -> {
+                    String sourceUpdatedAt = sourcePage.join().getUpdatedAt();
+                    String sourceSlug = sourcePage.join().getSlug();
+                    String contentHash = PageContentHash.of(copy);
+                    if (existing != null && contentHash.equals(existing.getContentHash())) {
+                        // Only updated_at moved, the destination copy is still identical; rewriting it would just add a revision
+                        mappingStore.putPage(run.mapping, sourcePageId, new EntityMapping(
+                                existing.getDestinationId(), sourceUpdatedAt, priority, sourceChapterId, contentHash,
+                                sourceSlug, existing.getDestinationSlug(), existing.getLinksPending()));
+                        run.listener.onPageSkipped();
+                        return CompletableFuture.completedFuture(existing.getDestinationId());
+                    }
+
+                    CompletableFuture<Page> write;
+                    if (existing != null) {
+                        write = imageMigrator.migrate(run.context, copy, existing.getDestinationId())
+                                .thenCompose(migrated -> writePage(run, existing.getDestinationId(), migrated));
+                    } else if (imageMigrator.hasSourceImages(run.context, copy)) {
+                        // Images are uploaded to a page, so a new page has to exist before its images can be copied
+                        write = writePage(run, null, copy).thenCompose(created -> {
+                            // Recorded without updated_at, so the page is written again if its images don't make it
+                            mappingStore.putPage(run.mapping, sourcePageId,
+                                    new EntityMapping(created.getId(), null, priority, sourceChapterId, null,
+                                            sourceSlug, created.getSlug(), null));
+                            return imageMigrator.migrate(run.context, copy, created.getId())
+                                    .thenCompose(migrated -> writePage(run, created.getId(), migrated));
+                        });
+                    } else {
+                        write = writePage(run, null, copy);
+                    }
+                    return write
+                            .thenApply(written -> {
+                                // Written with the source content, so links into the source are rewritten after the copy
+                                mappingStore.putPage(run.mapping, sourcePageId, new EntityMapping(
+                                        written.getId(), sourceUpdatedAt, priority, sourceChapterId, contentHash,
+                                        sourceSlug, written.getSlug(), linkRewriter.hasSourceLinks(run.context, copy)));
+                                return written.getId();
+                            }).whenComplete((id, error) -> {
+                        if (error == null) {
+                            run.listener.onPageCopied();
+                        }
+                    });
+                });
+    }
+
+    /**
+     * Update a destination page, or create it if no ID is given.
+     */
+    private CompletableFuture<Page> writePage(SyncRun run, Long destinationPageId, Page page) {
+        return onDestination(run,
+                () -> destinationPageId != null
+                        ? bookStackApiService.updatePage(destinationPageId, page)
+                        : bookStackApiService.createPage(page),
+                service -> destinationPageId != null
+                        ? service.updatePage(destinationPageId, page)
+                        : service.createPage(page));
+    }
+
+    private CompletableFuture<Chapter> readChapter(SyncRun run, Long sourceChapterId, String updatedAt) {
+        return onSource(run,
+                () -> bookStackApiService.getChapter(sourceChapterId, updatedAt),
+                service -> service.getChapter(sourceChapterId, updatedAt));
+    }
+
+    /**
+     * Read from the source, on the source executor, or with the reactive client under the source limit.
+     */
+    private <T> CompletableFuture<T> onSource(SyncRun run, Supplier<T> blocking,
+                                              Function<ReactiveBookStackApiService, Mono<T>> reactive) {
+        ReactiveBookStackApiService service = reactiveApiService.getIfAvailable();
+        if (service == null) {
+            return CompletableFuture.supplyAsync(() -> run.context.call(blocking), executors.source());
+        }
+        return executors.sourceLimiter().submit(() -> run.context.bind(reactive.apply(service)));
+    }
+
+    /**
+     * Write to the destination, on the destination executor, or with the reactive client under the destination
+     * limit.
+     */
+    private <T> CompletableFuture<T> onDestination(SyncRun run, Supplier<T> blocking,
+                                                   Function<ReactiveBookStackApiService, Mono<T>> reactive) {
+        ReactiveBookStackApiService service = reactiveApiService.getIfAvailable();
+        if (service == null) {
+            return CompletableFuture.supplyAsync(() -> run.context.call(blocking), executors.destination());
+        }
+        return executors.destinationLimiter().submit(() -> run.context.bind(reactive.apply(service)));
+    }
+
+    /**
+     * Delete the copies of chapters and pages that are no longer in the source book.
+     */
+    private void removeDeleted(SyncRun run) {
+        Set<Long> deletedChapters = new HashSet<>();
+        for (Map.Entry<Long, EntityMapping> entry : run.mapping.getChapters().entrySet()) {
+            if (!run.seenChapters.contains(entry.getKey())) {
+                deletedChapters.add(entry.getKey());
+            }
+        }
+
+        for (Map.Entry<Long, EntityMapping> entry : run.mapping.getPages().entrySet()) {
+            if (run.seenPages.contains(entry.getKey())) {
+                continue;
+            }
+            // Pages inside a deleted chapter go with it
+            if (entry.getValue().getSourceParentId() == null || !deletedChapters.contains(entry.getValue().getSourceParentId())) {
+                log.debug("Deleting page {} removed from the source", entry.getValue().getDestinationId());
+                bookStackApiService.deletePage(entry.getValue().getDestinationId());
+            }
+            mappingStore.removePage(run.mapping, entry.getKey());
+        }
+
+        for (Long sourceChapterId : deletedChapters) {
+            EntityMapping chapter = mappingStore.removeChapter(run.mapping, sourceChapterId);
+            log.debug("Deleting chapter {} removed from the source", chapter.getDestinationId());
+            bookStackApiService.deleteChapter(chapter.getDestinationId());
+        }
+    }
+
+    private void await(List<CompletableFuture<?>> tasks) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]));
+        try {
+            all.get();
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BookStackApiException("Book sync was interrupted", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BookStackApiException("Failed to sync book: " + cause.getMessage(), cause);
+        }
+    }
+
+    private Book createBookCopy(Book sourceBook) {
+        Book book = new Book();
+        book.setName(sourceBook.getName());
+        book.setSlug(sourceBook.getSlug());
+        book.setDescription(sourceBook.getDescription());
+        book.setDescriptionHtml(sourceBook.getDescriptionHtml());
+        book.setContents(Collections.emptyList());
+        book.setTags(sourceBook.getTags());
+
+        book.setDefaultTemplateId(sourceBook.getDefaultTemplateId());
+
+        if (sourceBook.getCover() != null) {
+            Book.Cover cover = new Book.Cover();
+            cover.setName(sourceBook.getCover().getName());
+            cover.setUrl(sourceBook.getCover().getUrl());
+            cover.setPath(sourceBook.getCover().getPath());
+            cover.setType(sourceBook.getCover().getType());
+            book.setCover(cover);
+        }
+
+        return book;
+    }
+
+    private Chapter createChapterCopy(Chapter sourceChapter, Long destBookId, int position) {
+        Chapter chapter = new Chapter();
+        chapter.setBookId(destBookId);
+        chapter.setName(sourceChapter.getName());
+        chapter.setSlug(sourceChapter.getSlug());
+        chapter.setDescription(sourceChapter.getDescription());
+        chapter.setDescriptionHtml(sourceChapter.getDescriptionHtml());
+        chapter.setPriority(sourceChapter.getPriority() != null ? sourceChapter.getPriority() : position);
+        chapter.setPages(Collections.emptyList());
+        chapter.setTags(sourceChapter.getTags());
+        return chapter;
+    }
+
+    private Page createPageCopy(Page sourcePage, Long destBookId, Long destChapterId, int position) {
+        Page page = new Page();
+        page.setBookId(destBookId);
+        page.setChapterId(destChapterId);
+        page.setName(sourcePage.getName());
+        page.setSlug(sourcePage.getSlug());
+        page.setHtml(sourcePage.getHtml());
+        page.setMarkdown(sourcePage.getMarkdown());
+        page.setPriority(sourcePage.getPriority() != null ? sourcePage.getPriority() : position);
+        page.setIsDraft(sourcePage.getIsDraft());
+        page.setIsTemplate(sourcePage.getIsTemplate());
+        page.setTags(sourcePage.getTags());
+        return page;
+    }
+
+    /**
+     * State shared by the tasks of one sync.
+     */
+    private static class SyncRun {
+        final SyncContext context;
+        final BookMapping mapping;
+        final SyncProgressListener listener;
+        final Set<Long> seenChapters = ConcurrentHashMap.newKeySet();
+        final Set<Long> seenPages = ConcurrentHashMap.newKeySet();
+
+        SyncRun(SyncContext context, BookMapping mapping, SyncProgressListener listener) {
+            this.context = context;
+            this.mapping = mapping;
+            this.listener = listener;
+        }
+    }
+}
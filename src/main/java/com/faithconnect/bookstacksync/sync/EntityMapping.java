@@ -0,0 +1,59 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+/**
+ * Links a source chapter or page to its copy in the destination, together with the source state that was copied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityMapping {
+    private Long destinationId;
+
+    /**
+     * The source {@code updated_at} at the time of the copy.
+     */
+    private String updatedAt;
+
+    private Integer priority;
+
+    /**
+     * The source chapter containing the page, or null for chapters and top-level pages.
+     */
+    private Long sourceParentId;
+
+    /**
+     * SHA-256 of the page content written to the destination, see {@link PageContentHash}; null for chapters.
+     */
+    private String contentHash;
+
+    /**
+     * The slug of the source item, by which links in other pages refer to it.
+     */
+    private String sourceSlug;
+
+    /**
+     * The slug of the copy, which links rewritten by the {@link LinkRewriter} point at.
+     */
+    private String destinationSlug;
+
+    /**
+     * Whether the copy of a page may still hold links into the source, to be rewritten by the {@link LinkRewriter};
+     * null for chapters.
+     */
+    private Boolean linksPending;
+
+    /**
+     * Check whether the copy still reflects the source item.
+     */
+    public boolean isCurrent(String updatedAt, Integer priority, Long sourceParentId) {
+        return Objects.equals(this.updatedAt, updatedAt)
+                && Objects.equals(this.priority, priority)
+                && Objects.equals(this.sourceParentId, sourceParentId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Links an image on the source to its copy in the destination gallery. Images are shared between pages and books,
+ * so these mappings are kept per instance pair rather than per book.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageMapping {
+    private Long destinationId;
+
+    /**
+     * The URL of the copy, which replaces the source URL in page content.
+     */
+    private String url;
+}
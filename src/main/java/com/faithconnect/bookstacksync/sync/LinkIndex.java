@@ -0,0 +1,190 @@
+package com.faithconnect.bookstacksync.sync;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The source to destination IDs and slugs of every book, chapter and page synced between two instances, held in
+ * memory so the links of any number of pages are resolved without a request per link.
+ *
+ * Books are added or replaced as a whole, from their {@link BookMapping}, and lookups may run concurrently with that.
+ *
+ * Links are found both as absolute URLs and as paths relative to the source host. A relative link is resolved to an
+ * absolute destination URL, since a relative link to the destination couldn't be told apart from one to the source.
+ */
+final class LinkIndex {
+
+    static final String BOOKS_PATH = "/books/";
+    static final String LINK_PATH = "/link/";
+
+    private final String sourceBaseUrl;
+    private final String sourcePath;
+    private final String destinationBaseUrl;
+    private final ConcurrentMap<Long, BookLinks> books = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> bookIdsBySlug = new ConcurrentHashMap<>();
+
+    /**
+     * Destination page IDs by source page ID, for permalinks.
+     */
+    private final ConcurrentMap<Long, Long> pageIds = new ConcurrentHashMap<>();
+
+    LinkIndex(String sourceBaseUrl, String destinationBaseUrl, List<BookMapping> mappings) {
+        this.sourceBaseUrl = UrlScanner.trimBaseUrl(sourceBaseUrl);
+        this.sourcePath = path(this.sourceBaseUrl);
+        this.destinationBaseUrl = UrlScanner.trimBaseUrl(destinationBaseUrl);
+        mappings.forEach(this::put);
+    }
+
+    /**
+     * @return The prefixes of the source URLs that can point at a book, chapter or page
+     */
+    List<String> sourcePrefixes() {
+        return prefixes(sourceBaseUrl);
+    }
+
+    /**
+     * @param baseUrl The base URL of an instance
+     * @return The prefixes of the absolute and relative URLs that can point at a book, chapter or page of the instance
+     */
+    static List<String> prefixes(String baseUrl) {
+        String trimmed = UrlScanner.trimBaseUrl(baseUrl);
+        String path = path(trimmed);
+        return List.of(trimmed + BOOKS_PATH, trimmed + LINK_PATH, path + BOOKS_PATH, path + LINK_PATH);
+    }
+
+    /**
+     * Add a book, or replace what was known of it.
+     */
+    synchronized void put(BookMapping mapping) {
+        BookLinks previous = books.get(mapping.getSourceBookId());
+        if (previous != null) {
+            previous.pageIds().forEach(pageIds::remove);
+            if (previous.sourceSlug() != null) {
+                bookIdsBySlug.remove(previous.sourceSlug(), mapping.getSourceBookId());
+            }
+        }
+
+        Map<String, Target> chapters = new HashMap<>();
+        mapping.getChapters().values().forEach(entry -> {
+            if (entry.getSourceSlug() != null) {
+                chapters.put(entry.getSourceSlug(), new Target(entry.getDestinationId(), entry.getDestinationSlug()));
+            }
+        });
+        Map<String, Target> pages = new HashMap<>();
+        Set<Long> bookPageIds = new HashSet<>();
+        Set<Long> pending = new HashSet<>();
+        mapping.getPages().forEach((sourceId, entry) -> {
+            if (entry.getSourceSlug() != null) {
+                pages.put(entry.getSourceSlug(), new Target(entry.getDestinationId(), entry.getDestinationSlug()));
+            }
+            bookPageIds.add(sourceId);
+            pageIds.put(sourceId, entry.getDestinationId());
+            if (Boolean.TRUE.equals(entry.getLinksPending())) {
+                pending.add(sourceId);
+            }
+        });
+        books.put(mapping.getSourceBookId(), new BookLinks(mapping.getSourceSlug(), mapping.getDestinationSlug(),
+                chapters, pages, bookPageIds, pending));
+        if (mapping.getSourceSlug() != null) {
+            bookIdsBySlug.put(mapping.getSourceSlug(), mapping.getSourceBookId());
+        }
+    }
+
+    /**
+     * @return The source books with pages that may still hold links into the source
+     */
+    Set<Long> booksWithPendingLinks() {
+        Set<Long> bookIds = new HashSet<>();
+        books.forEach((id, book) -> {
+            if (!book.pending().isEmpty()) {
+                bookIds.add(id);
+            }
+        });
+        return bookIds;
+    }
+
+    /**
+     * Find the destination URL of a source URL. A page whose destination slugs are unknown is pointed at by its
+     * permalink; the rest of the path after the item, such as {@code /edit}, is kept.
+     *
+     * @param url A URL starting with one of the {@link #sourcePrefixes()}
+     * @return The destination URL, or null if the item it points at has not been copied
+     */
+    String resolve(String url) {
+        String base = url.startsWith(sourceBaseUrl + "/") ? sourceBaseUrl : sourcePath;
+        String[] segments = url.substring(base.length()).split("/", -1);
+        if (segments.length < 3) {
+            return null;
+        }
+        if ("link".equals(segments[1])) {
+            Long destinationId = parseId(segments[2]) != null ? pageIds.get(parseId(segments[2])) : null;
+            return destinationId != null ? destinationBaseUrl + LINK_PATH + destinationId + rest(segments, 3) : null;
+        }
+
+        Long bookId = bookIdsBySlug.get(segments[2]);
+        BookLinks book = bookId != null ? books.get(bookId) : null;
+        if (book == null) {
+            return null;
+        }
+        String bookUrl = book.destinationSlug() != null ? destinationBaseUrl + BOOKS_PATH + book.destinationSlug() : null;
+        boolean item = segments.length >= 5 && ("page".equals(segments[3]) || "chapter".equals(segments[3]));
+        if (!item) {
+            return bookUrl != null ? bookUrl + rest(segments, 3) : null;
+        }
+
+        Target target = ("page".equals(segments[3]) ? book.pages() : book.chapters()).get(segments[4]);
+        if (target == null) {
+            return null;
+        }
+        if (bookUrl != null && target.destinationSlug() != null) {
+            return bookUrl + "/" + segments[3] + "/" + target.destinationSlug() + rest(segments, 5);
+        }
+        if ("page".equals(segments[3]) && segments.length == 5) {
+            return destinationBaseUrl + LINK_PATH + target.destinationId();
+        }
+        return null;
+    }
+
+    private static String rest(String[] segments, int from) {
+        StringBuilder rest = new StringBuilder();
+        for (int i = from; i < segments.length; i++) {
+            rest.append('/').append(segments[i]);
+        }
+        return rest.toString();
+    }
+
+    /**
+     * @return The path of a base URL without a trailing slash, empty if it has none
+     */
+    private static String path(String baseUrl) {
+        String path = URI.create(baseUrl).getRawPath();
+        return path != null ? UrlScanner.trimBaseUrl(path) : "";
+    }
+
+    private static Long parseId(String segment) {
+        try {
+            return Long.valueOf(segment);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record Target(Long destinationId, String destinationSlug) {
+    }
+
+    /**
+     * @param chapters Chapters by source slug
+     * @param pages Pages by source slug
+     * @param pageIds The source IDs of all pages of the book
+     * @param pending The source IDs of the pages that may still hold links into the source
+     */
+    private record BookLinks(String sourceSlug, String destinationSlug, Map<String, Target> chapters,
+                             Map<String, Target> pages, Set<Long> pageIds, Set<Long> pending) {
+    }
+}
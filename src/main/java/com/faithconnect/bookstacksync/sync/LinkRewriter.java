@@ -0,0 +1,205 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Points the links between copied pages at the destination, once the pages of a book have been copied.
+ *
+ * Links to source books, chapters and pages, by slug or by permalink, absolute or relative, are resolved against a
+ * {@link LinkIndex} of every item synced between the two instances, built from the {@link SyncMappingStore} the
+ * first time it is needed and kept up to date as books are synced, so no request is made to resolve a link. Only the
+ * pages written with links into the source are visited, and a page is only updated if one of its links could be
+ * rewritten.
+ *
+ * A page linking to a book that has not been synced yet keeps its source link and stays pending; it is visited again
+ * when its own book is synced, and by {@link #relinkPending} at the end of a bulk sync, by which time the book it
+ * links to has usually been copied as well.
+ */
+@Slf4j
+@Component
+public class LinkRewriter {
+
+    private final BookStackApiService bookStackApiService;
+    private final SyncExecutors executors;
+    private final SyncMappingStore mappingStore;
+    private final BookStackConfig defaultSourceConfig;
+    private final BookStackConfig defaultDestinationConfig;
+
+    /**
+     * Indexes by source and destination base URL.
+     */
+    private final ConcurrentMap<String, LinkIndex> indexes = new ConcurrentHashMap<>();
+
+    public LinkRewriter(BookStackApiService bookStackApiService, SyncExecutors executors, SyncMappingStore mappingStore,
+                        BookStackConfig sourceConfig, BookStackConfig destinationConfig) {
+        this.bookStackApiService = bookStackApiService;
+        this.executors = executors;
+        this.mappingStore = mappingStore;
+        this.defaultSourceConfig = sourceConfig;
+        this.defaultDestinationConfig = destinationConfig;
+    }
+
+    /**
+     * Check whether a page links to a book, chapter or page of the source.
+     */
+    public boolean hasSourceLinks(SyncContext context, Page page) {
+        String sourceBaseUrl = context.sourceOr(defaultSourceConfig).getBaseUrl();
+        for (String prefix : LinkIndex.prefixes(sourceBaseUrl)) {
+            if (!UrlScanner.find(page.getHtml(), prefix).isEmpty() || !UrlScanner.find(page.getMarkdown(), prefix).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record the copies of a synced book, then rewrite the links of its pages that still point into the source.
+     * Runs under the current {@link SyncContext}.
+     *
+     * @param mapping The mapping of the book, with every page copied
+     * @param listener Receives an event for every page rewritten
+     */
+    public void relinkBook(BookMapping mapping, SyncProgressListener listener) {
+        LinkIndex index = index(mapping.getSourceBaseUrl(), mapping.getDestinationBaseUrl());
+        index.put(mapping);
+        relink(SyncContext.current(), index, mapping, listener);
+    }
+
+    /**
+     * Rewrite the links that still point into the source in the pages of every book synced between the instances
+     * of a context.
+     *
+     * @param context The credentials to read and update the pages with
+     * @return The number of pages rewritten
+     */
+    public int relinkPending(SyncContext context) {
+        String sourceBaseUrl = context.sourceOr(defaultSourceConfig).getBaseUrl();
+        String destinationBaseUrl = context.destinationOr(defaultDestinationConfig).getBaseUrl();
+        LinkIndex index = index(sourceBaseUrl, destinationBaseUrl);
+        int relinked = 0;
+        for (Long sourceBookId : index.booksWithPendingLinks()) {
+            BookMapping mapping = mappingStore.find(sourceBaseUrl, destinationBaseUrl, sourceBookId).orElse(null);
+            if (mapping != null) {
+                relinked += relink(context, index, mapping, SyncProgressListener.NONE);
+            }
+        }
+        log.info("Rewrote the links of {} pages pending between {} and {}", relinked, sourceBaseUrl, destinationBaseUrl);
+        return relinked;
+    }
+
+    private LinkIndex index(String sourceBaseUrl, String destinationBaseUrl) {
+        return indexes.computeIfAbsent(sourceBaseUrl + " " + destinationBaseUrl, key -> {
+            List<BookMapping> mappings = mappingStore.findAll(sourceBaseUrl, destinationBaseUrl);
+            log.info("Indexed {} synced books for link rewriting", mappings.size());
+            return new LinkIndex(sourceBaseUrl, destinationBaseUrl, mappings);
+        });
+    }
+
+    /**
+     * @return The number of pages rewritten
+     */
+    private int relink(SyncContext context, LinkIndex index, BookMapping mapping, SyncProgressListener listener) {
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+        mapping.getPages().forEach((sourcePageId, entry) -> {
+            if (Boolean.TRUE.equals(entry.getLinksPending())) {
+                tasks.add(CompletableFuture.supplyAsync(() -> context.call(
+                        () -> relinkPage(index, mapping, sourcePageId, entry, listener)), executors.destination()));
+            }
+        });
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+
+        await(tasks);
+        index.put(mapping);
+        return (int) tasks.stream().filter(CompletableFuture::join).count();
+    }
+
+    /**
+     * @return Whether the page was rewritten
+     */
+    private boolean relinkPage(LinkIndex index, BookMapping mapping, Long sourcePageId, EntityMapping entry,
+                               SyncProgressListener listener) {
+        Page page = bookStackApiService.getDestinationPage(entry.getDestinationId());
+        if (page == null) {
+            // Deleted from the destination; the next sync of the book copies it again
+            return false;
+        }
+
+        List<String> unresolved = new ArrayList<>();
+        String html = rewrite(index, page.getHtml(), unresolved);
+        String markdown = rewrite(index, page.getMarkdown(), unresolved);
+        boolean changed = !Objects.equals(html, page.getHtml()) || !Objects.equals(markdown, page.getMarkdown());
+        if (changed) {
+            log.debug("Rewriting links of destination page {}", entry.getDestinationId());
+            page.setHtml(html);
+            page.setMarkdown(markdown);
+            if (Long.valueOf(0).equals(page.getChapterId())) {
+                // BookStack reports top-level pages with chapter 0
+                page.setChapterId(null);
+            }
+            bookStackApiService.updatePage(entry.getDestinationId(), page);
+            listener.onPageRelinked();
+        }
+        if (!unresolved.isEmpty()) {
+            log.debug("Destination page {} still links to {} uncopied source items", entry.getDestinationId(),
+                    unresolved.size());
+        }
+        entry.setLinksPending(!unresolved.isEmpty());
+        mappingStore.putPage(mapping, sourcePageId, entry);
+        return changed;
+    }
+
+    /**
+     * @param unresolved Receives the source URLs that could not be resolved
+     */
+    private String rewrite(LinkIndex index, String content, List<String> unresolved) {
+        for (String prefix : index.sourcePrefixes()) {
+            Map<String, String> replacements = new HashMap<>();
+            for (String url : UrlScanner.find(content, prefix)) {
+                String resolved = index.resolve(url);
+                if (resolved != null) {
+                    replacements.put(url, resolved);
+                } else {
+                    unresolved.add(url);
+                }
+            }
+            content = UrlScanner.replace(content, prefix, replacements);
+        }
+        return content;
+    }
+
+    private void await(List<? extends CompletableFuture<?>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BookStackApiException("Link rewriting was interrupted", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BookStackApiException("Failed to rewrite links: " + cause.getMessage(), cause);
+        }
+    }
+}
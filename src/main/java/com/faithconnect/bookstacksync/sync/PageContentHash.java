@@ -0,0 +1,83 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.model.Tag;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes a SHA-256 hash over the fields of a page that end up in the destination:
+ * name, html, markdown, priority, tags and the chapter it belongs to.
+ *
+ * Fields are encoded straight into the digest through a small buffer, so large page bodies are never copied
+ * into an intermediate byte array. CRLF line endings are normalized to LF, so a CRLF/LF difference alone
+ * doesn't count as a change. A missing field hashes differently from an empty one.
+ */
+final class PageContentHash {
+
+    private static final char FIELD_SEPARATOR = '\u0000';
+    private static final char NULL_FIELD = '\u0001';
+
+    private PageContentHash() {
+    }
+
+    /**
+     * @param page The page as it would be written to the destination
+     * @return The hex-encoded hash
+     */
+    static String of(Page page) {
+        MessageDigest digest = newDigest();
+        try (Writer writer = new OutputStreamWriter(new DigestOutputStream(OutputStream.nullOutputStream(), digest),
+                StandardCharsets.UTF_8)) {
+            field(writer, page.getName());
+            field(writer, page.getHtml());
+            field(writer, page.getMarkdown());
+            field(writer, page.getPriority() != null ? page.getPriority().toString() : null);
+            field(writer, page.getChapterId() != null ? page.getChapterId().toString() : null);
+            if (page.getTags() != null) {
+                for (Tag tag : page.getTags()) {
+                    field(writer, tag.getName());
+                    field(writer, tag.getValue());
+                }
+            } else {
+                writer.write(NULL_FIELD);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void field(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write(NULL_FIELD);
+        } else {
+            int start = 0;
+            for (int i = 0; i < value.length() - 1; i++) {
+                if (value.charAt(i) == '\r' && value.charAt(i + 1) == '\n') {
+                    writer.write(value, start, i - start);
+                    start = i + 1;
+                }
+            }
+            writer.write(value, start, value.length() - start);
+        }
+        writer.write(FIELD_SEPARATOR);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Image;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Moves the images a page shows from the source instance into the destination gallery, and points the page at
+ * the copies, so copied pages keep their images once the source is gone.
+ *
+ * Image URLs, those under {@code /uploads/images/} of the source, are found with the {@link UrlScanner}. Every image
+ * is transferred once per pair of instances: copies are recorded in an {@link ImageMapping}, and pages that need an
+ * image already being transferred wait for that transfer instead of starting another, so an image shown on many
+ * pages, in one book or many, is uploaded a single time. Transfers pipe the source download straight into the
+ * upload, on the {@code transfer} executor of {@link SyncExecutors}.
+ *
+ * BookStack uploads an image to a page, so an image is uploaded to the first destination page that needs it.
+ */
+@Slf4j
+@Component
+public class PageImageMigrator {
+
+    private static final String UPLOADS_PATH = "/uploads/images/";
+
+    private final BookStackApiService bookStackApiService;
+    private final SyncExecutors executors;
+    private final SyncMappingStore mappingStore;
+    private final BookStackConfig defaultSourceConfig;
+    private final BookStackConfig defaultDestinationConfig;
+
+    /**
+     * Transfers in progress, by destination base URL and source image URL.
+     */
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public PageImageMigrator(BookStackApiService bookStackApiService, SyncExecutors executors, SyncMappingStore mappingStore,
+                             BookStackConfig sourceConfig, BookStackConfig destinationConfig) {
+        this.bookStackApiService = bookStackApiService;
+        this.executors = executors;
+        this.mappingStore = mappingStore;
+        this.defaultSourceConfig = sourceConfig;
+        this.defaultDestinationConfig = destinationConfig;
+    }
+
+    /**
+     * Check whether a page shows images hosted on the source.
+     */
+    public boolean hasSourceImages(SyncContext context, Page page) {
+        String prefix = UrlScanner.prefix(context.sourceOr(defaultSourceConfig).getBaseUrl(), UPLOADS_PATH);
+        return !UrlScanner.find(page.getHtml(), prefix).isEmpty()
+                || !UrlScanner.find(page.getMarkdown(), prefix).isEmpty();
+    }
+
+    /**
+     * Copy the source images a page shows into the destination, and replace their URLs in the page's HTML and
+     * Markdown with those of the copies. Images that no longer exist in the source keep their URL.
+     *
+     * @param context The credentials to copy the images with
+     * @param page The page as it will be written to the destination; its content is rewritten in place
+     * @param destinationPageId The destination page to upload new images to
+     * @return The page, once all its images are copied
+     */
+    public CompletableFuture<Page> migrate(SyncContext context, Page page, Long destinationPageId) {
+        String sourceBaseUrl = context.sourceOr(defaultSourceConfig).getBaseUrl();
+        String destinationBaseUrl = context.destinationOr(defaultDestinationConfig).getBaseUrl();
+        String prefix = UrlScanner.prefix(sourceBaseUrl, UPLOADS_PATH);
+        Set<String> urls = new LinkedHashSet<>(UrlScanner.find(page.getHtml(), prefix));
+        urls.addAll(UrlScanner.find(page.getMarkdown(), prefix));
+        if (urls.isEmpty()) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        Map<String, CompletableFuture<String>> copies = new LinkedHashMap<>();
+        for (String url : urls) {
+            copies.put(url, copy(context, sourceBaseUrl, destinationBaseUrl, url, destinationPageId));
+        }
+        return CompletableFuture.allOf(copies.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, String> replacements = new HashMap<>();
+            copies.forEach((url, copy) -> {
+                String copyUrl = copy.join();
+                if (copyUrl != null) {
+                    replacements.put(url, copyUrl);
+                }
+            });
+            page.setHtml(UrlScanner.replace(page.getHtml(), prefix, replacements));
+            page.setMarkdown(UrlScanner.replace(page.getMarkdown(), prefix, replacements));
+            return page;
+        });
+    }
+
+    /**
+     * @return The URL of the copy, or null if the image no longer exists in the source
+     */
+    private CompletableFuture<String> copy(SyncContext context, String sourceBaseUrl, String destinationBaseUrl,
+                                           String url, Long destinationPageId) {
+        String sourcePath = url.substring(url.indexOf(UPLOADS_PATH));
+        Optional<ImageMapping> copied = mappingStore.findImage(sourceBaseUrl, destinationBaseUrl, sourcePath);
+        if (copied.isPresent()) {
+            return CompletableFuture.completedFuture(copied.get().getUrl());
+        }
+
+        String key = destinationBaseUrl + " " + url;
+        CompletableFuture<String> transfer = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, transfer);
+        if (running != null) {
+            return running;
+        }
+        // A transfer may have finished between the lookup and here
+        Optional<ImageMapping> finished = mappingStore.findImage(sourceBaseUrl, destinationBaseUrl, sourcePath);
+        if (finished.isPresent()) {
+            inFlight.remove(key, transfer);
+            transfer.complete(finished.get().getUrl());
+            return transfer;
+        }
+        CompletableFuture.supplyAsync(() -> context.call(
+                        () -> transfer(sourceBaseUrl, destinationBaseUrl, url, sourcePath, destinationPageId)),
+                executors.transfer()).whenComplete((copyUrl, error) -> {
+            inFlight.remove(key, transfer);
+            if (error != null) {
+                transfer.completeExceptionally(error);
+            } else {
+                transfer.complete(copyUrl);
+            }
+        });
+        return transfer;
+    }
+
+    private String transfer(String sourceBaseUrl, String destinationBaseUrl, String url, String sourcePath,
+                            Long destinationPageId) {
+        Image image = new Image();
+        image.setName(sourcePath.substring(sourcePath.lastIndexOf('/') + 1));
+        image.setUrl(url);
+        image.setType("gallery");
+        image.setUploadedTo(destinationPageId);
+        log.debug("Copying image {} to destination page {}", url, destinationPageId);
+        Image created = bookStackApiService.createImage(image);
+        if (created == null) {
+            return null;
+        }
+        mappingStore.putImage(sourceBaseUrl, destinationBaseUrl, sourcePath, new ImageMapping(created.getId(), created.getUrl()));
+        return created.getUrl();
+    }
+}
@@ -0,0 +1,59 @@
+package com.faithconnect.bookstacksync.sync;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs non-blocking calls with at most a given number in flight, the counterpart of a bounded pool for the
+ * reactive client. Calls beyond the limit are queued and only started as earlier ones complete, so a sync
+ * with hundreds of pages pending doesn't send them all at once; no thread is held while a call waits.
+ */
+class ReactiveLimiter {
+
+    private final Sinks.Many<Mono<?>> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable subscription;
+
+    ReactiveLimiter(int concurrency) {
+        // Each call reports its own outcome to its future, so a failed one must not end the queue
+        this.subscription = queue.asFlux()
+                .flatMap(call -> call.onErrorResume(e -> Mono.empty()), Math.max(concurrency, 1))
+                .subscribe();
+    }
+
+    /**
+     * Queue a call. The call is only assembled once it may start, and not at all if its future was cancelled
+     * while it waited.
+     *
+     * @param call Assembles the call
+     * @return The result of the call, or null if it completed empty
+     */
+    <T> CompletableFuture<T> submit(Supplier<Mono<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Mono<T> queued = Mono.defer(() -> result.isDone() ? Mono.<T>empty() : call.get())
+                .doOnSuccess(result::complete)
+                .doOnError(result::completeExceptionally)
+                .doOnCancel(() -> result.cancel(false));
+
+        Sinks.EmitResult emitted;
+        // A unicast sink takes one emitter at a time
+        synchronized (queue) {
+            emitted = queue.tryEmitNext(queued);
+        }
+        if (emitted.isFailure()) {
+            result.completeExceptionally(new RejectedExecutionException("Sync limiter is shut down"));
+        }
+        return result;
+    }
+
+    void dispose() {
+        synchronized (queue) {
+            queue.tryEmitComplete();
+        }
+        subscription.dispose();
+    }
+}
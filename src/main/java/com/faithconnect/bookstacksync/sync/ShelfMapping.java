@@ -0,0 +1,27 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Links a source shelf to its copy in the destination, together with the state that was copied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShelfMapping {
+    private Long destinationId;
+
+    /**
+     * The source {@code updated_at} at the time of the copy.
+     */
+    private String updatedAt;
+
+    /**
+     * The destination books put on the copy, in shelf order.
+     */
+    private List<Long> destinationBookIds;
+}
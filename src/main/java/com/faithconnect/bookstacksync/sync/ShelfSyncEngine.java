@@ -0,0 +1,174 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Shelf;
+import com.faithconnect.bookstacksync.model.ShelfSyncReport;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.service.BookStackApiServiceImpl.BookStackApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Copies the shelves of the source instance to the destination instance.
+ *
+ * Shelves hold books rather than content of their own, so a shelf is copied with the destination copies of its
+ * books, looked up in the book mappings of the {@link SyncMappingStore}: the books must have been synced first.
+ * Books that never were are left off the copy and reported. Each shelf is written with a single call that sets
+ * all its books at once; shelves are read on the source pool and written on the destination pool of
+ * {@link SyncExecutors}, so they share the limits of book syncs.
+ *
+ * Every copy is recorded in a {@link ShelfMapping}, so syncing again updates the existing copies instead of
+ * making new ones, and leaves alone those whose details and books did not change. A copy that was deleted in
+ * the destination is made again.
+ */
+@Slf4j
+@Component
+public class ShelfSyncEngine {
+
+    private final BookStackApiService bookStackApiService;
+    private final SyncExecutors executors;
+    private final SyncMappingStore mappingStore;
+    private final BookStackConfig defaultSourceConfig;
+    private final BookStackConfig defaultDestinationConfig;
+
+    public ShelfSyncEngine(BookStackApiService bookStackApiService, SyncExecutors executors, SyncMappingStore mappingStore,
+                           BookStackConfig sourceConfig, BookStackConfig destinationConfig) {
+        this.bookStackApiService = bookStackApiService;
+        this.executors = executors;
+        this.mappingStore = mappingStore;
+        this.defaultSourceConfig = sourceConfig;
+        this.defaultDestinationConfig = destinationConfig;
+    }
+
+    /**
+     * Copy every shelf of the source, with the books on it that have been synced, to the destination.
+     * A shelf that fails is reported and does not stop the others.
+     *
+     * @param context The credentials and request to sync for
+     * @return What was copied
+     * @throws BookStackApiException if the credentials are invalid or the shelves can't be listed
+     */
+    public ShelfSyncReport syncShelves(SyncContext context) {
+        return context.call(() -> {
+            log.info("Starting shelf sync process...");
+            bookStackApiService.verifyCredentials();
+            bookStackApiService.verifyDestinationCredentials();
+
+            String sourceBaseUrl = context.sourceOr(defaultSourceConfig).getBaseUrl();
+            String destinationBaseUrl = context.destinationOr(defaultDestinationConfig).getBaseUrl();
+            List<Shelf> shelves;
+            try (Stream<Shelf> listed = bookStackApiService.streamShelves()) {
+                shelves = listed.toList();
+            }
+
+            ShelfSyncReport report = new ShelfSyncReport();
+            report.setShelvesTotal(shelves.size());
+            // Books are often on several shelves
+            Map<Long, Optional<Long>> destinationBookIds = new ConcurrentHashMap<>();
+            List<CompletableFuture<?>> tasks = new ArrayList<>(shelves.size());
+            for (Shelf listed : shelves) {
+                tasks.add(CompletableFuture
+                        .supplyAsync(() -> context.call(() -> bookStackApiService.getShelf(listed.getId())), executors.source())
+                        .thenAcceptAsync(shelf -> context.run(() -> copyShelf(sourceBaseUrl, destinationBaseUrl, shelf,
+                                destinationBookIds, report)), executors.destination())
+                        .exceptionally(e -> {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            log.error("Failed to sync shelf {}: {}", listed.getId(), cause.getMessage(), cause);
+                            synchronized (report) {
+                                report.setShelvesFailed(report.getShelvesFailed() + 1);
+                                report.getErrors().add("Shelf " + listed.getId() + ": " + cause.getMessage());
+                            }
+                            return null;
+                        }));
+            }
+            await(tasks);
+            log.info("Shelf sync finished: {} created, {} updated, {} unchanged, {} failed", report.getShelvesCreated(),
+                    report.getShelvesUpdated(), report.getShelvesUnchanged(), report.getShelvesFailed());
+            return report;
+        });
+    }
+
+    private void copyShelf(String sourceBaseUrl, String destinationBaseUrl, Shelf sourceShelf,
+                           Map<Long, Optional<Long>> destinationBookIds, ShelfSyncReport report) {
+        List<Long> bookIds = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (Book book : sourceShelf.getBooks() != null ? sourceShelf.getBooks() : List.<Book>of()) {
+            destinationBookIds.computeIfAbsent(book.getId(),
+                            id -> mappingStore.findDestinationBookId(sourceBaseUrl, destinationBaseUrl, id))
+                    .ifPresentOrElse(bookIds::add, () -> missing.add("Shelf " + sourceShelf.getId() + ": book "
+                            + book.getId() + " (" + book.getName() + ") was not synced"));
+        }
+
+        ShelfMapping mapping = mappingStore.findShelf(sourceBaseUrl, destinationBaseUrl, sourceShelf.getId()).orElse(null);
+        if (mapping != null && bookStackApiService.getDestinationShelf(mapping.getDestinationId()) == null) {
+            log.info("Destination shelf {} no longer exists, copying shelf {} again", mapping.getDestinationId(), sourceShelf.getName());
+            mapping = null;
+        }
+
+        boolean created = mapping == null;
+        boolean unchanged = !created && Objects.equals(mapping.getUpdatedAt(), sourceShelf.getUpdatedAt())
+                && bookIds.equals(mapping.getDestinationBookIds());
+        if (created) {
+            log.info("Creating shelf in destination... {}", sourceShelf.getName());
+            Shelf copy = bookStackApiService.createShelf(createShelfCopy(sourceShelf, bookIds));
+            mapping = new ShelfMapping(copy.getId(), null, null);
+        } else if (!unchanged) {
+            log.info("Updating shelf in destination... {}", sourceShelf.getName());
+            bookStackApiService.updateShelf(mapping.getDestinationId(), createShelfCopy(sourceShelf, bookIds));
+        }
+        mapping.setUpdatedAt(sourceShelf.getUpdatedAt());
+        mapping.setDestinationBookIds(bookIds);
+        mappingStore.putShelf(sourceBaseUrl, destinationBaseUrl, sourceShelf.getId(), mapping);
+
+        synchronized (report) {
+            if (created) {
+                report.setShelvesCreated(report.getShelvesCreated() + 1);
+            } else if (unchanged) {
+                report.setShelvesUnchanged(report.getShelvesUnchanged() + 1);
+            } else {
+                report.setShelvesUpdated(report.getShelvesUpdated() + 1);
+            }
+            report.setBooksLinked(report.getBooksLinked() + bookIds.size());
+            report.getBooksMissing().addAll(missing);
+        }
+    }
+
+    private static Shelf createShelfCopy(Shelf sourceShelf, List<Long> destinationBookIds) {
+        Shelf shelf = new Shelf();
+        shelf.setName(sourceShelf.getName());
+        shelf.setDescription(sourceShelf.getDescription());
+        shelf.setDescriptionHtml(sourceShelf.getDescriptionHtml());
+        shelf.setTags(sourceShelf.getTags());
+        shelf.setBooks(destinationBookIds.stream().map(id -> {
+            Book book = new Book();
+            book.setId(id);
+            return book;
+        }).toList());
+        return shelf;
+    }
+
+    private void await(List<CompletableFuture<?>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new BookStackApiException("Shelf sync was interrupted", e);
+        } catch (ExecutionException e) {
+            // Failures of single shelves are reported, not thrown
+            throw new BookStackApiException("Failed to sync shelves: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
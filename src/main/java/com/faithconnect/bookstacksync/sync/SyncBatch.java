@@ -0,0 +1,204 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.ShelfSyncReport;
+import com.faithconnect.bookstacksync.model.SyncBatchStatus;
+import com.faithconnect.bookstacksync.model.SyncJobStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sync of many books, run as one job per book. The books wait in the batch rather than in the job queue,
+ * and are handed to the job workers a few at a time by the {@link SyncJobService}, so a batch of any size
+ * never fills the queue and single book syncs submitted meanwhile still get their turn. A batch may also copy
+ * the shelves of the source once all its books are done.
+ *
+ * All state is guarded by the batch's monitor.
+ */
+public class SyncBatch {
+
+    private final String id;
+    private final SyncContext context;
+    private final String scope;
+    private final SyncMode mode;
+    private final int booksTotal;
+    private final boolean shelves;
+    private final Instant submittedAt = Instant.now();
+    private final Deque<Long> pending;
+
+    /**
+     * The jobs of the books queued so far, by job ID; a job's status is frozen here once it finishes,
+     * so the batch reports every book even after the job registry dropped it.
+     */
+    private final Map<String, SyncJob> running = new LinkedHashMap<>();
+    private final Map<String, SyncJobStatus> finished = new LinkedHashMap<>();
+    private final List<String> jobOrder = new ArrayList<>();
+    private boolean booksFinished;
+    private ShelfSyncReport shelfReport;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    /**
+     * @param scope {@code instance} or {@code books}
+     * @param sourceBookIds The books to sync, without duplicates
+     * @param shelves Whether to copy the shelves of the source after the books
+     */
+    public SyncBatch(String id, SyncContext context, String scope, SyncMode mode, List<Long> sourceBookIds,
+                     boolean shelves) {
+        this.id = id;
+        this.context = context;
+        this.scope = scope;
+        this.mode = mode;
+        this.booksTotal = sourceBookIds.size();
+        this.shelves = shelves;
+        this.pending = new ArrayDeque<>(sourceBookIds);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SyncContext getContext() {
+        return context;
+    }
+
+    public SyncMode getMode() {
+        return mode;
+    }
+
+    public boolean isShelves() {
+        return shelves;
+    }
+
+    public synchronized boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * @return The number of books queued or running
+     */
+    synchronized int active() {
+        return running.size();
+    }
+
+    /**
+     * @return The next book to queue, or null if all books were queued
+     */
+    synchronized Long peekPending() {
+        return pending.peek();
+    }
+
+    /**
+     * Record that the next book was queued as the given job.
+     */
+    synchronized void queued(SyncJob job) {
+        pending.remove();
+        running.put(job.getId(), job);
+        jobOrder.add(job.getId());
+        if (startedAt == null) {
+            startedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Record that a job of the batch finished.
+     *
+     * @return Whether that was the last book of the batch
+     */
+    synchronized boolean finished(SyncJob job) {
+        if (running.remove(job.getId()) != null) {
+            finished.put(job.getId(), job.toStatus());
+        }
+        return completeIfDone();
+    }
+
+    /**
+     * Check whether all books are done, marking the batch as finished unless its shelves are still to be copied.
+     *
+     * @return Whether the last book was done before this call returned, the first time it is so
+     */
+    synchronized boolean completeIfDone() {
+        if (!booksFinished && pending.isEmpty() && running.isEmpty()) {
+            booksFinished = true;
+            if (!shelves) {
+                finish();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the copy of the shelves, which finishes the batch.
+     */
+    synchronized void shelvesCopied(ShelfSyncReport report) {
+        shelfReport = report;
+        finish();
+    }
+
+    private void finish() {
+        finishedAt = Instant.now();
+        if (startedAt == null) {
+            startedAt = finishedAt;
+        }
+    }
+
+    public synchronized SyncBatchStatus toStatus() {
+        SyncBatchStatus status = new SyncBatchStatus();
+        status.setId(id);
+        status.setRequestId(context.requestId());
+        status.setScope(scope);
+        status.setMode(mode.name());
+        status.setBooksTotal(booksTotal);
+        status.setBooksPending(pending.size());
+        status.setSubmittedAt(submittedAt);
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+
+        List<SyncJobStatus> jobs = new ArrayList<>(jobOrder.size());
+        List<String> errors = new ArrayList<>();
+        int completed = 0;
+        int failed = 0;
+        int pagesDone = 0;
+        for (String jobId : jobOrder) {
+            SyncJob job = running.get(jobId);
+            SyncJobStatus jobStatus = job != null ? job.toStatus() : finished.get(jobId);
+            jobs.add(jobStatus);
+            if (SyncPhase.COMPLETED.name().equals(jobStatus.getPhase())) {
+                completed++;
+            } else if (SyncPhase.FAILED.name().equals(jobStatus.getPhase())) {
+                failed++;
+                jobStatus.getErrors().forEach(error -> errors.add("Book " + jobStatus.getSourceBookId() + ": " + error));
+            }
+            pagesDone += jobStatus.getPagesDone();
+            status.setPagesTotal(status.getPagesTotal() + jobStatus.getPagesTotal());
+            status.setPagesSkipped(status.getPagesSkipped() + jobStatus.getPagesSkipped());
+        }
+        status.setBooksRunning(running.size());
+        status.setBooksCompleted(completed);
+        status.setBooksFailed(failed);
+        status.setPagesDone(pagesDone);
+        status.setJobs(jobs);
+        status.setErrors(errors);
+        status.setShelves(shelfReport);
+
+        boolean shelvesFailed = shelfReport != null && !shelfReport.getErrors().isEmpty();
+        if (finishedAt == null) {
+            status.setPhase(startedAt == null ? SyncPhase.QUEUED.name() : SyncPhase.COPYING.name());
+        } else {
+            status.setPhase(failed > 0 || shelvesFailed ? SyncPhase.FAILED.name() : SyncPhase.COMPLETED.name());
+        }
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long elapsedMillis = Math.max(Duration.between(startedAt, end).toMillis(), 1);
+            status.setPagesPerSecond(Math.round(pagesDone * 100_000.0 / elapsedMillis) / 100.0);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,29 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Where a sync job got to, saved so that a failed job can be resumed.
+ *
+ * The chapters and pages the job copied are recorded in the {@link BookMapping} entries of the book as each one
+ * is committed; the checkpoint ties the job to that mapping, so a resumed job carries on from the last committed
+ * item instead of starting over.
+ */
+@Data
+public class SyncCheckpoint {
+    private String jobId;
+    private String sourceBaseUrl;
+    private String destinationBaseUrl;
+    private Long sourceBookId;
+    private Long destinationBookId;
+    private SyncMode mode;
+
+    /**
+     * The phase the job was in when the checkpoint was saved.
+     */
+    private SyncPhase phase;
+
+    private Instant savedAt;
+}
@@ -0,0 +1,180 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import org.slf4j.MDC;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Instant;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The credentials and metadata of the request a piece of work is done for.
+ *
+ * A context is immutable and is handed on explicitly: a sync job keeps the context of the request that queued it,
+ * the sync engine runs every read and write under the context of its sync, and reactive calls take it from the
+ * Reactor context of their subscriber. Code that calls the {@code BookStackApiService} directly finds the context
+ * its thread runs under with {@link #current()}; a context is only ever installed for the duration of a call,
+ * with {@link #run}, {@link #call} or {@link #open}.
+ *
+ * @param source The source credentials of the request, or null for the configured default
+ * @param destination The destination credentials of the request, or null for the configured default
+ * @param requestId Identifies the request in logs, as {@code requestId} in the MDC, and in job statuses
+ * @param receivedAt When the request was received
+ */
+public record SyncContext(BookStackConfig source, BookStackConfig destination, String requestId, Instant receivedAt) {
+
+    /**
+     * The context of work not done for any request: the configured credentials and no metadata.
+     */
+    public static final SyncContext NONE = new SyncContext(null, null, null, null);
+
+    private static final String REQUEST_ID_KEY = "requestId";
+    private static final ThreadLocal<SyncContext> current = new ThreadLocal<>();
+
+    public SyncContext {
+        source = copy(source);
+        destination = copy(destination);
+    }
+
+    /**
+     * The source credentials; a copy, so the context can't be changed through it.
+     */
+    @Override
+    public BookStackConfig source() {
+        return copy(source);
+    }
+
+    /**
+     * The destination credentials; a copy, so the context can't be changed through it.
+     */
+    @Override
+    public BookStackConfig destination() {
+        return copy(destination);
+    }
+
+    /**
+     * @param defaultConfig The configured source credentials
+     * @return The source credentials of the request, or the configured ones if it brought none
+     */
+    public BookStackConfig sourceOr(BookStackConfig defaultConfig) {
+        return source != null ? copy(source) : defaultConfig;
+    }
+
+    /**
+     * @param defaultConfig The configured destination credentials
+     * @return The destination credentials of the request, or the configured ones if it brought none
+     */
+    public BookStackConfig destinationOr(BookStackConfig defaultConfig) {
+        return destination != null ? copy(destination) : defaultConfig;
+    }
+
+    /**
+     * The context the current thread runs under, or {@link #NONE}.
+     */
+    public static SyncContext current() {
+        SyncContext context = current.get();
+        return context != null ? context : NONE;
+    }
+
+    /**
+     * Install this context on the current thread until the returned scope is closed, which restores the
+     * context the thread ran under before.
+     */
+    public Scope open() {
+        SyncContext previous = current.get();
+        String previousRequestId = MDC.get(REQUEST_ID_KEY);
+        current.set(this);
+        setRequestId(requestId);
+        return () -> {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+            setRequestId(previousRequestId);
+        };
+    }
+
+    /**
+     * Run a task under this context.
+     */
+    @SuppressWarnings("try")
+    public void run(Runnable task) {
+        try (Scope ignored = open()) {
+            task.run();
+        }
+    }
+
+    /**
+     * Make a call under this context.
+     */
+    @SuppressWarnings("try")
+    public <T> T call(Supplier<T> call) {
+        try (Scope ignored = open()) {
+            return call.get();
+        }
+    }
+
+    /**
+     * Wrap a task so it runs under the context of the thread that submitted it, wherever it is run.
+     * Used as a task decorator for executors that run work on behalf of a request.
+     */
+    public static Runnable propagate(Runnable task) {
+        SyncContext context = current();
+        return () -> context.run(task);
+    }
+
+    /**
+     * Make this context the one a reactive call is made under, whichever thread assembled it.
+     */
+    public <T> Mono<T> bind(Mono<T> call) {
+        return call.contextWrite(Context.of(SyncContext.class, this));
+    }
+
+    /**
+     * Assemble a reactive call on subscription, under the context bound by the subscriber with {@link #bind},
+     * or else under the context of the thread that made the call.
+     */
+    public static <T> Mono<T> mono(Function<SyncContext, Mono<T>> call) {
+        SyncContext caller = current();
+        return Mono.deferContextual(view -> call.apply(view.getOrDefault(SyncContext.class, caller)));
+    }
+
+    /**
+     * Like {@link #mono}, for a call with many results.
+     */
+    public static <T> Flux<T> flux(Function<SyncContext, Flux<T>> call) {
+        SyncContext caller = current();
+        return Flux.deferContextual(view -> call.apply(view.getOrDefault(SyncContext.class, caller)));
+    }
+
+    @Override
+    public String toString() {
+        // Leaves out the token secrets
+        return "SyncContext[requestId=" + requestId + ", source=" + (source != null ? source.getBaseUrl() : "default")
+                + ", destination=" + (destination != null ? destination.getBaseUrl() : "default") + "]";
+    }
+
+    private static void setRequestId(String requestId) {
+        if (requestId != null) {
+            MDC.put(REQUEST_ID_KEY, requestId);
+        } else {
+            MDC.remove(REQUEST_ID_KEY);
+        }
+    }
+
+    private static BookStackConfig copy(BookStackConfig config) {
+        return config != null ? new BookStackConfig(config.getBaseUrl(), config.getTokenId(), config.getTokenSecret()) : null;
+    }
+
+    /**
+     * The time a context is installed for; closing it restores the previous context.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.faithconnect.bookstacksync.sync;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The bounded executors the sync engine fans out on.
+ * Source reads and destination writes run on separate executors so neither BookStack instance is overloaded,
+ * and the limits hold across all syncs running at the same time. Attachment files are transferred on an executor
+ * of their own, since each transfer holds a temporary file and a thread for as long as the file takes to copy.
+ *
+ * The executors are pools of platform threads, or, with virtual threads, run every task on a virtual thread of its
+ * own. Either way a task runs under the {@link SyncContext} of the thread that submitted it. With the reactive client
+ * the same limits are kept by {@link ReactiveLimiter}s instead, which hold no thread while a request is in flight.
+ */
+public class SyncExecutors {
+
+    private final Executor sourceExecutor;
+    private final Executor destinationExecutor;
+    private final Executor transferExecutor;
+    private final ReactiveLimiter sourceLimiter;
+    private final ReactiveLimiter destinationLimiter;
+
+    /**
+     * @param sourceConcurrency The maximum number of concurrent source reads
+     * @param destinationConcurrency The maximum number of concurrent destination writes
+     * @param transferConcurrency The maximum number of concurrent attachment transfers
+     * @param virtualThreads Whether tasks run on virtual threads, which needs Java 21
+     */
+    public SyncExecutors(int sourceConcurrency, int destinationConcurrency, int transferConcurrency, boolean virtualThreads) {
+        this.sourceExecutor = createExecutor("sync-source-", sourceConcurrency, virtualThreads);
+        this.destinationExecutor = createExecutor("sync-destination-", destinationConcurrency, virtualThreads);
+        this.transferExecutor = createExecutor("sync-transfer-", transferConcurrency, virtualThreads);
+        this.sourceLimiter = new ReactiveLimiter(sourceConcurrency);
+        this.destinationLimiter = new ReactiveLimiter(destinationConcurrency);
+    }
+
+    /**
+     * Executor for read requests against the source instance.
+     */
+    public Executor source() {
+        return sourceExecutor;
+    }
+
+    /**
+     * Executor for write requests against the destination instance.
+     */
+    public Executor destination() {
+        return destinationExecutor;
+    }
+
+    /**
+     * Executor for attachment transfers, each downloading a file from the source and uploading it to the destination.
+     */
+    public Executor transfer() {
+        return transferExecutor;
+    }
+
+    /**
+     * Limiter for non-blocking read requests against the source instance.
+     */
+    ReactiveLimiter sourceLimiter() {
+        return sourceLimiter;
+    }
+
+    /**
+     * Limiter for non-blocking write requests against the destination instance.
+     */
+    ReactiveLimiter destinationLimiter() {
+        return destinationLimiter;
+    }
+
+    public void shutdown() {
+        shutdown(sourceExecutor);
+        shutdown(destinationExecutor);
+        shutdown(transferExecutor);
+        sourceLimiter.dispose();
+        destinationLimiter.dispose();
+    }
+
+    private static Executor createExecutor(String threadNamePrefix, int concurrency, boolean virtualThreads) {
+        if (virtualThreads) {
+            VirtualThreadExecutor executor = new VirtualThreadExecutor(threadNamePrefix, concurrency);
+            executor.setTaskDecorator(SyncContext::propagate);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setTaskDecorator(SyncContext::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    private static void shutdown(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof VirtualThreadExecutor virtual) {
+            virtual.shutdown();
+        }
+    }
+}
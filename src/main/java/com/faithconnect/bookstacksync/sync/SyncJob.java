@@ -0,0 +1,221 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.SyncJobStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A book sync running in the background. Progress is updated by the engine's worker threads
+ * and read through {@link #toStatus()} and {@link #toCheckpoint()}.
+ */
+public class SyncJob implements SyncProgressListener {
+
+    private final String id;
+    private final SyncContext context;
+    private final Long sourceBookId;
+    private final SyncMode mode;
+    private final SyncCheckpoint resumeFrom;
+    private final String batchId;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private final AtomicInteger pagesTotal = new AtomicInteger();
+    private final AtomicInteger pagesSkipped = new AtomicInteger();
+    private final AtomicInteger pagesRelinked = new AtomicInteger();
+    private final AtomicInteger attachmentsCopied = new AtomicInteger();
+    private final AtomicInteger attachmentsSkipped = new AtomicInteger();
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    private volatile SyncPhase phase = SyncPhase.QUEUED;
+    private volatile BookMapping mapping;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    /**
+     * Set by every progress event, cleared when the checkpoint is saved.
+     */
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    public SyncJob(String id, SyncContext context, Long sourceBookId, SyncMode mode) {
+        this(id, context, sourceBookId, mode, null);
+    }
+
+    /**
+     * @param context The credentials and request the job runs for
+     * @param resumeFrom The checkpoint of the failed job to carry on from, or null to start a new sync
+     */
+    public SyncJob(String id, SyncContext context, Long sourceBookId, SyncMode mode, SyncCheckpoint resumeFrom) {
+        this(id, context, sourceBookId, mode, resumeFrom, null);
+    }
+
+    /**
+     * @param batchId The bulk sync the job is part of, or null
+     */
+    public SyncJob(String id, SyncContext context, Long sourceBookId, SyncMode mode, SyncCheckpoint resumeFrom,
+                   String batchId) {
+        this.id = id;
+        this.context = context;
+        this.sourceBookId = sourceBookId;
+        this.mode = mode;
+        this.resumeFrom = resumeFrom;
+        this.batchId = batchId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SyncContext getContext() {
+        return context;
+    }
+
+    public Long getSourceBookId() {
+        return sourceBookId;
+    }
+
+    public SyncMode getMode() {
+        return mode;
+    }
+
+    public SyncCheckpoint getResumeFrom() {
+        return resumeFrom;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public SyncPhase getPhase() {
+        return phase;
+    }
+
+    public boolean isFinished() {
+        return phase == SyncPhase.COMPLETED || phase == SyncPhase.FAILED;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        phase = SyncPhase.COMPLETED;
+    }
+
+    void fail(String message) {
+        errors.add(message);
+        finishedAt = Instant.now();
+        phase = SyncPhase.FAILED;
+    }
+
+    /**
+     * @return Whether progress was made since the last call
+     */
+    boolean takeChanged() {
+        return changed.getAndSet(false);
+    }
+
+    @Override
+    public void onPhase(SyncPhase phase) {
+        this.phase = phase;
+        changed.set(true);
+    }
+
+    @Override
+    public void onPagesDiscovered(int count) {
+        pagesTotal.addAndGet(count);
+    }
+
+    @Override
+    public void onPageCopied() {
+        pagesDone.incrementAndGet();
+        changed.set(true);
+    }
+
+    @Override
+    public void onPageSkipped() {
+        pagesSkipped.incrementAndGet();
+        changed.set(true);
+    }
+
+    @Override
+    public void onPageRelinked() {
+        pagesRelinked.incrementAndGet();
+        changed.set(true);
+    }
+
+    @Override
+    public void onAttachmentCopied() {
+        attachmentsCopied.incrementAndGet();
+        changed.set(true);
+    }
+
+    @Override
+    public void onAttachmentSkipped() {
+        attachmentsSkipped.incrementAndGet();
+        changed.set(true);
+    }
+
+    @Override
+    public void onDestinationBook(BookMapping mapping) {
+        this.mapping = mapping;
+        changed.set(true);
+    }
+
+    /**
+     * @return The checkpoint of this job, or null if it has not got as far as the destination book
+     */
+    public SyncCheckpoint toCheckpoint() {
+        BookMapping current = mapping;
+        if (current == null) {
+            return null;
+        }
+        SyncCheckpoint checkpoint = new SyncCheckpoint();
+        checkpoint.setJobId(id);
+        checkpoint.setSourceBaseUrl(current.getSourceBaseUrl());
+        checkpoint.setDestinationBaseUrl(current.getDestinationBaseUrl());
+        checkpoint.setSourceBookId(sourceBookId);
+        checkpoint.setDestinationBookId(current.getDestinationBookId());
+        checkpoint.setMode(mode);
+        checkpoint.setPhase(phase);
+        checkpoint.setSavedAt(Instant.now());
+        return checkpoint;
+    }
+
+    public SyncJobStatus toStatus() {
+        SyncJobStatus status = new SyncJobStatus();
+        status.setId(id);
+        status.setRequestId(context.requestId());
+        status.setBatchId(batchId);
+        status.setSourceBookId(sourceBookId);
+        BookMapping current = mapping;
+        status.setDestinationBookId(current != null ? current.getDestinationBookId() : null);
+        status.setMode(mode.name());
+        status.setResumedFrom(resumeFrom != null ? resumeFrom.getJobId() : null);
+        status.setPhase(phase.name());
+        status.setPagesDone(pagesDone.get());
+        status.setPagesTotal(pagesTotal.get());
+        status.setPagesSkipped(pagesSkipped.get());
+        status.setPagesRelinked(pagesRelinked.get());
+        status.setAttachmentsCopied(attachmentsCopied.get());
+        status.setAttachmentsSkipped(attachmentsSkipped.get());
+        status.setSubmittedAt(submittedAt);
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        status.setErrors(List.copyOf(errors));
+
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long elapsedMillis = Math.max(Duration.between(startedAt, end).toMillis(), 1);
+            status.setPagesPerSecond(Math.round(pagesDone.get() * 100_000.0 / elapsedMillis) / 100.0);
+        }
+        return status;
+    }
+}
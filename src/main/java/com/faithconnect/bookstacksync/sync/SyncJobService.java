@@ -0,0 +1,494 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.config.SyncProperties;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.ShelfSyncReport;
+import com.faithconnect.bookstacksync.model.SyncBatchStatus;
+import com.faithconnect.bookstacksync.model.SyncJobStatus;
+import com.faithconnect.bookstacksync.service.BookStackApiService;
+import com.faithconnect.bookstacksync.store.StateStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs book syncs as background jobs and keeps a registry of their progress.
+ *
+ * Jobs run on a fixed number of workers with a bounded queue, so sync requests never tie up servlet threads;
+ * once the queue is full new submissions are rejected. Each job keeps the {@link SyncContext} of the request
+ * that queued it, and runs under it.
+ *
+ * The status of every job is saved in the {@link StateStore} when it is queued, starts and finishes, so the
+ * job history survives restarts. Jobs that were still queued or running when the service stopped are reported
+ * as failed.
+ *
+ * While a job runs, its status and {@link SyncCheckpoint} are saved in the background at the configured
+ * checkpoint interval, whenever it has made progress, so the workers never wait for them. A failed job can be
+ * resumed from its checkpoint with {@link #resume}.
+ *
+ * A bulk sync of a list of books, or of every book of the source, is a {@link SyncBatch}: its books are queued
+ * as jobs of their own, no more of them at a time than there are workers, and the next one as soon as one of
+ * them finishes. The books of a batch therefore share the workers, the engine's request limits and the
+ * instances' rate limiters with all other syncs, and a batch of hundreds of books is a single submission.
+ * The status of a batch, with the totals over all its books, is saved whenever one of its books finishes.
+ * A sync of the whole instance can copy the shelves as well, once all its books are done, with the
+ * {@link ShelfSyncEngine}. Once the books of a batch are done, links between them that could not be rewritten
+ * while the book they point to was still to be copied are rewritten by the {@link LinkRewriter}.
+ */
+@Slf4j
+@Service
+public class SyncJobService {
+
+    private static final String JOB_PREFIX = "job/";
+    private static final String CHECKPOINT_PREFIX = "checkpoint/";
+    private static final String BATCH_PREFIX = "batch/";
+
+    /**
+     * How long a batch waits before it tries again to queue a book the full job queue rejected.
+     */
+    private static final long BATCH_RETRY_MILLIS = 1000;
+
+    private final BookSyncEngine bookSyncEngine;
+    private final ShelfSyncEngine shelfSyncEngine;
+    private final LinkRewriter linkRewriter;
+    private final BookStackApiService bookStackApiService;
+    private final SyncProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService checkpointer;
+    private final StateStore stateStore;
+    private final Map<String, SyncJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Jobs of earlier runs of the service, loaded from the state store.
+     */
+    private final Map<String, SyncJobStatus> history = new ConcurrentHashMap<>();
+    private final Map<String, SyncBatch> batches = new ConcurrentHashMap<>();
+    private final Map<String, SyncBatchStatus> batchHistory = new ConcurrentHashMap<>();
+
+    public SyncJobService(BookSyncEngine bookSyncEngine, ShelfSyncEngine shelfSyncEngine, LinkRewriter linkRewriter,
+                          BookStackApiService bookStackApiService, SyncProperties properties, StateStore stateStore) {
+        this.bookSyncEngine = bookSyncEngine;
+        this.shelfSyncEngine = shelfSyncEngine;
+        this.linkRewriter = linkRewriter;
+        this.bookStackApiService = bookStackApiService;
+        this.properties = properties;
+        this.stateStore = stateStore;
+        loadHistory();
+        this.executor = new ThreadPoolExecutor(
+                properties.getJobWorkers(), properties.getJobWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getJobQueueCapacity()),
+                new CustomizableThreadFactory("sync-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sync-checkpoint-"));
+        long interval = properties.getCheckpointInterval().toMillis();
+        this.checkpointer.scheduleWithFixedDelay(this::saveCheckpoints, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a sync of a book from the source to the destination.
+     *
+     * @param sourceBookId The ID of the book to sync
+     * @param mode The sync mode, or null for the configured default
+     * @return The queued job
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public SyncJob submit(Long sourceBookId, SyncMode mode) {
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), SyncContext.current(), sourceBookId,
+                mode != null ? mode : properties.getMode());
+        queue(job);
+        log.info("Queued {} sync job {} for book {}", job.getMode().name().toLowerCase(), job.getId(), sourceBookId);
+        return job;
+    }
+
+    /**
+     * Queue a job that carries on from where a failed job stopped. Chapters and pages the failed job copied are
+     * kept; the rest of the book is copied as usual. A job that failed before it created the destination book
+     * is simply run again.
+     *
+     * @param jobId The ID of the failed job
+     * @return The queued job
+     * @throws NoSuchElementException if there is no job with this ID
+     * @throws IllegalStateException if the job did not fail, its book is being synced already, or the
+     *                               instances differ from those of the failed job
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public synchronized SyncJob resume(String jobId) {
+        SyncJobStatus failed = getJobStatus(jobId)
+                .orElseThrow(() -> new NoSuchElementException("Unknown sync job: " + jobId));
+        if (!SyncPhase.FAILED.name().equals(failed.getPhase())) {
+            throw new IllegalStateException("Only failed jobs can be resumed, job " + jobId + " is " + failed.getPhase());
+        }
+        jobs.values().stream()
+                .filter(job -> !job.isFinished() && job.getSourceBookId().equals(failed.getSourceBookId()))
+                .findAny()
+                .ifPresent(job -> {
+                    throw new IllegalStateException("Book " + failed.getSourceBookId() + " is already being synced by job " + job.getId());
+                });
+
+        SyncCheckpoint checkpoint = stateStore.get(CHECKPOINT_PREFIX + jobId, SyncCheckpoint.class).orElse(null);
+        SyncContext context = SyncContext.current();
+        if (checkpoint != null && !bookSyncEngine.isSameInstances(context, checkpoint)) {
+            throw new IllegalStateException("Job " + jobId + " synced " + checkpoint.getSourceBaseUrl() + " to "
+                    + checkpoint.getDestinationBaseUrl() + ", it can only be resumed between the same instances");
+        }
+        if (checkpoint == null) {
+            checkpoint = new SyncCheckpoint();
+            checkpoint.setJobId(jobId);
+            checkpoint.setSourceBookId(failed.getSourceBookId());
+        }
+
+        SyncJob job = new SyncJob(UUID.randomUUID().toString(), context, failed.getSourceBookId(),
+                SyncMode.valueOf(failed.getMode()), checkpoint);
+        queue(job);
+        log.info("Queued sync job {} resuming job {} for book {}", job.getId(), jobId, job.getSourceBookId());
+        return job;
+    }
+
+    /**
+     * Queue a sync of each of the given books from the source to the destination.
+     *
+     * @param sourceBookIds The IDs of the books to sync; duplicates are synced once
+     * @param mode The sync mode, or null for the configured default
+     * @return The queued batch
+     * @throws IllegalArgumentException if the list is empty or contains null
+     */
+    public SyncBatch submitBooks(List<Long> sourceBookIds, SyncMode mode) {
+        if (sourceBookIds == null || sourceBookIds.isEmpty()) {
+            throw new IllegalArgumentException("No books to sync");
+        }
+        if (sourceBookIds.stream().anyMatch(id -> id == null)) {
+            throw new IllegalArgumentException("Book IDs must not be null");
+        }
+        return submitBatch("books", List.copyOf(new LinkedHashSet<>(sourceBookIds)), mode, false);
+    }
+
+    /**
+     * Queue a sync of every book of the source to the destination. The books are listed when the sync is
+     * queued; books created on the source later are left for the next sync.
+     *
+     * @param mode The sync mode, or null for the configured default
+     * @param shelves Whether to copy the shelves of the source once all books are done
+     * @return The queued batch
+     */
+    public SyncBatch submitInstance(SyncMode mode, boolean shelves) {
+        List<Long> sourceBookIds;
+        try (Stream<Book> books = bookStackApiService.streamBooks()) {
+            sourceBookIds = books.map(Book::getId).toList();
+        }
+        return submitBatch("instance", sourceBookIds, mode, shelves);
+    }
+
+    private SyncBatch submitBatch(String scope, List<Long> sourceBookIds, SyncMode mode, boolean shelves) {
+        SyncBatch batch = new SyncBatch(UUID.randomUUID().toString(), SyncContext.current(), scope,
+                mode != null ? mode : properties.getMode(), sourceBookIds, shelves);
+        batches.put(batch.getId(), batch);
+        log.info("Queued {} sync {} of {} books", batch.getMode().name().toLowerCase(), batch.getId(), sourceBookIds.size());
+        saveStatus(batch);
+        fillBatch(batch);
+        pruneFinishedBatches();
+        return batch;
+    }
+
+    /**
+     * Queue the next books of a batch until as many of its books are queued or running as there are workers.
+     * When the job queue is full, tries again a little later.
+     */
+    private void fillBatch(SyncBatch batch) {
+        boolean booksDone;
+        synchronized (batch) {
+            Long sourceBookId;
+            while (batch.active() < properties.getJobWorkers() && (sourceBookId = batch.peekPending()) != null) {
+                SyncJob job = new SyncJob(UUID.randomUUID().toString(), batch.getContext(), sourceBookId,
+                        batch.getMode(), null, batch.getId());
+                try {
+                    queue(job);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Job queue is full, bulk sync {} retries book {} later", batch.getId(), sourceBookId);
+                    checkpointer.schedule(() -> fillBatch(batch), BATCH_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                batch.queued(job);
+            }
+            booksDone = batch.completeIfDone();
+        }
+        if (booksDone) {
+            finishBatch(batch);
+        }
+    }
+
+    private void onBatchJobFinished(SyncJob job) {
+        SyncBatch batch = batches.get(job.getBatchId());
+        if (batch == null) {
+            return;
+        }
+        try {
+            boolean booksDone;
+            synchronized (batch) {
+                booksDone = batch.finished(job);
+                if (!booksDone) {
+                    saveStatus(batch);
+                    fillBatch(batch);
+                }
+            }
+            if (booksDone) {
+                finishBatch(batch);
+            }
+        } catch (Exception e) {
+            log.error("Failed to queue the next book of bulk sync {}: {}", batch.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rewrite the links left pending by its books, copy the shelves if the batch asked for it, then save its
+     * final status. Runs outside the batch's monitor, so its status can be read meanwhile.
+     */
+    private void finishBatch(SyncBatch batch) {
+        try {
+            linkRewriter.relinkPending(batch.getContext());
+        } catch (Exception e) {
+            // The pages stay pending and are rewritten by the next sync of their book
+            log.error("Bulk sync {} failed to rewrite pending links: {}", batch.getId(), e.getMessage(), e);
+        }
+        if (batch.isShelves()) {
+            ShelfSyncReport report;
+            try {
+                report = shelfSyncEngine.syncShelves(batch.getContext());
+            } catch (Exception e) {
+                log.error("Bulk sync {} failed to copy the shelves: {}", batch.getId(), e.getMessage(), e);
+                report = new ShelfSyncReport();
+                report.getErrors().add(e.getMessage());
+            }
+            batch.shelvesCopied(report);
+        }
+        SyncBatchStatus status = batch.toStatus();
+        stateStore.put(BATCH_PREFIX + batch.getId(), status);
+        log.info("Bulk sync {} finished: {} of {} books completed, {} failed", batch.getId(),
+                status.getBooksCompleted(), status.getBooksTotal(), status.getBooksFailed());
+    }
+
+    /**
+     * Get the status of a bulk sync by ID, including bulk syncs of earlier runs of the service.
+     *
+     * @param batchId The ID of the bulk sync
+     * @return The status, if the bulk sync is still in the registry
+     */
+    public Optional<SyncBatchStatus> getBatchStatus(String batchId) {
+        SyncBatch batch = batches.get(batchId);
+        return batch != null ? Optional.of(batch.toStatus()) : Optional.ofNullable(batchHistory.get(batchId));
+    }
+
+    /**
+     * List all bulk syncs in the registry, including bulk syncs of earlier runs of the service.
+     *
+     * @return The statuses, most recently submitted first
+     */
+    public List<SyncBatchStatus> listBatches() {
+        return Stream.concat(batches.values().stream().map(SyncBatch::toStatus), batchHistory.values().stream())
+                .sorted(Comparator.comparing(SyncBatchStatus::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Register a job and hand it to the workers. It is registered and saved as queued first, so it can be found
+     * from the moment it starts, and a job that finishes at once is not saved as queued after it finished.
+     */
+    private void queue(SyncJob job) {
+        jobs.put(job.getId(), job);
+        saveStatus(job);
+        try {
+            executor.execute(() -> job.getContext().run(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId(), job);
+            stateStore.delete(JOB_PREFIX + job.getId());
+            throw e;
+        }
+        pruneFinishedJobs();
+    }
+
+    /**
+     * Get a job of this run of the service by ID.
+     *
+     * @param jobId The ID of the job
+     * @return The job, if it is still in the registry
+     */
+    public Optional<SyncJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Get the status of a job by ID, including jobs of earlier runs of the service.
+     *
+     * @param jobId The ID of the job
+     * @return The status, if the job is still in the registry
+     */
+    public Optional<SyncJobStatus> getJobStatus(String jobId) {
+        SyncJob job = jobs.get(jobId);
+        return job != null ? Optional.of(job.toStatus()) : Optional.ofNullable(history.get(jobId));
+    }
+
+    /**
+     * List all jobs in the registry, including jobs of earlier runs of the service.
+     *
+     * @return The job statuses, most recently submitted first
+     */
+    public List<SyncJobStatus> listJobs() {
+        return Stream.concat(jobs.values().stream().map(SyncJob::toStatus), history.values().stream())
+                .sorted(Comparator.comparing(SyncJobStatus::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    private void run(SyncJob job) {
+        job.start();
+        saveStatus(job);
+        try {
+            SyncCheckpoint resumeFrom = job.getResumeFrom();
+            if (resumeFrom != null && resumeFrom.getDestinationBookId() != null) {
+                bookSyncEngine.resumeBook(job.getContext(), job.getSourceBookId(), resumeFrom.getDestinationBookId(), job);
+            } else {
+                bookSyncEngine.syncBook(job.getContext(), job.getSourceBookId(), job.getMode(), job);
+            }
+            job.complete();
+            log.info("Sync job {} completed", job.getId());
+        } catch (Exception e) {
+            log.error("Sync job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            synchronized (job) {
+                job.takeChanged();
+                saveStatus(job);
+                if (job.getPhase() == SyncPhase.COMPLETED) {
+                    stateStore.delete(CHECKPOINT_PREFIX + job.getId());
+                } else {
+                    saveCheckpoint(job);
+                }
+            }
+            if (job.getBatchId() != null) {
+                onBatchJobFinished(job);
+            }
+        }
+    }
+
+    /**
+     * Save the status and checkpoint of every running job that made progress since the last save.
+     */
+    private void saveCheckpoints() {
+        try {
+            for (SyncJob job : jobs.values()) {
+                synchronized (job) {
+                    if (!job.isFinished() && job.takeChanged()) {
+                        saveStatus(job);
+                        saveCheckpoint(job);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Thrown out of a scheduled task, it would cancel all later saves
+            log.error("Failed to save sync job checkpoints: {}", e.getMessage(), e);
+        }
+    }
+
+    private void saveStatus(SyncJob job) {
+        stateStore.put(JOB_PREFIX + job.getId(), job.toStatus());
+    }
+
+    private void saveStatus(SyncBatch batch) {
+        stateStore.put(BATCH_PREFIX + batch.getId(), batch.toStatus());
+    }
+
+    private void saveCheckpoint(SyncJob job) {
+        SyncCheckpoint checkpoint = job.toCheckpoint();
+        if (checkpoint != null) {
+            stateStore.put(CHECKPOINT_PREFIX + job.getId(), checkpoint);
+        }
+    }
+
+    /**
+     * Load the jobs of earlier runs, marking the ones that never finished as failed.
+     */
+    private void loadHistory() {
+        stateStore.scan(JOB_PREFIX, SyncJobStatus.class).values().forEach(status -> {
+            if (!SyncPhase.COMPLETED.name().equals(status.getPhase()) && !SyncPhase.FAILED.name().equals(status.getPhase())) {
+                status.setPhase(SyncPhase.FAILED.name());
+                List<String> errors = new ArrayList<>(status.getErrors() != null ? status.getErrors() : List.of());
+                errors.add("Interrupted by a restart of the service");
+                status.setErrors(errors);
+                stateStore.put(JOB_PREFIX + status.getId(), status);
+            }
+            history.put(status.getId(), status);
+        });
+        stateStore.scan(BATCH_PREFIX, SyncBatchStatus.class).values().forEach(status -> {
+            if (!SyncPhase.COMPLETED.name().equals(status.getPhase()) && !SyncPhase.FAILED.name().equals(status.getPhase())) {
+                status.setPhase(SyncPhase.FAILED.name());
+                List<String> errors = new ArrayList<>(status.getErrors() != null ? status.getErrors() : List.of());
+                errors.add("Interrupted by a restart of the service");
+                status.setErrors(errors);
+                stateStore.put(BATCH_PREFIX + status.getId(), status);
+            }
+            batchHistory.put(status.getId(), status);
+        });
+        pruneFinishedJobs();
+        pruneFinishedBatches();
+    }
+
+    /**
+     * Drop the oldest finished jobs once the registry grows beyond the configured history size.
+     */
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() + history.size() - properties.getJobHistorySize();
+        if (excess <= 0) {
+            return;
+        }
+        Stream.concat(jobs.values().stream().filter(SyncJob::isFinished).map(SyncJob::toStatus), history.values().stream())
+                .sorted(Comparator.comparing(SyncJobStatus::getSubmittedAt))
+                .limit(excess)
+                .forEach(status -> {
+                    jobs.remove(status.getId());
+                    history.remove(status.getId());
+                    stateStore.delete(JOB_PREFIX + status.getId());
+                    stateStore.delete(CHECKPOINT_PREFIX + status.getId());
+                });
+    }
+
+    /**
+     * Drop the oldest finished bulk syncs once there are more than the configured history size.
+     */
+    private void pruneFinishedBatches() {
+        int excess = batches.size() + batchHistory.size() - properties.getJobHistorySize();
+        if (excess <= 0) {
+            return;
+        }
+        Stream.concat(batches.values().stream().filter(SyncBatch::isFinished).map(SyncBatch::toStatus), batchHistory.values().stream())
+                .sorted(Comparator.comparing(SyncBatchStatus::getSubmittedAt))
+                .limit(excess)
+                .forEach(status -> {
+                    batches.remove(status.getId());
+                    batchHistory.remove(status.getId());
+                    stateStore.delete(BATCH_PREFIX + status.getId());
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpointer.shutdownNow();
+        executor.shutdownNow();
+    }
+}
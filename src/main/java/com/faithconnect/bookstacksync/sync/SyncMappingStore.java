@@ -0,0 +1,228 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.store.StateStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persists the source to destination ID mappings of synced books, shelves and images in the {@link StateStore}.
+ *
+ * Each chapter, page and attachment entry is its own key, so the engine records every item as soon as it has been copied
+ * and an interrupted sync keeps the mappings of everything it finished:
+ * <pre>
+ * mapping/{instance pair}/{source book id}                    book-level mapping
+ * mapping/{instance pair}/{source book id}/chapter/{source id} chapter entry
+ * mapping/{instance pair}/{source book id}/page/{source id}    page entry
+ * mapping/{instance pair}/{source book id}/attachment/{source id} attachment entry
+ * shelf-mapping/{instance pair}/{source shelf id}              shelf mapping
+ * image-mapping/{instance pair}{source image path}             image mapping
+ * </pre>
+ */
+@Slf4j
+@Component
+public class SyncMappingStore {
+
+    private static final String PREFIX = "mapping/";
+    private static final String SHELF_PREFIX = "shelf-mapping/";
+    private static final String IMAGE_PREFIX = "image-mapping/";
+
+    private final StateStore stateStore;
+
+    public SyncMappingStore(StateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    /**
+     * Find the mapping of a book synced earlier between the same two instances.
+     *
+     * @param sourceBaseUrl The base URL of the source instance
+     * @param destinationBaseUrl The base URL of the destination instance
+     * @param sourceBookId The ID of the book in the source instance
+     * @return The stored mapping, if the book was synced before
+     */
+    public Optional<BookMapping> find(String sourceBaseUrl, String destinationBaseUrl, Long sourceBookId) {
+        return load(bookKey(sourceBaseUrl, destinationBaseUrl, sourceBookId));
+    }
+
+    /**
+     * Find the mappings of all books synced earlier between the same two instances.
+     *
+     * @return The stored mappings, with their chapter, page and attachment entries
+     */
+    public List<BookMapping> findAll(String sourceBaseUrl, String destinationBaseUrl) {
+        String pairPrefix = PREFIX + instancePairKey(sourceBaseUrl, destinationBaseUrl) + "/";
+        List<BookMapping> mappings = new ArrayList<>();
+        for (String key : stateStore.keys(pairPrefix)) {
+            // Book-level keys are the ones without an entry path after the book ID
+            if (key.indexOf('/', pairPrefix.length()) < 0) {
+                load(key).ifPresent(mappings::add);
+            }
+        }
+        return mappings;
+    }
+
+    /**
+     * Find the destination ID of a book synced earlier between the same two instances, without loading
+     * its chapter and page entries.
+     *
+     * @return The ID of the copy, if the book was synced before
+     */
+    public Optional<Long> findDestinationBookId(String sourceBaseUrl, String destinationBaseUrl, Long sourceBookId) {
+        return stateStore.get(bookKey(sourceBaseUrl, destinationBaseUrl, sourceBookId), BookMapping.class)
+                .map(BookMapping::getDestinationBookId);
+    }
+
+    /**
+     * Find the mapping of a shelf synced earlier between the same two instances.
+     */
+    public Optional<ShelfMapping> findShelf(String sourceBaseUrl, String destinationBaseUrl, Long sourceShelfId) {
+        return stateStore.get(shelfKey(sourceBaseUrl, destinationBaseUrl, sourceShelfId), ShelfMapping.class);
+    }
+
+    /**
+     * Record the copy of a shelf.
+     */
+    public void putShelf(String sourceBaseUrl, String destinationBaseUrl, Long sourceShelfId, ShelfMapping mapping) {
+        stateStore.put(shelfKey(sourceBaseUrl, destinationBaseUrl, sourceShelfId), mapping);
+    }
+
+    /**
+     * Find the copy of an image copied earlier between the same two instances.
+     *
+     * @param sourcePath The path of the image in the source instance, such as {@code /uploads/images/gallery/a.png}
+     */
+    public Optional<ImageMapping> findImage(String sourceBaseUrl, String destinationBaseUrl, String sourcePath) {
+        return stateStore.get(imageKey(sourceBaseUrl, destinationBaseUrl, sourcePath), ImageMapping.class);
+    }
+
+    /**
+     * Record the copy of an image.
+     */
+    public void putImage(String sourceBaseUrl, String destinationBaseUrl, String sourcePath, ImageMapping mapping) {
+        stateStore.put(imageKey(sourceBaseUrl, destinationBaseUrl, sourcePath), mapping);
+    }
+
+    /**
+     * Store a new mapping of a book, dropping the chapter, page and attachment entries of any earlier one.
+     *
+     * @param mapping The mapping to store
+     */
+    public void replace(BookMapping mapping) {
+        String bookKey = bookKey(mapping);
+        stateStore.deletePrefix(bookKey + "/");
+        stateStore.put(bookKey, mapping);
+        mapping.getChapters().forEach((id, entry) -> stateStore.put(bookKey + "/chapter/" + id, entry));
+        mapping.getPages().forEach((id, entry) -> stateStore.put(bookKey + "/page/" + id, entry));
+        mapping.getAttachments().forEach((id, entry) -> stateStore.put(bookKey + "/attachment/" + id, entry));
+    }
+
+    /**
+     * Store the book-level fields of a mapping. Chapter, page and attachment entries are stored as they change.
+     *
+     * @param mapping The mapping to store
+     */
+    public void save(BookMapping mapping) {
+        stateStore.put(bookKey(mapping), mapping);
+    }
+
+    /**
+     * Record the copy of a chapter.
+     */
+    public void putChapter(BookMapping mapping, Long sourceChapterId, EntityMapping entry) {
+        mapping.getChapters().put(sourceChapterId, entry);
+        stateStore.put(bookKey(mapping) + "/chapter/" + sourceChapterId, entry);
+    }
+
+    /**
+     * Record the copy of a page.
+     */
+    public void putPage(BookMapping mapping, Long sourcePageId, EntityMapping entry) {
+        mapping.getPages().put(sourcePageId, entry);
+        stateStore.put(bookKey(mapping) + "/page/" + sourcePageId, entry);
+    }
+
+    /**
+     * Forget the copy of a chapter.
+     */
+    public EntityMapping removeChapter(BookMapping mapping, Long sourceChapterId) {
+        stateStore.delete(bookKey(mapping) + "/chapter/" + sourceChapterId);
+        return mapping.getChapters().remove(sourceChapterId);
+    }
+
+    /**
+     * Forget the copy of a page.
+     */
+    public EntityMapping removePage(BookMapping mapping, Long sourcePageId) {
+        stateStore.delete(bookKey(mapping) + "/page/" + sourcePageId);
+        return mapping.getPages().remove(sourcePageId);
+    }
+
+    /**
+     * Record the copy of an attachment.
+     */
+    public void putAttachment(BookMapping mapping, Long sourceAttachmentId, AttachmentMapping entry) {
+        mapping.getAttachments().put(sourceAttachmentId, entry);
+        stateStore.put(bookKey(mapping) + "/attachment/" + sourceAttachmentId, entry);
+    }
+
+    /**
+     * Forget the copy of an attachment.
+     */
+    public AttachmentMapping removeAttachment(BookMapping mapping, Long sourceAttachmentId) {
+        stateStore.delete(bookKey(mapping) + "/attachment/" + sourceAttachmentId);
+        return mapping.getAttachments().remove(sourceAttachmentId);
+    }
+
+    private Optional<BookMapping> load(String bookKey) {
+        Optional<BookMapping> found = stateStore.get(bookKey, BookMapping.class);
+        found.ifPresent(mapping -> {
+            readEntries(bookKey + "/chapter/", EntityMapping.class).forEach(mapping.getChapters()::put);
+            readEntries(bookKey + "/page/", EntityMapping.class).forEach(mapping.getPages()::put);
+            readEntries(bookKey + "/attachment/", AttachmentMapping.class).forEach(mapping.getAttachments()::put);
+        });
+        return found;
+    }
+
+    private <T> Map<Long, T> readEntries(String prefix, Class<T> type) {
+        Map<Long, T> entries = new HashMap<>();
+        stateStore.scan(prefix, type)
+                .forEach((key, entry) -> entries.put(Long.valueOf(key.substring(prefix.length())), entry));
+        return entries;
+    }
+
+    private static String bookKey(BookMapping mapping) {
+        return bookKey(mapping.getSourceBaseUrl(), mapping.getDestinationBaseUrl(), mapping.getSourceBookId());
+    }
+
+    private static String bookKey(String sourceBaseUrl, String destinationBaseUrl, Long sourceBookId) {
+        return PREFIX + instancePairKey(sourceBaseUrl, destinationBaseUrl) + "/" + sourceBookId;
+    }
+
+    private static String shelfKey(String sourceBaseUrl, String destinationBaseUrl, Long sourceShelfId) {
+        return SHELF_PREFIX + instancePairKey(sourceBaseUrl, destinationBaseUrl) + "/" + sourceShelfId;
+    }
+
+    private static String imageKey(String sourceBaseUrl, String destinationBaseUrl, String sourcePath) {
+        return IMAGE_PREFIX + instancePairKey(sourceBaseUrl, destinationBaseUrl) + sourcePath;
+    }
+
+    private static String instancePairKey(String sourceBaseUrl, String destinationBaseUrl) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((sourceBaseUrl + "\n" + destinationBaseUrl).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
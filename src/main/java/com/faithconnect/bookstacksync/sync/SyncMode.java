@@ -0,0 +1,17 @@
+package com.faithconnect.bookstacksync.sync;
+
+/**
+ * How a book is synchronized to the destination.
+ */
+public enum SyncMode {
+    /**
+     * Create a brand-new copy of the book in the destination.
+     */
+    FULL,
+
+    /**
+     * Update the copy made by an earlier sync, writing only the chapters and pages that changed
+     * and deleting the ones removed from the source. Falls back to a full copy when there is no earlier copy.
+     */
+    INCREMENTAL
+}
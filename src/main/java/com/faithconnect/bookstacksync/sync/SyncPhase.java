@@ -0,0 +1,15 @@
+package com.faithconnect.bookstacksync.sync;
+
+/**
+ * The phases a sync job moves through.
+ */
+public enum SyncPhase {
+    QUEUED,
+    VERIFYING,
+    READING,
+    COPYING,
+    LINKS,
+    ATTACHMENTS,
+    COMPLETED,
+    FAILED
+}
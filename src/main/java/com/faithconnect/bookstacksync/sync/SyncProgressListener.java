@@ -0,0 +1,64 @@
+package com.faithconnect.bookstacksync.sync;
+
+/**
+ * Receives progress events from the sync engine.
+ * Events may arrive concurrently from the engine's worker threads.
+ */
+public interface SyncProgressListener {
+
+    /**
+     * A listener that ignores all events.
+     */
+    SyncProgressListener NONE = new SyncProgressListener() {
+    };
+
+    /**
+     * The sync moved to a new phase.
+     */
+    default void onPhase(SyncPhase phase) {
+    }
+
+    /**
+     * More source pages were discovered and will be copied.
+     */
+    default void onPagesDiscovered(int count) {
+    }
+
+    /**
+     * A page was written to the destination.
+     */
+    default void onPageCopied() {
+    }
+
+    /**
+     * A page was left alone because its destination copy is already up to date.
+     */
+    default void onPageSkipped() {
+    }
+
+    /**
+     * The links of a copied page were rewritten to point into the destination.
+     */
+    default void onPageRelinked() {
+    }
+
+    /**
+     * An attachment was written to the destination.
+     */
+    default void onAttachmentCopied() {
+    }
+
+    /**
+     * An attachment was left alone because its destination copy is already up to date.
+     */
+    default void onAttachmentSkipped() {
+    }
+
+    /**
+     * The destination book was created, or found in the mapping of an earlier sync.
+     *
+     * @param mapping The mapping in which the sync records every chapter and page it copies
+     */
+    default void onDestinationBook(BookMapping mapping) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.faithconnect.bookstacksync.sync;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds and replaces the URLs pointing into an instance, such as those of its images or pages, in page HTML or
+ * Markdown.
+ *
+ * The content is scanned once from start to end for a URL prefix, without parsing it into a document, so it works
+ * the same on {@code src} and {@code href} attributes and on Markdown links, and costs no more than a copy of the
+ * content however large the page. A URL ends before any query or fragment, which a replacement leaves in place.
+ * A prefix that is a path, for relative URLs, only matches where a URL starts, so not inside an absolute URL.
+ */
+final class UrlScanner {
+
+    private UrlScanner() {
+    }
+
+    /**
+     * @param baseUrl The base URL of an instance
+     * @param path A path on the instance, starting with a slash
+     * @return The prefix of every URL of the instance under the path
+     */
+    static String prefix(String baseUrl, String path) {
+        return trimBaseUrl(baseUrl) + path;
+    }
+
+    /**
+     * @return The base URL without a trailing slash
+     */
+    static String trimBaseUrl(String baseUrl) {
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * @param content HTML or Markdown, or null
+     * @param prefix See {@link #prefix}
+     * @return The distinct URLs starting with the prefix, in order of first appearance
+     */
+    static Set<String> find(String content, String prefix) {
+        Set<String> urls = new LinkedHashSet<>();
+        if (content == null) {
+            return urls;
+        }
+        int start = indexOf(content, prefix, 0);
+        while (start >= 0) {
+            int end = end(content, start + prefix.length());
+            if (end > start + prefix.length()) {
+                urls.add(content.substring(start, end));
+            }
+            start = indexOf(content, prefix, end);
+        }
+        return urls;
+    }
+
+    /**
+     * @param content HTML or Markdown, or null
+     * @param prefix See {@link #prefix}
+     * @param replacements The URL to put in place of each source URL; URLs without one are left as they are
+     * @return The content with the URLs replaced
+     */
+    static String replace(String content, String prefix, Map<String, String> replacements) {
+        if (content == null || replacements.isEmpty()) {
+            return content;
+        }
+        StringBuilder result = null;
+        int copied = 0;
+        int start = indexOf(content, prefix, 0);
+        while (start >= 0) {
+            int end = end(content, start + prefix.length());
+            String replacement = replacements.get(content.substring(start, end));
+            if (replacement != null) {
+                if (result == null) {
+                    result = new StringBuilder(content.length());
+                }
+                result.append(content, copied, start).append(replacement);
+                copied = end;
+            }
+            start = indexOf(content, prefix, end);
+        }
+        return result == null ? content : result.append(content, copied, content.length()).toString();
+    }
+
+    /**
+     * Find the next URL starting with the prefix. A path prefix must follow what can precede a URL: the start of
+     * the content, a quote or equals sign of an attribute, the parenthesis of a Markdown link, or whitespace.
+     */
+    private static int indexOf(String content, String prefix, int from) {
+        int start = content.indexOf(prefix, from);
+        if (!prefix.startsWith("/")) {
+            return start;
+        }
+        while (start > 0) {
+            char c = content.charAt(start - 1);
+            if (c == '"' || c == '\'' || c == '=' || c == '(' || c == '<' || Character.isWhitespace(c)) {
+                break;
+            }
+            start = content.indexOf(prefix, start + 1);
+        }
+        return start;
+    }
+
+    /**
+     * A URL ends at the quote closing its attribute, or at what ends a Markdown link or an unquoted attribute.
+     */
+    private static int end(String content, int from) {
+        int i = from;
+        while (i < content.length()) {
+            char c = content.charAt(i);
+            if (c == '"' || c == '\'' || c == '<' || c == '>' || c == '(' || c == ')' || c == '?' || c == '#'
+                    || Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+}
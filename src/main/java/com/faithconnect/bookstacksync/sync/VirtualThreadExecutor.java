@@ -0,0 +1,97 @@
+package com.faithconnect.bookstacksync.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on virtual threads, at most {@code concurrency} of them at a time.
+ *
+ * Tasks beyond the limit wait in a queue, as with a thread pool, so submitting never blocks; the engine submits
+ * from inside running tasks, and blocking there until a slot frees up could deadlock. A task is only given a
+ * virtual thread when it starts, so waiting tasks cost no thread at all and the limit can be far higher than the
+ * size of a pool of platform threads.
+ */
+@Slf4j
+class VirtualThreadExecutor implements Executor {
+
+    private final VirtualThreadTaskExecutor threads;
+    private final int concurrency;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private TaskDecorator taskDecorator = task -> task;
+    private volatile boolean shutdown;
+
+    /**
+     * @param threadNamePrefix The prefix of the names of the virtual threads
+     * @param concurrency The maximum number of tasks running at the same time
+     * @throws UnsupportedOperationException If the JVM doesn't support virtual threads
+     */
+    VirtualThreadExecutor(String threadNamePrefix, int concurrency) {
+        this.threads = new VirtualThreadTaskExecutor(threadNamePrefix);
+        this.concurrency = Math.max(concurrency, 1);
+    }
+
+    /**
+     * Set a decorator applied to each task when it is submitted, like that of a thread pool executor.
+     */
+    void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        queue.add(taskDecorator.decorate(task));
+        startWorker();
+    }
+
+    /**
+     * Stop starting queued tasks; those already running finish.
+     */
+    void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    private void startWorker() {
+        while (!queue.isEmpty()) {
+            int current = running.get();
+            if (current >= concurrency) {
+                // A running worker picks the task up
+                return;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                threads.execute(this::work);
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            Runnable task;
+            while (!shutdown && (task = queue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Uncaught error in sync task", e);
+                }
+            }
+        } finally {
+            running.decrementAndGet();
+            // A task queued after the last poll but before the decrement saw no free slot
+            if (!shutdown) {
+                startWorker();
+            }
+        }
+    }
+}
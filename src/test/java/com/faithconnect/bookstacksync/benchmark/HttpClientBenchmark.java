@@ -0,0 +1,167 @@
+package com.faithconnect.bookstacksync.benchmark;
+
+import com.faithconnect.bookstacksync.config.HttpClientConfig;
+import com.faithconnect.bookstacksync.config.HttpClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the HTTP client engines against a local stub server that mimics a BookStack page endpoint.
+ * Reports the number of TCP connections the server accepted and the p50/p99 request latency per engine.
+ *
+ * Usage: {@code mvn -q -Pbenchmark test-compile exec:java
+ * -Dexec.args="[requests] [concurrency] [payloadBytes] [serverDelayMillis]"}
+ */
+public class HttpClientBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int payloadBytes = args.length > 2 ? Integer.parseInt(args[2]) : 16 * 1024;
+        long serverDelayMillis = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        // Avoid Nagle/delayed-ACK stalls in the JDK server skewing the latency figures
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        StubServer server = new StubServer(payloadBytes, serverDelayMillis);
+        try {
+            System.out.printf("%d requests, concurrency %d, %d byte payload, %d ms server delay%n",
+                    requests, concurrency, payloadBytes, serverDelayMillis);
+            System.out.printf("%-8s %12s %10s %10s %10s %12s%n", "engine", "connections", "p50 ms", "p99 ms", "max ms", "req/s");
+            for (HttpClientProperties.Engine engine : HttpClientProperties.Engine.values()) {
+                // Warm up the JIT and the connection pool before measuring
+                run(engine, server, Math.min(requests, 500), concurrency);
+                server.resetConnections();
+                Result result = run(engine, server, requests, concurrency);
+                System.out.printf("%-8s %12d %10.2f %10.2f %10.2f %12.0f%n", engine, server.connectionCount(),
+                        result.percentile(50), result.percentile(99), result.percentile(100), result.throughput());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Result run(HttpClientProperties.Engine engine, StubServer server, int requests, int concurrency)
+            throws Exception {
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setEngine(engine);
+        properties.setMaxConnectionsPerRoute(concurrency);
+        properties.setMaxConnections(concurrency);
+
+        ClientHttpRequestFactory requestFactory = HttpClientConfig.createRequestFactory(properties);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            String url = server.baseUrl() + "/api/pages/1";
+            long[] latencies = new long[requests];
+            List<Future<?>> futures = new ArrayList<>(requests);
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    restTemplate.getForObject(url, String.class);
+                    latencies[index] = System.nanoTime() - requestStart;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Result(latencies, System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+            if (requestFactory instanceof DisposableBean disposable) {
+                disposable.destroy();
+            }
+        }
+    }
+
+    private record Result(long[] latencies, long elapsedNanos) {
+
+        double percentile(int percentile) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    /**
+     * Minimal HTTP/1.1 server returning a fixed JSON body. Each distinct client address is one TCP connection.
+     */
+    private static class StubServer {
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+        StubServer(int payloadBytes, long delayMillis) throws IOException {
+            byte[] body = createBody(payloadBytes);
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+            server.createContext("/api/pages", exchange -> {
+                connections.add(exchange.getRemoteAddress());
+                exchange.getRequestBody().readAllBytes();
+                if (delayMillis > 0) {
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        private static byte[] createBody(int payloadBytes) {
+            String prefix = "{\"id\":1,\"name\":\"Benchmark page\",\"html\":\"";
+            String suffix = "\"}";
+            StringBuilder builder = new StringBuilder(prefix);
+            while (builder.length() < payloadBytes - suffix.length()) {
+                builder.append("<p>Lorem ipsum dolor sit amet</p>");
+            }
+            return builder.append(suffix).toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        String baseUrl() {
+            return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+        }
+
+        int connectionCount() {
+            return connections.size();
+        }
+
+        void resetConnections() {
+            connections.clear();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
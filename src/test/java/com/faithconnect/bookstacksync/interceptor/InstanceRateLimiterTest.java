@@ -0,0 +1,215 @@
+package com.faithconnect.bookstacksync.interceptor;
+
+import com.faithconnect.bookstacksync.config.RateLimitProperties;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class InstanceRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final Offset<Long> ROUNDING = within(1L);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void burstIsServedAtOnceAndFurtherTokensAreWaitedFor() {
+        InstanceRateLimiter limiter = limiter(60, 3, 16, 16);
+
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isZero();
+        // One token per second at 60 per minute
+        assertThat(limiter.tryAcquire()).isCloseTo(SECOND, ROUNDING);
+        assertThat(limiter.tryAcquire()).isCloseTo(2 * SECOND, ROUNDING);
+    }
+
+    @Test
+    void bucketRefillsAtTheRateUpToTheBurst() {
+        InstanceRateLimiter limiter = limiter(60, 3, 16, 16);
+        drain(limiter, 3);
+
+        now.addAndGet(2 * SECOND);
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isCloseTo(SECOND, ROUNDING);
+
+        release(limiter, 6);
+        now.addAndGet(3600 * SECOND);
+        drain(limiter, 3);
+        assertThat(limiter.tryAcquire()).isCloseTo(SECOND, ROUNDING);
+    }
+
+    @Test
+    void reportedLimitAndRemainingRequestsAreApplied() {
+        InstanceRateLimiter limiter = limiter(60, 10, 16, 16);
+
+        limiter.update(120, 0);
+
+        // Nothing left in the window, and tokens come at 120 per minute
+        assertThat(limiter.tryAcquire()).isCloseTo(SECOND / 2, ROUNDING);
+    }
+
+    @Test
+    void pauseHoldsBackRequestsAndEmptiesTheBucket() {
+        InstanceRateLimiter limiter = limiter(60, 10, 16, 16);
+
+        limiter.pause(5 * SECOND);
+        assertThat(limiter.tryAcquire()).isCloseTo(5 * SECOND, ROUNDING);
+
+        now.addAndGet(5 * SECOND);
+        // The bucket refilled during the pause, but not beyond it
+        assertThat(limiter.tryAcquire()).isZero();
+    }
+
+    @Test
+    void shorterPauseDoesNotCutALongerOneShort() {
+        InstanceRateLimiter limiter = limiter(6000, 10, 16, 16);
+
+        limiter.pause(10 * SECOND);
+        limiter.pause(SECOND);
+
+        assertThat(limiter.tryAcquire()).isCloseTo(10 * SECOND, ROUNDING);
+    }
+
+    @Test
+    void concurrencyHalvesOnEveryThrottledRequest() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 8, 16);
+        drain(limiter, 8);
+
+        limiter.release(true);
+        assertThat(limiter.getConcurrency()).isEqualTo(4);
+        limiter.release(true);
+        assertThat(limiter.getConcurrency()).isEqualTo(2);
+        limiter.release(true);
+        assertThat(limiter.getConcurrency()).isEqualTo(1);
+        limiter.release(true);
+        assertThat(limiter.getConcurrency()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrencyGrowsByOneAfterAFullWindowOfSuccesses() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 4, 6);
+
+        successes(limiter, 3);
+        assertThat(limiter.getConcurrency()).isEqualTo(4);
+        successes(limiter, 1);
+        assertThat(limiter.getConcurrency()).isEqualTo(5);
+        successes(limiter, 5);
+        assertThat(limiter.getConcurrency()).isEqualTo(6);
+        successes(limiter, 20);
+        assertThat(limiter.getConcurrency()).isEqualTo(6);
+    }
+
+    @Test
+    void throttlingResetsTheIncreaseCredit() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 4, 16);
+        successes(limiter, 3);
+
+        limiter.tryAcquire();
+        limiter.release(true);
+        assertThat(limiter.getConcurrency()).isEqualTo(2);
+        successes(limiter, 1);
+        assertThat(limiter.getConcurrency()).isEqualTo(2);
+        successes(limiter, 1);
+        assertThat(limiter.getConcurrency()).isEqualTo(3);
+    }
+
+    @Test
+    void tryAcquireRefusesWhenNoSlotIsFree() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 2, 2);
+
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+    }
+
+    @Test
+    void slotWaitersRunWhenASlotIsReleased() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 1, 1);
+        assertThat(limiter.awaitSlot(() -> { })).isFalse();
+        limiter.tryAcquire();
+
+        AtomicInteger woken = new AtomicInteger();
+        assertThat(limiter.awaitSlot(woken::incrementAndGet)).isTrue();
+        assertThat(limiter.awaitSlot(woken::incrementAndGet)).isTrue();
+        assertThat(woken).hasValue(0);
+
+        limiter.release(false);
+        assertThat(woken).hasValue(2);
+
+        // Waiters run once
+        limiter.tryAcquire();
+        limiter.release(false);
+        assertThat(woken).hasValue(2);
+    }
+
+    @Test
+    void slotWaiterCanTakeTheReleasedSlot() {
+        InstanceRateLimiter limiter = limiter(6000, 100, 1, 1);
+        limiter.tryAcquire();
+        AtomicLong taken = new AtomicLong(Long.MIN_VALUE);
+
+        limiter.awaitSlot(() -> taken.set(limiter.tryAcquire()));
+        limiter.release(false);
+
+        assertThat(taken).hasValue(0);
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+    }
+
+    @Test
+    void acquireBlocksUntilASlotIsReleased() throws Exception {
+        InstanceRateLimiter limiter = limiter(6000, 100, 1, 1);
+        limiter.acquire();
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThatThrownBy(() -> waiting.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        limiter.release(false);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+    }
+
+    private InstanceRateLimiter limiter(int requestsPerMinute, int burst, int initialConcurrency, int maxConcurrency) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRequestsPerMinute(requestsPerMinute);
+        properties.setBurst(burst);
+        properties.setInitialConcurrency(initialConcurrency);
+        properties.setMaxConcurrency(maxConcurrency);
+        return new InstanceRateLimiter(properties, now::get);
+    }
+
+    private static void drain(InstanceRateLimiter limiter, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limiter.tryAcquire()).isZero();
+        }
+    }
+
+    private static void release(InstanceRateLimiter limiter, int requests) {
+        for (int i = 0; i < requests; i++) {
+            limiter.release(false);
+        }
+    }
+
+    private static void successes(InstanceRateLimiter limiter, int requests) {
+        for (int i = 0; i < requests; i++) {
+            limiter.tryAcquire();
+            limiter.release(false);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.faithconnect.bookstacksync.interceptor;
+
+import com.faithconnect.bookstacksync.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitingInterceptorTest {
+
+    private final RateLimitingInterceptor interceptor = new RateLimitingInterceptor(new RateLimitProperties());
+
+    @Test
+    void retryAfterInSeconds() {
+        assertThat(interceptor.retryAfter(retryAfter("12"))).isEqualTo(Duration.ofSeconds(12));
+        assertThat(interceptor.retryAfter(retryAfter(" 0 "))).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void retryAfterAsHttpDate() {
+        String inThirtySeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+
+        assertThat(interceptor.retryAfter(retryAfter(inThirtySeconds)))
+                .isBetween(Duration.ofSeconds(28), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void retryAfterInThePastIsNoWait() {
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(5));
+
+        assertThat(interceptor.retryAfter(retryAfter(past))).isEqualTo(Duration.ZERO);
+        assertThat(interceptor.retryAfter(retryAfter("-3"))).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void retryAfterIsClampedToTheMaximum() {
+        String inTwoHours = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusHours(2));
+
+        assertThat(interceptor.retryAfter(retryAfter("3600"))).isEqualTo(Duration.ofSeconds(60));
+        assertThat(interceptor.retryAfter(retryAfter(inTwoHours))).isEqualTo(Duration.ofSeconds(60));
+    }
+
+    @Test
+    void missingOrUnreadableRetryAfterFallsBackToTheDefault() {
+        assertThat(interceptor.retryAfter(HttpHeaders.EMPTY)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(interceptor.retryAfter(retryAfter("soon"))).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void instancesAreKeyedBySchemeHostAndPort() {
+        assertThat(RateLimitingInterceptor.instanceKey(URI.create("https://docs.example.org/api/books?count=1")))
+                .isEqualTo("https://docs.example.org");
+        assertThat(RateLimitingInterceptor.instanceKey(URI.create("http://127.0.0.1:9001/api/pages/4")))
+                .isEqualTo("http://127.0.0.1:9001");
+        assertThat(interceptor.limiter("http://a")).isSameAs(interceptor.limiter("http://a"));
+    }
+
+    private static HttpHeaders retryAfter(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, value);
+        return headers;
+    }
+}
@@ -0,0 +1,73 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Shelf;
+import com.faithconnect.bookstacksync.model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CreateClaimsTest {
+
+    private final BookStackConfig destination = new BookStackConfig("http://destination", "id", "secret");
+    private final BookStackConfig other = new BookStackConfig("http://other", "id", "secret");
+
+    @Test
+    void entityIsClaimedOncePerInstanceAndKind() {
+        CreateClaims claims = new CreateClaims();
+
+        assertThat(claims.claim(destination, CreateClaims.BOOK, 1L)).isTrue();
+        assertThat(claims.claim(destination, CreateClaims.BOOK, 1L)).isFalse();
+        assertThat(claims.isClaimed(destination, CreateClaims.BOOK, 1L)).isTrue();
+
+        assertThat(claims.isClaimed(destination, CreateClaims.SHELF, 1L)).isFalse();
+        assertThat(claims.isClaimed(other, CreateClaims.BOOK, 1L)).isFalse();
+        assertThat(claims.claim(destination, CreateClaims.BOOK, null)).isFalse();
+    }
+
+    @Test
+    void bookMatchesAsBookStackStoresIt() {
+        Book sent = book(null, "  A  guide ", tag("topic", "setup"));
+
+        assertThat(CreateClaims.matches(sent, book(2L, "A guide", tag("topic", " setup")))).isTrue();
+        assertThat(CreateClaims.matches(sent, book(2L, "Another guide", tag("topic", "setup")))).isFalse();
+        assertThat(CreateClaims.matches(sent, book(2L, "A guide", tag("topic", "other")))).isFalse();
+        assertThat(CreateClaims.matches(sent, book(2L, "A guide"))).isFalse();
+        assertThat(CreateClaims.matches(book(null, null), book(2L, ""))).isTrue();
+    }
+
+    @Test
+    void shelfMatchesOnlyWithTheSameBooksInOrder() {
+        Shelf sent = shelf(book(1L, null), book(2L, null));
+
+        assertThat(CreateClaims.matches(sent, shelf(book(1L, "first"), book(2L, "second")))).isTrue();
+        assertThat(CreateClaims.matches(sent, shelf(book(2L, null), book(1L, null)))).isFalse();
+        assertThat(CreateClaims.matches(sent, shelf(book(1L, null)))).isFalse();
+    }
+
+    private static Book book(Long id, String description, Tag... tags) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName("Guide");
+        book.setDescription(description);
+        book.setTags(List.of(tags));
+        return book;
+    }
+
+    private static Shelf shelf(Book... books) {
+        Shelf shelf = new Shelf();
+        shelf.setName("Shelf");
+        shelf.setBooks(List.of(books));
+        return shelf;
+    }
+
+    private static Tag tag(String name, String value) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        tag.setValue(value);
+        return tag;
+    }
+}
@@ -0,0 +1,261 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.ExportCacheProperties;
+import com.faithconnect.bookstacksync.config.SyncProperties;
+import com.faithconnect.bookstacksync.model.Book;
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import com.faithconnect.bookstacksync.model.Chapter;
+import com.faithconnect.bookstacksync.model.Export;
+import com.faithconnect.bookstacksync.model.ExportFormat;
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.store.StateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExportCacheTest {
+
+    @TempDir
+    Path stateDir;
+
+    @TempDir
+    Path exportDir;
+
+    private final BookStackApiService api = mock(BookStackApiService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * The body each page exports as, by page ID.
+     */
+    private final Map<Long, String> bodies = new HashMap<>();
+
+    private StateStore stateStore;
+
+    @BeforeEach
+    void setUp() {
+        SyncProperties properties = new SyncProperties();
+        properties.setStateDir(stateDir.toString());
+        properties.setStateFlushInterval(Duration.ofHours(1));
+        stateStore = new StateStore(properties, new ObjectMapper());
+        when(api.exportPage(anyLong(), any())).thenAnswer(invocation -> export(bodies.get(invocation.<Long>getArgument(0))));
+    }
+
+    @AfterEach
+    void closeStore() {
+        stateStore.close();
+    }
+
+    @Test
+    void unchangedPageIsServedFromTheCache() throws IOException {
+        page(1L, "2024-01-01", "first");
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+
+        assertThat(read(cache.exportPage(1L, ExportFormat.HTML))).isEqualTo("first");
+        assertThat(read(cache.exportPage(1L, ExportFormat.HTML))).isEqualTo("first");
+
+        verify(api, times(1)).exportPage(1L, ExportFormat.HTML);
+        verify(api, never()).getPage(anyLong(), any());
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void changedUpdatedAtReplacesTheCachedExport() throws IOException {
+        page(1L, "2024-01-01", "first");
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+        read(cache.exportPage(1L, ExportFormat.HTML));
+
+        page(1L, "2024-01-02", "second");
+
+        assertThat(read(cache.exportPage(1L, ExportFormat.HTML))).isEqualTo("second");
+        assertThat(read(cache.exportPage(1L, ExportFormat.HTML))).isEqualTo("second");
+        verify(api, times(2)).exportPage(1L, ExportFormat.HTML);
+        assertThat(cachedFiles()).hasSize(1);
+    }
+
+    @Test
+    void formatsAreCachedSeparately() throws IOException {
+        page(1L, "2024-01-01", "first");
+        when(api.exportPage(1L, ExportFormat.MARKDOWN)).thenAnswer(invocation -> export("# first"));
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+
+        assertThat(read(cache.exportPage(1L, ExportFormat.HTML))).isEqualTo("first");
+        assertThat(read(cache.exportPage(1L, ExportFormat.MARKDOWN))).isEqualTo("# first");
+        assertThat(cachedFiles()).hasSize(2);
+    }
+
+    @Test
+    void bookExportIsReplacedWhenAPageInItChanges() throws IOException {
+        Book book = new Book();
+        book.setId(2L);
+        book.setUpdatedAt("2024-01-01");
+        when(api.getBookSummary(2L)).thenReturn(book);
+        when(api.streamChapters(2L)).thenAnswer(invocation -> Stream.of(chapter(3L, "2024-01-01")));
+        when(api.streamPages(2L)).thenAnswer(invocation -> Stream.of(listed(1L, "2024-01-01")));
+        when(api.exportBook(2L, ExportFormat.PDF)).thenAnswer(invocation -> export("book"));
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+
+        read(cache.exportBook(2L, ExportFormat.PDF));
+        read(cache.exportBook(2L, ExportFormat.PDF));
+        verify(api, times(1)).exportBook(2L, ExportFormat.PDF);
+
+        // The book's own updated_at doesn't move when a page in it is edited
+        when(api.streamPages(2L)).thenAnswer(invocation -> Stream.of(listed(1L, "2024-01-02")));
+        read(cache.exportBook(2L, ExportFormat.PDF));
+        verify(api, times(2)).exportBook(2L, ExportFormat.PDF);
+        verify(api, never()).getBook(anyLong(), any());
+    }
+
+    @Test
+    void chapterExportIsReplacedWhenAPageInItChanges() throws IOException {
+        when(api.getChapterSummary(3L)).thenReturn(chapter(3L, "2024-01-01"));
+        when(api.listChapterPages(3L)).thenReturn(List.of(listed(1L, "2024-01-01")));
+        when(api.exportChapter(3L, ExportFormat.TEXT)).thenAnswer(invocation -> export("chapter"));
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+
+        read(cache.exportChapter(3L, ExportFormat.TEXT));
+        read(cache.exportChapter(3L, ExportFormat.TEXT));
+        when(api.listChapterPages(3L)).thenReturn(List.of(listed(1L, "2024-01-01"), listed(4L, "2024-01-01")));
+        read(cache.exportChapter(3L, ExportFormat.TEXT));
+
+        verify(api, times(2)).exportChapter(3L, ExportFormat.TEXT);
+        verify(api, never()).getChapter(anyLong(), any());
+    }
+
+    @Test
+    void leastRecentlyServedExportIsEvictedFirst() throws IOException {
+        page(1L, "2024-01-01", "aaaa");
+        page(2L, "2024-01-01", "bbbb");
+        page(3L, "2024-01-01", "cccc");
+        ExportCache cache = cache(DataSize.ofBytes(10));
+
+        read(cache.exportPage(1L, ExportFormat.HTML));
+        read(cache.exportPage(2L, ExportFormat.HTML));
+        // Page 1 is served again, so page 2 is now the least recently served
+        read(cache.exportPage(1L, ExportFormat.HTML));
+        read(cache.exportPage(3L, ExportFormat.HTML));
+
+        assertThat(cachedFiles()).hasSize(2);
+        read(cache.exportPage(1L, ExportFormat.HTML));
+        read(cache.exportPage(3L, ExportFormat.HTML));
+        verify(api, times(1)).exportPage(1L, ExportFormat.HTML);
+        verify(api, times(1)).exportPage(3L, ExportFormat.HTML);
+
+        assertThat(read(cache.exportPage(2L, ExportFormat.HTML))).isEqualTo("bbbb");
+        verify(api, times(2)).exportPage(2L, ExportFormat.HTML);
+    }
+
+    @Test
+    void exportLargerThanTheCacheIsServedAndDeletedOnClose() throws IOException {
+        page(1L, "2024-01-01", "larger than the cache");
+        ExportCache cache = cache(DataSize.ofBytes(8));
+
+        Export export = cache.exportPage(1L, ExportFormat.HTML);
+        assertThat(read(export)).isEqualTo("larger than the cache");
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThat(stateStore.keys("export-cache/")).isEmpty();
+        read(cache.exportPage(1L, ExportFormat.HTML));
+        verify(api, times(2)).exportPage(1L, ExportFormat.HTML);
+    }
+
+    @Test
+    void cacheSurvivesARestart() throws IOException {
+        page(1L, "2024-01-01", "first");
+        read(cache(DataSize.ofKilobytes(1)).exportPage(1L, ExportFormat.HTML));
+
+        ExportCache restarted = cache(DataSize.ofKilobytes(1));
+
+        assertThat(read(restarted.exportPage(1L, ExportFormat.HTML))).isEqualTo("first");
+        verify(api, times(1)).exportPage(1L, ExportFormat.HTML);
+    }
+
+    @Test
+    void missingPageIsLeftToTheExport() {
+        bodies.put(9L, "not found");
+        ExportCache cache = cache(DataSize.ofKilobytes(1));
+
+        cache.exportPage(9L, ExportFormat.HTML);
+
+        verify(api).exportPage(9L, ExportFormat.HTML);
+        assertThat(requests("miss")).isZero();
+    }
+
+    private ExportCache cache(DataSize maxSize) {
+        ExportCacheProperties properties = new ExportCacheProperties();
+        properties.setDir(exportDir.toString());
+        properties.setMaxSize(maxSize);
+        BookStackConfig source = new BookStackConfig();
+        source.setBaseUrl("http://source");
+        source.setTokenId("token");
+        return new ExportCache(api, stateStore, source, properties, meterRegistry);
+    }
+
+    private void page(Long id, String updatedAt, String body) {
+        when(api.getPageSummary(id)).thenReturn(listed(id, updatedAt));
+        bodies.put(id, body);
+    }
+
+    private static Page listed(Long id, String updatedAt) {
+        Page page = new Page();
+        page.setId(id);
+        page.setUpdatedAt(updatedAt);
+        return page;
+    }
+
+    private static Chapter chapter(Long id, String updatedAt) {
+        Chapter chapter = new Chapter();
+        chapter.setId(id);
+        chapter.setUpdatedAt(updatedAt);
+        return chapter;
+    }
+
+    private static Export export(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        return new Export("export.html", "text/html", bytes.length, in, in);
+    }
+
+    private static String read(Export export) throws IOException {
+        try (export) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            export.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("bookstack.export.cache.requests", "result", result).count();
+    }
+
+    private List<String> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(exportDir)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+}
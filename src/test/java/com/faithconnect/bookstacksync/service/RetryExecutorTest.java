@@ -0,0 +1,247 @@
+package com.faithconnect.bookstacksync.service;
+
+import com.faithconnect.bookstacksync.config.RetryProperties;
+import com.faithconnect.bookstacksync.service.RetryExecutor.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryExecutorTest {
+
+    private RetryProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RetryProperties();
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(5));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new RetryExecutor(properties, meterRegistry);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {408, 429, 500, 502, 503, 504})
+    void retriesTransientStatuses(int status) {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(Operation.READ, "read", failing(calls, 2, () -> status(status)));
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.counter("bookstack.client.retries", "operation", "read").count()).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401, 403, 404, 409, 422, 501})
+    void failsAtOnceOnOtherStatuses(int status) {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(Operation.READ, "read", failing(calls, 1, () -> status(status))))
+                .isInstanceOf(HttpStatusCodeException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void retriesIoErrors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(Operation.UPDATE, "update",
+                failing(calls, 1, () -> new ResourceAccessException("reset", new SocketTimeoutException())));
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void failsAtOnceOnOtherExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(Operation.READ, "read",
+                failing(calls, 1, () -> new IllegalStateException("bug"))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void stopsAfterTheAttemptBudgetOfTheOperation() {
+        properties.setDeleteAttempts(3);
+        executor = new RetryExecutor(properties, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(Operation.DELETE, "delete",
+                failing(calls, 10, () -> status(503))))
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void sendsOnceWhenDisabled() {
+        properties.setEnabled(false);
+        executor = new RetryExecutor(properties, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(Operation.READ, "read", failing(calls, 1, () -> status(503))))
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void createFoundByTheLookupIsNotSentAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger lookups = new AtomicInteger();
+
+        String result = executor.execute(Operation.CREATE, "create",
+                failing(calls, 1, () -> new ResourceAccessException("timeout", new SocketTimeoutException())),
+                () -> {
+                    lookups.incrementAndGet();
+                    return Optional.of("found");
+                });
+
+        assertThat(result).isEqualTo("found");
+        assertThat(calls).hasValue(1);
+        assertThat(lookups).hasValue(1);
+        assertThat(meterRegistry.counter("bookstack.client.retries.recovered", "operation", "create").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void createIsSentAgainWhenTheLookupFindsNothing() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(Operation.CREATE, "create", failing(calls, 1, () -> status(502)),
+                Optional::empty);
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void lookupIsSkippedWhenTheRequestWasNotApplied() {
+        AtomicInteger lookups = new AtomicInteger();
+        Supplier<Optional<String>> lookup = () -> {
+            lookups.incrementAndGet();
+            return Optional.of("found");
+        };
+
+        String refused = executor.execute(Operation.CREATE, "create",
+                failing(new AtomicInteger(), 1, () -> new ResourceAccessException("refused", new ConnectException())),
+                lookup);
+        String throttled = executor.execute(Operation.CREATE, "create",
+                failing(new AtomicInteger(), 1, () -> status(429)), lookup);
+        String timedOut = executor.execute(Operation.CREATE, "create",
+                failing(new AtomicInteger(), 1, () -> status(408)), lookup);
+
+        assertThat(refused).isEqualTo("ok");
+        assertThat(throttled).isEqualTo("ok");
+        assertThat(timedOut).isEqualTo("ok");
+        assertThat(lookups).hasValue(0);
+    }
+
+    @Test
+    void monoVariantRetriesAndUsesTheLookup() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = Mono.fromSupplier(failing(calls, 1, () -> status(500)));
+
+        String result = executor.execute(Operation.CREATE, "create", call, Mono.just("found")).block();
+
+        assertThat(result).isEqualTo("found");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void monoVariantStopsAfterTheAttemptBudget() {
+        properties.setReadAttempts(2);
+        executor = new RetryExecutor(properties, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = Mono.fromSupplier(failing(calls, 10, () -> status(503)));
+
+        assertThatThrownBy(() -> executor.execute(Operation.READ, "read", call).block())
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void backoffBoundDoublesPerAttemptUpToTheMaximum() {
+        properties.setInitialBackoff(Duration.ofMillis(100));
+        properties.setMaxBackoff(Duration.ofSeconds(1));
+        executor = new RetryExecutor(properties, meterRegistry);
+        RuntimeException failure = status(503);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(executor.backoffMillis(1, failure)).isBetween(0L, 99L);
+            assertThat(executor.backoffMillis(3, failure)).isBetween(0L, 399L);
+            assertThat(executor.backoffMillis(40, failure)).isBetween(0L, 999L);
+        }
+    }
+
+    @Test
+    void backoffIsJittered() {
+        properties.setInitialBackoff(Duration.ofSeconds(10));
+        properties.setMaxBackoff(Duration.ofSeconds(10));
+        executor = new RetryExecutor(properties, meterRegistry);
+
+        long first = executor.backoffMillis(1, status(503));
+        boolean varied = false;
+        for (int i = 0; i < 50 && !varied; i++) {
+            varied = executor.backoffMillis(1, status(503)) != first;
+        }
+        assertThat(varied).isTrue();
+    }
+
+    @Test
+    void retryAfterSetsTheMinimumWaitWithinTheMaximum() {
+        properties.setInitialBackoff(Duration.ofMillis(10));
+        properties.setMaxBackoff(Duration.ofSeconds(30));
+        executor = new RetryExecutor(properties, meterRegistry);
+
+        assertThat(executor.backoffMillis(1, throttled("2"))).isEqualTo(2000);
+        assertThat(executor.backoffMillis(1, throttled("120"))).isEqualTo(30000);
+        // An HTTP date is left to the rate limiter's pause
+        assertThat(executor.backoffMillis(1, throttled("Wed, 21 Oct 2015 07:28:00 GMT"))).isLessThan(10);
+    }
+
+    private static Supplier<String> failing(AtomicInteger calls, int failures, Supplier<RuntimeException> failure) {
+        return () -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw failure.get();
+            }
+            return "ok";
+        };
+    }
+
+    private static HttpStatusCodeException status(int status) {
+        HttpStatus httpStatus = HttpStatus.valueOf(status);
+        return httpStatus.is4xxClientError()
+                ? HttpClientErrorException.create(httpStatus, httpStatus.getReasonPhrase(), HttpHeaders.EMPTY, null, StandardCharsets.UTF_8)
+                : HttpServerErrorException.create(httpStatus, httpStatus.getReasonPhrase(), HttpHeaders.EMPTY, null, StandardCharsets.UTF_8);
+    }
+
+    private static HttpStatusCodeException throttled(String retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null,
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package com.faithconnect.bookstacksync.store;
+
+import com.faithconnect.bookstacksync.config.SyncProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private StateStore store;
+
+    @AfterEach
+    void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void putFlushReopenRoundTrip() {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("mapping/1", "one");
+        store.put("mapping/2", "two");
+        store.put("job/1", "job");
+        store.flush();
+
+        reopen(DataSize.ofMegabytes(4));
+
+        assertThat(store.get("mapping/1", String.class)).contains("one");
+        assertThat(store.scan("mapping/", String.class)).containsExactly(
+                Map.entry("mapping/1", "one"), Map.entry("mapping/2", "two"));
+        assertThat(store.keys("job/")).containsExactly("job/1");
+    }
+
+    @Test
+    void closeFlushesPendingWrites() {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("key", "value");
+
+        reopen(DataSize.ofMegabytes(4));
+
+        assertThat(store.get("key", String.class)).contains("value");
+    }
+
+    @Test
+    void deletesSurviveReopen() {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("mapping/1", "one");
+        store.put("mapping/2", "two");
+        store.put("cursor/1", "cursor");
+        store.flush();
+        store.delete("cursor/1");
+        store.deletePrefix("mapping/");
+        store.put("mapping/3", "three");
+
+        reopen(DataSize.ofMegabytes(4));
+
+        assertThat(store.keys("")).containsExactly("mapping/3");
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws IOException {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("first", "one");
+        store.flush();
+        long validBytes = Files.size(log());
+        store.put("second", "two");
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(log().toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        store = open(DataSize.ofMegabytes(4));
+
+        assertThat(store.keys("")).containsExactly("first");
+        assertThat(Files.size(log())).isEqualTo(validBytes);
+
+        // Records written after recovery follow the valid prefix
+        store.put("third", "three");
+        reopen(DataSize.ofMegabytes(4));
+        assertThat(store.keys("")).containsExactly("first", "third");
+    }
+
+    @Test
+    void corruptRecordAndEverythingAfterItAreDiscarded() throws IOException {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("first", "one");
+        store.flush();
+        long validBytes = Files.size(log());
+        store.put("second", "two");
+        store.flush();
+        store.put("third", "three");
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(log().toFile(), "rw")) {
+            // Last byte of the second record's value
+            long position = validBytes + 8 + 1 + 4 + "second".length() + "\"two\"".length() - 1;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xff);
+        }
+
+        store = open(DataSize.ofMegabytes(4));
+
+        assertThat(store.keys("")).containsExactly("first");
+        assertThat(Files.size(log())).isEqualTo(validBytes);
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveEntries() throws IOException {
+        store = open(DataSize.ofBytes(1));
+        store.put("kept", "value");
+        store.put("deleted", "value");
+        store.flush();
+        store.delete("deleted");
+        for (int i = 0; i < 20; i++) {
+            store.put("overwritten", "value " + i);
+        }
+        store.flush();
+
+        long compactedBytes = Files.size(log());
+        assertThat(compactedBytes).isEqualTo(recordSize("kept", "\"value\"") + recordSize("overwritten", "\"value 19\""));
+        assertThat(Files.exists(dir.resolve("state.log.compact"))).isFalse();
+
+        store.put("added", "after");
+        reopen(DataSize.ofBytes(1));
+
+        assertThat(store.scan("", String.class)).containsExactly(
+                Map.entry("added", "after"), Map.entry("kept", "value"), Map.entry("overwritten", "value 19"));
+    }
+
+    @Test
+    void compactionOnOpenShrinksTheLog() throws IOException {
+        store = open(DataSize.ofMegabytes(4));
+        for (int i = 0; i < 20; i++) {
+            store.put("key", "value " + i);
+        }
+        store.close();
+
+        store = open(DataSize.ofBytes(1));
+
+        assertThat(Files.size(log())).isEqualTo(recordSize("key", "\"value 19\""));
+        assertThat(store.get("key", String.class)).contains("value 19");
+    }
+
+    @Test
+    void valuesAreReadAsTheRequestedType() {
+        store = open(DataSize.ofMegabytes(4));
+        store.put("list", List.of(1L, 2L));
+
+        reopen(DataSize.ofMegabytes(4));
+
+        assertThat(store.get("list", Long[].class)).hasValueSatisfying(value -> assertThat(value).containsExactly(1L, 2L));
+        assertThat(store.get("missing", String.class)).isEmpty();
+    }
+
+    private StateStore open(DataSize compactionMinSize) {
+        SyncProperties properties = new SyncProperties();
+        properties.setStateDir(dir.toString());
+        properties.setStateCompactionMinSize(compactionMinSize);
+        // Flushed by the tests themselves
+        properties.setStateFlushInterval(Duration.ofHours(1));
+        return new StateStore(properties, new ObjectMapper());
+    }
+
+    private void reopen(DataSize compactionMinSize) {
+        store.close();
+        store = open(compactionMinSize);
+    }
+
+    private Path log() {
+        return dir.resolve("state.log");
+    }
+
+    private static long recordSize(String key, String json) {
+        return 8 + 1 + 4 + key.length() + json.length();
+    }
+}
@@ -0,0 +1,141 @@
+package com.faithconnect.bookstacksync.sync;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LinkIndexTest {
+
+    private static final String SOURCE = "https://source.example";
+    private static final String DESTINATION = "https://destination.example";
+
+    @Test
+    void prefixesCoverAbsoluteAndRelativeLinks() {
+        assertThat(LinkIndex.prefixes(SOURCE + "/")).containsExactly(
+                SOURCE + "/books/", SOURCE + "/link/", "/books/", "/link/");
+        assertThat(LinkIndex.prefixes("https://source.example/wiki")).containsExactly(
+                "https://source.example/wiki/books/", "https://source.example/wiki/link/", "/wiki/books/", "/wiki/link/");
+    }
+
+    @Test
+    void resolvesSlugUrlsOfBooksChaptersAndPages() {
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide()));
+
+        assertThat(index.resolve(SOURCE + "/books/guide")).isEqualTo(DESTINATION + "/books/guide-copy");
+        assertThat(index.resolve(SOURCE + "/books/guide/chapter/basics"))
+                .isEqualTo(DESTINATION + "/books/guide-copy/chapter/basics-copy");
+        assertThat(index.resolve(SOURCE + "/books/guide/page/install"))
+                .isEqualTo(DESTINATION + "/books/guide-copy/page/install-copy");
+        assertThat(index.resolve(SOURCE + "/books/guide/page/install/edit"))
+                .isEqualTo(DESTINATION + "/books/guide-copy/page/install-copy/edit");
+    }
+
+    @Test
+    void resolvesPermalinks() {
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide()));
+
+        assertThat(index.resolve(SOURCE + "/link/11")).isEqualTo(DESTINATION + "/link/111");
+        assertThat(index.resolve(SOURCE + "/link/99")).isNull();
+        assertThat(index.resolve(SOURCE + "/link/latest")).isNull();
+    }
+
+    @Test
+    void relativeLinksResolveToAbsoluteDestinationUrls() {
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide()));
+
+        assertThat(index.resolve("/books/guide/page/install")).isEqualTo(DESTINATION + "/books/guide-copy/page/install-copy");
+        assertThat(index.resolve("/link/11")).isEqualTo(DESTINATION + "/link/111");
+    }
+
+    @Test
+    void sourceUnderAPathResolvesItsRelativeLinks() {
+        BookMapping guide = guide();
+        guide.setSourceBaseUrl("https://source.example/wiki");
+        LinkIndex index = new LinkIndex("https://source.example/wiki/", DESTINATION + "/", List.of(guide));
+
+        assertThat(index.resolve("https://source.example/wiki/books/guide")).isEqualTo(DESTINATION + "/books/guide-copy");
+        assertThat(index.resolve("/wiki/books/guide/page/install"))
+                .isEqualTo(DESTINATION + "/books/guide-copy/page/install-copy");
+        assertThat(index.resolve("/wiki/link/11")).isEqualTo(DESTINATION + "/link/111");
+    }
+
+    @Test
+    void pageWithoutADestinationSlugFallsBackToItsPermalink() {
+        BookMapping guide = guide();
+        guide.getPages().get(12L).setDestinationSlug(null);
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide));
+
+        assertThat(index.resolve(SOURCE + "/books/guide/page/upgrade")).isEqualTo(DESTINATION + "/link/112");
+        // Only the page itself has a permalink
+        assertThat(index.resolve(SOURCE + "/books/guide/page/upgrade/edit")).isNull();
+    }
+
+    @Test
+    void linksIntoUnsyncedBooksAreUnresolved() {
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide()));
+
+        assertThat(index.resolve(SOURCE + "/books/handbook")).isNull();
+        assertThat(index.resolve(SOURCE + "/books/handbook/page/intro")).isNull();
+        assertThat(index.resolve("/books/handbook/page/intro")).isNull();
+        assertThat(index.resolve(SOURCE + "/books/guide/page/not-copied")).isNull();
+        assertThat(index.resolve(SOURCE + "/books/")).isNull();
+    }
+
+    @Test
+    void linksResolveOnceTheBookTheyPointAtIsSynced() {
+        BookMapping guide = guide();
+        guide.getPages().get(11L).setLinksPending(true);
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide));
+        assertThat(index.booksWithPendingLinks()).containsExactly(1L);
+        assertThat(index.resolve(SOURCE + "/books/handbook/page/intro")).isNull();
+
+        index.put(handbook());
+
+        assertThat(index.resolve(SOURCE + "/books/handbook/page/intro"))
+                .isEqualTo(DESTINATION + "/books/handbook-copy/page/intro-copy");
+        assertThat(index.resolve(SOURCE + "/link/21")).isEqualTo(DESTINATION + "/link/121");
+    }
+
+    @Test
+    void replacingABookForgetsItsOldSlugsAndPages() {
+        LinkIndex index = new LinkIndex(SOURCE, DESTINATION, List.of(guide()));
+        BookMapping renamed = guide();
+        renamed.setSourceSlug("manual");
+        renamed.getPages().remove(12L);
+
+        index.put(renamed);
+
+        assertThat(index.resolve(SOURCE + "/books/guide")).isNull();
+        assertThat(index.resolve(SOURCE + "/books/manual")).isEqualTo(DESTINATION + "/books/guide-copy");
+        assertThat(index.resolve(SOURCE + "/link/12")).isNull();
+        assertThat(index.booksWithPendingLinks()).isEmpty();
+    }
+
+    private static BookMapping guide() {
+        BookMapping mapping = BookMapping.create(SOURCE, DESTINATION, 1L, 101L);
+        mapping.setSourceSlug("guide");
+        mapping.setDestinationSlug("guide-copy");
+        mapping.getChapters().put(5L, entry(105L, "basics", "basics-copy"));
+        mapping.getPages().put(11L, entry(111L, "install", "install-copy"));
+        mapping.getPages().put(12L, entry(112L, "upgrade", "upgrade-copy"));
+        return mapping;
+    }
+
+    private static BookMapping handbook() {
+        BookMapping mapping = BookMapping.create(SOURCE, DESTINATION, 2L, 102L);
+        mapping.setSourceSlug("handbook");
+        mapping.setDestinationSlug("handbook-copy");
+        mapping.getPages().put(21L, entry(121L, "intro", "intro-copy"));
+        return mapping;
+    }
+
+    private static EntityMapping entry(Long destinationId, String sourceSlug, String destinationSlug) {
+        EntityMapping entry = new EntityMapping();
+        entry.setDestinationId(destinationId);
+        entry.setSourceSlug(sourceSlug);
+        entry.setDestinationSlug(destinationSlug);
+        return entry;
+    }
+}
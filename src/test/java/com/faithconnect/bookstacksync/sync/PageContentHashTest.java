@@ -0,0 +1,111 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.Page;
+import com.faithconnect.bookstacksync.model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageContentHashTest {
+
+    @Test
+    void hashIsStableAndHexEncoded() {
+        assertThat(PageContentHash.of(page())).isEqualTo(PageContentHash.of(page())).matches("[0-9a-f]{64}");
+    }
+
+    @Test
+    void everyWrittenFieldIsHashed() {
+        String hash = PageContentHash.of(page());
+
+        assertThat(hashWith(page -> page.setName("Other"))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.setHtml("<p>Other</p>"))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.setMarkdown("Other"))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.setPriority(4))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.setChapterId(8L))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.getTags().get(0).setValue("other"))).isNotEqualTo(hash);
+        assertThat(hashWith(page -> page.getTags().add(tag("extra", null)))).isNotEqualTo(hash);
+    }
+
+    @Test
+    void fieldsOutsideThePageBodyAreNotHashed() {
+        String hash = PageContentHash.of(page());
+
+        assertThat(hashWith(page -> {
+            page.setId(99L);
+            page.setBookId(99L);
+            page.setSlug("other-slug");
+            page.getTags().get(0).setOrder(7);
+        })).isEqualTo(hash);
+    }
+
+    @Test
+    void tagOrderIsHashed() {
+        assertThat(hashWith(page -> page.setTags(new ArrayList<>(List.of(tag("b", "2"), tag("a", "1"))))))
+                .isNotEqualTo(PageContentHash.of(page()));
+    }
+
+    @Test
+    void missingFieldsHashDifferentlyFromEmptyOnes() {
+        assertThat(hashWith(page -> page.setMarkdown(null))).isNotEqualTo(hashWith(page -> page.setMarkdown("")));
+        assertThat(hashWith(page -> page.setTags(null))).isNotEqualTo(hashWith(page -> page.setTags(List.of())));
+        assertThat(hashWith(page -> page.getTags().get(0).setValue(null)))
+                .isNotEqualTo(hashWith(page -> page.getTags().get(0).setValue("")));
+    }
+
+    @Test
+    void valuesDoNotRunIntoTheNextField() {
+        assertThat(hashWith(page -> {
+            page.setName("ab");
+            page.setHtml("c");
+        })).isNotEqualTo(hashWith(page -> {
+            page.setName("a");
+            page.setHtml("bc");
+        }));
+    }
+
+    @Test
+    void crlfIsNormalizedToLf() {
+        assertThat(hashWith(page -> page.setHtml("<p>one</p>\r\n<p>two</p>\r\n")))
+                .isEqualTo(hashWith(page -> page.setHtml("<p>one</p>\n<p>two</p>\n")));
+        assertThat(hashWith(page -> page.setMarkdown("\r\n\r\n")))
+                .isEqualTo(hashWith(page -> page.setMarkdown("\n\n")));
+    }
+
+    @Test
+    void loneCarriageReturnsAreKept() {
+        assertThat(hashWith(page -> page.setMarkdown("one\rtwo"))).isNotEqualTo(hashWith(page -> page.setMarkdown("onetwo")));
+        assertThat(hashWith(page -> page.setMarkdown("one\r"))).isNotEqualTo(hashWith(page -> page.setMarkdown("one")));
+        assertThat(hashWith(page -> page.setMarkdown("\r\r\n"))).isNotEqualTo(hashWith(page -> page.setMarkdown("\n")));
+    }
+
+    private static String hashWith(Consumer<Page> change) {
+        Page page = page();
+        change.accept(page);
+        return PageContentHash.of(page);
+    }
+
+    private static Page page() {
+        Page page = new Page();
+        page.setId(1L);
+        page.setBookId(2L);
+        page.setChapterId(3L);
+        page.setName("Getting started");
+        page.setSlug("getting-started");
+        page.setHtml("<p>Hello</p>");
+        page.setMarkdown("Hello");
+        page.setPriority(1);
+        page.setTags(new ArrayList<>(List.of(tag("a", "1"), tag("b", "2"))));
+        return page;
+    }
+
+    private static Tag tag(String name, String value) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        tag.setValue(value);
+        return tag;
+    }
+}
@@ -0,0 +1,139 @@
+package com.faithconnect.bookstacksync.sync;
+
+import com.faithconnect.bookstacksync.model.BookStackConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SyncContextTest {
+
+    private final SyncContext outer = context("outer", "http://outer");
+    private final SyncContext inner = context("inner", "http://inner");
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void runInstallsTheContextAndRestoresThePreviousOne() {
+        assertThat(SyncContext.current()).isSameAs(SyncContext.NONE);
+
+        outer.run(() -> {
+            assertThat(SyncContext.current()).isSameAs(outer);
+            assertThat(MDC.get("requestId")).isEqualTo("outer");
+            inner.run(() -> {
+                assertThat(SyncContext.current()).isSameAs(inner);
+                assertThat(MDC.get("requestId")).isEqualTo("inner");
+            });
+            assertThat(SyncContext.current()).isSameAs(outer);
+            assertThat(MDC.get("requestId")).isEqualTo("outer");
+        });
+
+        assertThat(SyncContext.current()).isSameAs(SyncContext.NONE);
+        assertThat(MDC.get("requestId")).isNull();
+    }
+
+    @Test
+    void callReturnsTheResultAndRestoresTheContextWhenItFails() {
+        assertThat(outer.call(() -> SyncContext.current().requestId())).isEqualTo("outer");
+
+        assertThatThrownBy(() -> outer.call(() -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(SyncContext.current()).isSameAs(SyncContext.NONE);
+    }
+
+    @Test
+    void credentialsAreCopied() {
+        BookStackConfig source = outer.source();
+        source.setBaseUrl("http://changed");
+
+        assertThat(outer.source().getBaseUrl()).isEqualTo("http://outer");
+        assertThat(outer.sourceOr(null).getBaseUrl()).isEqualTo("http://outer");
+        BookStackConfig configured = new BookStackConfig("http://configured", "id", "secret");
+        assertThat(SyncContext.NONE.destinationOr(configured)).isSameAs(configured);
+        assertThat(outer.toString()).doesNotContain("secret");
+    }
+
+    @Test
+    void contextReachesExecutorTasks() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setTaskDecorator(SyncContext::propagate);
+        executor.initialize();
+        try {
+            CompletableFuture<SyncContext> seen = new CompletableFuture<>();
+            outer.run(() -> executor.execute(() -> seen.complete(SyncContext.current())));
+            assertThat(seen.get(5, TimeUnit.SECONDS)).isSameAs(outer);
+
+            // The pool thread doesn't keep the context of the task it ran last
+            CompletableFuture<SyncContext> after = new CompletableFuture<>();
+            executor.execute(() -> after.complete(SyncContext.current()));
+            assertThat(after.get(5, TimeUnit.SECONDS)).isSameAs(SyncContext.NONE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void contextReachesVirtualThreads() throws Exception {
+        VirtualThreadExecutor executor;
+        try {
+            executor = new VirtualThreadExecutor("sync-context-test-", 2);
+        } catch (UnsupportedOperationException e) {
+            assumeTrue(false, "Virtual threads are not supported by this JVM");
+            return;
+        }
+        executor.setTaskDecorator(SyncContext::propagate);
+        try {
+            CompletableFuture<SyncContext> seen = new CompletableFuture<>();
+            CompletableFuture<String> requestId = new CompletableFuture<>();
+            outer.run(() -> executor.execute(() -> {
+                requestId.complete(MDC.get("requestId"));
+                seen.complete(SyncContext.current());
+            }));
+
+            assertThat(seen.get(5, TimeUnit.SECONDS)).isSameAs(outer);
+            assertThat(requestId.get(5, TimeUnit.SECONDS)).isEqualTo("outer");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void reactiveCallTakesTheBoundContext() {
+        Mono<SyncContext> call = SyncContext.mono(Mono::just);
+
+        SyncContext seen = inner.bind(call.subscribeOn(Schedulers.boundedElastic())).block();
+
+        assertThat(seen).isSameAs(inner);
+    }
+
+    @Test
+    void reactiveCallFallsBackToTheContextItWasMadeUnder() {
+        Mono<SyncContext> mono = outer.call(() -> SyncContext.mono(Mono::just));
+        Flux<SyncContext> flux = outer.call(() -> SyncContext.flux(Flux::just));
+
+        // Subscribed to outside the context, on another thread
+        assertThat(mono.subscribeOn(Schedulers.boundedElastic()).block()).isSameAs(outer);
+        assertThat(flux.subscribeOn(Schedulers.boundedElastic()).blockFirst()).isSameAs(outer);
+        assertThat(inner.bind(mono).block()).isSameAs(inner);
+    }
+
+    private static SyncContext context(String requestId, String baseUrl) {
+        return new SyncContext(new BookStackConfig(baseUrl, "id", "secret"), null, requestId, Instant.now());
+    }
+}
@@ -0,0 +1,100 @@
+package com.faithconnect.bookstacksync.sync;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlScannerTest {
+
+    private static final String PREFIX = "https://source.example/books/";
+
+    @Test
+    void prefixIgnoresATrailingSlashOfTheBaseUrl() {
+        assertThat(UrlScanner.prefix("https://source.example/", "/books/")).isEqualTo(PREFIX);
+        assertThat(UrlScanner.prefix("https://source.example", "/books/")).isEqualTo(PREFIX);
+    }
+
+    @Test
+    void findsUrlsInAttributesAndMarkdownLinks() {
+        String content = "<a href=\"https://source.example/books/a/page/one\">One</a>"
+                + "<img src='https://source.example/books/a/page/two'>"
+                + "[Three](https://source.example/books/a/page/three) "
+                + "<https://source.example/books/a/page/four>\n"
+                + "https://source.example/books/a/page/five";
+
+        assertThat(UrlScanner.find(content, PREFIX)).containsExactly(
+                PREFIX + "a/page/one", PREFIX + "a/page/two", PREFIX + "a/page/three", PREFIX + "a/page/four",
+                PREFIX + "a/page/five");
+    }
+
+    @Test
+    void urlsEndBeforeQueryAndFragment() {
+        String content = "<a href=\"https://source.example/books/a/page/one?revision=2#bkmrk-intro\">"
+                + "[Two](https://source.example/books/a/page/two#bkmrk-end)";
+
+        assertThat(UrlScanner.find(content, PREFIX)).containsExactly(PREFIX + "a/page/one", PREFIX + "a/page/two");
+    }
+
+    @Test
+    void findsEachUrlOnceAndSkipsTheBarePrefix() {
+        String content = "<a href=\"https://source.example/books/\">All</a>"
+                + "<a href=\"https://source.example/books/a\">A</a><a href=\"https://source.example/books/a\">A</a>";
+
+        assertThat(UrlScanner.find(content, PREFIX)).containsExactly(PREFIX + "a");
+        assertThat(UrlScanner.find(null, PREFIX)).isEmpty();
+    }
+
+    @Test
+    void leavesUrlsOfOtherInstancesAlone() {
+        String content = "<a href=\"https://other.example/books/a\">A</a>"
+                + "<a href=\"https://source.example.org/books/b\">B</a>";
+
+        assertThat(UrlScanner.find(content, PREFIX)).isEmpty();
+    }
+
+    @Test
+    void relativePrefixOnlyMatchesWhereAUrlStarts() {
+        String content = "<a href=\"/books/a\">A</a><a href='/books/b'>B</a>[C](/books/c) <a href=/books/d>D</a>"
+                + "<a href=\"https://source.example/books/e\">E</a><a href=\"//cdn.example/books/f\">F</a>"
+                + "<a href=\"/wiki/books/g\">G</a>";
+
+        assertThat(UrlScanner.find(content, "/books/")).containsExactly("/books/a", "/books/b", "/books/c", "/books/d");
+        assertThat(UrlScanner.find("/books/start", "/books/")).containsExactly("/books/start");
+    }
+
+    @Test
+    void replacesUrlsAndKeepsQueryAndFragment() {
+        String content = "<a href=\"https://source.example/books/a/page/one?revision=2#bkmrk-intro\">One</a>"
+                + "[Again](https://source.example/books/a/page/one) "
+                + "<a href=\"https://source.example/books/a/page/unknown\">Unknown</a>";
+
+        String replaced = UrlScanner.replace(content, PREFIX,
+                Map.of(PREFIX + "a/page/one", "https://destination.example/books/b/page/one"));
+
+        assertThat(replaced).isEqualTo(
+                "<a href=\"https://destination.example/books/b/page/one?revision=2#bkmrk-intro\">One</a>"
+                        + "[Again](https://destination.example/books/b/page/one) "
+                        + "<a href=\"https://source.example/books/a/page/unknown\">Unknown</a>");
+    }
+
+    @Test
+    void replaceReturnsTheContentItselfWhenNothingChanges() {
+        String content = "<a href=\"https://source.example/books/a\">A</a>";
+
+        assertThat(UrlScanner.replace(content, PREFIX, Map.of(PREFIX + "b", "https://destination.example/books/b")))
+                .isSameAs(content);
+        assertThat(UrlScanner.replace(content, PREFIX, Map.of())).isSameAs(content);
+        assertThat(UrlScanner.replace(null, PREFIX, Map.of(PREFIX + "a", "x"))).isNull();
+    }
+
+    @Test
+    void replacesRelativeUrls() {
+        String content = "<a href=\"/books/a\">A</a><a href=\"https://other.example/books/a\">Other</a>";
+
+        assertThat(UrlScanner.replace(content, "/books/", Map.of("/books/a", "https://destination.example/books/b")))
+                .isEqualTo("<a href=\"https://destination.example/books/b\">A</a>"
+                        + "<a href=\"https://other.example/books/a\">Other</a>");
+    }
+}